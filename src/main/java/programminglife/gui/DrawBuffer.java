@@ -0,0 +1,1017 @@
+package programminglife.gui;
+
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+
+import java.awt.BasicStroke;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Line2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.geom.RoundRectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A buffer of drawing commands. Commands are recorded with the same calls as on a {@link GraphicsContext},
+ * and can then be replayed onto a GraphicsContext or rasterized onto a {@link BufferedImage}.
+ * Rasterizing does not touch any JavaFX state, so it can be done off the FX thread.
+ * A buffer should not be recorded into anymore once it is handed to another thread.
+ * <p>
+ * A recorded buffer can be {@link #batched()}: primitives with the same paint and line width are then
+ * drawn together, which takes far fewer state changes and draw calls than drawing them one by one.
+ */
+public class DrawBuffer {
+    private final List<Command> commands;
+
+    private State state;
+    private int transformDepth;
+    private final Deque<State> savedStates;
+    private final Deque<Integer> transformDepths;
+
+    /**
+     * Create an empty DrawBuffer.
+     */
+    public DrawBuffer() {
+        this.commands = new ArrayList<>();
+        this.state = State.DEFAULT;
+        this.transformDepth = 0;
+        this.savedStates = new ArrayDeque<>();
+        this.transformDepths = new ArrayDeque<>();
+    }
+
+    /**
+     * Set the stroke color. A null color is ignored, like on a {@link GraphicsContext}.
+     *
+     * @param color the {@link Color} to stroke with.
+     */
+    public void setStroke(Color color) {
+        if (color != null) {
+            state = new State(color, state.fill, state.lineWidth);
+            commands.add(new StrokeColor(color));
+        }
+    }
+
+    /**
+     * Set the fill color. A null color is ignored, like on a {@link GraphicsContext}.
+     *
+     * @param color the {@link Color} to fill with.
+     */
+    public void setFill(Color color) {
+        if (color != null) {
+            state = new State(state.stroke, color, state.lineWidth);
+            commands.add(new FillColor(color));
+        }
+    }
+
+    /**
+     * Set the line width.
+     *
+     * @param width the width of the lines to draw.
+     */
+    public void setLineWidth(double width) {
+        state = new State(state.stroke, state.fill, width);
+        commands.add(new LineWidth(width));
+    }
+
+    /**
+     * Stroke a line.
+     *
+     * @param x1 x coordinate of the start.
+     * @param y1 y coordinate of the start.
+     * @param x2 x coordinate of the end.
+     * @param y2 y coordinate of the end.
+     */
+    public void strokeLine(double x1, double y1, double x2, double y2) {
+        commands.add(new Line(x1, y1, x2, y2, state, bounds(Math.min(x1, x2), Math.min(y1, y2),
+                Math.abs(x2 - x1), Math.abs(y2 - y1), true)));
+    }
+
+    /**
+     * Stroke a rectangle.
+     *
+     * @param x      x coordinate of the top left corner.
+     * @param y      y coordinate of the top left corner.
+     * @param width  width of the rectangle.
+     * @param height height of the rectangle.
+     */
+    public void strokeRect(double x, double y, double width, double height) {
+        commands.add(new Rect(x, y, width, height, 0, 0, false, state, bounds(x, y, width, height, true)));
+    }
+
+    /**
+     * Fill a rectangle.
+     *
+     * @param x      x coordinate of the top left corner.
+     * @param y      y coordinate of the top left corner.
+     * @param width  width of the rectangle.
+     * @param height height of the rectangle.
+     */
+    public void fillRect(double x, double y, double width, double height) {
+        commands.add(new Rect(x, y, width, height, 0, 0, true, state, bounds(x, y, width, height, false)));
+    }
+
+    /**
+     * Stroke a rectangle with rounded corners.
+     *
+     * @param x         x coordinate of the top left corner.
+     * @param y         y coordinate of the top left corner.
+     * @param width     width of the rectangle.
+     * @param height    height of the rectangle.
+     * @param arcWidth  width of the arcs in the corners.
+     * @param arcHeight height of the arcs in the corners.
+     */
+    public void strokeRoundRect(double x, double y, double width, double height, double arcWidth, double arcHeight) {
+        commands.add(new Rect(x, y, width, height, arcWidth, arcHeight, false, state,
+                bounds(x, y, width, height, true)));
+    }
+
+    /**
+     * Fill a rectangle with rounded corners.
+     *
+     * @param x         x coordinate of the top left corner.
+     * @param y         y coordinate of the top left corner.
+     * @param width     width of the rectangle.
+     * @param height    height of the rectangle.
+     * @param arcWidth  width of the arcs in the corners.
+     * @param arcHeight height of the arcs in the corners.
+     */
+    public void fillRoundRect(double x, double y, double width, double height, double arcWidth, double arcHeight) {
+        commands.add(new Rect(x, y, width, height, arcWidth, arcHeight, true, state,
+                bounds(x, y, width, height, false)));
+    }
+
+    /**
+     * Save the current state (colors, line width and transformation).
+     */
+    public void save() {
+        transformDepths.push(transformDepth);
+        savedStates.push(state);
+        commands.add(new Save(state));
+    }
+
+    /**
+     * Restore the state to the one of the last {@link #save()}.
+     */
+    public void restore() {
+        if (!transformDepths.isEmpty()) {
+            transformDepth = transformDepths.pop();
+            state = savedStates.pop();
+        }
+        commands.add(new Restore());
+    }
+
+    /**
+     * Translate the current transformation.
+     *
+     * @param x the translation in the x direction.
+     * @param y the translation in the y direction.
+     */
+    public void translate(double x, double y) {
+        transformDepth++;
+        commands.add(new Transform(AffineTransform.getTranslateInstance(x, y)));
+    }
+
+    /**
+     * Rotate the current transformation.
+     *
+     * @param degrees the number of degrees to rotate clockwise.
+     */
+    public void rotate(double degrees) {
+        transformDepth++;
+        commands.add(new Transform(AffineTransform.getRotateInstance(Math.toRadians(degrees))));
+    }
+
+    /**
+     * Mark a boundary between two phases of the drawing. When batching, everything that was recorded
+     * before the boundary is still drawn before everything that is recorded after it.
+     */
+    public void barrier() {
+        commands.add(new Barrier());
+    }
+
+    /**
+     * Get whether nothing was recorded in this buffer.
+     *
+     * @return true if there are no commands in this buffer.
+     */
+    public boolean isEmpty() {
+        return commands.isEmpty();
+    }
+
+    /**
+     * Get the number of commands in this buffer, where a batch counts as one command.
+     *
+     * @return the number of commands.
+     */
+    public int size() {
+        return commands.size();
+    }
+
+    /**
+     * Create a batched version of this buffer. Within each phase (see {@link #barrier()}), all strokes
+     * are drawn before all fills, and primitives with the same paint and line width are drawn together.
+     * Lines and rectangles are drawn as a single path per paint, rounded rectangles are drawn one by one
+     * but without changing the state in between. Parts that are drawn in a transformed space
+     * (between {@link #save()} and {@link #restore()}) are drawn unbatched after the rest of their phase.
+     * <p>
+     * This changes the order in which primitives are drawn, which only changes the result where
+     * primitives of different paints in the same phase overlap.
+     *
+     * @return a new {@link DrawBuffer} with the same drawing.
+     */
+    public DrawBuffer batched() {
+        DrawBuffer result = new DrawBuffer();
+        int start = 0;
+        for (int i = 0; i <= commands.size(); i++) {
+            if (i == commands.size() || commands.get(i) instanceof Barrier) {
+                batchPhase(commands.subList(start, i), result.commands);
+                start = i + 1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Batch the commands of a single phase.
+     *
+     * @param phase  the commands of the phase.
+     * @param result the list to add the batched commands to.
+     */
+    private static void batchPhase(List<Command> phase, List<Command> result) {
+        Map<BatchKey, Batch> strokes = new LinkedHashMap<>();
+        Map<BatchKey, Batch> fills = new LinkedHashMap<>();
+        List<Command> unbatched = new ArrayList<>();
+
+        for (int i = 0; i < phase.size(); i++) {
+            Command command = phase.get(i);
+            if (command instanceof Shape) {
+                Shape shape = (Shape) command;
+                BatchKey key = new BatchKey(shape);
+                (key.fill ? fills : strokes).computeIfAbsent(key, Batch::new).add(shape);
+            } else if (command instanceof Save) {
+                int end = findRestore(phase, i);
+                if (containsTransform(phase, i, end)) {
+                    State start = ((Save) command).state;
+                    unbatched.add(new StrokeColor(start.stroke));
+                    unbatched.add(new FillColor(start.fill));
+                    unbatched.add(new LineWidth(start.lineWidth));
+                    unbatched.addAll(phase.subList(i, Math.min(end + 1, phase.size())));
+                    i = end;
+                }
+            } else if (command instanceof Transform) {
+                // a transformation that is never restored, keep the rest of the phase as it is.
+                unbatched.addAll(phase.subList(i, phase.size()));
+                break;
+            }
+        }
+
+        for (Batch batch : strokes.values()) {
+            batch.emit(result);
+        }
+        for (Batch batch : fills.values()) {
+            batch.emit(result);
+        }
+        result.addAll(unbatched);
+    }
+
+    /**
+     * Find the {@link Restore} that belongs to a {@link Save}.
+     *
+     * @param commands the commands to search in.
+     * @param save     the index of the {@link Save}.
+     * @return the index of the matching {@link Restore}, or the last index if there is none.
+     */
+    private static int findRestore(List<Command> commands, int save) {
+        int depth = 0;
+        for (int i = save; i < commands.size(); i++) {
+            if (commands.get(i) instanceof Save) {
+                depth++;
+            } else if (commands.get(i) instanceof Restore && --depth == 0) {
+                return i;
+            }
+        }
+        return commands.size() - 1;
+    }
+
+    /**
+     * Whether there is a {@link Transform} within a range of commands.
+     *
+     * @param commands the commands to search in.
+     * @param from     the first index of the range (inclusive).
+     * @param to       the last index of the range (inclusive).
+     * @return true if there is a transformation in the range.
+     */
+    private static boolean containsTransform(List<Command> commands, int from, int to) {
+        for (int i = from; i <= to && i < commands.size(); i++) {
+            if (commands.get(i) instanceof Transform) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Replay all commands onto a {@link GraphicsContext}. Must be called on the FX thread
+     * if the GraphicsContext belongs to a {@link javafx.scene.canvas.Canvas} in a live scene.
+     *
+     * @param gc the {@link GraphicsContext} to draw on.
+     */
+    public void replay(GraphicsContext gc) {
+        for (Command command : commands) {
+            command.apply(gc);
+        }
+    }
+
+    /**
+     * Rasterize a rectangular part of the recorded drawing onto a new image.
+     * Commands that fall completely outside of the rectangle are skipped.
+     *
+     * @param x      the x coordinate of the left side of the rectangle.
+     * @param y      the y coordinate of the top side of the rectangle.
+     * @param width  the width of the rectangle, and of the image.
+     * @param height the height of the rectangle, and of the image.
+     * @return a {@link BufferedImage} with the drawing.
+     */
+    public BufferedImage rasterize(double x, double y, int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.translate(-x, -y);
+            AwtTarget target = new AwtTarget(g, x, y, x + width, y + height);
+            for (Command command : commands) {
+                if (command.intersects(x, y, x + width, y + height)) {
+                    command.apply(target);
+                }
+            }
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+    /**
+     * Compute the bounds of a shape that is about to be recorded.
+     *
+     * @param x       x coordinate of the top left corner.
+     * @param y       y coordinate of the top left corner.
+     * @param width   width of the shape.
+     * @param height  height of the shape.
+     * @param stroked whether the shape is stroked (and thus extends with half the line width).
+     * @return the bounds as {minX, minY, maxX, maxY}, or null if the bounds are not known.
+     */
+    private double[] bounds(double x, double y, double width, double height, boolean stroked) {
+        if (transformDepth > 0) {
+            return null; // drawn in a transformed space, never cull these.
+        }
+        double padding = stroked ? state.lineWidth / 2 + 1 : 1;
+        return new double[]{x - padding, y - padding, x + width + padding, y + height + padding};
+    }
+
+    /**
+     * A single recorded command.
+     */
+    private abstract static class Command {
+        /**
+         * Apply this command on a {@link GraphicsContext}.
+         *
+         * @param gc the {@link GraphicsContext} to apply it on.
+         */
+        abstract void apply(GraphicsContext gc);
+
+        /**
+         * Apply this command on an AWT target.
+         *
+         * @param target the {@link AwtTarget} to apply it on.
+         */
+        abstract void apply(AwtTarget target);
+
+        /**
+         * Whether this command has any effect inside a rectangle.
+         *
+         * @param minX left side of the rectangle.
+         * @param minY top side of the rectangle.
+         * @param maxX right side of the rectangle.
+         * @param maxY bottom side of the rectangle.
+         * @return true if it might have effect, false if it certainly does not.
+         */
+        boolean intersects(double minX, double minY, double maxX, double maxY) {
+            return true;
+        }
+    }
+
+    /**
+     * A command that draws a shape inside some bounds.
+     */
+    private abstract static class Shape extends Command {
+        private final State state;
+        private final double[] bounds;
+
+        /**
+         * Constructor for a Shape.
+         *
+         * @param state  the {@link State} the shape is drawn with.
+         * @param bounds the bounds {minX, minY, maxX, maxY}, or null if unknown.
+         */
+        Shape(State state, double[] bounds) {
+            this.state = state;
+            this.bounds = bounds;
+        }
+
+        @Override
+        boolean intersects(double minX, double minY, double maxX, double maxY) {
+            return bounds == null
+                    || bounds[0] <= maxX && bounds[2] >= minX && bounds[1] <= maxY && bounds[3] >= minY;
+        }
+
+        /**
+         * Whether this shape is filled instead of stroked.
+         *
+         * @return true if it is filled.
+         */
+        abstract boolean isFill();
+
+        /**
+         * Whether this shape can be added to a path.
+         *
+         * @return true if it can be added to a path.
+         */
+        abstract boolean isPath();
+
+        /**
+         * Add this shape to the current path of a {@link GraphicsContext}.
+         *
+         * @param gc the {@link GraphicsContext} to add it to.
+         */
+        abstract void appendTo(GraphicsContext gc);
+
+        /**
+         * Convert this shape to an AWT shape.
+         *
+         * @return the {@link java.awt.Shape}.
+         */
+        abstract java.awt.Shape toAwt();
+
+        @Override
+        void apply(AwtTarget target) {
+            if (isFill()) {
+                target.fill(toAwt());
+            } else {
+                target.stroke(toAwt());
+            }
+        }
+    }
+
+    /**
+     * Stroke a line.
+     */
+    private static final class Line extends Shape {
+        private final double x1, y1, x2, y2;
+
+        /**
+         * Constructor for a Line.
+         *
+         * @param x1     x coordinate of the start.
+         * @param y1     y coordinate of the start.
+         * @param x2     x coordinate of the end.
+         * @param y2     y coordinate of the end.
+         * @param state  the {@link State} the line is drawn with.
+         * @param bounds the bounds of the line.
+         */
+        Line(double x1, double y1, double x2, double y2, State state, double[] bounds) {
+            super(state, bounds);
+            this.x1 = x1;
+            this.y1 = y1;
+            this.x2 = x2;
+            this.y2 = y2;
+        }
+
+        @Override
+        void apply(GraphicsContext gc) {
+            gc.strokeLine(x1, y1, x2, y2);
+        }
+
+        @Override
+        boolean isFill() {
+            return false;
+        }
+
+        @Override
+        boolean isPath() {
+            return true;
+        }
+
+        @Override
+        void appendTo(GraphicsContext gc) {
+            gc.moveTo(x1, y1);
+            gc.lineTo(x2, y2);
+        }
+
+        @Override
+        java.awt.Shape toAwt() {
+            return new Line2D.Double(x1, y1, x2, y2);
+        }
+    }
+
+    /**
+     * Stroke or fill a (possibly rounded) rectangle.
+     */
+    private static final class Rect extends Shape {
+        private final double x, y, width, height, arcWidth, arcHeight;
+        private final boolean fill;
+
+        /**
+         * Constructor for a Rect.
+         *
+         * @param x         x coordinate of the top left corner.
+         * @param y         y coordinate of the top left corner.
+         * @param width     width of the rectangle.
+         * @param height    height of the rectangle.
+         * @param arcWidth  width of the corner arcs, 0 for square corners.
+         * @param arcHeight height of the corner arcs, 0 for square corners.
+         * @param fill      true to fill the rectangle, false to stroke it.
+         * @param state     the {@link State} the rectangle is drawn with.
+         * @param bounds    the bounds of the rectangle.
+         */
+        Rect(double x, double y, double width, double height, double arcWidth, double arcHeight,
+             boolean fill, State state, double[] bounds) {
+            super(state, bounds);
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.height = height;
+            this.arcWidth = arcWidth;
+            this.arcHeight = arcHeight;
+            this.fill = fill;
+        }
+
+        @Override
+        void apply(GraphicsContext gc) {
+            boolean round = arcWidth > 0 || arcHeight > 0;
+            if (fill && round) {
+                gc.fillRoundRect(x, y, width, height, arcWidth, arcHeight);
+            } else if (fill) {
+                gc.fillRect(x, y, width, height);
+            } else if (round) {
+                gc.strokeRoundRect(x, y, width, height, arcWidth, arcHeight);
+            } else {
+                gc.strokeRect(x, y, width, height);
+            }
+        }
+
+        @Override
+        boolean isFill() {
+            return fill;
+        }
+
+        @Override
+        boolean isPath() {
+            return arcWidth <= 0 && arcHeight <= 0;
+        }
+
+        @Override
+        void appendTo(GraphicsContext gc) {
+            gc.rect(x, y, width, height);
+        }
+
+        @Override
+        java.awt.Shape toAwt() {
+            if (arcWidth > 0 || arcHeight > 0) {
+                return new RoundRectangle2D.Double(x, y, width, height, arcWidth, arcHeight);
+            }
+            return new Rectangle2D.Double(x, y, width, height);
+        }
+    }
+
+    /**
+     * A batch of shapes that are all drawn with the same paint and line width.
+     */
+    private static final class Batch extends Command {
+        private final BatchKey key;
+        private final List<Shape> shapes;
+        private final double[] bounds;
+
+        /**
+         * Constructor for a Batch.
+         *
+         * @param key the {@link BatchKey} that all shapes in this batch share.
+         */
+        Batch(BatchKey key) {
+            this.key = key;
+            this.shapes = new ArrayList<>();
+            this.bounds = new double[]{Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+                    Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        }
+
+        /**
+         * Add a shape to this batch.
+         *
+         * @param shape the {@link Shape} to add.
+         */
+        void add(Shape shape) {
+            shapes.add(shape);
+            if (shape.bounds != null) {
+                bounds[0] = Math.min(bounds[0], shape.bounds[0]);
+                bounds[1] = Math.min(bounds[1], shape.bounds[1]);
+                bounds[2] = Math.max(bounds[2], shape.bounds[2]);
+                bounds[3] = Math.max(bounds[3], shape.bounds[3]);
+            }
+        }
+
+        /**
+         * Add the commands to set the state for this batch, and this batch itself, to a list of commands.
+         *
+         * @param result the list to add the commands to.
+         */
+        void emit(List<Command> result) {
+            if (key.fill) {
+                result.add(new FillColor(key.color));
+            } else {
+                result.add(new StrokeColor(key.color));
+                result.add(new LineWidth(key.lineWidth));
+            }
+            result.add(this);
+        }
+
+        @Override
+        boolean intersects(double minX, double minY, double maxX, double maxY) {
+            return bounds[0] <= maxX && bounds[2] >= minX && bounds[1] <= maxY && bounds[3] >= minY;
+        }
+
+        @Override
+        void apply(GraphicsContext gc) {
+            if (!key.path) {
+                for (Shape shape : shapes) {
+                    shape.apply(gc);
+                }
+                return;
+            }
+
+            gc.beginPath();
+            for (Shape shape : shapes) {
+                shape.appendTo(gc);
+            }
+            if (key.fill) {
+                gc.fill();
+            } else {
+                gc.stroke();
+            }
+        }
+
+        @Override
+        void apply(AwtTarget target) {
+            // one large path is slower to rasterize with AWT than its parts, so only the state is shared here.
+            target.use(key.fill);
+            for (Shape shape : shapes) {
+                if (target.isVisible(shape)) {
+                    if (key.fill) {
+                        target.graphics.fill(shape.toAwt());
+                    } else {
+                        target.graphics.draw(shape.toAwt());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Key to group shapes that can be batched together.
+     */
+    private static final class BatchKey {
+        private final boolean fill;
+        private final boolean path;
+        private final Color color;
+        private final double lineWidth;
+
+        /**
+         * Constructor for a BatchKey.
+         *
+         * @param shape the {@link Shape} to create the key for.
+         */
+        BatchKey(Shape shape) {
+            this.fill = shape.isFill();
+            this.path = shape.isPath();
+            this.color = fill ? shape.state.fill : shape.state.stroke;
+            this.lineWidth = fill ? 0 : shape.state.lineWidth;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof BatchKey)) {
+                return false;
+            }
+            BatchKey other = (BatchKey) o;
+            return fill == other.fill && path == other.path
+                    && Double.compare(lineWidth, other.lineWidth) == 0 && color.equals(other.color);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(fill, path, color, lineWidth);
+        }
+    }
+
+    /**
+     * The state that a shape is drawn with.
+     */
+    private static final class State {
+        private static final State DEFAULT = new State(Color.BLACK, Color.WHITE, 1);
+
+        private final Color stroke;
+        private final Color fill;
+        private final double lineWidth;
+
+        /**
+         * Constructor for a State.
+         *
+         * @param stroke    the stroke color.
+         * @param fill      the fill color.
+         * @param lineWidth the line width.
+         */
+        State(Color stroke, Color fill, double lineWidth) {
+            this.stroke = stroke;
+            this.fill = fill;
+            this.lineWidth = lineWidth;
+        }
+    }
+
+    /**
+     * Boundary between two phases.
+     */
+    private static final class Barrier extends Command {
+        @Override
+        void apply(GraphicsContext gc) {
+        }
+
+        @Override
+        void apply(AwtTarget target) {
+        }
+    }
+
+    /**
+     * Set the stroke color.
+     */
+    private static final class StrokeColor extends Command {
+        private final Color color;
+
+        /**
+         * Constructor for a StrokeColor.
+         *
+         * @param color the new stroke color.
+         */
+        StrokeColor(Color color) {
+            this.color = color;
+        }
+
+        @Override
+        void apply(GraphicsContext gc) {
+            gc.setStroke(color);
+        }
+
+        @Override
+        void apply(AwtTarget target) {
+            target.strokeColor = toAwt(color);
+        }
+    }
+
+    /**
+     * Set the fill color.
+     */
+    private static final class FillColor extends Command {
+        private final Color color;
+
+        /**
+         * Constructor for a FillColor.
+         *
+         * @param color the new fill color.
+         */
+        FillColor(Color color) {
+            this.color = color;
+        }
+
+        @Override
+        void apply(GraphicsContext gc) {
+            gc.setFill(color);
+        }
+
+        @Override
+        void apply(AwtTarget target) {
+            target.fillColor = toAwt(color);
+        }
+    }
+
+    /**
+     * Set the line width.
+     */
+    private static final class LineWidth extends Command {
+        private final double width;
+
+        /**
+         * Constructor for a LineWidth.
+         *
+         * @param width the new line width.
+         */
+        LineWidth(double width) {
+            this.width = width;
+        }
+
+        @Override
+        void apply(GraphicsContext gc) {
+            gc.setLineWidth(width);
+        }
+
+        @Override
+        void apply(AwtTarget target) {
+            target.lineWidth = width;
+        }
+    }
+
+    /**
+     * Save the state.
+     */
+    private static final class Save extends Command {
+        private final State state;
+
+        /**
+         * Constructor for a Save.
+         *
+         * @param state the {@link State} at the moment of saving.
+         */
+        Save(State state) {
+            this.state = state;
+        }
+
+        @Override
+        void apply(GraphicsContext gc) {
+            gc.save();
+        }
+
+        @Override
+        void apply(AwtTarget target) {
+            target.save();
+        }
+    }
+
+    /**
+     * Restore the state.
+     */
+    private static final class Restore extends Command {
+        @Override
+        void apply(GraphicsContext gc) {
+            gc.restore();
+        }
+
+        @Override
+        void apply(AwtTarget target) {
+            target.restore();
+        }
+    }
+
+    /**
+     * Concatenate a transformation to the current one.
+     */
+    private static final class Transform extends Command {
+        private final AffineTransform transform;
+
+        /**
+         * Constructor for a Transform.
+         *
+         * @param transform the transformation to concatenate.
+         */
+        Transform(AffineTransform transform) {
+            this.transform = transform;
+        }
+
+        @Override
+        void apply(GraphicsContext gc) {
+            gc.transform(transform.getScaleX(), transform.getShearY(), transform.getShearX(),
+                    transform.getScaleY(), transform.getTranslateX(), transform.getTranslateY());
+        }
+
+        @Override
+        void apply(AwtTarget target) {
+            target.graphics.transform(transform);
+        }
+    }
+
+    /**
+     * Convert a JavaFX {@link Color} to an AWT {@link java.awt.Color}.
+     *
+     * @param color the JavaFX color.
+     * @return the AWT color.
+     */
+    private static java.awt.Color toAwt(Color color) {
+        return new java.awt.Color((float) color.getRed(), (float) color.getGreen(),
+                (float) color.getBlue(), (float) color.getOpacity());
+    }
+
+    /**
+     * The state of rasterizing onto a {@link Graphics2D}, which (unlike a {@link GraphicsContext})
+     * has just one color for both stroking and filling.
+     */
+    private static final class AwtTarget {
+        private final Graphics2D graphics;
+        private final double minX, minY, maxX, maxY;
+        private final Deque<Object[]> saved;
+
+        private java.awt.Color strokeColor;
+        private java.awt.Color fillColor;
+        private double lineWidth;
+
+        /**
+         * Constructor for an AwtTarget, with the same defaults as a {@link GraphicsContext}.
+         *
+         * @param graphics the {@link Graphics2D} to draw on.
+         * @param minX     left side of the area that is drawn.
+         * @param minY     top side of the area that is drawn.
+         * @param maxX     right side of the area that is drawn.
+         * @param maxY     bottom side of the area that is drawn.
+         */
+        AwtTarget(Graphics2D graphics, double minX, double minY, double maxX, double maxY) {
+            this.graphics = graphics;
+            this.minX = minX;
+            this.minY = minY;
+            this.maxX = maxX;
+            this.maxY = maxY;
+            this.saved = new ArrayDeque<>();
+            this.strokeColor = java.awt.Color.BLACK;
+            this.fillColor = java.awt.Color.WHITE;
+            this.lineWidth = 1;
+        }
+
+        /**
+         * Whether a shape might be visible in the area that is drawn.
+         *
+         * @param shape the {@link Shape} to check.
+         * @return true if it might be visible.
+         */
+        boolean isVisible(Shape shape) {
+            return shape.intersects(minX, minY, maxX, maxY);
+        }
+
+        /**
+         * Stroke a shape with the current stroke color and line width.
+         *
+         * @param shape the shape to stroke.
+         */
+        void stroke(java.awt.Shape shape) {
+            use(false);
+            graphics.draw(shape);
+        }
+
+        /**
+         * Fill a shape with the current fill color.
+         *
+         * @param shape the shape to fill.
+         */
+        void fill(java.awt.Shape shape) {
+            use(true);
+            graphics.fill(shape);
+        }
+
+        /**
+         * Set the color (and line width) of the {@link Graphics2D} for stroking or filling.
+         *
+         * @param fill true to set it for filling, false to set it for stroking.
+         */
+        void use(boolean fill) {
+            if (fill) {
+                graphics.setColor(fillColor);
+            } else {
+                graphics.setColor(strokeColor);
+                graphics.setStroke(new BasicStroke((float) lineWidth, BasicStroke.CAP_SQUARE, BasicStroke.JOIN_MITER));
+            }
+        }
+
+        /**
+         * Save the current state.
+         */
+        void save() {
+            saved.push(new Object[]{strokeColor, fillColor, lineWidth, graphics.getTransform()});
+        }
+
+        /**
+         * Restore the last saved state.
+         */
+        void restore() {
+            if (!saved.isEmpty()) {
+                Object[] state = saved.pop();
+                strokeColor = (java.awt.Color) state[0];
+                fillColor = (java.awt.Color) state[1];
+                lineWidth = (Double) state[2];
+                graphics.setTransform((AffineTransform) state[3]);
+            }
+        }
+    }
+}
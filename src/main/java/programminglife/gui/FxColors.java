@@ -0,0 +1,43 @@
+package programminglife.gui;
+
+import javafx.scene.paint.Color;
+import programminglife.model.drawing.Colors;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Converts between the toolkit-free colors of the layout ({@link Colors}) and JavaFX {@link Color Colors}.
+ * A drawing only has a few different colors, so the converted colors are kept, and drawing a node does not
+ * create a new Color.
+ */
+public final class FxColors {
+    private static final Map<Integer, Color> FX_COLORS = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor, which should not be used.
+     */
+    private FxColors() {
+    }
+
+    /**
+     * Get the JavaFX {@link Color} of an encoded color.
+     *
+     * @param color the color, encoded as in {@link Colors}.
+     * @return the JavaFX {@link Color}.
+     */
+    public static Color toFx(int color) {
+        return FX_COLORS.computeIfAbsent(color, c -> new Color(Colors.getRed(c), Colors.getGreen(c),
+                Colors.getBlue(c), Colors.getOpacity(c)));
+    }
+
+    /**
+     * Encode a JavaFX {@link Color}.
+     *
+     * @param color the JavaFX {@link Color}.
+     * @return the color, encoded as in {@link Colors}.
+     */
+    public static int fromFx(Color color) {
+        return Colors.argb(color.getOpacity(), color.getRed(), color.getGreen(), color.getBlue());
+    }
+}
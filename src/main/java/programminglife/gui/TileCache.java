@@ -0,0 +1,211 @@
+package programminglife.gui;
+
+import javafx.application.Platform;
+import javafx.embed.swing.SwingFXUtils;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+
+import java.awt.image.BufferedImage;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cache of rasterized tiles of the graph. The drawing is cut up in square tiles in world coordinates
+ * (the coordinates the graph would have without any panning), which are rasterized on background threads.
+ * Panning then only needs to blit the tiles that are already there, and a tile is only rasterized once
+ * per zoom level until the content of the drawing changes.
+ * All methods except the rasterization itself must be called on the FX thread.
+ */
+public class TileCache {
+    static final int TILE_SIZE = 256;
+    private static final int MAX_TILES = 512;
+
+    private final ExecutorService workers;
+    private final Map<Tile, Image> tiles;
+    private final Set<Tile> pending;
+    private final Runnable onTileReady;
+
+    private DrawBuffer content;
+    private double originX;
+    private double originY;
+    private long zoomKey;
+    private int generation;
+
+    /**
+     * Constructor for a TileCache.
+     *
+     * @param onTileReady {@link Runnable} that is run on the FX thread each time a new tile is ready.
+     */
+    public TileCache(Runnable onTileReady) {
+        this.onTileReady = onTileReady;
+        this.tiles = new LinkedHashMap<Tile, Image>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Tile, Image> eldest) {
+                return size() > MAX_TILES;
+            }
+        };
+        this.pending = new HashSet<>();
+        this.generation = 0;
+
+        AtomicInteger threadNumber = new AtomicInteger(0);
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        this.workers = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "tile-renderer-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Set the content that tiles are rasterized from.
+     *
+     * @param content   the {@link DrawBuffer} with the drawing, in screen coordinates.
+     * @param originX   the horizontal pan at the moment the content was recorded.
+     * @param originY   the vertical pan at the moment the content was recorded.
+     * @param zoomLevel the zoom level at the moment the content was recorded.
+     * @param changed   true if the drawing itself has changed, which invalidates all tiles of all zoom levels.
+     *                  False if only the zoom level or the pan is different.
+     */
+    public void setContent(DrawBuffer content, double originX, double originY, double zoomLevel, boolean changed) {
+        if (changed) {
+            invalidate();
+        }
+        this.content = content;
+        this.originX = originX;
+        this.originY = originY;
+        this.zoomKey = toZoomKey(zoomLevel);
+    }
+
+    /**
+     * Whether the content can be used for a zoom level. Panning does not change the content, so it only has to be
+     * recorded again when the drawing itself changes or when it is drawn at another zoom level.
+     *
+     * @param zoomLevel the zoom level.
+     * @return true if there is content for the zoom level.
+     */
+    public boolean hasContent(double zoomLevel) {
+        return content != null && zoomKey == toZoomKey(zoomLevel);
+    }
+
+    /**
+     * Quantize a zoom level, so that zoom levels that only differ by rounding get the same tiles.
+     *
+     * @param zoomLevel the zoom level.
+     * @return the key of the zoom level.
+     */
+    private static long toZoomKey(double zoomLevel) {
+        return Math.round(Math.log(zoomLevel) * 1e9);
+    }
+
+    /**
+     * Remove all tiles and the content, and drop the results of all tiles that are still being rasterized.
+     */
+    public void invalidate() {
+        content = null;
+        generation++;
+        tiles.clear();
+        pending.clear();
+    }
+
+    /**
+     * Draw all visible tiles that are available, and request the ones that are not.
+     *
+     * @param gc     the {@link GraphicsContext} to draw on.
+     * @param panX   the current horizontal pan.
+     * @param panY   the current vertical pan.
+     * @param width  the width of the visible area.
+     * @param height the height of the visible area.
+     */
+    public void draw(GraphicsContext gc, double panX, double panY, double width, double height) {
+        if (content == null) {
+            return;
+        }
+
+        int firstColumn = (int) Math.floor(-panX / TILE_SIZE);
+        int lastColumn = (int) Math.floor((width - panX) / TILE_SIZE);
+        int firstRow = (int) Math.floor(-panY / TILE_SIZE);
+        int lastRow = (int) Math.floor((height - panY) / TILE_SIZE);
+
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                Tile tile = new Tile(zoomKey, column, row);
+                Image image = tiles.get(tile);
+                if (image != null) {
+                    gc.drawImage(image, panX + (double) column * TILE_SIZE, panY + (double) row * TILE_SIZE);
+                } else if (pending.add(tile)) {
+                    rasterize(tile);
+                }
+            }
+        }
+    }
+
+    /**
+     * Rasterize a tile on one of the workers, and add it to the cache once it is done
+     * (unless the cache was invalidated in the meantime).
+     *
+     * @param tile the {@link Tile} to rasterize.
+     */
+    private void rasterize(Tile tile) {
+        final DrawBuffer buffer = content;
+        final double x = originX + (double) tile.column * TILE_SIZE;
+        final double y = originY + (double) tile.row * TILE_SIZE;
+        final int tileGeneration = generation;
+
+        workers.execute(() -> {
+            BufferedImage raster = buffer.rasterize(x, y, TILE_SIZE, TILE_SIZE);
+            Image image = SwingFXUtils.toFXImage(raster, null);
+            Platform.runLater(() -> {
+                if (tileGeneration == generation) {
+                    pending.remove(tile);
+                    tiles.put(tile, image);
+                    onTileReady.run();
+                }
+            });
+        });
+    }
+
+    /**
+     * Key of a tile: the zoom level and its position in the grid of tiles.
+     */
+    private static final class Tile {
+        private final long zoomKey;
+        private final int column;
+        private final int row;
+
+        /**
+         * Constructor for a Tile.
+         *
+         * @param zoomKey the quantized zoom level.
+         * @param column  the column in the grid.
+         * @param row     the row in the grid.
+         */
+        Tile(long zoomKey, int column, int row) {
+            this.zoomKey = zoomKey;
+            this.column = column;
+            this.row = row;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Tile)) {
+                return false;
+            }
+            Tile other = (Tile) o;
+            return zoomKey == other.zoomKey && column == other.column && row == other.row;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(zoomKey, column, row);
+        }
+    }
+}
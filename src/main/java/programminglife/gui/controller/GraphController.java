@@ -4,14 +4,26 @@ import javafx.geometry.Bounds;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.paint.Color;
+import javafx.application.Platform;
 import programminglife.ProgrammingLife;
+import programminglife.gui.Alerts;
+import programminglife.gui.DrawBuffer;
+import programminglife.gui.FxColors;
 import programminglife.gui.ResizableCanvas;
+import programminglife.gui.TileCache;
 import programminglife.model.GenomeGraph;
-import programminglife.model.XYCoordinate;
+import programminglife.model.analysis.GenomeCountIndex;
 import programminglife.model.drawing.*;
 import programminglife.utility.Console;
 
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
 import java.util.stream.Collectors;
 
 /**
@@ -33,8 +45,23 @@ class GraphController {
     private final Map<DrawableNode, List<Color>> nodeGenomeList;
 
     private int centerNodeInt;
+    private int radius;
     private boolean drawSNP = false;
 
+    private final TileCache tileCache;
+    private ExecutorService layoutWorker;
+    private final AtomicInteger drawGeneration;
+    private final ExecutorService prefetchWorkers;
+    private final Map<Integer, CompletableFuture<SubGraph>> prefetched;
+    private int prefetchedCenter;
+    private int prefetchedRadius;
+    private boolean prefetchedSNP;
+    private boolean drawTiled = false;
+    private boolean contentChanged = false;
+    private boolean redrawRequested = false;
+    private double panX;
+    private double panY;
+
     private HighlightController highlightController;
     private MiniMapController miniMapController;
     private GuiController guiController;
@@ -49,6 +76,31 @@ class GraphController {
         this.canvas = canvas;
         this.highlightController = null;
         this.nodeGenomeList = new HashMap<>();
+        this.tileCache = new TileCache(this::drawTiles);
+        this.prefetched = new HashMap<>();
+        this.drawGeneration = new AtomicInteger(0);
+
+        this.layoutWorker = newLayoutWorker();
+        AtomicInteger threadNumber = new AtomicInteger(0);
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        this.prefetchWorkers = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "subgraph-prefetcher-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Create the thread that SubGraphs are built on.
+     *
+     * @return the {@link ExecutorService} of the thread.
+     */
+    private static ExecutorService newLayoutWorker() {
+        return Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "subgraph-layout");
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
     int getCenterNodeInt() {
@@ -68,28 +120,137 @@ class GraphController {
     }
 
     /**
-     * Method to draw the subGraph decided by a center node and radius.
+     * Method to draw the subGraph decided by a center node and radius. The SubGraph is built in the background,
+     * and drawn on the JavaFX thread once it is ready. Every call supersedes the calls before it: a SubGraph
+     * that is still being built for an earlier call stops at the next stage of building, and is never drawn.
      *
-     * @param center the node of which the radius starts.
-     * @param radius the amount of layers to be drawn.
+     * @param center  the node of which the radius starts.
+     * @param radius  the amount of layers to be drawn.
+     * @param onDrawn called on the JavaFX thread once the SubGraph has been drawn.
      */
-    void draw(int center, int radius) {
-        time("Total drawing", () -> {
-            DrawableSegment centerNode = new DrawableSegment(graph, center, 1);
-            centerNodeInt = centerNode.getIdentifier();
-            GraphicsContext gc = canvas.getGraphicsContext2D();
+    void draw(int center, int radius, Runnable onDrawn) {
+        int generation = drawGeneration.incrementAndGet();
+        BooleanSupplier stale = () -> drawGeneration.get() != generation;
+        GenomeGraph drawnGraph = graph;
+        boolean replaceSNPs = drawSNP;
+        long start = System.nanoTime();
 
-            time("Find subgraph", () -> subGraph = new SubGraph(centerNode, radius, drawSNP));
+        CompletableFuture.supplyAsync(() -> findSubGraph(drawnGraph, center, radius, replaceSNPs, stale),
+                layoutWorker)
+                .whenComplete((found, error) -> Platform.runLater(() -> {
+                    if (stale.getAsBoolean()) {
+                        Console.println("Drawing around node %d was superseded.", center);
+                    } else if (error != null) {
+                        Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                        Console.println("Drawing around node %d failed: %s", center, cause.getMessage());
+                        Alerts.error("The graph could not be drawn around node " + center + ".");
+                    } else {
+                        Console.println("Find subgraph: %d ms", (System.nanoTime() - start) / 1000000);
+                        publish(found, center, radius);
+                        onDrawn.run();
+                    }
+                }));
+    }
 
-            time("Colorize", this::colorize);
+    /**
+     * Show a SubGraph that was built for a center node and radius on the canvas.
+     *
+     * @param found  the SubGraph.
+     * @param center the node of which the radius starts.
+     * @param radius the amount of layers in the SubGraph.
+     */
+    private void publish(SubGraph found, int center, int radius) {
+        time("Drawing", () -> {
+            centerNodeInt = center;
+            this.radius = radius;
+            subGraph = found;
+            panX = 0;
+            panY = 0;
 
-            time("Drawing", () -> draw(gc));
+            colorize();
+            draw(canvas.getGraphicsContext2D());
 
             int centerId = centerOnNodeId(center);
             highlightCenterNode(centerId, Color.DARKORANGE);
+            prefetchNeighbourLevels();
         });
     }
 
+    /**
+     * Get the SubGraph around a center node. If this part of the graph has been drawn before, its layout is
+     * taken from the {@link programminglife.parser.LayoutCache} of the graph; otherwise the SubGraph is built
+     * and its layout is stored there.
+     *
+     * @param graph       the graph to draw
+     * @param center      the ID of the center node
+     * @param radius      the radius
+     * @param replaceSNPs flag if SNPs should be collapsed
+     * @param stale       true once the SubGraph is no longer needed
+     * @return the SubGraph
+     * @throws CancellationException if the SubGraph was no longer needed before it was found.
+     */
+    private static SubGraph findSubGraph(GenomeGraph graph, int center, int radius, boolean replaceSNPs,
+                                         BooleanSupplier stale) {
+        if (stale.getAsBoolean()) {
+            throw new CancellationException("The SubGraph was no longer needed before it was looked up.");
+        }
+        int[] layout = graph.getLayoutCache().get(center, radius, replaceSNPs);
+        if (layout != null) {
+            SubGraph cached = SubGraph.fromLayout(graph, layout, replaceSNPs);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        DrawableSegment centerNode = new DrawableSegment(graph, center, 1);
+        SubGraph built = new SubGraph(centerNode, radius, replaceSNPs, stale);
+        graph.getLayoutCache().put(center, radius, replaceSNPs, built.getLayout());
+        return built;
+    }
+
+    /**
+     * Start building the SubGraphs of the levels next to the current one in the background,
+     * so that zooming in or out far enough to change the level does not have to wait for them.
+     * SubGraphs that were prefetched before are dropped.
+     */
+    private void prefetchNeighbourLevels() {
+        prefetched.values().forEach(future -> future.cancel(false));
+        prefetched.clear();
+        prefetchedCenter = centerNodeInt;
+        prefetchedRadius = radius;
+        prefetchedSNP = drawSNP;
+
+        int level = subGraph.getLevel();
+        for (int neighbour = level - 1; neighbour <= level + 1; neighbour += 2) {
+            if (neighbour >= 0 && neighbour <= graph.getNumberOfCoarseLevels()) {
+                prefetched.put(neighbour, SubGraph.prepare(graph, centerNodeInt, radius, drawSNP,
+                        SubGraph.zoomForLevel(neighbour), prefetchWorkers));
+            }
+        }
+    }
+
+    /**
+     * Get the SubGraph around the center node for a zoom level. A prefetched SubGraph is used if there is one
+     * for the same center node, radius and SNP setting; otherwise a new one is built.
+     *
+     * @param zoomLevel the zoom level
+     * @return the SubGraph
+     */
+    private SubGraph subGraphAtZoomLevel(double zoomLevel) {
+        int level = SubGraph.levelForZoom(zoomLevel, graph.getNumberOfCoarseLevels());
+        CompletableFuture<SubGraph> future = prefetched.remove(level);
+        if (future != null && prefetchedCenter == centerNodeInt && prefetchedRadius == radius
+                && prefetchedSNP == drawSNP) {
+            try {
+                SubGraph prepared = future.join();
+                prepared.zoom(prepared.getZoomLevel() / zoomLevel);
+                return prepared;
+            } catch (CompletionException | CancellationException e) {
+                Console.println("Prefetching level %d failed: %s", level, e.getMessage());
+            }
+        }
+        return SubGraph.atZoomLevel(graph, centerNodeInt, radius, drawSNP, zoomLevel);
+    }
+
     /**
      * Method to do the coloring of the to be drawn graph.
      */
@@ -116,7 +277,7 @@ class GraphController {
      * @param color  the {@link Color} to highlight with.
      */
     private void highlightCenterNode(int nodeID, Color color) {
-        DrawableNode node = subGraph.getNodes().get(nodeID);
+        DrawableNode node = subGraph.getDrawingOf(nodeID);
         highlightNode(node, color, true);
     }
 
@@ -129,10 +290,31 @@ class GraphController {
      */
     private void highlightNode(DrawableNode node, Color color, Boolean clickedOn) {
         if (clickedOn) {
-            node.setStrokeColor(color);
+            node.setStrokeColor(FxColors.fromFx(color));
         }
         node.setStrokeWidth(5.0 * subGraph.getZoomLevel());
-        drawNode(canvas.getGraphicsContext2D(), node);
+
+        if (drawTiled) {
+            // the tiles need to be rasterized again, so do that once all highlighting is done.
+            contentChanged = true;
+            requestRedraw();
+        } else {
+            DrawBuffer buffer = new DrawBuffer();
+            drawNode(buffer, node);
+            drawBubbleSeparators(buffer, node);
+            buffer.replay(canvas.getGraphicsContext2D());
+        }
+    }
+
+    /**
+     * Sets the highlight of a node, without drawing it.
+     *
+     * @param node  {@link DrawableNode} to highlight.
+     * @param color {@link Color} to color with.
+     */
+    private void setHighlight(DrawableNode node, Color color) {
+        node.setStrokeColor(FxColors.fromFx(color));
+        node.setStrokeWidth(5.0 * subGraph.getZoomLevel());
     }
 
     /**
@@ -142,7 +324,7 @@ class GraphController {
      * @param color {@link Color} is the color in which the Link node needs to highlight.
      */
     private void highlightEdge(DrawableEdge edge, Color color) {
-        edge.setStrokeColor(color);
+        edge.setStrokeColor(FxColors.fromFx(color));
     }
 
     /**
@@ -152,17 +334,17 @@ class GraphController {
      * @param color {@link Color} is the color in which the dummy node needs a highlight.
      */
     private void highlightDummyNode(DrawableDummy node, Color color) {
-        node.setStrokeColor(color);
+        node.setStrokeColor(FxColors.fromFx(color));
     }
 
     /**
      * Draws a edge on the location it has.
      *
-     * @param gc     {@link GraphicsContext} is the GraphicsContext required to draw.
+     * @param buffer {@link DrawBuffer} to record the drawing in.
      * @param parent {@link DrawableNode} is the node to be draw from.
      * @param child  {@link DrawableNode} is the node to draw to.
      */
-    private void drawEdge(GraphicsContext gc, DrawableNode parent, DrawableNode child) {
+    private void drawEdge(DrawBuffer buffer, DrawableNode parent, DrawableNode child) {
         DrawableEdge edge = new DrawableEdge(parent, child);
 
         Color[] genomeColors = highlightController.getGenomeColors();
@@ -179,45 +361,42 @@ class GraphController {
 
         edge.colorize(subGraph);
 
-        gc.setLineWidth(edge.getStrokeWidth());
-        gc.setStroke(edge.getStrokeColor());
+        buffer.setLineWidth(edge.getStrokeWidth());
+        buffer.setStroke(FxColors.toFx(edge.getStrokeColor()));
         if (ProgrammingLife.getShowCSS()) {
-            gc.setStroke(Color.WHITE);
+            buffer.setStroke(Color.WHITE);
         }
 
-        XYCoordinate startLocation = edge.getStartLocation();
-
-        XYCoordinate endLayerLocation = new XYCoordinate(
-                parent.getLeftBorderCenter().getX() + parent.getLayer().getWidth(),
-                parent.getLeftBorderCenter().getY());
-
-        XYCoordinate endLocation = edge.getEndLocation();
+        double startX = parent.getX() + parent.getWidth();
+        double startY = parent.getCenterY();
+        double endLayerX = parent.getX() + parent.getLayer().getWidth();
+        double endX = child.getX();
+        double endY = child.getCenterY();
 
         if (genomesToDraw == null || genomesToDraw.size() == 0) {
-            gc.strokeLine(startLocation.getX(), startLocation.getY(), endLayerLocation.getX(), endLayerLocation.getY());
-            gc.strokeLine(endLayerLocation.getX(), endLayerLocation.getY(), endLocation.getX(), endLocation.getY());
+            buffer.strokeLine(startX, startY, endLayerX, startY);
+            buffer.strokeLine(endLayerX, startY, endX, endY);
         } else {
             int seqNumber = 0;
             int numberOfGenomes = genomesToDraw.size();
             double genomeHeight = edge.getStrokeWidth() / numberOfGenomes;
-            startLocation.setY(startLocation.getY() - (genomeHeight * numberOfGenomes / 2));
-            endLayerLocation.setY(endLayerLocation.getY() - (genomeHeight * numberOfGenomes / 2));
-            endLocation.setY(endLocation.getY() - (genomeHeight * numberOfGenomes / 2));
+            startY -= genomeHeight * numberOfGenomes / 2;
+            endY -= genomeHeight * numberOfGenomes / 2;
 
-            gc.save();
-            gc.setLineWidth(genomeHeight);
+            buffer.save();
+            buffer.setLineWidth(genomeHeight);
 
             for (Color color : genomesToDraw) {
-                gc.setStroke(color);
-                gc.strokeLine(startLocation.getX(), startLocation.getY() + genomeHeight * seqNumber,
-                        endLayerLocation.getX(), endLayerLocation.getY() + genomeHeight * seqNumber);
+                buffer.setStroke(color);
+                buffer.strokeLine(startX, startY + genomeHeight * seqNumber,
+                        endLayerX, startY + genomeHeight * seqNumber);
 
-                gc.strokeLine(endLayerLocation.getX(), endLayerLocation.getY() + genomeHeight * seqNumber,
-                        endLocation.getX(), endLocation.getY() + genomeHeight * seqNumber);
+                buffer.strokeLine(endLayerX, startY + genomeHeight * seqNumber,
+                        endX, endY + genomeHeight * seqNumber);
 
                 seqNumber++;
             }
-            gc.restore();
+            buffer.restore();
         }
 
     }
@@ -225,21 +404,21 @@ class GraphController {
     /**
      * Draws a node on the location it has.
      *
-     * @param gc           {@link GraphicsContext} is the GraphicsContext required to draw.
+     * @param buffer       {@link DrawBuffer} to record the drawing in.
      * @param drawableNode {@link DrawableNode} is the node to be drawn.
      */
-    private void drawNode(GraphicsContext gc, DrawableNode drawableNode) {
-        gc.setStroke(drawableNode.getStrokeColor());
-        gc.setFill(drawableNode.getFillColor());
-        gc.setLineWidth(drawableNode.getStrokeWidth());
+    private void drawNode(DrawBuffer buffer, DrawableNode drawableNode) {
+        buffer.setStroke(FxColors.toFx(drawableNode.getStrokeColor()));
+        buffer.setFill(FxColors.toFx(drawableNode.getFillColor()));
+        buffer.setLineWidth(drawableNode.getStrokeWidth());
 
         double width = drawableNode.getWidth();
         double height = drawableNode.getHeight();
-        double locX = drawableNode.getLocation().getX();
-        double locY = drawableNode.getLocation().getY();
+        double locX = drawableNode.getX();
+        double locY = drawableNode.getY();
 
         if (drawableNode instanceof DrawableSNP) {
-            drawSNP(gc, (DrawableSNP) drawableNode);
+            drawSNP(buffer, (DrawableSNP) drawableNode);
 
         } else if (drawableNode instanceof DrawableDummy) {
             Color[] genomeColors = highlightController.getGenomeColors();
@@ -253,72 +432,73 @@ class GraphController {
                         .collect(Collectors.toList());
             }
             if (ProgrammingLife.getShowCSS()) {
-                gc.setStroke(Color.WHITE);
+                buffer.setStroke(Color.WHITE);
             }
             if (genomesToDraw != null && genomesToDraw.size() > 0) {
                 int seqNumber = 0;
                 double genomeHeight = drawableNode.getStrokeWidth() / genomesToDraw.size();
 
-                XYCoordinate location = drawableNode.getLocation();
-
-                gc.save();
-                gc.setLineWidth(genomeHeight);
+                buffer.save();
+                buffer.setLineWidth(genomeHeight);
                 for (Color color : genomesToDraw) {
-                    gc.setStroke(color);
-                    gc.strokeLine(location.getX(), location.getY() + genomeHeight * seqNumber
+                    buffer.setStroke(color);
+                    buffer.strokeLine(locX, locY + genomeHeight * seqNumber
                                     - (genomeHeight * genomesToDraw.size() / 2),
-                            location.getX() + width, location.getY() + genomeHeight * seqNumber
+                            locX + width, locY + genomeHeight * seqNumber
                                     - (genomeHeight * genomesToDraw.size() / 2));
 
                     seqNumber++;
                 }
-                gc.restore();
+                buffer.restore();
             } else {
-                gc.strokeRect(drawableNode.getLeftBorderCenter().getX(), locY, width, height);
-                gc.fillRect(drawableNode.getLeftBorderCenter().getX(), locY, width, height);
+                buffer.strokeRect(locX, locY, width, height);
+                buffer.fillRect(locX, locY, width, height);
             }
 
+        } else if (drawableNode instanceof DrawableBubble && !nodeGenomeList.containsKey(drawableNode)) {
+            drawBubble(buffer, (DrawableBubble) drawableNode);
+
         } else if (!nodeGenomeList.containsKey(drawableNode)) {
-            gc.strokeRoundRect(drawableNode.getLeftBorderCenter().getX(), locY, width, height, archFactor, archFactor);
-            gc.fillRoundRect(drawableNode.getLeftBorderCenter().getX(), locY, width, height, archFactor, archFactor);
+            buffer.strokeRoundRect(locX, locY, width, height, archFactor, archFactor);
+            buffer.fillRoundRect(locX, locY, width, height, archFactor, archFactor);
         } else {
             int seqNumber = 0;
             int numberOfGenomes = nodeGenomeList.get(drawableNode).size();
             double genomeHeight = height / numberOfGenomes;
 
-            gc.strokeRoundRect(drawableNode.getLeftBorderCenter().getX(), locY, width, height, archFactor, archFactor);
-            gc.save();
+            buffer.strokeRoundRect(locX, locY, width, height, archFactor, archFactor);
+            buffer.save();
 
             for (Color color : nodeGenomeList.get(drawableNode)) {
-                gc.setFill(color);
-                gc.fillRect(locX, locY + genomeHeight * seqNumber, width, genomeHeight);
+                buffer.setFill(color);
+                buffer.fillRect(locX, locY + genomeHeight * seqNumber, width, genomeHeight);
                 seqNumber++;
             }
-            gc.restore();
+            buffer.restore();
         }
     }
 
     /**
      * Draws an SNP node on the location it has.
      *
-     * @param gc {@link GraphicsContext} is the GraphicsContext required to draw.
+     * @param buffer {@link DrawBuffer} to record the drawing in.
      * @param drawableSNP {@link DrawableSNP} is the node to be drawn.
      */
-    private void drawSNP(GraphicsContext gc, DrawableSNP drawableSNP) {
+    private void drawSNP(DrawBuffer buffer, DrawableSNP drawableSNP) {
         double width = drawableSNP.getWidth();
         double height = drawableSNP.getHeight();
-        double locX = drawableSNP.getLocation().getX();
-        double locY = drawableSNP.getLocation().getY();
+        double locX = drawableSNP.getX();
+        double locY = drawableSNP.getY();
 
-        gc.save();
+        buffer.save();
 
-        gc.translate(drawableSNP.getCenter().getX(), drawableSNP.getCenter().getY());
-        gc.rotate(45);
-        gc.translate(-drawableSNP.getCenter().getX(), -drawableSNP.getCenter().getY());
+        buffer.translate(drawableSNP.getCenterX(), drawableSNP.getCenterY());
+        buffer.rotate(45);
+        buffer.translate(-drawableSNP.getCenterX(), -drawableSNP.getCenterY());
 
         int size = drawableSNP.getMutations().size();
         int seqNumber = 0;
-        gc.strokeRoundRect(locX, locY, width, height, archFactor, archFactor);
+        buffer.strokeRoundRect(locX, locY, width, height, archFactor, archFactor);
 
         for (DrawableSegment drawableSegment : drawableSNP.getMutations()) {
             String seqChar = drawableSegment.getSequence();
@@ -326,24 +506,68 @@ class GraphController {
                 default:
                     throw new IllegalArgumentException("This is not a valid mutation.");
                 case "A":
-                    gc.setFill(Color.GREEN);
+                    buffer.setFill(Color.GREEN);
                     break;
                 case "C":
-                    gc.setFill(Color.BLUE);
+                    buffer.setFill(Color.BLUE);
                     break;
                 case "G":
-                    gc.setFill(Color.ORANGE);
+                    buffer.setFill(Color.ORANGE);
                     break;
                 case "T":
-                    gc.setFill(Color.RED);
+                    buffer.setFill(Color.RED);
                     break;
                 case "N":
-                    gc.setFill(Color.WHITE);
+                    buffer.setFill(Color.WHITE);
             }
-            gc.fillRect(locX + (width / size) * seqNumber, locY, width / size, height);
+            buffer.fillRect(locX + (width / size) * seqNumber, locY, width / size, height);
             seqNumber++;
         }
-        gc.restore();
+        buffer.restore();
+    }
+
+    /**
+     * Draws a collapsed bubble on the location it has, as a rounded glyph. The bands of its branches are
+     * drawn on top of it by {@link #drawBubbleSeparators(DrawBuffer, DrawableNode)}.
+     *
+     * @param buffer         {@link DrawBuffer} to record the drawing in.
+     * @param drawableBubble {@link DrawableBubble} is the node to be drawn.
+     */
+    private void drawBubble(DrawBuffer buffer, DrawableBubble drawableBubble) {
+        double width = drawableBubble.getWidth();
+        double height = drawableBubble.getHeight();
+        double locX = drawableBubble.getX();
+        double locY = drawableBubble.getY();
+
+        buffer.strokeRoundRect(locX, locY, width, height, height, height);
+        buffer.fillRoundRect(locX, locY, width, height, height, height);
+    }
+
+    /**
+     * Draws the lines between the branches of a collapsed bubble. When batching, strokes are drawn before fills,
+     * so these have to be recorded after a {@link DrawBuffer#barrier()} to stay on top of the glyph.
+     *
+     * @param buffer       {@link DrawBuffer} to record the drawing in.
+     * @param drawableNode {@link DrawableNode} of which the separators are drawn, if it is drawn as a bubble.
+     */
+    private void drawBubbleSeparators(DrawBuffer buffer, DrawableNode drawableNode) {
+        if (!(drawableNode instanceof DrawableBubble) || nodeGenomeList.containsKey(drawableNode)) {
+            return;
+        }
+        DrawableBubble drawableBubble = (DrawableBubble) drawableNode;
+        double width = drawableBubble.getWidth();
+        double height = drawableBubble.getHeight();
+        double locX = drawableBubble.getX();
+        double locY = drawableBubble.getY();
+
+        buffer.setStroke(FxColors.toFx(drawableBubble.getStrokeColor()));
+        buffer.setLineWidth(drawableBubble.getStrokeWidth());
+        int branches = drawableBubble.getBranches();
+        double branchHeight = height / branches;
+        for (int branch = 1; branch < branches; branch++) {
+            buffer.strokeLine(locX + height / 2, locY + branchHeight * branch,
+                    locX + width - height / 2, locY + branchHeight * branch);
+        }
     }
 
     /**
@@ -362,12 +586,22 @@ class GraphController {
      */
     void setGraph(GenomeGraph graph) {
         this.graph = graph;
+        drawGeneration.incrementAndGet();
+        prefetched.values().forEach(future -> future.cancel(false));
+        prefetched.clear();
     }
 
     /**
-     * Clear the draw area.
+     * Clear the draw area before the graph is closed. The SubGraph that is being built is superseded, and its
+     * worker is shut down once it has stopped, so nothing reads the graph after it is closed. The next graph
+     * gets a new worker.
      */
     void clear() {
+        drawGeneration.incrementAndGet();
+        prefetched.values().forEach(future -> future.cancel(false));
+        prefetched.clear();
+        layoutWorker.shutdown();
+        layoutWorker = newLayoutWorker();
         this.canvas.getGraphicsContext2D().clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
     }
 
@@ -386,7 +620,7 @@ class GraphController {
      * @param nodeId is the node to center on.
      */
     private int centerOnNodeId(int nodeId) {
-        DrawableNode drawableCenterNode = subGraph.getNodes().get(nodeId);
+        DrawableNode drawableCenterNode = subGraph.getDrawingOf(nodeId);
         int centerId = nodeId;
 
         Bounds bounds = canvas.getParent().getLayoutBounds();
@@ -395,14 +629,14 @@ class GraphController {
 
         double xCoordinate;
         if (drawableCenterNode != null) {
-            xCoordinate = drawableCenterNode.getCenter().getX();
+            xCoordinate = drawableCenterNode.getCenterX();
         } else {
             if (graph.getChildIDs(nodeId).length > 0) {
                 centerId = graph.getChildIDs(nodeId)[0];
             } else {
                 centerId = graph.getParentIDs(nodeId)[0];
             }
-            xCoordinate = subGraph.getNodes().get(centerId).getCenter().getX();
+            xCoordinate = subGraph.getDrawingOf(centerId).getCenterX();
         }
 
         locationCenterY = boundsHeight / 4;
@@ -420,7 +654,9 @@ class GraphController {
      */
     void translate(double xDifference, double yDifference) {
         subGraph.translate(xDifference, yDifference);
-        draw(canvas.getGraphicsContext2D());
+        panX += xDifference;
+        panY += yDifference;
+        draw(canvas.getGraphicsContext2D(), false);
     }
 
     /**
@@ -431,7 +667,34 @@ class GraphController {
      */
     void zoom(double scale) {
         subGraph.zoom(scale);
+        panX /= scale;
+        panY /= scale;
+        if (SubGraph.levelForZoom(subGraph.getZoomLevel(), graph.getNumberOfCoarseLevels()) != subGraph.getLevel()) {
+            changeLevel();
+        } else {
+            draw(canvas.getGraphicsContext2D(), false);
+        }
+    }
+
+    /**
+     * Replace the subGraph by one on the level of the graph that fits the current zoom level,
+     * around the same center node.
+     */
+    private void changeLevel() {
+        double zoomLevel = subGraph.getZoomLevel();
+        resetClicked();
+        time("Change level", () -> subGraph = subGraphAtZoomLevel(zoomLevel));
+        Console.println("Drawing level %d of the graph", subGraph.getLevel());
+        panX = 0;
+        panY = 0;
+
+        colorize();
         draw(canvas.getGraphicsContext2D());
+        centerOnNodeId(graph.getCoarseNodeID(centerNodeInt, subGraph.getLevel()));
+        if (highlightController != null) {
+            highlightController.highlight();
+        }
+        prefetchNeighbourLevels();
     }
 
     /**
@@ -440,31 +703,36 @@ class GraphController {
      * @param gc is the {@link GraphicsContext} required to draw.
      */
     private void draw(GraphicsContext gc) {
+        draw(gc, true);
+    }
+
+    /**
+     * Draw method for the whole subgraph. Calls draw node and draw Edge for every node and edge.
+     * When drawing tiled, the drawing is only rasterized again if its content has changed.
+     *
+     * @param gc      is the {@link GraphicsContext} required to draw.
+     * @param changed true if the content of the drawing may have changed, false if it was only translated or zoomed.
+     */
+    private void draw(GraphicsContext gc, boolean changed) {
         gc.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
 
         if (clicked != null) {
-            highlightNode(clicked, Color.CYAN, true);
-            clicked.setStrokeWidth(5.0 * subGraph.getZoomLevel());
+            setHighlight(clicked, Color.CYAN);
         }
         if (clickedSNP != null) {
-            highlightNode(clickedSNP, Color.CYAN, true);
-            clickedSNP.setStrokeWidth(5.0 * subGraph.getZoomLevel());
+            setHighlight(clickedSNP, Color.CYAN);
         }
         if (clickedShift != null) {
-            highlightNode(clickedShift, Color.CYAN, true);
-            clickedShift.setStrokeWidth(5.0 * subGraph.getZoomLevel());
+            setHighlight(clickedShift, Color.CYAN);
         }
         if (clickedSNPShift != null) {
-            highlightNode(clickedSNPShift, Color.CYAN, true);
-            clickedSNPShift.setStrokeWidth(5.0 * subGraph.getZoomLevel());
+            setHighlight(clickedSNPShift, Color.CYAN);
         }
         if (clicked == clickedShift && clicked != null && clickedShift != null) {
-            highlightNode(clicked, Color.DARKCYAN, true);
-            clicked.setStrokeWidth(5.0 * subGraph.getZoomLevel());
+            setHighlight(clicked, Color.DARKCYAN);
         }
         if (clickedSNP == clickedSNPShift && clickedSNP != null && clickedSNPShift != null) {
-            highlightNode(clickedSNP, Color.DARKCYAN, true);
-            clickedSNP.setStrokeWidth(5.0 * subGraph.getZoomLevel());
+            setHighlight(clickedSNP, Color.DARKCYAN);
         }
 
         boolean didLoad = subGraph.checkDynamicLoad(0, canvas.getWidth());
@@ -478,14 +746,72 @@ class GraphController {
             highlightController.highlight();
         }
 
+        if (!drawTiled) {
+            // batched, so that the state of the canvas only changes once per paint and line width.
+            record().batched().replay(gc);
+            return;
+        }
+
+        // panning reuses the recorded drawing and its tiles, and only rasterizes the tiles that come into view
+        contentChanged |= changed || didLoad;
+        if (contentChanged || !tileCache.hasContent(subGraph.getZoomLevel())) {
+            tileCache.setContent(record(), panX, panY, subGraph.getZoomLevel(), contentChanged);
+        }
+        contentChanged = false;
+        drawTiles();
+    }
+
+    /**
+     * Record the drawing of the whole subgraph. First all edges are drawn, then all nodes on top of them,
+     * and then the separators of the collapsed bubbles on top of those.
+     *
+     * @return a {@link DrawBuffer} with the drawing.
+     */
+    private DrawBuffer record() {
+        DrawBuffer buffer = new DrawBuffer();
         for (DrawableNode drawableNode : subGraph.getNodes().values()) {
-            for (DrawableNode child : subGraph.getChildren(drawableNode)) {
-                drawEdge(gc, drawableNode, child);
+            int childCount = subGraph.getChildCount(drawableNode);
+            for (int i = 0; i < childCount; i++) {
+                drawEdge(buffer, drawableNode, subGraph.getChild(drawableNode, i));
             }
         }
 
+        buffer.barrier();
         for (DrawableNode drawableNode : subGraph.getNodes().values()) {
-            drawNode(gc, drawableNode);
+            drawNode(buffer, drawableNode);
+        }
+
+        buffer.barrier();
+        for (DrawableNode drawableNode : subGraph.getNodes().values()) {
+            drawBubbleSeparators(buffer, drawableNode);
+        }
+        return buffer;
+    }
+
+    /**
+     * Draw the tiles that are available for the current position. Does not rasterize anything itself.
+     */
+    private void drawTiles() {
+        if (!drawTiled) {
+            return;
+        }
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        gc.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+        tileCache.draw(gc, panX, panY, canvas.getWidth(), canvas.getHeight());
+    }
+
+    /**
+     * Request a redraw of the subgraph. Multiple requests before the redraw is done are merged into one.
+     */
+    private void requestRedraw() {
+        if (!redrawRequested) {
+            redrawRequested = true;
+            Platform.runLater(() -> {
+                redrawRequested = false;
+                if (subGraph != null) {
+                    draw(canvas.getGraphicsContext2D(), true);
+                }
+            });
         }
     }
 
@@ -499,8 +825,27 @@ class GraphController {
     void highlightMinMax(int min, int max, Color color) {
         LinkedList<DrawableNode> drawNodeList = new LinkedList<>();
 
+        // look the segments in view up in the genome count index, as one range of node IDs
+        int[] matches = null;
+        GenomeCountIndex index = new GenomeCountIndex(graph);
+        if (index.isBuilt()) {
+            int first = Integer.MAX_VALUE;
+            int last = Integer.MIN_VALUE;
+            for (DrawableNode drawableNode : subGraph.getNodes().values()) {
+                if (drawableNode instanceof DrawableSegment) {
+                    first = Math.min(first, drawableNode.getIdentifier());
+                    last = Math.max(last, drawableNode.getIdentifier());
+                }
+            }
+            matches = index.getNodes(min, max, first, last);
+        }
+
         for (DrawableNode drawableNode : subGraph.getNodes().values()) {
-            if (drawableNode != null && !(drawableNode instanceof DrawableDummy)) {
+            if (drawableNode instanceof DrawableSegment && matches != null) {
+                if (Arrays.binarySearch(matches, drawableNode.getIdentifier()) >= 0) {
+                    drawNodeList.add(drawableNode);
+                }
+            } else if (drawableNode != null && !(drawableNode instanceof DrawableDummy)) {
                 int genomeCount = drawableNode.getGenomes().size();
                 if (genomeCount >= min && genomeCount <= max) {
                     drawNodeList.add(drawableNode);
@@ -560,6 +905,17 @@ class GraphController {
         resetClicked();
     }
 
+    /**
+     * Sets if the graph will be drawn in tiles that are rasterized in the background or not.
+     */
+    void setTiledRendering() {
+        drawTiled = !drawTiled;
+        tileCache.invalidate();
+        if (subGraph != null) {
+            draw(canvas.getGraphicsContext2D());
+        }
+    }
+
     /**
      * Resets which nodes are clicked on.
      */
@@ -581,6 +937,14 @@ class GraphController {
         return subGraph.onClick(x, y);
     }
 
+    DrawableSegment getClicked() {
+        return clicked;
+    }
+
+    DrawableSegment getClickedShift() {
+        return clickedShift;
+    }
+
     /**
      * Method to highlight the node clicked on.
      *
@@ -18,6 +18,7 @@ import javafx.scene.input.*;
 import javafx.scene.layout.AnchorPane;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Text;
+import javafx.stage.DirectoryChooser;
 import javafx.stage.FileChooser;
 import javafx.stage.FileChooser.ExtensionFilter;
 import javafx.stage.Stage;
@@ -27,9 +28,15 @@ import programminglife.gui.Alerts;
 import programminglife.gui.NumbersOnlyListener;
 import programminglife.gui.ResizableCanvas;
 import programminglife.model.GenomeGraph;
+import programminglife.model.analysis.DistanceIndex;
+import programminglife.model.analysis.GenomeSimilarity;
+import programminglife.model.analysis.StatisticsAnalysis;
 import programminglife.model.drawing.*;
+import programminglife.parser.FastaExporter;
 import programminglife.parser.GraphParser;
 import programminglife.parser.ProgressCounter;
+import programminglife.parser.SimilarityExporter;
+import programminglife.parser.VcfExporter;
 import programminglife.utility.Console;
 
 import java.awt.*;
@@ -38,11 +45,16 @@ import java.awt.datatransfer.StringSelection;
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Observable;
 import java.util.Observer;
+import java.util.Optional;
 import java.util.Random;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * The controller for the GUI that is used in the application.
@@ -52,9 +64,14 @@ public class GuiController implements Observer {
     //static finals
     private static final String INITIAL_CENTER_NODE = "1";
     private static final String INITIAL_MAX_DRAW_DEPTH = "10";
+    private static final String DISTANCE_ID = "Distance: ";
 
     //FXML imports.
     @FXML private MenuItem btnOpenGFA;
+    @FXML private MenuItem btnExportFasta;
+    @FXML private MenuItem btnExportVcf;
+    @FXML private MenuItem btnExportSimilarity;
+    @FXML private MenuItem btnStatistics;
     @FXML private MenuItem btnQuit;
     @FXML private MenuItem btnBookmarks;
     @FXML private MenuItem btnAbout;
@@ -65,6 +82,7 @@ public class GuiController implements Observer {
     @FXML private RadioMenuItem btnSNP;
     @FXML private RadioMenuItem btnConsole;
     @FXML private RadioMenuItem btnMiniMap;
+    @FXML private RadioMenuItem btnTiles;
 
     @FXML private Button btnZoomReset;
     @FXML private Button btnDraw;
@@ -97,7 +115,7 @@ public class GuiController implements Observer {
 
     private final ExtensionFilter extFilterGFA = new ExtensionFilter("GFA files (*.gfa)", "*.GFA");
 
-    private static final double MAX_SCALE = 10.0d;
+    private static final double MAX_SCALE = 50.0d;
     private static final double MIN_SCALE = .02d;
     private static final double ZOOM_FACTOR = 1.05d;
 
@@ -135,8 +153,8 @@ public class GuiController implements Observer {
         if (file != null) {
             if (this.graphController != null && this.graphController.getGraph() != null) {
                 this.graphController.resetClicked();
+                this.graphController.clear();
                 this.graphController.getGraph().close();
-                this.canvas.getGraphicsContext2D().clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
             }
 
             disableGraphUIElements(true);
@@ -209,7 +227,13 @@ public class GuiController implements Observer {
             miniMap.setWidth(anchorGraphPanel.getWidth());
             miniMap.setHeight(50.d);
             Console.println("[%s] Graph was set to %s.", Thread.currentThread().getName(), graph.getID());
-            Console.println("[%s] The graph has %d nodes", Thread.currentThread().getName(), graph.size());
+            StatisticsAnalysis statistics = new StatisticsAnalysis(graph);
+            if (statistics.isComputed()) {
+                Console.println("[%s] Statistics of the graph:%n%s", Thread.currentThread().getName(),
+                        statistics.get());
+            } else {
+                Console.println("[%s] The graph has %d nodes", Thread.currentThread().getName(), graph.size());
+            }
             Platform.runLater(this::draw);
         }
     }
@@ -236,6 +260,116 @@ public class GuiController implements Observer {
         }
     }
 
+    /**
+     * Let the user choose a directory, and write the sequence of every genome to a FASTA file in it.
+     * The files are written in the background.
+     */
+    private void exportFasta() {
+        GenomeGraph graph = graphController.getGraph();
+        DirectoryChooser directoryChooser = new DirectoryChooser();
+        directoryChooser.setTitle("Export Genomes to FASTA");
+        if (file != null) {
+            directoryChooser.setInitialDirectory(file.getParentFile());
+        }
+        File directory = directoryChooser.showDialog(ProgrammingLife.getStage());
+        if (graph == null || directory == null) {
+            return;
+        }
+
+        int[] genomeIDs = IntStream.range(0, graph.getTotalGenomeNumber()).toArray();
+        Thread exportThread = new Thread(() -> {
+            try {
+                new FastaExporter(graph).exportAll(genomeIDs, directory, Runtime.getRuntime().availableProcessors());
+                Platform.runLater(() -> Alerts.info(String.format("Exported %d genomes to %s",
+                        genomeIDs.length, directory.getAbsolutePath())));
+            } catch (IOException e) {
+                Platform.runLater(() -> Alerts.error("The genomes could not be exported: " + e.getMessage()));
+            }
+        }, "fasta-export");
+        exportThread.setDaemon(true);
+        exportThread.start();
+    }
+
+    /**
+     * Let the user choose a reference genome and a file, and write the variants of all genomes relative to
+     * the reference to that file in VCF format. The file is written in the background.
+     */
+    private void exportVcf() {
+        GenomeGraph graph = graphController.getGraph();
+        if (graph == null || graph.getTotalGenomeNumber() == 0) {
+            return;
+        }
+        List<String> genomeNames = new ArrayList<>(graph.getGenomeNames());
+        Collections.sort(genomeNames);
+        ChoiceDialog<String> referenceDialog = new ChoiceDialog<>(genomeNames.get(0), genomeNames);
+        referenceDialog.setTitle("Export Variants to VCF");
+        referenceDialog.setHeaderText("Choose the reference genome");
+        Optional<String> reference = referenceDialog.showAndWait();
+        if (!reference.isPresent()) {
+            return;
+        }
+
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Export Variants to VCF");
+        fileChooser.getExtensionFilters().add(new ExtensionFilter("VCF files (*.vcf)", "*.vcf"));
+        fileChooser.setInitialFileName(reference.get().replaceAll("[^A-Za-z0-9._-]", "_") + ".vcf");
+        if (file != null) {
+            fileChooser.setInitialDirectory(file.getParentFile());
+        }
+        File vcf = fileChooser.showSaveDialog(ProgrammingLife.getStage());
+        if (vcf == null) {
+            return;
+        }
+
+        int referenceID = graph.getGenomeID(reference.get());
+        Thread exportThread = new Thread(() -> {
+            try {
+                int variants = new VcfExporter(graph).export(referenceID, vcf);
+                Platform.runLater(() -> Alerts.info(String.format("Exported %d variants to %s",
+                        variants, vcf.getAbsolutePath())));
+            } catch (IOException e) {
+                Platform.runLater(() -> Alerts.error("The variants could not be exported: " + e.getMessage()));
+            }
+        }, "vcf-export");
+        exportThread.setDaemon(true);
+        exportThread.start();
+    }
+
+    /**
+     * Let the user choose a file, and write the similarity of the bases of every pair of genomes to it,
+     * with similar genomes next to each other. The similarity is computed (or read from the cache) and written
+     * in the background.
+     */
+    private void exportSimilarity() {
+        GenomeGraph graph = graphController.getGraph();
+        if (graph == null) {
+            return;
+        }
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Export Genome Similarity");
+        fileChooser.getExtensionFilters().add(new ExtensionFilter("Tab separated files (*.tsv)", "*.tsv"));
+        fileChooser.setInitialFileName("similarity.tsv");
+        if (file != null) {
+            fileChooser.setInitialDirectory(file.getParentFile());
+        }
+        File tsv = fileChooser.showSaveDialog(ProgrammingLife.getStage());
+        if (tsv == null) {
+            return;
+        }
+
+        Thread exportThread = new Thread(() -> {
+            try {
+                new SimilarityExporter(graph, new GenomeSimilarity(graph).get()).export(true, true, tsv);
+                Platform.runLater(() -> Alerts.info("Exported the genome similarity to " + tsv.getAbsolutePath()));
+            } catch (IOException e) {
+                Platform.runLater(() -> Alerts.error("The genome similarity could not be exported: "
+                        + e.getMessage()));
+            }
+        }, "similarity-export");
+        exportThread.setDaemon(true);
+        exportThread.start();
+    }
+
     /**
      * Initializes the open button so that the user can decide which file to open.
      * Sets the action for the open MenuItem.
@@ -245,6 +379,11 @@ public class GuiController implements Observer {
         btnOpenGFA.setOnAction((ActionEvent event) -> fileChooser(extFilterGFA));
         btnOpenGFA.setAccelerator(new KeyCodeCombination(KeyCode.O, KeyCodeCombination.CONTROL_DOWN));
 
+        btnExportFasta.setOnAction(event -> exportFasta());
+        btnExportVcf.setOnAction(event -> exportVcf());
+        btnExportSimilarity.setOnAction(event -> exportSimilarity());
+        btnStatistics.setOnAction(event -> showStatistics());
+
         btnQuit.setOnAction(event -> Alerts.quitAlert());
         btnQuit.setAccelerator(new KeyCodeCombination(KeyCode.Q, KeyCodeCombination.CONTROL_DOWN));
 
@@ -262,6 +401,8 @@ public class GuiController implements Observer {
             Platform.runLater(this::draw);
         });
         btnSNP.setAccelerator(new KeyCodeCombination(KeyCode.G, KeyCodeCombination.CONTROL_DOWN));
+        btnTiles.setOnAction(event -> graphController.setTiledRendering());
+        btnTiles.setAccelerator(new KeyCodeCombination(KeyCode.T, KeyCodeCombination.CONTROL_DOWN));
 
         btnDark.setOnAction(event -> {
             ProgrammingLife.toggleCSS();
@@ -300,6 +441,22 @@ public class GuiController implements Observer {
         btnBookmarks.setAccelerator(new KeyCodeCombination(KeyCode.B, KeyCodeCombination.CONTROL_DOWN));
     }
 
+    /**
+     * Show the statistics of the graph that were computed when it was imported.
+     */
+    private void showStatistics() {
+        GenomeGraph graph = graphController.getGraph();
+        if (graph == null) {
+            return;
+        }
+        StatisticsAnalysis statistics = new StatisticsAnalysis(graph);
+        if (statistics.isComputed()) {
+            Alerts.info(statistics.get().toString());
+        } else {
+            Alerts.warning("The statistics of this graph have not been computed.");
+        }
+    }
+
     /**
      * Method to disable the UI Elements on the left of the GUI.
      *
@@ -307,6 +464,10 @@ public class GuiController implements Observer {
      */
     private void disableGraphUIElements(boolean isDisabled) {
         anchorLeftControlPanel.setDisable(isDisabled);
+        btnExportFasta.setDisable(isDisabled);
+        btnExportVcf.setDisable(isDisabled);
+        btnExportSimilarity.setDisable(isDisabled);
+        btnStatistics.setDisable(isDisabled);
     }
 
     /**
@@ -380,11 +541,12 @@ public class GuiController implements Observer {
                 centerNode = 1;
             }
             if (graphController.getGraph().contains(centerNode)) {
-                this.graphController.clear();
-                this.graphController.draw(centerNode, maxDepth);
-                this.miniMapController.showPosition(centerNode);
-                resetZoom();
-                Console.println("[%s] Graph drawn.", Thread.currentThread().getName());
+                int drawnCenterNode = centerNode;
+                this.graphController.draw(centerNode, maxDepth, () -> {
+                    this.miniMapController.showPosition(drawnCenterNode);
+                    resetZoom();
+                    Console.println("[%s] Graph drawn.", Thread.currentThread().getName());
+                });
             } else {
                 Alerts.warning("The centernode is not a existing node, try again with a number that exists as a node.");
             }
@@ -471,6 +633,27 @@ public class GuiController implements Observer {
                     showInfoNode(segment, 10);
                 }
                 graphController.highlightClicked(segment, null, shiftPressed);
+            } else if (clickedOn instanceof DrawableChain) {
+                DrawableChain chain = (DrawableChain) clickedOn;
+                if (shiftPressed) {
+                    showInfoChain(chain, 240);
+                } else {
+                    showInfoChain(chain, 10);
+                }
+            } else if (clickedOn instanceof DrawableBubble) {
+                DrawableBubble bubble = (DrawableBubble) clickedOn;
+                if (shiftPressed) {
+                    showInfoBubble(bubble, 240);
+                } else {
+                    showInfoBubble(bubble, 10);
+                }
+            } else if (clickedOn instanceof DrawableSuperNode) {
+                DrawableSuperNode superNode = (DrawableSuperNode) clickedOn;
+                if (shiftPressed) {
+                    showInfoSuperNode(superNode, 240);
+                } else {
+                    showInfoSuperNode(superNode, 10);
+                }
             } else if (clickedOn instanceof DrawableDummy) {
                 DrawableDummy dummy = (DrawableDummy) clickedOn;
                 if (shiftPressed) {
@@ -486,7 +669,41 @@ public class GuiController implements Observer {
                     showInfoEdge(edge, 10);
                 }
             }
+            showDistance();
+        }
+    }
+
+    /**
+     * Show the distance in base pairs between the two selected nodes, if two nodes are selected.
+     */
+    private void showDistance() {
+        anchorGraphInfo.getChildren().removeIf(node -> DISTANCE_ID.equals(node.getId()));
+        GenomeGraph graph = graphController.getGraph();
+        DrawableSegment first = graphController.getClickedShift();
+        DrawableSegment second = graphController.getClicked();
+        if (graph == null || first == null || second == null) {
+            return;
+        }
+        DistanceIndex index = new DistanceIndex(graph);
+        if (!index.isBuilt()) {
+            return;
+        }
+
+        long[] distance = index.getDistance(first.getIdentifier(), second.getIdentifier());
+        String distanceString;
+        if (distance == null) {
+            distanceString = "No path goes through both nodes";
+        } else if (distance[0] == distance[1]) {
+            distanceString = String.format("%d bp", distance[0]);
+        } else {
+            distanceString = String.format("%d bp to %d bp", distance[0], distance[1]);
         }
+        Text distanceText = makeText(10, 735, String.format("Distance between node %d and node %d: ",
+                first.getIdentifier(), second.getIdentifier()));
+        distanceText.setId(DISTANCE_ID);
+        TextField distanceField = makeTextField(DISTANCE_ID, 10, 735, distanceString);
+        distanceField.setPrefSize(450, 20);
+        anchorGraphInfo.getChildren().addAll(distanceText, distanceField);
     }
 
     /**
@@ -575,6 +792,7 @@ public class GuiController implements Observer {
             AnchorPane page = loader.load();
             highlightController = loader.getController();
             highlightController.setGraphController(this.getGraphController());
+            highlightController.setGuiController(this);
             searchTab.setContent(page);
             searchTab.setDisable(true);
             searchTab.setOnSelectionChanged(event -> highlightController.initMinMax());
@@ -763,6 +981,120 @@ public class GuiController implements Observer {
                 genomeLength, parentTextField, childTextField, mutationTextField, genomeTextField);
     }
 
+    /**
+     * Method to show the information of a chain of segments.
+     *
+     * @param chain DrawableChain the chain which has been clicked on.
+     * @param x int the x location of the TextField.
+     */
+    private void showInfoChain(DrawableChain chain, int x) {
+        if (x == 10) {
+            btnClipboard.setVisible(true);
+        } else if (x == 240) {
+            btnClipboard2.setVisible(true);
+        }
+        Text idFirst = makeText(x, 65, "First: ");
+        Text idLast = makeText(x, 105, "Last: ");
+        Text segmentsText = makeText(x, 145, "Segments: ");
+        Text genomeAmountText = makeText(x, 185, "Amount of Genomes: ");
+        Text genomeText = makeText(x, 225, "Genomes: ");
+        Text seqLengthText = makeText(x, 340, "Sequence Length: ");
+        Text seqText = makeText(x, 380, "Sequence: ");
+
+        TextField firstTextField = makeTextField("First: ", x, 65, Integer.toString(chain.getFirst().getIdentifier()));
+        TextField lastTextField = makeTextField("Last: ", x, 105, Integer.toString(chain.getLast().getIdentifier()));
+        TextField segmentsTextField = makeTextField("Segments: ", x, 145,
+                Integer.toString(chain.getSegments().size()));
+        TextField genomeLength = makeTextField("Genome Length: ", x, 185, Integer.toString(chain.getGenomes().size()));
+
+        String genomesString = graphController.getGraph().getGenomeNames(chain.getGenomes()).toString();
+        TextArea genomeTextField = makeTextArea("Genome: ", x, 230,
+                genomesString.substring(1, genomesString.length() - 1), 90);
+        genomeTextField.setWrapText(true);
+        String sequenceString = chain.getSequence().replaceAll("(.{23})", "$1" + System.getProperty("line.separator"));
+        TextField seqLength = makeTextField("Sequence Length: ", x, 340, Long.toString(chain.getSequenceLength()));
+        TextArea seq = makeTextArea(x + " Sequence: ", x, 385, sequenceString, 250);
+
+        anchorGraphInfo.getChildren().removeIf(node1 -> node1.getLayoutX() == x);
+        anchorGraphInfo.getChildren().addAll(idFirst, idLast, segmentsText, genomeAmountText, genomeText,
+                seqLengthText, seqText, firstTextField, lastTextField, segmentsTextField, genomeLength,
+                genomeTextField, seqLength, seq);
+    }
+
+    /**
+     * Method to show the information of a collapsed bubble.
+     *
+     * @param bubble DrawableBubble the bubble which has been clicked on.
+     * @param x int the x location of the TextField.
+     */
+    private void showInfoBubble(DrawableBubble bubble, int x) {
+        if (x == 10) {
+            btnClipboard.setVisible(false);
+        } else if (x == 240) {
+            btnClipboard2.setVisible(false);
+        }
+        Text idParent = makeText(x, 65, "Parent: ");
+        Text idChild = makeText(x, 105, "Child: ");
+        Text branchesText = makeText(x, 145, "Branches: ");
+        Text genomeAmountText = makeText(x, 185, "Amount of Genomes: ");
+        Text idGenome = makeText(x, 225, "Genome: ");
+
+        TextField parentTextField = makeTextField("Parent: ", x, 65,
+                Integer.toString(bubble.getParent().getParentSegment().getIdentifier()));
+        TextField childTextField = makeTextField("Child: ", x, 105,
+                Integer.toString(bubble.getChild().getChildSegment().getIdentifier()));
+        String branches = String.format("%d (%d segments%s)", bubble.getBranches(), bubble.getSegments().size(),
+                bubble.hasDeletion() ? ", deletion" : "");
+        TextField branchesTextField = makeTextField("Branches: ", x, 145, branches);
+        TextField genomeLength = makeTextField("Genome Length: ", x, 185,
+                Integer.toString(bubble.getGenomes().size()));
+
+        String genomesString = graphController.getGraph().getGenomeNames(bubble.getGenomes()).toString();
+        TextArea genomeTextField = makeTextArea("Genome: ", x, 230,
+                genomesString.substring(1, genomesString.length() - 1), 80);
+        genomeTextField.setWrapText(true);
+
+        anchorGraphInfo.getChildren().removeIf(node1 -> node1.getLayoutX() == x);
+        anchorGraphInfo.getChildren().addAll(idParent, idChild, branchesText, idGenome, genomeAmountText,
+                genomeLength, parentTextField, childTextField, branchesTextField, genomeTextField);
+    }
+
+    /**
+     * Method to show the information of a super node, which stands for several nodes of the graph.
+     *
+     * @param superNode DrawableSuperNode the super node which has been clicked on.
+     * @param x int the x location of the TextField.
+     */
+    private void showInfoSuperNode(DrawableSuperNode superNode, int x) {
+        if (x == 10) {
+            btnClipboard.setVisible(false);
+        } else if (x == 240) {
+            btnClipboard2.setVisible(false);
+        }
+        Text idText = makeText(x, 65, "ID: ");
+        Text segmentsText = makeText(x, 105, "Segments: ");
+        Text lengthText = makeText(x, 145, "Sequence length: ");
+        Text genomeAmountText = makeText(x, 185, "Amount of Genomes: ");
+        Text idGenome = makeText(x, 225, "Genome: ");
+
+        TextField idTextField = makeTextField("ID: ", x, 65, Integer.toString(superNode.getIdentifier()));
+        TextField segmentsTextField = makeTextField("Segments: ", x, 105,
+                Integer.toString(superNode.getSegmentCount()));
+        TextField lengthTextField = makeTextField("Sequence length: ", x, 145,
+                Long.toString(superNode.getSequenceLength()));
+        TextField genomeLength = makeTextField("Genome Length: ", x, 185,
+                Integer.toString(superNode.getGenomes().size()));
+
+        String genomesString = graphController.getGraph().getGenomeNames(superNode.getGenomes()).toString();
+        TextArea genomeTextField = makeTextArea("Genome: ", x, 230,
+                genomesString.substring(1, genomesString.length() - 1), 80);
+        genomeTextField.setWrapText(true);
+
+        anchorGraphInfo.getChildren().removeIf(node1 -> node1.getLayoutX() == x);
+        anchorGraphInfo.getChildren().addAll(idText, segmentsText, lengthText, idGenome, genomeAmountText,
+                idTextField, segmentsTextField, lengthTextField, genomeLength, genomeTextField);
+    }
+
     /**
      * Returns a textField to be used by the edge and node information show panel.
      *
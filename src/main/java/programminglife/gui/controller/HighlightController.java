@@ -1,5 +1,6 @@
 package programminglife.gui.controller;
 
+import javafx.application.Platform;
 import javafx.beans.Observable;
 import javafx.collections.ListChangeListener;
 import javafx.fxml.FXML;
@@ -7,7 +8,18 @@ import javafx.scene.control.*;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.paint.Color;
 import javafx.util.Callback;
+import programminglife.gui.Alerts;
 import programminglife.gui.NumbersOnlyListener;
+import programminglife.model.GenomeGraph;
+import programminglife.model.analysis.CoverageAnalysis;
+import programminglife.model.analysis.CoverageHistogram;
+import programminglife.model.analysis.DifferenceRegion;
+import programminglife.model.analysis.GenomeComparison;
+import programminglife.model.analysis.GenomeCountIndex;
+import programminglife.model.analysis.GenomeDifference;
+import programminglife.model.analysis.MotifHit;
+import programminglife.model.analysis.MotifSearch;
+import programminglife.utility.Console;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -17,8 +29,10 @@ import java.util.stream.Collectors;
  */
 public class HighlightController {
     private static final Color HIGHLIGHT_MIN_MAX_COLOR = Color.YELLOW;
+    private static final int MAX_MOTIF_HITS = 1000;
 
     private GraphController graphController;
+    private GuiController guiController;
 
     @FXML private TextField txtSearchGenomes;
     @FXML private Hyperlink lnkClearSearch;
@@ -31,9 +45,24 @@ public class HighlightController {
     @FXML private TextField txtMax;
     @FXML private CheckBox checkMin;
     @FXML private CheckBox checkMax;
+    @FXML private Button btnPreviousMinMax;
+    @FXML private Button btnNextMinMax;
+    @FXML private Label lblMinMaxCount;
+    @FXML private Label lblCoverage;
+
+    @FXML private TextField txtMotif;
+    @FXML private Button btnFindMotif;
+    @FXML private ListView<MotifHit> lstMotifHits;
+
+    @FXML private Button btnCompare;
+    @FXML private Button btnPreviousDifference;
+    @FXML private Button btnNextDifference;
+    @FXML private Label lblDifference;
 
     private Collection<String> genomes;
     private Color[] genomeColors;
+    private CoverageHistogram coverage;
+    private GenomeDifference difference;
 
     /**
      * Initialize method for HighlightController.
@@ -105,9 +134,169 @@ public class HighlightController {
         txtMin.textProperty().addListener((observable, oldValue, newValue) -> this.highlight());
         checkMax.selectedProperty().addListener((observable, oldValue, newValue) -> this.highlight());
         checkMin.selectedProperty().addListener((observable, oldValue, newValue) -> this.highlight());
+        btnPreviousMinMax.disableProperty().bind(checkMin.selectedProperty().or(checkMax.selectedProperty()).not());
+        btnNextMinMax.disableProperty().bind(checkMin.selectedProperty().or(checkMax.selectedProperty()).not());
+        btnPreviousMinMax.setOnAction(event -> jumpMinMax(false));
+        btnNextMinMax.setOnAction(event -> jumpMinMax(true));
         txtSearchGenomes.textProperty().addListener(this::search);
         btnSelectGenomes.setOnMouseClicked(this::selectGenomes);
         btnUnselectGenomes.setOnMouseClicked(this::unselectGenomes);
+
+        txtMotif.setOnAction(event -> findMotif());
+        btnFindMotif.setOnAction(event -> findMotif());
+        btnCompare.setOnAction(event -> compareGenomes());
+        btnPreviousDifference.setOnAction(event -> jumpDifference(false));
+        btnNextDifference.setOnAction(event -> jumpDifference(true));
+        setDifference(null);
+        lstMotifHits.setOnMouseClicked(event -> {
+            MotifHit hit = lstMotifHits.getSelectionModel().getSelectedItem();
+            if (event.getClickCount() >= 2 && hit != null) {
+                guiController.setText(hit.getNodeID());
+                guiController.draw();
+            }
+        });
+    }
+
+    /**
+     * Draw the graph around the next or previous node, anywhere in the graph, that goes through the selected
+     * number of genomes. The search wraps around at the ends of the graph.
+     *
+     * @param forward true to go to the next node, false to go to the previous node.
+     */
+    private void jumpMinMax(boolean forward) {
+        GenomeGraph graph = graphController.getGraph();
+        if (graph == null) {
+            return;
+        }
+        GenomeCountIndex index = new GenomeCountIndex(graph);
+        if (!index.isBuilt()) {
+            return;
+        }
+
+        int minGenome = getMinGenome();
+        int maxGenome = getMaxGenome();
+        int center = graphController.getCenterNodeInt();
+        int nodeID = forward ? index.next(minGenome, maxGenome, center) : index.previous(minGenome, maxGenome, center);
+        if (nodeID == -1) {
+            nodeID = forward ? index.next(minGenome, maxGenome, -1)
+                    : index.previous(minGenome, maxGenome, Integer.MAX_VALUE);
+        }
+        if (nodeID == -1) {
+            Alerts.info("No node goes through the selected number of genomes.");
+            return;
+        }
+        guiController.setText(nodeID);
+        guiController.draw();
+    }
+
+    /**
+     * Compare the two selected genomes over the whole graph, and show how many nodes and bases are unique to
+     * each of them and shared by both. The comparison is done in the background.
+     */
+    private void compareGenomes() {
+        GenomeGraph graph = graphController.getGraph();
+        if (graph == null) {
+            return;
+        }
+        List<String> selected = new ArrayList<>(lstSelectedGenomes.getItems());
+        if (selected.size() != 2) {
+            Alerts.warning("Select two genomes to compare.");
+            return;
+        }
+
+        btnCompare.setDisable(true);
+        setDifference(null);
+        Thread compareThread = new Thread(() -> {
+            try {
+                GenomeDifference result = new GenomeComparison(graph)
+                        .compare(graph.getGenomeID(selected.get(0)), graph.getGenomeID(selected.get(1)));
+                Platform.runLater(() -> {
+                    setDifference(result);
+                    lblDifference.setText(String.format("%s only: %d nodes (%d bp)%n%s only: %d nodes (%d bp)%n"
+                                    + "Shared: %d nodes (%d bp)%nDifferent in %d regions",
+                            selected.get(0), result.getNodes(GenomeDifference.Membership.ONLY_A),
+                            result.getBases(GenomeDifference.Membership.ONLY_A),
+                            selected.get(1), result.getNodes(GenomeDifference.Membership.ONLY_B),
+                            result.getBases(GenomeDifference.Membership.ONLY_B),
+                            result.getNodes(GenomeDifference.Membership.SHARED),
+                            result.getBases(GenomeDifference.Membership.SHARED), result.getRegions().size()));
+                });
+            } catch (NoSuchElementException e) {
+                Platform.runLater(() -> Alerts.warning(e.getMessage()));
+            } finally {
+                Platform.runLater(() -> btnCompare.setDisable(false));
+            }
+        }, "genome-compare");
+        compareThread.setDaemon(true);
+        compareThread.start();
+    }
+
+    /**
+     * Set the result of the last comparison of two genomes.
+     *
+     * @param difference the {@link GenomeDifference}, or null to clear it.
+     */
+    private void setDifference(GenomeDifference difference) {
+        this.difference = difference;
+        boolean noRegions = difference == null || difference.getRegions().isEmpty();
+        btnPreviousDifference.setDisable(noRegions);
+        btnNextDifference.setDisable(noRegions);
+        if (difference == null) {
+            lblDifference.setText("");
+        }
+    }
+
+    /**
+     * Draw the graph around the next or previous region in which the compared genomes differ.
+     * The regions wrap around at the ends of the graph.
+     *
+     * @param forward true to go to the next region, false to go to the previous region.
+     */
+    private void jumpDifference(boolean forward) {
+        if (difference == null || difference.getRegions().isEmpty()) {
+            return;
+        }
+        List<DifferenceRegion> regions = difference.getRegions();
+        int center = graphController.getCenterNodeInt();
+        DifferenceRegion region = forward ? difference.regionAfter(center) : difference.regionBefore(center);
+        if (region == null) {
+            region = regions.get(forward ? 0 : regions.size() - 1);
+        }
+        guiController.setText(region.getFirstNodeID());
+        guiController.draw();
+    }
+
+    /**
+     * Find where the sequence that was typed in occurs in the graph, and list the places.
+     * The search is done in the background.
+     */
+    private void findMotif() {
+        GenomeGraph graph = graphController.getGraph();
+        String motif = txtMotif.getText();
+        if (graph == null || motif == null || motif.trim().isEmpty()) {
+            return;
+        }
+
+        lstMotifHits.getItems().clear();
+        btnFindMotif.setDisable(true);
+        Thread searchThread = new Thread(() -> {
+            try {
+                List<MotifHit> hits = new MotifSearch(graph).find(motif, MAX_MOTIF_HITS);
+                Console.println("[%s] Found %s at %d places", Thread.currentThread().getName(), motif, hits.size());
+                Platform.runLater(() -> {
+                    lstMotifHits.getItems().setAll(hits);
+                    if (hits.isEmpty()) {
+                        Alerts.info(String.format("%s does not occur in the graph.", motif.trim()));
+                    }
+                });
+            } catch (IllegalArgumentException | NoSuchElementException e) {
+                Platform.runLater(() -> Alerts.warning(e.getMessage()));
+            } finally {
+                Platform.runLater(() -> btnFindMotif.setDisable(false));
+            }
+        }, "motif-search");
+        searchThread.setDaemon(true);
+        searchThread.start();
     }
 
     /**
@@ -212,7 +401,11 @@ public class HighlightController {
     void initGenome() {
         genomes = this.graphController.getGraph().getGenomeNames();
         genomeColors = generateColors(graphController.getGraph().getTotalGenomeNumber());
+        coverage = new CoverageAnalysis(graphController.getGraph()).get();
+        lblCoverage.setText(coverage.toString());
         lstSelectedGenomes.getItems().clear();
+        lstMotifHits.getItems().clear();
+        setDifference(null);
         txtSearchGenomes.setText("");
         search(txtSearchGenomes.textProperty(), null, txtSearchGenomes.getText());
     }
@@ -240,23 +433,40 @@ public class HighlightController {
      * Checks the Min en Max to see if things need to be highlighted.
      */
     private void highlightMinMax() {
-        int minGenome = 0;
-        int maxGenome = Integer.MAX_VALUE;
-        if (checkMin.isSelected()) {
-            minGenome = Integer.valueOf(txtMin.getText());
-        }
-        if (checkMax.isSelected()) {
-            maxGenome = Integer.valueOf(txtMax.getText());
-        }
+        int minGenome = getMinGenome();
+        int maxGenome = getMaxGenome();
 
         if (checkMax.isSelected() || checkMin.isSelected()) {
             graphController.highlightMinMax(minGenome, maxGenome, HIGHLIGHT_MIN_MAX_COLOR);
+            if (coverage != null) {
+                lblMinMaxCount.setText(String.format("%d nodes (%d bp) in the graph",
+                        coverage.getNodes(minGenome, maxGenome), coverage.getBases(minGenome, maxGenome)));
+            }
         } else {
             graphController.highlightMinMax(0, 0, null);
+            lblMinMaxCount.setText("");
         }
 
     }
 
+    /**
+     * Get the smallest number of genomes of the nodes to highlight.
+     *
+     * @return the number in the min field, or 0 if it is not selected.
+     */
+    private int getMinGenome() {
+        return checkMin.isSelected() ? Integer.valueOf(txtMin.getText()) : 0;
+    }
+
+    /**
+     * Get the largest number of genomes of the nodes to highlight.
+     *
+     * @return the number in the max field, or {@link Integer#MAX_VALUE} if it is not selected.
+     */
+    private int getMaxGenome() {
+        return checkMax.isSelected() ? Integer.valueOf(txtMax.getText()) : Integer.MAX_VALUE;
+    }
+
     /**
      * Sets the guicontroller for controlling the menu.
      * Is used to call the graphController
@@ -267,6 +477,15 @@ public class HighlightController {
         this.graphController = graphController;
     }
 
+    /**
+     * Sets the guiController, which is used to draw the graph around a place that was found.
+     *
+     * @param guiController The gui controller
+     */
+    void setGuiController(GuiController guiController) {
+        this.guiController = guiController;
+    }
+
     Color[] getGenomeColors() {
         return genomeColors;
     }
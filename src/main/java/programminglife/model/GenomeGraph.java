@@ -3,20 +3,36 @@ package programminglife.model;
 import org.apache.commons.lang3.ArrayUtils;
 import org.jetbrains.annotations.NotNull;
 import programminglife.parser.Cache;
+import programminglife.parser.KmerIndex;
+import programminglife.parser.LayoutCache;
 
 import java.io.IOException;
+import java.lang.ref.WeakReference;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.WeakHashMap;
+import java.util.function.IntFunction;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * The class that handles the genome graph.
  */
 public class GenomeGraph {
+    /**
+     * The number of consecutive node IDs that {@link #getNodeData(int[], int)} reads on one thread.
+     */
+    private static final int NODE_DATA_RUN = 128;
+
     private final String id;
     private Cache cache;
+    private final Map<GenomeSet, WeakReference<GenomeSet>> genomeSets = new WeakHashMap<>();
 
     /**
      * Create a genomeGraph with id.
@@ -208,7 +224,7 @@ public class GenomeGraph {
      * @param genomeID the ID of the Genome
      * @return its name
      */
-    String getGenomeName(int genomeID) {
+    public String getGenomeName(int genomeID) {
         return this.cache.getGenomeName(genomeID);
     }
 
@@ -280,6 +296,24 @@ public class GenomeGraph {
         this.cache.rollback();
     }
 
+    /**
+     * Get the {@link LayoutCache} that stores the layouts of drawn parts of this graph.
+     *
+     * @return the LayoutCache.
+     */
+    public LayoutCache getLayoutCache() {
+        return this.cache.getLayoutCache();
+    }
+
+    /**
+     * Get the {@link KmerIndex} to search the sequences of this graph with.
+     *
+     * @return the KmerIndex.
+     */
+    public KmerIndex getKmerIndex() {
+        return this.cache.getKmerIndex();
+    }
+
     /**
      * Remove the cache file for this {@link GenomeGraph}.
      *
@@ -342,13 +376,519 @@ public class GenomeGraph {
      * The number of genomes through a node.
      *
      * @param nodeID the ID of the node
-     * @return the number
+     * @return the number, or 0 if the genomes of the node are not known
      */
-    private int getGenomesNumber(int nodeID) {
-        return this.cache.getNodeIdGenomesNumberMap().get(nodeID);
+    public int getGenomesNumber(int nodeID) {
+        Integer number = this.cache.getNodeIdGenomesNumberMap().get(nodeID);
+        return number == null ? 0 : number;
     }
 
     public int getTotalGenomeNumber() {
         return this.cache.getGenomeNamesIdMap().size();
     }
+
+    /**
+     * Get the IDs of all nodes in the graph, in topological order.
+     *
+     * @return an int[] of IDs
+     */
+    public int[] getAllNodeIDs() {
+        return this.cache.getNodeIDs();
+    }
+
+    /**
+     * Whether the coarsening hierarchy has been computed for this graph.
+     *
+     * @return true if it has been computed.
+     */
+    public boolean isCoarsened() {
+        return this.cache.isCoarsened();
+    }
+
+    /**
+     * Get the number of coarse levels above the graph itself.
+     *
+     * @return the number of coarse levels, 0 if there are none.
+     */
+    public int getNumberOfCoarseLevels() {
+        return this.cache.getNumberOfCoarseLevels();
+    }
+
+    /**
+     * Set the number of coarse levels above the graph itself.
+     *
+     * @param levels the number of coarse levels.
+     */
+    public void setNumberOfCoarseLevels(int levels) {
+        this.cache.setNumberOfCoarseLevels(levels);
+    }
+
+    /**
+     * Get the ID of the node that a node is merged into on a level.
+     *
+     * @param nodeID the ID of a node in the graph itself (level 0)
+     * @param level  the level to look up
+     * @return the ID of the node on that level, which is the lowest ID of all nodes merged into it.
+     */
+    public int getCoarseNodeID(int nodeID, int level) {
+        int coarseID = nodeID;
+        for (int i = 1; i <= level; i++) {
+            Integer id = this.cache.getCoarseNodeMap(i).get(coarseID);
+            if (id == null) {
+                throw new NoSuchElementException(String.format("Node %d is not on level %d", coarseID, i - 1));
+            }
+            coarseID = id;
+        }
+        return coarseID;
+    }
+
+    /**
+     * Get IDs of children of a node on a level.
+     *
+     * @param nodeID the ID of the node to look up
+     * @param level  the level of the node, 0 for the graph itself
+     * @return an int[] of IDs
+     */
+    public int[] getChildIDs(int nodeID, int level) {
+        if (level == 0) {
+            return this.getChildIDs(nodeID);
+        }
+        return this.cache.getCoarseChildrenMap(level).get(nodeID);
+    }
+
+    /**
+     * Get IDs of parents of a node on a level.
+     *
+     * @param nodeID the ID of the node to look up
+     * @param level  the level of the node, 0 for the graph itself
+     * @return an int[] of IDs
+     */
+    public int[] getParentIDs(int nodeID, int level) {
+        if (level == 0) {
+            return this.getParentIDs(nodeID);
+        }
+        return this.cache.getCoarseParentsMap(level).get(nodeID);
+    }
+
+    /**
+     * Get the Genomes through a node on a level.
+     *
+     * @param nodeID the ID of the node to look up
+     * @param level  the level of the node, 0 for the graph itself
+     * @return an int[] of Genome IDs
+     */
+    public int[] getGenomes(int nodeID, int level) {
+        if (level == 0) {
+            return this.getGenomes(nodeID);
+        }
+        return this.cache.getCoarseGenomesMap(level).get(nodeID);
+    }
+
+    /**
+     * Get the Genomes through a node on a level as a shared {@link GenomeSet}. Many nodes are in exactly the
+     * same genomes, so nodes with the same genomes get the same read-only GenomeSet, for as long as it is in use.
+     *
+     * @param nodeID the ID of the node to look up
+     * @param level  the level of the node, 0 for the graph itself
+     * @return a read-only {@link GenomeSet} of Genome IDs
+     */
+    public GenomeSet getGenomeSet(int nodeID, int level) {
+        return this.shareGenomeSet(this.getGenomes(nodeID, level));
+    }
+
+    /**
+     * Get the shared read-only {@link GenomeSet} for some genomes.
+     *
+     * @param genomeIDs the IDs of the genomes
+     * @return a read-only {@link GenomeSet} of the genomes, which is shared with all nodes with the same genomes
+     */
+    private synchronized GenomeSet shareGenomeSet(int[] genomeIDs) {
+        GenomeSet genomes = GenomeSet.readOnlyOf(genomeIDs);
+        WeakReference<GenomeSet> reference = this.genomeSets.get(genomes);
+        GenomeSet shared = reference == null ? null : reference.get();
+        if (shared != null) {
+            return shared;
+        }
+        this.genomeSets.put(genomes, new WeakReference<>(genomes));
+        return genomes;
+    }
+
+    /**
+     * Get everything that is needed to draw some nodes on a level, in one go. The lookups are done one cache
+     * map at a time, instead of one node at a time, and nodes that are asked for more than once are only read
+     * once. Large batches are split into runs that are read in parallel.
+     *
+     * @param nodeIDs the IDs of the nodes to look up, on the given level
+     * @param level   the level of the nodes, 0 for the graph itself
+     * @return the {@link NodeData} of every node, in the same order as nodeIDs
+     * @throws NoSuchElementException if a node is not on the level
+     */
+    public NodeData[] getNodeData(int[] nodeIDs, int level) {
+        int[] distinct = Arrays.stream(nodeIDs).distinct().toArray();
+        NodeData[] data = new NodeData[distinct.length];
+        if (distinct.length < 2 * NODE_DATA_RUN) {
+            this.readNodeData(distinct, 0, distinct.length, level, data);
+        } else {
+            int runs = (distinct.length + NODE_DATA_RUN - 1) / NODE_DATA_RUN;
+            IntStream.range(0, runs).parallel().forEach(run -> this.readNodeData(distinct, run * NODE_DATA_RUN,
+                    Math.min(distinct.length, (run + 1) * NODE_DATA_RUN), level, data));
+        }
+        if (distinct.length == nodeIDs.length) {
+            return data;
+        }
+
+        Map<Integer, NodeData> byID = new HashMap<>(2 * distinct.length);
+        for (NodeData nodeData : data) {
+            byID.put(nodeData.getID(), nodeData);
+        }
+        NodeData[] result = new NodeData[nodeIDs.length];
+        for (int i = 0; i < nodeIDs.length; i++) {
+            result[i] = byID.get(nodeIDs[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Read the {@link NodeData} of a run of node IDs, one cache map at a time.
+     *
+     * @param ids    the distinct IDs of the nodes
+     * @param from   the index of the first ID of the run (inclusive)
+     * @param to     the index of the last ID of the run (exclusive)
+     * @param level  the level of the nodes, 0 for the graph itself
+     * @param data   the array to put the NodeData in, at the same index as the ID
+     * @throws NoSuchElementException if a node is not on the level
+     */
+    private void readNodeData(int[] ids, int from, int to, int level, NodeData[] data) {
+        Map<Integer, int[]> parentsMap = level == 0
+                ? this.cache.getParentsAdjacencyMap() : this.cache.getCoarseParentsMap(level);
+        Map<Integer, int[]> childrenMap = level == 0
+                ? this.cache.getChildrenAdjacencyMap() : this.cache.getCoarseChildrenMap(level);
+
+        int size = to - from;
+        int[][] parents = new int[size][];
+        for (int i = 0; i < size; i++) {
+            parents[i] = parentsMap.get(ids[from + i]);
+            if (parents[i] == null) {
+                throw new NoSuchElementException(
+                        String.format("Node %d is not on level %d", ids[from + i], level));
+            }
+        }
+        int[][] children = new int[size][];
+        for (int i = 0; i < size; i++) {
+            children[i] = childrenMap.get(ids[from + i]);
+        }
+        int[][] genomes = new int[size][];
+        for (int i = 0; i < size; i++) {
+            genomes[i] = this.getGenomes(ids[from + i], level);
+        }
+        int[] genomeCounts = new int[size];
+        for (int i = 0; i < size; i++) {
+            genomeCounts[i] = level == 0 ? this.getGenomesNumber(ids[from + i]) : genomes[i].length;
+        }
+        long[] lengths = new long[size];
+        for (int i = 0; i < size; i++) {
+            lengths[i] = this.getSequenceLength(ids[from + i], level);
+        }
+        int[] segmentCounts = new int[size];
+        for (int i = 0; i < size; i++) {
+            segmentCounts[i] = this.getSegmentCount(ids[from + i], level);
+        }
+
+        for (int i = 0; i < size; i++) {
+            data[from + i] = new NodeData(ids[from + i], parents[i], children[i],
+                    this.shareGenomeSet(genomes[i]), genomeCounts[i], lengths[i], segmentCounts[i]);
+        }
+    }
+
+    /**
+     * Get everything that is needed to draw all nodes on a level with an ID in a range.
+     *
+     * @param fromID the lowest ID of the range (inclusive)
+     * @param toID   the highest ID of the range (exclusive)
+     * @param level  the level of the nodes, 0 for the graph itself
+     * @return the {@link NodeData} of the nodes in the range, in ascending order of ID
+     */
+    public NodeData[] getNodeData(int fromID, int toID, int level) {
+        Map<Integer, int[]> childrenMap = level == 0
+                ? this.cache.getChildrenAdjacencyMap() : this.cache.getCoarseChildrenMap(level);
+        int[] nodeIDs = IntStream.range(fromID, toID).filter(childrenMap::containsKey).toArray();
+        return this.getNodeData(nodeIDs, level);
+    }
+
+    /**
+     * Get the total sequence length of a node on a level.
+     *
+     * @param nodeID the ID of the node to look up
+     * @param level  the level of the node, 0 for the graph itself
+     * @return the sum of the sequence lengths of all segments merged into the node
+     */
+    public long getSequenceLength(int nodeID, int level) {
+        if (level == 0) {
+            return this.getSequenceLength(nodeID);
+        }
+        return this.cache.getCoarseLengthMap(level).get(nodeID);
+    }
+
+    /**
+     * Get the number of segments merged into a node on a level.
+     *
+     * @param nodeID the ID of the node to look up
+     * @param level  the level of the node, 0 for the graph itself
+     * @return the number of segments
+     */
+    public int getSegmentCount(int nodeID, int level) {
+        if (level == 0) {
+            return 1;
+        }
+        return this.cache.getCoarseSizeMap(level).get(nodeID);
+    }
+
+    /**
+     * Add a node to a coarse level.
+     *
+     * @param level    the coarse level (at least 1)
+     * @param nodeID   the ID of the node
+     * @param children the IDs of its children on the same level
+     * @param parents  the IDs of its parents on the same level
+     * @param genomes  the IDs of the genomes through it
+     * @param length   the total sequence length of the segments merged into it
+     * @param size     the number of segments merged into it
+     */
+    public void addCoarseNode(int level, int nodeID, int[] children, int[] parents, int[] genomes,
+                              long length, int size) {
+        this.cache.getCoarseChildrenMap(level).put(nodeID, children);
+        this.cache.getCoarseParentsMap(level).put(nodeID, parents);
+        this.cache.getCoarseGenomesMap(level).put(nodeID, genomes);
+        this.cache.getCoarseLengthMap(level).put(nodeID, length);
+        this.cache.getCoarseSizeMap(level).put(nodeID, size);
+    }
+
+    /**
+     * Set the node that a node of the level below is merged into.
+     *
+     * @param level    the coarse level (at least 1)
+     * @param nodeID   the ID of the node on level - 1
+     * @param coarseID the ID of the node on level it is merged into
+     */
+    public void setCoarseNodeID(int level, int nodeID, int coarseID) {
+        this.cache.getCoarseNodeMap(level).put(nodeID, coarseID);
+    }
+
+    /**
+     * Whether the bubbles of this graph have been detected.
+     *
+     * @return true if they have been detected.
+     */
+    public boolean isBubblesDetected() {
+        return this.cache.isBubblesDetected();
+    }
+
+    /**
+     * Mark the bubbles of this graph as detected.
+     */
+    public void setBubblesDetected() {
+        this.cache.setBubblesDetected();
+    }
+
+    /**
+     * Get the sink of the bubble that starts at a node.
+     *
+     * @param nodeID the ID of the source of the bubble
+     * @return the ID of the sink of the bubble, or -1 if no collapsible bubble starts at this node.
+     */
+    public int getBubbleSink(int nodeID) {
+        Integer sink = this.cache.getBubbleSinkMap().get(nodeID);
+        return sink == null ? -1 : sink;
+    }
+
+    /**
+     * Add a collapsible bubble.
+     *
+     * @param source the ID of the node the bubble starts at
+     * @param sink   the ID of the node the bubble ends at
+     */
+    public void addBubble(int source, int sink) {
+        this.cache.getBubbleSinkMap().put(source, sink);
+    }
+
+    /**
+     * Whether the base positions along the genomes of this graph have been indexed.
+     *
+     * @return true if they have been indexed.
+     */
+    public boolean isCoordinatesIndexed() {
+        return this.cache.isCoordinatesIndexed();
+    }
+
+    /**
+     * Mark the base positions along the genomes of this graph as indexed.
+     */
+    public void setCoordinatesIndexed() {
+        this.cache.setCoordinatesIndexed();
+    }
+
+    /**
+     * Store the path of a genome through this graph.
+     *
+     * @param genomeID    the ID of the genome
+     * @param path        the encoded IDs of the nodes along the genome
+     * @param checkpoints the sampled base positions along the genome
+     */
+    public void setGenomePath(int genomeID, byte[] path, long[] checkpoints) {
+        this.cache.getGenomePathMap().put(genomeID, path);
+        this.cache.getGenomeCheckpointMap().put(genomeID, checkpoints);
+    }
+
+    /**
+     * Get the encoded IDs of the nodes along a genome.
+     *
+     * @param genomeID the ID of the genome
+     * @return the encoded IDs, or null if the genome has not been indexed.
+     */
+    public byte[] getGenomePath(int genomeID) {
+        return this.cache.getGenomePathMap().get(genomeID);
+    }
+
+    /**
+     * Get the sampled base positions along a genome.
+     *
+     * @param genomeID the ID of the genome
+     * @return the sampled positions, or null if the genome has not been indexed.
+     */
+    public long[] getGenomeCheckpoints(int genomeID) {
+        return this.cache.getGenomeCheckpointMap().get(genomeID);
+    }
+
+    /**
+     * Store counts of the genome similarity of this graph.
+     *
+     * @param name   the name of the counts
+     * @param counts the count for every genome, or for every pair of genomes
+     */
+    public void setSimilarityCounts(String name, long[] counts) {
+        this.cache.getSimilarityMap().put(name, counts);
+    }
+
+    /**
+     * Get counts of the genome similarity of this graph.
+     *
+     * @param name the name of the counts
+     * @return the counts, or null if they have not been stored.
+     */
+    public long[] getSimilarityCounts(String name) {
+        return this.cache.getSimilarityMap().get(name);
+    }
+
+    /**
+     * Store a histogram of the genome coverage of this graph.
+     *
+     * @param name   the name of the histogram
+     * @param counts the count for every number of genomes
+     */
+    public void setCoverageHistogram(String name, long[] counts) {
+        this.cache.getCoverageMap().put(name, counts);
+    }
+
+    /**
+     * Get a histogram of the genome coverage of this graph.
+     *
+     * @param name the name of the histogram
+     * @return the count for every number of genomes, or null if the histogram has not been stored.
+     */
+    public long[] getCoverageHistogram(String name) {
+        return this.cache.getCoverageMap().get(name);
+    }
+
+    /**
+     * Store statistics of this graph.
+     *
+     * @param name   the name of the statistic
+     * @param counts the counts of the statistic
+     */
+    public void setStatistics(String name, long[] counts) {
+        this.cache.getStatisticsMap().put(name, counts);
+    }
+
+    /**
+     * Get statistics of this graph.
+     *
+     * @param name the name of the statistic
+     * @return the counts of the statistic, or null if they have not been stored.
+     */
+    public long[] getStatistics(String name) {
+        return this.cache.getStatisticsMap().get(name);
+    }
+
+    /**
+     * Whether the distances between the nodes of this graph have been indexed.
+     *
+     * @return true if they have been indexed.
+     */
+    public boolean isDistancesIndexed() {
+        return this.cache.isDistancesIndexed();
+    }
+
+    /**
+     * Store the distance index of this graph, one entry at a time.
+     *
+     * @param nodeIDs     the IDs of all nodes, in ascending order.
+     * @param nodeEntries for each index in nodeIDs, the entry of that node.
+     * @param sites       the number of sites.
+     * @param siteEntries for each site, its entry.
+     */
+    public void storeDistances(int[] nodeIDs, IntFunction<long[]> nodeEntries,
+                               int sites, IntFunction<long[]> siteEntries) {
+        this.cache.storeDistances(nodeIDs, nodeEntries, sites, siteEntries);
+    }
+
+    /**
+     * Get the distance index entry of a node.
+     *
+     * @param nodeID the ID of the node.
+     * @return the entry, or null if the node is not in this graph.
+     * @throws NoSuchElementException if the distances have not been indexed.
+     */
+    public long[] getDistanceNodeEntry(int nodeID) {
+        return this.cache.getDistanceNodeEntry(nodeID);
+    }
+
+    /**
+     * Get the distance index entry of a site.
+     *
+     * @param site the index of the site.
+     * @return the entry, or null if there is no such site.
+     * @throws NoSuchElementException if the distances have not been indexed.
+     */
+    public long[] getDistanceSiteEntry(int site) {
+        return this.cache.getDistanceSiteEntry(site);
+    }
+
+    /**
+     * Whether the nodes of this graph have been indexed by their number of genomes.
+     *
+     * @return true if they have been indexed.
+     */
+    public boolean isGenomeCountsIndexed() {
+        return this.cache.isGenomeCountsIndexed();
+    }
+
+    /**
+     * Store the index from the number of genomes of a node to its ID, as sorted runs of node IDs.
+     *
+     * @param keys the keys of the runs, in ascending order.
+     * @param runs for each key the run of node IDs.
+     */
+    public void storeGenomeCounts(long[] keys, int[][] runs) {
+        this.cache.storeGenomeCounts(keys, runs);
+    }
+
+    /**
+     * Get the index from the number of genomes of a node to its ID.
+     *
+     * @return the sorted runs of node IDs, by genome count and first node ID.
+     * @throws NoSuchElementException if the nodes have not been indexed.
+     */
+    public NavigableMap<Long, int[]> getGenomeCountRuns() {
+        return this.cache.getGenomeCountMap();
+    }
 }
@@ -0,0 +1,267 @@
+package programminglife.model;
+
+import java.util.AbstractSet;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A set of genome IDs, stored as a bitset. Genome IDs are small and dense (0 to the number of genomes),
+ * so a set takes one bit per genome, and intersections and differences of two GenomeSets are done a word
+ * (64 genomes) at a time instead of one boxed Integer at a time.
+ * It can be used everywhere a {@link java.util.Set} of genome IDs is expected.
+ * <p>
+ * The GenomeSets of nodes that are handed out by {@link GenomeGraph#getGenomeSet(int, int)} are shared
+ * and read-only; use {@link #copyOf(Collection)} to get a GenomeSet that can be changed.
+ */
+public final class GenomeSet extends AbstractSet<Integer> {
+    private final BitSet bits;
+    private final boolean readOnly;
+
+    /**
+     * Create an empty GenomeSet.
+     */
+    public GenomeSet() {
+        this(new BitSet());
+    }
+
+    /**
+     * Create a GenomeSet backed by a {@link BitSet}.
+     *
+     * @param bits the bits of the genomes in this set.
+     */
+    private GenomeSet(BitSet bits) {
+        this(bits, false);
+    }
+
+    /**
+     * Create a GenomeSet backed by a {@link BitSet}.
+     *
+     * @param bits     the bits of the genomes in this set.
+     * @param readOnly whether changing this set is not allowed.
+     */
+    private GenomeSet(BitSet bits, boolean readOnly) {
+        this.bits = bits;
+        this.readOnly = readOnly;
+    }
+
+    /**
+     * Create a GenomeSet from an array of genome IDs.
+     *
+     * @param genomes the genome IDs.
+     * @return a new GenomeSet with these genomes.
+     */
+    public static GenomeSet of(int... genomes) {
+        BitSet bits = new BitSet();
+        for (int genome : genomes) {
+            bits.set(genome);
+        }
+        return new GenomeSet(bits);
+    }
+
+    /**
+     * Create a GenomeSet that cannot be changed from an array of genome IDs.
+     *
+     * @param genomes the genome IDs.
+     * @return a new read-only GenomeSet with these genomes.
+     */
+    static GenomeSet readOnlyOf(int... genomes) {
+        return new GenomeSet(of(genomes).bits, true);
+    }
+
+    /**
+     * Whether this set cannot be changed.
+     *
+     * @return true if this set is read-only.
+     */
+    public boolean isReadOnly() {
+        return this.readOnly;
+    }
+
+    /**
+     * Throw an exception if this set cannot be changed.
+     */
+    private void checkWritable() {
+        if (this.readOnly) {
+            throw new UnsupportedOperationException("This GenomeSet is shared and cannot be changed.");
+        }
+    }
+
+    /**
+     * Create a GenomeSet with the same genomes as a collection.
+     *
+     * @param genomes the genome IDs. If this is a GenomeSet, its bits are copied directly.
+     * @return a new GenomeSet with these genomes.
+     */
+    public static GenomeSet copyOf(Collection<Integer> genomes) {
+        if (genomes instanceof GenomeSet) {
+            return new GenomeSet((BitSet) ((GenomeSet) genomes).bits.clone());
+        }
+        GenomeSet result = new GenomeSet();
+        genomes.forEach(result::add);
+        return result;
+    }
+
+    /**
+     * Create a new GenomeSet with the genomes that are both in this set and in another one.
+     *
+     * @param other the other GenomeSet.
+     * @return a new GenomeSet with the intersection.
+     */
+    public GenomeSet intersection(GenomeSet other) {
+        BitSet result = (BitSet) this.bits.clone();
+        result.and(other.bits);
+        return new GenomeSet(result);
+    }
+
+    /**
+     * Whether this set has any genome in common with another one.
+     *
+     * @param other the other GenomeSet.
+     * @return true if the sets intersect.
+     */
+    public boolean intersects(GenomeSet other) {
+        return this.bits.intersects(other.bits);
+    }
+
+    /**
+     * Get the genome IDs in this set.
+     *
+     * @return the genome IDs, in ascending order.
+     */
+    public int[] toIntArray() {
+        return this.bits.stream().toArray();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Integer && (Integer) o >= 0 && this.bits.get((Integer) o);
+    }
+
+    @Override
+    public boolean add(Integer genome) {
+        this.checkWritable();
+        if (this.bits.get(genome)) {
+            return false;
+        }
+        this.bits.set(genome);
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        this.checkWritable();
+        if (!this.contains(o)) {
+            return false;
+        }
+        this.bits.clear((Integer) o);
+        return true;
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends Integer> c) {
+        this.checkWritable();
+        if (c instanceof GenomeSet) {
+            int size = this.size();
+            this.bits.or(((GenomeSet) c).bits);
+            return this.size() != size;
+        }
+        return super.addAll(c);
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        this.checkWritable();
+        if (c instanceof GenomeSet) {
+            int size = this.size();
+            this.bits.andNot(((GenomeSet) c).bits);
+            return this.size() != size;
+        }
+        return super.removeAll(c);
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        this.checkWritable();
+        if (c instanceof GenomeSet) {
+            int size = this.size();
+            this.bits.and(((GenomeSet) c).bits);
+            return this.size() != size;
+        }
+        return super.retainAll(c);
+    }
+
+    @Override
+    public boolean containsAll(Collection<?> c) {
+        if (c instanceof GenomeSet) {
+            BitSet missing = (BitSet) ((GenomeSet) c).bits.clone();
+            missing.andNot(this.bits);
+            return missing.isEmpty();
+        }
+        return super.containsAll(c);
+    }
+
+    @Override
+    public void clear() {
+        this.checkWritable();
+        this.bits.clear();
+    }
+
+    @Override
+    public int size() {
+        return this.bits.cardinality();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.bits.isEmpty();
+    }
+
+    @Override
+    public Iterator<Integer> iterator() {
+        return new Iterator<Integer>() {
+            private int next = bits.nextSetBit(0);
+            private int last = -1;
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            @Override
+            public Integer next() {
+                if (next < 0) {
+                    throw new NoSuchElementException("There are no more genomes in this set.");
+                }
+                last = next;
+                next = bits.nextSetBit(next + 1);
+                return last;
+            }
+
+            @Override
+            public void remove() {
+                checkWritable();
+                if (last < 0) {
+                    throw new IllegalStateException("next() has not been called.");
+                }
+                bits.clear(last);
+                last = -1;
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o instanceof GenomeSet) {
+            return this.bits.equals(((GenomeSet) o).bits);
+        }
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        // the hash code of a Set is the sum of the hash codes of its elements, which are the genome IDs themselves.
+        return this.bits.stream().sum();
+    }
+}
@@ -0,0 +1,75 @@
+package programminglife.model;
+
+/**
+ * The attributes of a node that are needed to draw it: its parents, children, genomes and size.
+ * These are read from the cache for many nodes at once by {@link GenomeGraph#getNodeData(int[], int)}.
+ */
+public final class NodeData {
+    private final int id;
+    private final int[] parentIDs;
+    private final int[] childIDs;
+    private final GenomeSet genomes;
+    private final int genomeCount;
+    private final long sequenceLength;
+    private final int segmentCount;
+
+    /**
+     * Create a NodeData.
+     *
+     * @param id             the ID of the node on its level
+     * @param parentIDs      the IDs of the parents of the node
+     * @param childIDs       the IDs of the children of the node
+     * @param genomes        the shared read-only {@link GenomeSet} of the genomes through the node
+     * @param genomeCount    the number of genomes through the node, as stored in the cache
+     * @param sequenceLength the (total) sequence length of the node
+     * @param segmentCount   the number of segments merged into the node, 1 for a segment of the graph itself
+     */
+    NodeData(int id, int[] parentIDs, int[] childIDs, GenomeSet genomes, int genomeCount, long sequenceLength,
+             int segmentCount) {
+        this.id = id;
+        this.parentIDs = parentIDs;
+        this.childIDs = childIDs;
+        this.genomes = genomes;
+        this.genomeCount = genomeCount;
+        this.sequenceLength = sequenceLength;
+        this.segmentCount = segmentCount;
+    }
+
+    public int getID() {
+        return id;
+    }
+
+    /**
+     * Get the IDs of the parents. The array is shared, so it must not be changed.
+     *
+     * @return the IDs of the parents
+     */
+    public int[] getParentIDs() {
+        return parentIDs;
+    }
+
+    /**
+     * Get the IDs of the children. The array is shared, so it must not be changed.
+     *
+     * @return the IDs of the children
+     */
+    public int[] getChildIDs() {
+        return childIDs;
+    }
+
+    public GenomeSet getGenomes() {
+        return genomes;
+    }
+
+    public int getGenomeCount() {
+        return genomeCount;
+    }
+
+    public long getSequenceLength() {
+        return sequenceLength;
+    }
+
+    public int getSegmentCount() {
+        return segmentCount;
+    }
+}
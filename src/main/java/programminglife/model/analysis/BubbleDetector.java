@@ -0,0 +1,185 @@
+package programminglife.model.analysis;
+
+import programminglife.model.GenomeGraph;
+import programminglife.utility.Console;
+
+import java.util.Arrays;
+
+/**
+ * Detects the bubbles of a {@link GenomeGraph} that can be collapsed into a single glyph when drawn.
+ * A bubble starts at a source with at least two children and ends at a sink, and every branch between them
+ * is a chain of nodes that each have one parent. A branch may also be the edge from the source to the sink
+ * (a deletion), or pass through bubbles that are nested inside it.
+ * <p>
+ * Because node IDs are in topological order, all sources are visited once in descending order, so every nested
+ * bubble is known before the bubble around it, and no node is walked over more than once per nesting level.
+ * The detected bubbles are stored in the cache of the graph.
+ */
+public class BubbleDetector {
+    private static final int MAX_BRANCHES = 8;
+    private static final int MAX_BRANCH_LENGTH = 100;
+    private static final int MAX_NODES = 64;
+
+    private final GenomeGraph graph;
+    private final int maxBranches;
+    private final int maxBranchLength;
+    private final int maxNodes;
+
+    private int[][] children;
+    private int[][] parents;
+    private int[] lengths;
+    private int[] sink;
+    private int[] bubbleNodes;
+    private int[] bubbleLength;
+
+    /**
+     * Create a BubbleDetector with the default size limits.
+     *
+     * @param graph the {@link GenomeGraph} to detect the bubbles of.
+     */
+    public BubbleDetector(GenomeGraph graph) {
+        this(graph, MAX_BRANCHES, MAX_BRANCH_LENGTH, MAX_NODES);
+    }
+
+    /**
+     * Create a BubbleDetector.
+     *
+     * @param graph           the {@link GenomeGraph} to detect the bubbles of.
+     * @param maxBranches     the maximum number of branches of a bubble.
+     * @param maxBranchLength the maximum sequence length of a branch, in base pairs.
+     * @param maxNodes        the maximum number of nodes between the source and the sink.
+     */
+    public BubbleDetector(GenomeGraph graph, int maxBranches, int maxBranchLength, int maxNodes) {
+        this.graph = graph;
+        this.maxBranches = maxBranches;
+        this.maxBranchLength = maxBranchLength;
+        this.maxNodes = maxNodes;
+    }
+
+    /**
+     * Detect all bubbles and store them in the cache of the graph.
+     *
+     * @return the number of bubbles that were found.
+     */
+    public int detect() {
+        int[] ids = graph.getAllNodeIDs();
+        children = new int[ids.length][];
+        parents = new int[ids.length][];
+        lengths = new int[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            children[i] = toIndices(ids, graph.getChildIDs(ids[i]));
+            parents[i] = toIndices(ids, graph.getParentIDs(ids[i]));
+            lengths[i] = graph.getSequenceLength(ids[i]);
+        }
+
+        sink = new int[ids.length];
+        bubbleNodes = new int[ids.length];
+        bubbleLength = new int[ids.length];
+        Arrays.fill(sink, -1);
+
+        int found = 0;
+        for (int v = ids.length - 1; v >= 0; v--) {
+            if (findBubble(v)) {
+                graph.addBubble(ids[v], ids[sink[v]]);
+                found++;
+            }
+        }
+
+        graph.setBubblesDetected();
+        Console.println("[%s] Found %d bubbles", Thread.currentThread().getName(), found);
+        return found;
+    }
+
+    /**
+     * Find the bubble that starts at a node, and remember its sink, size and longest branch.
+     *
+     * @param source the index of the source.
+     * @return true if a bubble starts at the source.
+     */
+    private boolean findBubble(int source) {
+        if (children[source].length < 2 || children[source].length > maxBranches) {
+            return false;
+        }
+
+        int end = -1;
+        int nodes = 0;
+        int longest = 0;
+        for (int child : children[source]) {
+            int branchEnd;
+            if (parents[child].length != 1) {
+                branchEnd = child;
+            } else {
+                long[] branch = walkBranch(child, maxNodes - nodes);
+                if (branch == null) {
+                    return false;
+                }
+                branchEnd = (int) branch[0];
+                nodes += (int) branch[1];
+                longest = Math.max(longest, (int) branch[2]);
+            }
+
+            if (end == -1) {
+                end = branchEnd;
+            } else if (end != branchEnd) {
+                return false;
+            }
+        }
+
+        // every branch ends in a different parent of the sink, so the sink may not have any other parents.
+        if (parents[end].length != children[source].length) {
+            return false;
+        }
+
+        sink[source] = end;
+        bubbleNodes[source] = nodes;
+        bubbleLength[source] = longest;
+        return true;
+    }
+
+    /**
+     * Walk along a branch until the first node that has more than one parent, jumping over nested bubbles.
+     *
+     * @param start    the index of the first node of the branch, which has one parent.
+     * @param maxCount the maximum number of nodes the branch may have.
+     * @return the index of the node the branch ends in, the number of nodes and the sequence length of the branch,
+     * or null if the node is not the start of a branch or the branch is too large.
+     */
+    private long[] walkBranch(int start, int maxCount) {
+        int count = 0;
+        long length = 0;
+        int current = start;
+        while (true) {
+            count++;
+            length += lengths[current];
+            while (sink[current] >= 0) {
+                count += bubbleNodes[current] + 1;
+                length += bubbleLength[current];
+                current = sink[current];
+                length += lengths[current];
+            }
+            if (count > maxCount || length > maxBranchLength || children[current].length != 1) {
+                return null;
+            }
+
+            int next = children[current][0];
+            if (parents[next].length != 1) {
+                return new long[] {next, count, length};
+            }
+            current = next;
+        }
+    }
+
+    /**
+     * Convert node IDs to indices.
+     *
+     * @param ids     the sorted IDs of all nodes.
+     * @param nodeIDs the IDs to convert.
+     * @return the indices of the IDs, leaving out unknown IDs.
+     */
+    private static int[] toIndices(int[] ids, int[] nodeIDs) {
+        if (nodeIDs == null) {
+            return new int[0];
+        }
+        return Arrays.stream(nodeIDs).map(id -> Arrays.binarySearch(ids, id)).filter(i -> i >= 0).toArray();
+    }
+}
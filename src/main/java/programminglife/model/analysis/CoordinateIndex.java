@@ -0,0 +1,316 @@
+package programminglife.model.analysis;
+
+import programminglife.model.GenomeGraph;
+import programminglife.utility.Console;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * An index of the base positions along each genome of a {@link GenomeGraph}, to look up which node a position
+ * of a genome is in (like a genome browser does), instead of navigating by node ID only.
+ * <p>
+ * Because node IDs are in topological order, the path of a genome is the nodes it goes through in ascending order.
+ * That path is stored compactly: each node ID as its difference with the previous one, in as few bytes as needed
+ * (7 bits per byte). Every {@value #CHECKPOINT_INTERVAL}th node of the path is a checkpoint, for which the base
+ * position it starts at, its ID and the position of the next node in the encoded path are stored. Looking up
+ * a position is a binary search over the checkpoints, followed by decoding at most {@value #CHECKPOINT_INTERVAL}
+ * nodes from the nearest checkpoint before it.
+ */
+public class CoordinateIndex {
+    /**
+     * The number of nodes along a genome from one checkpoint to the next.
+     */
+    static final int CHECKPOINT_INTERVAL = 64;
+    /**
+     * The number of longs per checkpoint: its base position, its node ID and the position after it in the path.
+     */
+    private static final int CHECKPOINT_SIZE = 3;
+
+    private final GenomeGraph graph;
+
+    /**
+     * Create a CoordinateIndex.
+     *
+     * @param graph the {@link GenomeGraph} to index the genomes of.
+     */
+    public CoordinateIndex(GenomeGraph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Index the paths of all genomes and store them in the cache of the graph.
+     * All nodes are visited once, in ascending order.
+     */
+    public void build() {
+        PathWriter[] writers = new PathWriter[graph.getTotalGenomeNumber()];
+        for (int genome = 0; genome < writers.length; genome++) {
+            writers[genome] = new PathWriter();
+        }
+
+        for (int nodeID : graph.getAllNodeIDs()) {
+            int[] genomes = graph.getGenomes(nodeID);
+            if (genomes == null) {
+                continue;
+            }
+            int length = graph.getSequenceLength(nodeID);
+            for (int genome : genomes) {
+                writers[genome].add(nodeID, length);
+            }
+        }
+
+        for (int genome = 0; genome < writers.length; genome++) {
+            graph.setGenomePath(genome, writers[genome].getPath(), writers[genome].getCheckpoints());
+        }
+        graph.setCoordinatesIndexed();
+        Console.println("[%s] Indexed the coordinates of %d genomes", Thread.currentThread().getName(),
+                writers.length);
+    }
+
+    /**
+     * Get the checkpoints of a genome.
+     *
+     * @param genomeID the ID of the genome.
+     * @return the checkpoints, the last of which holds the length of the genome.
+     * @throws NoSuchElementException if the genome has not been indexed.
+     */
+    private long[] getCheckpoints(int genomeID) {
+        long[] checkpoints = graph.getGenomeCheckpoints(genomeID);
+        if (checkpoints == null) {
+            throw new NoSuchElementException(
+                    String.format("The coordinates of genome %d have not been indexed.", genomeID));
+        }
+        return checkpoints;
+    }
+
+    /**
+     * Get the length of a genome.
+     *
+     * @param genomeID the ID of the genome.
+     * @return the number of bases along the genome.
+     * @throws NoSuchElementException if the genome has not been indexed.
+     */
+    public long getGenomeLength(int genomeID) {
+        long[] checkpoints = getCheckpoints(genomeID);
+        return checkpoints[checkpoints.length - CHECKPOINT_SIZE];
+    }
+
+    /**
+     * Find the node a base position of a genome is in.
+     *
+     * @param genomeID the ID of the genome.
+     * @param position the position along the genome, 0 for its first base.
+     * @return the {@link GenomePosition} with the node and the position within it.
+     * @throws NoSuchElementException if the genome has not been indexed, or is not that long.
+     */
+    public GenomePosition locate(int genomeID, long position) {
+        long[] checkpoints = getCheckpoints(genomeID);
+        int last = checkpoints.length / CHECKPOINT_SIZE - 1;
+        long genomeLength = checkpoints[last * CHECKPOINT_SIZE];
+        if (position < 0 || position >= genomeLength) {
+            throw new NoSuchElementException(String.format("Genome %d has no base at position %d, "
+                    + "it is %d bases long.", genomeID, position, genomeLength));
+        }
+
+        // the last checkpoint that starts at or before the position
+        int low = 0;
+        int high = last - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (checkpoints[middle * CHECKPOINT_SIZE] <= position) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+
+        long start = checkpoints[low * CHECKPOINT_SIZE];
+        int nodeID = (int) checkpoints[low * CHECKPOINT_SIZE + 1];
+        PathReader reader = new PathReader(graph.getGenomePath(genomeID),
+                (int) checkpoints[low * CHECKPOINT_SIZE + 2], nodeID);
+        long length = graph.getSequenceLength(nodeID);
+        while (start + length <= position) {
+            start += length;
+            nodeID = reader.next();
+            length = graph.getSequenceLength(nodeID);
+        }
+        return new GenomePosition(genomeID, nodeID, position - start);
+    }
+
+    /**
+     * Get the IDs of the nodes along a genome.
+     *
+     * @param genomeID the ID of the genome.
+     * @return the IDs, in ascending order.
+     * @throws NoSuchElementException if the genome has not been indexed.
+     */
+    public int[] getNodeIDs(int genomeID) {
+        int[] nodeIDs = new int[getNodeCount(genomeID)];
+        PrimitiveIterator.OfInt path = walk(genomeID);
+        for (int i = 0; i < nodeIDs.length; i++) {
+            nodeIDs[i] = path.nextInt();
+        }
+        return nodeIDs;
+    }
+
+    /**
+     * Get the number of nodes along a genome.
+     *
+     * @param genomeID the ID of the genome.
+     * @return the number of nodes.
+     * @throws NoSuchElementException if the genome has not been indexed.
+     */
+    public int getNodeCount(int genomeID) {
+        long[] checkpoints = getCheckpoints(genomeID);
+        return (int) checkpoints[checkpoints.length - CHECKPOINT_SIZE + 1];
+    }
+
+    /**
+     * Walk along a genome, one node at a time. Only the encoded path is kept in memory while walking,
+     * so this can be used for genomes of any number of nodes.
+     *
+     * @param genomeID the ID of the genome.
+     * @return an iterator over the IDs of the nodes along the genome, in ascending order.
+     * @throws NoSuchElementException if the genome has not been indexed.
+     */
+    public PrimitiveIterator.OfInt walk(int genomeID) {
+        int count = getNodeCount(genomeID);
+        PathReader reader = new PathReader(graph.getGenomePath(genomeID), 0, -1);
+        return new PrimitiveIterator.OfInt() {
+            private int walked = 0;
+
+            @Override
+            public boolean hasNext() {
+                return walked < count;
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException(
+                            String.format("Genome %d has only %d nodes.", genomeID, count));
+                }
+                walked++;
+                return reader.next();
+            }
+        };
+    }
+
+    /**
+     * Encodes the path of a genome and samples its checkpoints, one node at a time.
+     */
+    private static final class PathWriter {
+        private byte[] path = new byte[16];
+        private int size = 0;
+        private long[] checkpoints = new long[CHECKPOINT_SIZE * 4];
+        private int checkpointsSize = 0;
+        private int count = 0;
+        private int previous = -1;
+        private long position = 0;
+
+        /**
+         * Add the next node along the genome.
+         *
+         * @param nodeID the ID of the node, which is larger than that of the previous node.
+         * @param length the sequence length of the node.
+         */
+        void add(int nodeID, int length) {
+            int difference = nodeID - previous;
+            while ((difference & ~0x7F) != 0) {
+                addByte((byte) (difference & 0x7F | 0x80));
+                difference >>>= 7;
+            }
+            addByte((byte) difference);
+
+            if (count % CHECKPOINT_INTERVAL == 0) {
+                addCheckpoint(position, nodeID, size);
+            }
+            count++;
+            previous = nodeID;
+            position += length;
+        }
+
+        /**
+         * Add a byte to the encoded path.
+         *
+         * @param b the byte.
+         */
+        private void addByte(byte b) {
+            if (size == path.length) {
+                path = Arrays.copyOf(path, size * 2);
+            }
+            path[size++] = b;
+        }
+
+        /**
+         * Add a checkpoint.
+         *
+         * @param checkpointPosition the base position the node starts at.
+         * @param nodeID             the ID of the node.
+         * @param next               the position of the next node in the encoded path.
+         */
+        private void addCheckpoint(long checkpointPosition, long nodeID, long next) {
+            if (checkpointsSize == checkpoints.length) {
+                checkpoints = Arrays.copyOf(checkpoints, checkpointsSize * 2);
+            }
+            checkpoints[checkpointsSize++] = checkpointPosition;
+            checkpoints[checkpointsSize++] = nodeID;
+            checkpoints[checkpointsSize++] = next;
+        }
+
+        byte[] getPath() {
+            return Arrays.copyOf(path, size);
+        }
+
+        /**
+         * Get the checkpoints, followed by one that holds the length of the genome and the number of nodes.
+         *
+         * @return the checkpoints.
+         */
+        long[] getCheckpoints() {
+            addCheckpoint(position, count, size);
+            return Arrays.copyOf(checkpoints, checkpointsSize);
+        }
+    }
+
+    /**
+     * Decodes the path of a genome, one node at a time.
+     */
+    private static final class PathReader {
+        private final byte[] path;
+        private int offset;
+        private int previous;
+
+        /**
+         * Create a PathReader.
+         *
+         * @param path     the encoded path.
+         * @param offset   the position in the path to start reading at.
+         * @param previous the ID of the node before that position, or -1 at the start of the path.
+         */
+        PathReader(byte[] path, int offset, int previous) {
+            this.path = path;
+            this.offset = offset;
+            this.previous = previous;
+        }
+
+        /**
+         * Read the next node along the genome.
+         *
+         * @return the ID of the node.
+         */
+        int next() {
+            int difference = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = path[offset++];
+                difference |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            previous += difference;
+            return previous;
+        }
+    }
+}
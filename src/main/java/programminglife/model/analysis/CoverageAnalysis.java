@@ -0,0 +1,99 @@
+package programminglife.model.analysis;
+
+import programminglife.model.GenomeGraph;
+import programminglife.utility.Console;
+
+import java.util.stream.IntStream;
+
+/**
+ * Computes the {@link CoverageHistogram} of a {@link GenomeGraph}: how many nodes, and how many bases, go through
+ * each number of genomes. All nodes are scanned once, in parallel chunks that each count into their own histogram,
+ * reading only the number of genomes and the sequence length of each node. The histogram is stored in the cache
+ * of the graph.
+ */
+public class CoverageAnalysis {
+    /**
+     * The number of nodes that are counted together when scanning in parallel.
+     */
+    static final int CHUNK_SIZE = 4096;
+
+    private static final String NODES_NAME = "nodes";
+    private static final String BASES_NAME = "bases";
+
+    private final GenomeGraph graph;
+
+    /**
+     * Create a CoverageAnalysis.
+     *
+     * @param graph the {@link GenomeGraph} to analyse.
+     */
+    public CoverageAnalysis(GenomeGraph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Whether the histogram has been computed and stored in the cache of the graph.
+     *
+     * @return true if it has been computed.
+     */
+    public boolean isComputed() {
+        long[] nodes = graph.getCoverageHistogram(NODES_NAME);
+        return nodes != null && graph.getCoverageHistogram(BASES_NAME) != null
+                && nodes.length == graph.getTotalGenomeNumber() + 1;
+    }
+
+    /**
+     * Get the histogram from the cache of the graph, or compute and cache it if it has not been computed before.
+     *
+     * @return the {@link CoverageHistogram}.
+     */
+    public CoverageHistogram get() {
+        if (this.isComputed()) {
+            return new CoverageHistogram(graph.getCoverageHistogram(NODES_NAME),
+                    graph.getCoverageHistogram(BASES_NAME));
+        }
+        CoverageHistogram histogram = this.compute();
+        graph.setCoverageHistogram(NODES_NAME, histogram.getNodes());
+        graph.setCoverageHistogram(BASES_NAME, histogram.getBases());
+        return histogram;
+    }
+
+    /**
+     * Compute the histogram.
+     *
+     * @return the {@link CoverageHistogram}.
+     */
+    public CoverageHistogram compute() {
+        int[] nodeIDs = graph.getAllNodeIDs();
+        int genomes = graph.getTotalGenomeNumber();
+        int chunks = (nodeIDs.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+
+        long[][] chunkNodes = new long[chunks][];
+        long[][] chunkBases = new long[chunks][];
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            long[] nodes = new long[genomes + 1];
+            long[] bases = new long[genomes + 1];
+            for (int i = chunk * CHUNK_SIZE; i < Math.min(nodeIDs.length, (chunk + 1) * CHUNK_SIZE); i++) {
+                int count = Math.min(genomes, graph.getGenomesNumber(nodeIDs[i]));
+                nodes[count]++;
+                bases[count] += graph.getSequenceLength(nodeIDs[i]);
+            }
+            chunkNodes[chunk] = nodes;
+            chunkBases[chunk] = bases;
+        });
+
+        long[] nodes = new long[genomes + 1];
+        long[] bases = new long[genomes + 1];
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            for (int count = 0; count <= genomes; count++) {
+                nodes[count] += chunkNodes[chunk][count];
+                bases[count] += chunkBases[chunk][count];
+            }
+        }
+
+        CoverageHistogram histogram = new CoverageHistogram(nodes, bases);
+        Console.println("[%s] Genome coverage of %d nodes: %s", Thread.currentThread().getName(),
+                nodeIDs.length, histogram);
+        return histogram;
+    }
+}
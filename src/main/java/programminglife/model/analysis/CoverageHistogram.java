@@ -0,0 +1,189 @@
+package programminglife.model.analysis;
+
+import java.util.Locale;
+
+/**
+ * The number of nodes, and the number of bases of those nodes, that go through each number of genomes
+ * of a graph, computed by a {@link CoverageAnalysis}. The numbers of genomes are split into the core, shell
+ * and cloud of the pangenome, the way tools like Roary do: the core is in (nearly) all genomes, the cloud
+ * in only a few of them, and the shell in between.
+ */
+public final class CoverageHistogram {
+    /**
+     * The fraction of the genomes a node must go through to be in the core.
+     */
+    static final double CORE_FRACTION = 0.95;
+    /**
+     * The fraction of the genomes a node must go through to be in the shell instead of the cloud.
+     */
+    static final double SHELL_FRACTION = 0.15;
+
+    /**
+     * A part of the pangenome.
+     */
+    public enum Partition {
+        /**
+         * Nodes that go through (nearly) all genomes.
+         */
+        CORE,
+        /**
+         * Nodes that go through some of the genomes.
+         */
+        SHELL,
+        /**
+         * Nodes that go through only a few genomes.
+         */
+        CLOUD
+    }
+
+    private final long[] nodes;
+    private final long[] bases;
+
+    /**
+     * Create a CoverageHistogram.
+     *
+     * @param nodes for each number of genomes, from 0 to the number of genomes of the graph, the number of nodes
+     * @param bases for each number of genomes, the number of bases of those nodes
+     */
+    CoverageHistogram(long[] nodes, long[] bases) {
+        this.nodes = nodes;
+        this.bases = bases;
+    }
+
+    long[] getNodes() {
+        return nodes;
+    }
+
+    long[] getBases() {
+        return bases;
+    }
+
+    /**
+     * Get the number of genomes of the graph.
+     *
+     * @return the largest number of genomes a node can go through.
+     */
+    public int getGenomeCount() {
+        return nodes.length - 1;
+    }
+
+    /**
+     * Get the number of nodes that go through a number of genomes within a range.
+     *
+     * @param min the smallest number of genomes.
+     * @param max the largest number of genomes.
+     * @return the number of nodes.
+     */
+    public long getNodes(int min, int max) {
+        return sum(nodes, min, max);
+    }
+
+    /**
+     * Get the number of bases of the nodes that go through a number of genomes within a range.
+     *
+     * @param min the smallest number of genomes.
+     * @param max the largest number of genomes.
+     * @return the number of bases.
+     */
+    public long getBases(int min, int max) {
+        return sum(bases, min, max);
+    }
+
+    /**
+     * Get the number of nodes in a partition.
+     *
+     * @param partition the {@link Partition}.
+     * @return the number of nodes.
+     */
+    public long getNodes(Partition partition) {
+        return getNodes(getMin(partition), getMax(partition));
+    }
+
+    /**
+     * Get the number of bases of the nodes in a partition.
+     *
+     * @param partition the {@link Partition}.
+     * @return the number of bases.
+     */
+    public long getBases(Partition partition) {
+        return getBases(getMin(partition), getMax(partition));
+    }
+
+    /**
+     * Get the smallest number of genomes of a node in a partition.
+     *
+     * @param partition the {@link Partition}.
+     * @return the number of genomes.
+     */
+    public int getMin(Partition partition) {
+        switch (partition) {
+            case CORE:
+                return (int) Math.ceil(CORE_FRACTION * getGenomeCount());
+            case SHELL:
+                return getMax(Partition.CLOUD) + 1;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Get the largest number of genomes of a node in a partition.
+     *
+     * @param partition the {@link Partition}.
+     * @return the number of genomes.
+     */
+    public int getMax(Partition partition) {
+        switch (partition) {
+            case CORE:
+                return getGenomeCount();
+            case SHELL:
+                return getMin(Partition.CORE) - 1;
+            default:
+                return Math.min(getMin(Partition.CORE), (int) Math.ceil(SHELL_FRACTION * getGenomeCount())) - 1;
+        }
+    }
+
+    /**
+     * Get the partition of a node.
+     *
+     * @param genomeCount the number of genomes the node goes through.
+     * @return the {@link Partition}.
+     */
+    public Partition partitionOf(int genomeCount) {
+        if (genomeCount >= getMin(Partition.CORE)) {
+            return Partition.CORE;
+        } else if (genomeCount >= getMin(Partition.SHELL)) {
+            return Partition.SHELL;
+        }
+        return Partition.CLOUD;
+    }
+
+    /**
+     * Sum a range of a histogram.
+     *
+     * @param histogram the histogram.
+     * @param min       the first number of genomes.
+     * @param max       the last number of genomes.
+     * @return the sum, which is 0 if the range is empty.
+     */
+    private static long sum(long[] histogram, int min, int max) {
+        long sum = 0;
+        for (int count = Math.max(0, min); count <= Math.min(histogram.length - 1, max); count++) {
+            sum += histogram[count];
+        }
+        return sum;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder summary = new StringBuilder();
+        for (Partition partition : Partition.values()) {
+            if (summary.length() > 0) {
+                summary.append(", ");
+            }
+            summary.append(String.format("%s: %d nodes (%d bp)", partition.name().toLowerCase(Locale.ROOT),
+                    getNodes(partition), getBases(partition)));
+        }
+        return summary.toString();
+    }
+}
@@ -0,0 +1,84 @@
+package programminglife.model.analysis;
+
+/**
+ * A region in which two genomes differ, found by a {@link GenomeComparison}: a run of nodes that each go through
+ * only one of the two genomes, between two nodes that both genomes go through.
+ */
+public final class DifferenceRegion {
+    private final int firstNodeID;
+    private int lastNodeID;
+    private long nodesA;
+    private long nodesB;
+    private long basesA;
+    private long basesB;
+
+    /**
+     * Create a DifferenceRegion with no nodes yet.
+     *
+     * @param firstNodeID the ID of the first node of the region
+     */
+    DifferenceRegion(int firstNodeID) {
+        this.firstNodeID = firstNodeID;
+        this.lastNodeID = firstNodeID;
+    }
+
+    /**
+     * Add the next node of the region.
+     *
+     * @param nodeID the ID of the node, which is larger than that of the nodes added before
+     * @param inA    true if only the first genome goes through the node, false if only the second one does
+     * @param length the sequence length of the node
+     */
+    void add(int nodeID, boolean inA, int length) {
+        lastNodeID = nodeID;
+        if (inA) {
+            nodesA++;
+            basesA += length;
+        } else {
+            nodesB++;
+            basesB += length;
+        }
+    }
+
+    /**
+     * Add all nodes of the region that directly follows this one.
+     *
+     * @param next the next region
+     */
+    void merge(DifferenceRegion next) {
+        lastNodeID = next.lastNodeID;
+        nodesA += next.nodesA;
+        nodesB += next.nodesB;
+        basesA += next.basesA;
+        basesB += next.basesB;
+    }
+
+    public int getFirstNodeID() {
+        return firstNodeID;
+    }
+
+    public int getLastNodeID() {
+        return lastNodeID;
+    }
+
+    public long getNodesA() {
+        return nodesA;
+    }
+
+    public long getNodesB() {
+        return nodesB;
+    }
+
+    public long getBasesA() {
+        return basesA;
+    }
+
+    public long getBasesB() {
+        return basesB;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Nodes %d-%d (%d bp / %d bp)", firstNodeID, lastNodeID, basesA, basesB);
+    }
+}
@@ -0,0 +1,400 @@
+package programminglife.model.analysis;
+
+import programminglife.model.GenomeGraph;
+import programminglife.utility.Console;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.NoSuchElementException;
+import java.util.stream.IntStream;
+
+/**
+ * An index of the distances in base pairs between the nodes of a {@link GenomeGraph}: the fewest and the most bases
+ * between the end of one node and the start of another along any path from the one to the other.
+ * <p>
+ * Because node IDs are in topological order, the nodes that no edge jumps over (cut nodes) are found in one pass:
+ * every path through the graph goes through all of them, so they split each connected part of the graph into a
+ * chain of sites, the top-level bubbles of the graph. A path between two nodes inside a site never leaves the site,
+ * so the inside of every site (all of its nodes but its cut node) is split into chains of nested sites in the same
+ * way, down to sites that only hold their cut node. Each node thus gets an entry on every level of nesting it is
+ * in: its chain, its site and the fewest and most bases from the start of the site to the start of the node and
+ * from the end of the node to the start of the next site. Each site stores the fewest and most bases from the first
+ * cut node of its chain to the start of its own cut node. Two nodes are compared on the deepest level on which they
+ * are in the same site, so the distance between them is a sum of at most four stored numbers. The index is stored
+ * in the cache of the graph.
+ */
+public class DistanceIndex {
+    /**
+     * A distance that is stored for nodes that cannot be reached.
+     */
+    private static final long UNREACHABLE = -1;
+
+    /**
+     * The number of numbers in the entry of a node on one level of nesting.
+     */
+    private static final int LEVEL_SIZE = 6;
+    private static final int CHAIN = 0;
+    private static final int SITE = 1;
+    private static final int MIN_FROM = 2;
+    private static final int MAX_FROM = 3;
+    private static final int MIN_TO = 4;
+    private static final int MAX_TO = 5;
+
+    private static final int MIN_OFFSET = 0;
+    private static final int MAX_OFFSET = 1;
+    private static final int COMPONENT = 2;
+
+    private final GenomeGraph graph;
+
+    /**
+     * Create a DistanceIndex.
+     *
+     * @param graph the {@link GenomeGraph} to index.
+     */
+    public DistanceIndex(GenomeGraph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Whether the distances of the graph have been indexed.
+     *
+     * @return true if they have been indexed.
+     */
+    public boolean isBuilt() {
+        return graph.isDistancesIndexed();
+    }
+
+    /**
+     * Index the distances of all nodes and store the index in the cache of the graph.
+     * The edges are read in parallel, after which the nodes of every chain are visited once forward and once
+     * backward. A node is visited once for every level of nesting it is in.
+     */
+    public void build() {
+        int[] ids = graph.getAllNodeIDs();
+        int[][] children = new int[ids.length][];
+        int[][] parents = new int[ids.length][];
+        int[] lengths = new int[ids.length];
+        IntStream.range(0, ids.length).parallel().forEach(i -> {
+            children[i] = toIndices(ids, graph.getChildIDs(ids[i]));
+            parents[i] = toIndices(ids, graph.getParentIDs(ids[i]));
+            lengths[i] = graph.getSequenceLength(ids[i]);
+        });
+
+        Levels levels = new Levels(ids.length, children, parents, lengths);
+        Deque<int[]> insides = new ArrayDeque<>();
+        insides.push(IntStream.range(0, ids.length).toArray());
+        while (!insides.isEmpty()) {
+            levels.split(insides.pop(), insides);
+        }
+
+        graph.storeDistances(ids, i -> Arrays.copyOf(levels.entries[i], levels.entrySizes[i]),
+                levels.sites, s -> new long[] {levels.minOffset[s], levels.maxOffset[s], levels.component[s]});
+        Console.println("[%s] Indexed the distances of %d nodes in %d chains", Thread.currentThread().getName(),
+                ids.length, levels.chains);
+    }
+
+    /**
+     * Get the distance between two nodes: the fewest and most bases between the end of the first node
+     * and the start of the second node, along any path from the one to the other.
+     *
+     * @param nodeA the ID of one node.
+     * @param nodeB the ID of the other node. Which of the two comes first does not matter.
+     * @return the smallest and the largest distance, or null if no path goes through both nodes.
+     * @throws NoSuchElementException if a node is not in the graph, or the distances have not been indexed.
+     */
+    public long[] getDistance(int nodeA, int nodeB) {
+        int from = Math.min(nodeA, nodeB);
+        int to = Math.max(nodeA, nodeB);
+        long[] fromEntry = getNodeEntry(from);
+        long[] toEntry = getNodeEntry(to);
+        if (from == to) {
+            return new long[] {0, 0};
+        }
+
+        for (int level = 0; level < fromEntry.length && level < toEntry.length; level += LEVEL_SIZE) {
+            if (fromEntry[level + CHAIN] != toEntry[level + CHAIN]) {
+                // the nodes are in different parts of the graph or of a site, and no path leaves a site
+                return null;
+            }
+            if (fromEntry[level + SITE] != toEntry[level + SITE]) {
+                return between(fromEntry, toEntry, level);
+            }
+            if (fromEntry.length == level + LEVEL_SIZE) {
+                // the first node is the cut node of the site the second node is in
+                if (toEntry[level + MIN_FROM] == UNREACHABLE) {
+                    return null;
+                }
+                int length = graph.getSequenceLength(from);
+                return new long[] {toEntry[level + MIN_FROM] - length, toEntry[level + MAX_FROM] - length};
+            }
+        }
+        throw new IllegalStateException(String.format("The distance index of nodes %d and %d is inconsistent.",
+                from, to));
+    }
+
+    /**
+     * Get the distance between two nodes in different sites of the same chain. Every path from the one node to the
+     * other goes through the cut nodes of the sites after the first one, up to that of the second one.
+     *
+     * @param fromEntry the entry of the first node.
+     * @param toEntry   the entry of the second node.
+     * @param level     the start of the level of the entries on which the nodes are in the same chain.
+     * @return the smallest and the largest distance, or null if there is no path.
+     */
+    private long[] between(long[] fromEntry, long[] toEntry, int level) {
+        if (fromEntry[level + MIN_TO] == UNREACHABLE || toEntry[level + MIN_FROM] == UNREACHABLE) {
+            return null;
+        }
+        long[] next = graph.getDistanceSiteEntry((int) fromEntry[level + SITE] + 1);
+        long[] last = graph.getDistanceSiteEntry((int) toEntry[level + SITE]);
+        if (next[COMPONENT] != last[COMPONENT]) {
+            return null;
+        }
+        return new long[] {
+                fromEntry[level + MIN_TO] + last[MIN_OFFSET] - next[MIN_OFFSET] + toEntry[level + MIN_FROM],
+                fromEntry[level + MAX_TO] + last[MAX_OFFSET] - next[MAX_OFFSET] + toEntry[level + MAX_FROM]
+        };
+    }
+
+    /**
+     * Get the entry of a node.
+     *
+     * @param nodeID the ID of the node.
+     * @return the entry.
+     * @throws NoSuchElementException if the node is not in the graph.
+     */
+    private long[] getNodeEntry(int nodeID) {
+        long[] entry = graph.getDistanceNodeEntry(nodeID);
+        if (entry == null) {
+            throw new NoSuchElementException(String.format("Node %d is not in the graph.", nodeID));
+        }
+        return entry;
+    }
+
+    /**
+     * Convert node IDs to their indices in the sorted array of all node IDs.
+     *
+     * @param ids     the sorted IDs of all nodes.
+     * @param nodeIDs the IDs to convert, or null.
+     * @return the indices of the IDs that are in ids.
+     */
+    private static int[] toIndices(int[] ids, int[] nodeIDs) {
+        if (nodeIDs == null) {
+            return new int[0];
+        }
+        return Arrays.stream(nodeIDs).map(id -> Arrays.binarySearch(ids, id)).filter(i -> i >= 0).toArray();
+    }
+
+    /**
+     * The entries of the nodes and sites on all levels of nesting, while they are being built.
+     * Nodes are referred to by their index in the sorted array of all node IDs.
+     */
+    private static final class Levels {
+        private final int[][] children;
+        private final int[][] parents;
+        private final int[] lengths;
+
+        private final long[][] entries;
+        private final int[] entrySizes;
+        private final long[] minOffset;
+        private final long[] maxOffset;
+        private final int[] component;
+        private int sites;
+        private int chains;
+
+        // the nodes that are being split, and the nodes of those that have been visited when finding chains
+        private final int[] member;
+        private final int[] seen;
+        private int stamp;
+
+        private final int[] site;
+        private final long[] minFrom;
+        private final long[] maxFrom;
+        private final long[] minTo;
+        private final long[] maxTo;
+
+        /**
+         * Create the Levels of a graph.
+         *
+         * @param size     the number of nodes.
+         * @param children the children of each node.
+         * @param parents  the parents of each node.
+         * @param lengths  the sequence length of each node.
+         */
+        private Levels(int size, int[][] children, int[][] parents, int[] lengths) {
+            this.children = children;
+            this.parents = parents;
+            this.lengths = lengths;
+            this.entries = new long[size][LEVEL_SIZE];
+            this.entrySizes = new int[size];
+            // every node is the cut node of exactly one site, on the deepest level it is in
+            this.minOffset = new long[size];
+            this.maxOffset = new long[size];
+            this.component = new int[size];
+            this.member = new int[size];
+            this.seen = new int[size];
+            this.site = new int[size];
+            this.minFrom = new long[size];
+            this.maxFrom = new long[size];
+            this.minTo = new long[size];
+            this.maxTo = new long[size];
+        }
+
+        /**
+         * Split the graph, or the inside of a site, into chains of sites, and give each of its nodes an entry
+         * on this level.
+         *
+         * @param nodes   the nodes, in ascending order.
+         * @param insides the insides of the sites that are found, which are split later.
+         */
+        private void split(int[] nodes, Deque<int[]> insides) {
+            stamp++;
+            for (int node : nodes) {
+                member[node] = stamp;
+            }
+            // no path leaves the inside of a site, so only the edges between its nodes matter
+            int[] queue = new int[nodes.length];
+            for (int node : nodes) {
+                if (seen[node] == stamp) {
+                    continue;
+                }
+                int size = 0;
+                queue[size++] = node;
+                seen[node] = stamp;
+                for (int head = 0; head < size; head++) {
+                    size = enqueue(children[queue[head]], queue, size);
+                    size = enqueue(parents[queue[head]], queue, size);
+                }
+                int[] chain = Arrays.copyOf(queue, size);
+                Arrays.sort(chain);
+                chain(chain, insides);
+            }
+        }
+
+        /**
+         * Add the unvisited nodes that are being split to a queue.
+         *
+         * @param neighbours the nodes to add.
+         * @param queue      the queue.
+         * @param size       the size of the queue.
+         * @return the new size of the queue.
+         */
+        private int enqueue(int[] neighbours, int[] queue, int size) {
+            for (int neighbour : neighbours) {
+                if (member[neighbour] == stamp && seen[neighbour] != stamp) {
+                    seen[neighbour] = stamp;
+                    queue[size++] = neighbour;
+                }
+            }
+            return size;
+        }
+
+        /**
+         * Split connected nodes into a chain of sites at the nodes that no edge between them jumps over.
+         *
+         * @param nodes   the nodes, in ascending order.
+         * @param insides the insides of the sites, which are split later.
+         */
+        private void chain(int[] nodes, Deque<int[]> insides) {
+            int chain = chains++;
+            int first = sites;
+
+            // forward: find the cut nodes, and the distances from the start of each site
+            int open = 0; // the number of edges from visited nodes to nodes that have not been visited
+            for (int node : nodes) {
+                long min = Long.MAX_VALUE;
+                long max = UNREACHABLE;
+                for (int parent : parents[node]) {
+                    if (member[parent] != stamp) {
+                        continue;
+                    }
+                    open--;
+                    if (minFrom[parent] != UNREACHABLE) {
+                        min = Math.min(min, minFrom[parent] + lengths[parent]);
+                        max = Math.max(max, maxFrom[parent] + lengths[parent]);
+                    }
+                }
+
+                if (open == 0) {
+                    int s = sites++;
+                    if (s == first || max == UNREACHABLE) {
+                        minOffset[s] = 0;
+                        maxOffset[s] = 0;
+                        component[s] = s;
+                    } else {
+                        minOffset[s] = minOffset[s - 1] + min;
+                        maxOffset[s] = maxOffset[s - 1] + max;
+                        component[s] = component[s - 1];
+                    }
+                    site[node] = s;
+                    minFrom[node] = 0;
+                    maxFrom[node] = 0;
+                } else {
+                    site[node] = sites - 1;
+                    minFrom[node] = max == UNREACHABLE ? UNREACHABLE : min;
+                    maxFrom[node] = max;
+                }
+                for (int child : children[node]) {
+                    if (member[child] == stamp) {
+                        open++;
+                    }
+                }
+            }
+
+            // backward: the distances to the start of the next site
+            for (int i = nodes.length - 1; i >= 0; i--) {
+                int node = nodes[i];
+                long min = Long.MAX_VALUE;
+                long max = UNREACHABLE;
+                for (int child : children[node]) {
+                    if (member[child] != stamp) {
+                        continue;
+                    }
+                    if (site[child] != site[node]) {
+                        min = 0;
+                        max = Math.max(max, 0);
+                    } else if (minTo[child] != UNREACHABLE) {
+                        min = Math.min(min, minTo[child] + lengths[child]);
+                        max = Math.max(max, maxTo[child] + lengths[child]);
+                    }
+                }
+                minTo[node] = max == UNREACHABLE ? UNREACHABLE : min;
+                maxTo[node] = max;
+                addEntry(node, chain);
+            }
+
+            // the inside of each site is split on the next level; a site starts with its cut node
+            int start = 0;
+            for (int i = 1; i <= nodes.length; i++) {
+                if (i == nodes.length || site[nodes[i]] != site[nodes[start]]) {
+                    if (i - start > 1) {
+                        insides.push(Arrays.copyOfRange(nodes, start + 1, i));
+                    }
+                    start = i;
+                }
+            }
+        }
+
+        /**
+         * Add the entry of a node on the level that is being split.
+         *
+         * @param node  the node.
+         * @param chain the chain of the node.
+         */
+        private void addEntry(int node, int chain) {
+            int size = entrySizes[node];
+            if (size == entries[node].length) {
+                entries[node] = Arrays.copyOf(entries[node], size * 2);
+            }
+            long[] entry = entries[node];
+            entry[size + CHAIN] = chain;
+            entry[size + SITE] = site[node];
+            entry[size + MIN_FROM] = minFrom[node];
+            entry[size + MAX_FROM] = maxFrom[node];
+            entry[size + MIN_TO] = minTo[node];
+            entry[size + MAX_TO] = maxTo[node];
+            entrySizes[node] = size + LEVEL_SIZE;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package programminglife.model.analysis;
+
+import programminglife.model.GenomeGraph;
+import programminglife.utility.Console;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Compares two genomes of a {@link GenomeGraph} over the whole graph, and computes their {@link GenomeDifference}.
+ * <p>
+ * Each genome gets a bitset of the nodes it goes through, indexed by node ID, built from its path in the
+ * {@link CoordinateIndex}, so only the nodes of the two genomes are read. The nodes only one of them goes through
+ * and the nodes they share are then the and-not and the and of the bitsets, a word (64 nodes) at a time.
+ * The words are scanned in parallel chunks of {@value #CHUNK_WORDS} words, which each count the nodes and bases
+ * of every kind and find the regions in which the genomes differ. Regions that cross the border of a chunk are
+ * joined afterwards.
+ */
+public class GenomeComparison {
+    /**
+     * The number of words scanned together when scanning in parallel.
+     */
+    static final int CHUNK_WORDS = 64;
+
+    private final GenomeGraph graph;
+
+    /**
+     * Create a GenomeComparison.
+     *
+     * @param graph the {@link GenomeGraph} to compare the genomes of.
+     */
+    public GenomeComparison(GenomeGraph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Compare two genomes.
+     *
+     * @param genomeA the ID of the first genome.
+     * @param genomeB the ID of the second genome.
+     * @return the {@link GenomeDifference} of the genomes.
+     * @throws java.util.NoSuchElementException if the genomes have not been indexed.
+     */
+    public GenomeDifference compare(int genomeA, int genomeB) {
+        CoordinateIndex index = new CoordinateIndex(graph);
+        int[] nodesA = index.getNodeIDs(genomeA);
+        int[] nodesB = index.getNodeIDs(genomeB);
+        int maxID = Math.max(nodesA.length == 0 ? 0 : nodesA[nodesA.length - 1],
+                nodesB.length == 0 ? 0 : nodesB[nodesB.length - 1]);
+        int words = maxID / Long.SIZE + 1;
+        long[] a = toBitset(nodesA, words);
+        long[] b = toBitset(nodesB, words);
+
+        int chunks = (words + CHUNK_WORDS - 1) / CHUNK_WORDS;
+        Chunk[] scanned = new Chunk[chunks];
+        IntStream.range(0, chunks).parallel().forEach(chunk ->
+                scanned[chunk] = scan(a, b, chunk * CHUNK_WORDS, Math.min(words, (chunk + 1) * CHUNK_WORDS)));
+
+        long[] nodes = new long[GenomeDifference.Membership.values().length];
+        long[] bases = new long[nodes.length];
+        List<DifferenceRegion> regions = new ArrayList<>();
+        boolean open = false;
+        for (Chunk chunk : scanned) {
+            for (int membership = 0; membership < nodes.length; membership++) {
+                nodes[membership] += chunk.nodes[membership];
+                bases[membership] += chunk.bases[membership];
+            }
+            if (chunk.empty) {
+                continue;
+            }
+            int first = 0;
+            if (open && chunk.startsOpen) {
+                regions.get(regions.size() - 1).merge(chunk.regions.get(0));
+                first = 1;
+            }
+            regions.addAll(chunk.regions.subList(first, chunk.regions.size()));
+            open = chunk.endsOpen;
+        }
+
+        Console.println("[%s] Genomes %d and %d differ in %d regions", Thread.currentThread().getName(),
+                genomeA, genomeB, regions.size());
+        return new GenomeDifference(genomeA, genomeB, nodes, bases, regions);
+    }
+
+    /**
+     * Scan a chunk of the bitsets of the genomes.
+     *
+     * @param a    the bitset of the first genome.
+     * @param b    the bitset of the second genome.
+     * @param from the first word of the chunk.
+     * @param to   the word after the chunk.
+     * @return the counts and regions of the chunk.
+     */
+    private Chunk scan(long[] a, long[] b, int from, int to) {
+        Chunk chunk = new Chunk();
+        DifferenceRegion region = null;
+        for (int word = from; word < to; word++) {
+            long shared = a[word] & b[word];
+            chunk.nodes[GenomeDifference.Membership.ONLY_A.ordinal()] += Long.bitCount(a[word] & ~b[word]);
+            chunk.nodes[GenomeDifference.Membership.ONLY_B.ordinal()] += Long.bitCount(b[word] & ~a[word]);
+            chunk.nodes[GenomeDifference.Membership.SHARED.ordinal()] += Long.bitCount(shared);
+
+            long union = a[word] | b[word];
+            while (union != 0) {
+                int bit = Long.numberOfTrailingZeros(union);
+                union &= union - 1;
+                int nodeID = word * Long.SIZE + bit;
+                int length = graph.getSequenceLength(nodeID);
+                if ((shared >>> bit & 1) != 0) {
+                    chunk.bases[GenomeDifference.Membership.SHARED.ordinal()] += length;
+                    region = null;
+                } else {
+                    boolean inA = (a[word] >>> bit & 1) != 0;
+                    chunk.bases[(inA ? GenomeDifference.Membership.ONLY_A
+                            : GenomeDifference.Membership.ONLY_B).ordinal()] += length;
+                    if (region == null) {
+                        region = new DifferenceRegion(nodeID);
+                        chunk.startsOpen |= chunk.empty;
+                        chunk.regions.add(region);
+                    }
+                    region.add(nodeID, inA, length);
+                }
+                chunk.empty = false;
+            }
+        }
+        chunk.endsOpen = region != null;
+        return chunk;
+    }
+
+    /**
+     * Make a bitset of node IDs.
+     *
+     * @param nodeIDs the node IDs.
+     * @param words   the number of words of the bitset.
+     * @return the bitset.
+     */
+    private static long[] toBitset(int[] nodeIDs, int words) {
+        long[] bitset = new long[words];
+        for (int nodeID : nodeIDs) {
+            bitset[nodeID / Long.SIZE] |= 1L << (nodeID % Long.SIZE);
+        }
+        return bitset;
+    }
+
+    /**
+     * The counts and regions of a chunk of words.
+     */
+    private static final class Chunk {
+        private final long[] nodes = new long[GenomeDifference.Membership.values().length];
+        private final long[] bases = new long[GenomeDifference.Membership.values().length];
+        private final List<DifferenceRegion> regions = new ArrayList<>();
+        private boolean empty = true; // no node of the chunk goes through either genome
+        private boolean startsOpen; // the first node of the chunk that goes through a genome is in a region
+        private boolean endsOpen; // the last node of the chunk that goes through a genome is in a region
+    }
+}
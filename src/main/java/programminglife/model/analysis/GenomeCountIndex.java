@@ -0,0 +1,261 @@
+package programminglife.model.analysis;
+
+import programminglife.model.GenomeGraph;
+import programminglife.utility.Console;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.stream.IntStream;
+
+/**
+ * An index from the number of genomes that go through a node to the IDs of those nodes, over the whole graph.
+ * For every genome count, the node IDs are kept in ascending order and cut into runs of at most {@link #RUN_SIZE}
+ * IDs, which are stored in the cache of the graph in a sorted map, keyed by the genome count and the first ID of
+ * the run. All nodes carried by between a and b genomes are then read as one range of runs per genome count,
+ * so a query only reads the runs that hold its results, and the next or previous such node from any place in
+ * the graph is found with a few lookups per genome count.
+ */
+public class GenomeCountIndex {
+    /**
+     * The largest number of node IDs in a run.
+     */
+    static final int RUN_SIZE = 256;
+    /**
+     * The number of nodes whose genome counts one task reads while building the index.
+     */
+    private static final int CHUNK_SIZE = 8192;
+
+    private final GenomeGraph graph;
+
+    /**
+     * Create a GenomeCountIndex.
+     *
+     * @param graph the {@link GenomeGraph} to index.
+     */
+    public GenomeCountIndex(GenomeGraph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Whether the nodes of the graph have been indexed.
+     *
+     * @return true if they have been indexed.
+     */
+    public boolean isBuilt() {
+        return graph.isGenomeCountsIndexed();
+    }
+
+    /**
+     * Index all nodes of the graph and store the index in its cache. The genome counts are read in parallel
+     * chunks, and the nodes are then sorted by genome count with a counting sort.
+     */
+    public void build() {
+        int[] nodeIDs = graph.getAllNodeIDs();
+        int genomes = graph.getTotalGenomeNumber();
+        int chunks = (nodeIDs.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+
+        int[] counts = new int[nodeIDs.length];
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            int end = Math.min(nodeIDs.length, (chunk + 1) * CHUNK_SIZE);
+            for (int i = chunk * CHUNK_SIZE; i < end; i++) {
+                counts[i] = Math.min(genomes, graph.getGenomesNumber(nodeIDs[i]));
+            }
+        });
+
+        // start[count] is where the nodes with that genome count start in sorted
+        int[] start = new int[genomes + 2];
+        for (int count : counts) {
+            start[count + 1]++;
+        }
+        for (int count = 0; count <= genomes; count++) {
+            start[count + 1] += start[count];
+        }
+        int[] sorted = new int[nodeIDs.length];
+        int[] next = Arrays.copyOf(start, genomes + 1);
+        for (int i = 0; i < nodeIDs.length; i++) {
+            sorted[next[counts[i]]++] = nodeIDs[i];
+        }
+
+        int runCount = 0;
+        for (int count = 0; count <= genomes; count++) {
+            runCount += (start[count + 1] - start[count] + RUN_SIZE - 1) / RUN_SIZE;
+        }
+        long[] keys = new long[runCount];
+        int[][] runs = new int[runCount][];
+        int run = 0;
+        for (int count = 0; count <= genomes; count++) {
+            Arrays.sort(sorted, start[count], start[count + 1]);
+            for (int from = start[count]; from < start[count + 1]; from += RUN_SIZE) {
+                runs[run] = Arrays.copyOfRange(sorted, from, Math.min(start[count + 1], from + RUN_SIZE));
+                keys[run] = key(count, runs[run][0]);
+                run++;
+            }
+        }
+
+        graph.storeGenomeCounts(keys, runs);
+        Console.println("[%s] Indexed %d nodes by genome count in %d runs", Thread.currentThread().getName(),
+                nodeIDs.length, runCount);
+    }
+
+    /**
+     * Get all nodes that go through a number of genomes within a range.
+     *
+     * @param min the smallest number of genomes.
+     * @param max the largest number of genomes.
+     * @return the IDs of the nodes, in ascending order.
+     */
+    public int[] getNodes(int min, int max) {
+        return getNodes(min, max, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Get the nodes with an ID within a range that go through a number of genomes within a range.
+     *
+     * @param min  the smallest number of genomes.
+     * @param max  the largest number of genomes.
+     * @param from the smallest node ID.
+     * @param to   the largest node ID.
+     * @return the IDs of the nodes, in ascending order.
+     */
+    public int[] getNodes(int min, int max, int from, int to) {
+        NavigableMap<Long, int[]> runs = graph.getGenomeCountRuns();
+        int first = Math.max(0, from);
+        List<int[]> slices = new ArrayList<>();
+        int size = 0;
+        for (int count = Math.max(0, min); count <= Math.min(graph.getTotalGenomeNumber(), max); count++) {
+            if (first > to) {
+                break;
+            }
+            // the run that contains the first ID may start before it
+            Long firstKey = runs.floorKey(key(count, first));
+            if (firstKey == null || countOf(firstKey) != count) {
+                firstKey = key(count, first);
+            }
+            for (int[] run : runs.subMap(firstKey, true, key(count, to), true).values()) {
+                int lo = indexAfter(run, first - 1);
+                int hi = indexAfter(run, to);
+                if (lo < hi) {
+                    slices.add(Arrays.copyOfRange(run, lo, hi));
+                    size += hi - lo;
+                }
+            }
+        }
+
+        int[] nodes = new int[size];
+        int position = 0;
+        for (int[] slice : slices) {
+            System.arraycopy(slice, 0, nodes, position, slice.length);
+            position += slice.length;
+        }
+        Arrays.sort(nodes);
+        return nodes;
+    }
+
+    /**
+     * Get the first node after a node that goes through a number of genomes within a range.
+     *
+     * @param min    the smallest number of genomes.
+     * @param max    the largest number of genomes.
+     * @param nodeID the ID of the node to start after, or -1 to start at the beginning of the graph.
+     * @return the ID of the node, or -1 if there is none.
+     */
+    public int next(int min, int max, int nodeID) {
+        if (nodeID == Integer.MAX_VALUE) {
+            return -1;
+        }
+        NavigableMap<Long, int[]> runs = graph.getGenomeCountRuns();
+        int first = Math.max(0, nodeID + 1);
+        int next = -1;
+        for (int count = Math.max(0, min); count <= Math.min(graph.getTotalGenomeNumber(), max); count++) {
+            int candidate = -1;
+            Map.Entry<Long, int[]> floor = runs.floorEntry(key(count, first));
+            if (floor != null && countOf(floor.getKey()) == count) {
+                int index = indexAfter(floor.getValue(), first - 1);
+                if (index < floor.getValue().length) {
+                    candidate = floor.getValue()[index];
+                }
+            }
+            if (candidate == -1) {
+                Long higher = runs.higherKey(key(count, first));
+                if (higher != null && countOf(higher) == count) {
+                    candidate = (int) (long) higher;
+                }
+            }
+            if (candidate != -1 && (next == -1 || candidate < next)) {
+                next = candidate;
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Get the last node before a node that goes through a number of genomes within a range.
+     *
+     * @param min    the smallest number of genomes.
+     * @param max    the largest number of genomes.
+     * @param nodeID the ID of the node to start before, or {@link Integer#MAX_VALUE} to start at the end of
+     *               the graph.
+     * @return the ID of the node, or -1 if there is none.
+     */
+    public int previous(int min, int max, int nodeID) {
+        if (nodeID <= 0) {
+            return -1;
+        }
+        NavigableMap<Long, int[]> runs = graph.getGenomeCountRuns();
+        int previous = -1;
+        for (int count = Math.max(0, min); count <= Math.min(graph.getTotalGenomeNumber(), max); count++) {
+            // the run starts before the node, so it holds at least one ID before it
+            Map.Entry<Long, int[]> lower = runs.lowerEntry(key(count, nodeID));
+            if (lower != null && countOf(lower.getKey()) == count) {
+                int candidate = lower.getValue()[indexAfter(lower.getValue(), nodeID - 1) - 1];
+                previous = Math.max(previous, candidate);
+            }
+        }
+        return previous;
+    }
+
+    /**
+     * Get the key of a run.
+     *
+     * @param count  the number of genomes of the nodes in the run.
+     * @param nodeID the first node ID of the run, which is not negative.
+     * @return the key.
+     */
+    private static long key(int count, int nodeID) {
+        return (long) count << 32 | nodeID;
+    }
+
+    /**
+     * Get the number of genomes of the nodes in a run.
+     *
+     * @param key the key of the run.
+     * @return the number of genomes.
+     */
+    private static int countOf(long key) {
+        return (int) (key >>> 32);
+    }
+
+    /**
+     * Find the first ID in a run that is larger than a node ID.
+     *
+     * @param run    the run of node IDs.
+     * @param nodeID the node ID.
+     * @return the index of the first larger ID, or the length of the run if there is none.
+     */
+    private static int indexAfter(int[] run, int nodeID) {
+        int lo = 0;
+        int hi = run.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (run[mid] <= nodeID) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+}
@@ -0,0 +1,126 @@
+package programminglife.model.analysis;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * How two genomes of a graph differ, computed by a {@link GenomeComparison}: the number of nodes and bases that
+ * only the first genome (A) goes through, that only the second genome (B) goes through and that both go through,
+ * and the regions in which they differ, in the order of the graph.
+ */
+public final class GenomeDifference {
+    /**
+     * Which of the two genomes go through a node.
+     */
+    public enum Membership {
+        /**
+         * Only the first genome.
+         */
+        ONLY_A,
+        /**
+         * Only the second genome.
+         */
+        ONLY_B,
+        /**
+         * Both genomes.
+         */
+        SHARED
+    }
+
+    private final int genomeA;
+    private final int genomeB;
+    private final long[] nodes;
+    private final long[] bases;
+    private final List<DifferenceRegion> regions;
+
+    /**
+     * Create a GenomeDifference.
+     *
+     * @param genomeA the ID of the first genome.
+     * @param genomeB the ID of the second genome.
+     * @param nodes   the number of nodes, indexed by the ordinal of their {@link Membership}.
+     * @param bases   the number of bases, indexed by the ordinal of their {@link Membership}.
+     * @param regions the regions in which the genomes differ, in ascending order of node ID.
+     */
+    GenomeDifference(int genomeA, int genomeB, long[] nodes, long[] bases, List<DifferenceRegion> regions) {
+        this.genomeA = genomeA;
+        this.genomeB = genomeB;
+        this.nodes = nodes;
+        this.bases = bases;
+        this.regions = Collections.unmodifiableList(regions);
+    }
+
+    public int getGenomeA() {
+        return genomeA;
+    }
+
+    public int getGenomeB() {
+        return genomeB;
+    }
+
+    /**
+     * Get the number of nodes that go through one or both genomes.
+     *
+     * @param membership which of the genomes go through the nodes.
+     * @return the number of nodes.
+     */
+    public long getNodes(Membership membership) {
+        return nodes[membership.ordinal()];
+    }
+
+    /**
+     * Get the number of bases of the nodes that go through one or both genomes.
+     *
+     * @param membership which of the genomes go through the nodes.
+     * @return the number of bases.
+     */
+    public long getBases(Membership membership) {
+        return bases[membership.ordinal()];
+    }
+
+    public List<DifferenceRegion> getRegions() {
+        return regions;
+    }
+
+    /**
+     * Get the first region that starts after a node.
+     *
+     * @param nodeID the ID of the node.
+     * @return the region, or null if there is none.
+     */
+    public DifferenceRegion regionAfter(int nodeID) {
+        int index = indexAfter(nodeID);
+        return index < regions.size() ? regions.get(index) : null;
+    }
+
+    /**
+     * Get the last region that starts before a node.
+     *
+     * @param nodeID the ID of the node.
+     * @return the region, or null if there is none.
+     */
+    public DifferenceRegion regionBefore(int nodeID) {
+        int index = indexAfter(nodeID - 1) - 1;
+        return index >= 0 ? regions.get(index) : null;
+    }
+
+    /**
+     * Find the first region that starts after a node.
+     *
+     * @param nodeID the ID of the node.
+     * @return the index of the region, or the number of regions if there is none.
+     */
+    private int indexAfter(int nodeID) {
+        int lo = 0;
+        int hi = regions.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (regions.get(mid).getFirstNodeID() <= nodeID) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+}
@@ -0,0 +1,40 @@
+package programminglife.model.analysis;
+
+/**
+ * A base position along a genome, resolved to the node it is in by a {@link CoordinateIndex}.
+ */
+public final class GenomePosition {
+    private final int genomeID;
+    private final int nodeID;
+    private final long offset;
+
+    /**
+     * Create a GenomePosition.
+     *
+     * @param genomeID the ID of the genome
+     * @param nodeID   the ID of the node the position is in
+     * @param offset   the position within the sequence of the node, 0 for its first base
+     */
+    GenomePosition(int genomeID, int nodeID, long offset) {
+        this.genomeID = genomeID;
+        this.nodeID = nodeID;
+        this.offset = offset;
+    }
+
+    public int getGenomeID() {
+        return genomeID;
+    }
+
+    public int getNodeID() {
+        return nodeID;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Genome %d: node %d, offset %d", genomeID, nodeID, offset);
+    }
+}
@@ -0,0 +1,145 @@
+package programminglife.model.analysis;
+
+import programminglife.model.GenomeGraph;
+import programminglife.utility.Console;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Computes the {@link SimilarityMatrix} of the genomes of a {@link GenomeGraph}: how many nodes and bases
+ * every pair of genomes shares.
+ * <p>
+ * The nodes are read in tiles of {@value #TILE_NODES} nodes. For each tile, every genome gets a bitset of the nodes
+ * of the tile it goes through, so the nodes two genomes share are the popcount of the and of their bitsets,
+ * a word (64 nodes) at a time. The bases they share are counted the same way, with one extra bitset per bit
+ * of the sequence lengths: the nodes whose length has that bit set. The pairs of genomes are compared in
+ * parallel, one genome per task with all genomes after it, so no two tasks add to the same count.
+ * Only one tile is in memory at a time.
+ */
+public class GenomeSimilarity {
+    private static final int TILE_WORDS = 64;
+    /**
+     * The number of nodes in a tile.
+     */
+    static final int TILE_NODES = TILE_WORDS * Long.SIZE;
+    private static final int LENGTH_BITS = Integer.SIZE - 1;
+
+    private static final String NODES_NAME = "nodes";
+    private static final String BASES_NAME = "bases";
+    private static final String SHARED_NODES_NAME = "sharedNodes";
+    private static final String SHARED_BASES_NAME = "sharedBases";
+
+    private final GenomeGraph graph;
+
+    /**
+     * Create a GenomeSimilarity.
+     *
+     * @param graph the {@link GenomeGraph} to compare the genomes of.
+     */
+    public GenomeSimilarity(GenomeGraph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Get the similarity of the genomes from the cache of the graph, or compute and cache it
+     * if it has not been computed before.
+     *
+     * @return the {@link SimilarityMatrix}.
+     */
+    public SimilarityMatrix get() {
+        long[] nodes = graph.getSimilarityCounts(NODES_NAME);
+        long[] bases = graph.getSimilarityCounts(BASES_NAME);
+        long[] sharedNodes = graph.getSimilarityCounts(SHARED_NODES_NAME);
+        long[] sharedBases = graph.getSimilarityCounts(SHARED_BASES_NAME);
+        if (nodes != null && bases != null && sharedNodes != null && sharedBases != null
+                && nodes.length == graph.getTotalGenomeNumber()) {
+            return new SimilarityMatrix(nodes, bases, sharedNodes, sharedBases);
+        }
+
+        SimilarityMatrix matrix = this.compute();
+        graph.setSimilarityCounts(NODES_NAME, matrix.getNodes());
+        graph.setSimilarityCounts(BASES_NAME, matrix.getBases());
+        graph.setSimilarityCounts(SHARED_NODES_NAME, matrix.getSharedNodes());
+        graph.setSimilarityCounts(SHARED_BASES_NAME, matrix.getSharedBases());
+        return matrix;
+    }
+
+    /**
+     * Compute the similarity of the genomes.
+     *
+     * @return the {@link SimilarityMatrix}.
+     */
+    public SimilarityMatrix compute() {
+        int genomes = graph.getTotalGenomeNumber();
+        int[] nodeIDs = graph.getAllNodeIDs();
+        long[] nodes = new long[genomes];
+        long[] bases = new long[genomes];
+        long[] sharedNodes = new long[SimilarityMatrix.pairs(genomes)];
+        long[] sharedBases = new long[SimilarityMatrix.pairs(genomes)];
+
+        long[][] words = new long[genomes][TILE_WORDS]; // for each genome, the nodes of the tile it goes through
+        long[] lengthBits = new long[TILE_WORDS * LENGTH_BITS]; // for each word and bit, the nodes with that bit
+        int[] highestBit = new int[TILE_WORDS]; // for each word, the highest bit of the lengths
+        boolean[] inTile = new boolean[genomes];
+
+        for (int tileStart = 0; tileStart < nodeIDs.length; tileStart += TILE_NODES) {
+            for (long[] genomeWords : words) {
+                Arrays.fill(genomeWords, 0);
+            }
+            Arrays.fill(lengthBits, 0);
+            Arrays.fill(highestBit, -1);
+            Arrays.fill(inTile, false);
+
+            int tileEnd = Math.min(nodeIDs.length, tileStart + TILE_NODES);
+            for (int i = tileStart; i < tileEnd; i++) {
+                int[] nodeGenomes = graph.getGenomes(nodeIDs[i]);
+                if (nodeGenomes == null || nodeGenomes.length == 0) {
+                    continue;
+                }
+                int word = (i - tileStart) / Long.SIZE;
+                long bit = 1L << ((i - tileStart) % Long.SIZE);
+                int length = graph.getSequenceLength(nodeIDs[i]);
+                for (int genome : nodeGenomes) {
+                    words[genome][word] |= bit;
+                    inTile[genome] = true;
+                    nodes[genome]++;
+                    bases[genome] += length;
+                }
+                for (int b = 0; b < LENGTH_BITS; b++) {
+                    if ((length >>> b & 1) != 0) {
+                        lengthBits[word * LENGTH_BITS + b] |= bit;
+                        highestBit[word] = Math.max(highestBit[word], b);
+                    }
+                }
+            }
+
+            IntStream.range(0, genomes).parallel().filter(a -> inTile[a]).forEach(a -> {
+                for (int b = a + 1; b < genomes; b++) {
+                    if (!inTile[b]) {
+                        continue;
+                    }
+                    long tileNodes = 0;
+                    long tileBases = 0;
+                    for (int word = 0; word < TILE_WORDS; word++) {
+                        long both = words[a][word] & words[b][word];
+                        if (both == 0) {
+                            continue;
+                        }
+                        tileNodes += Long.bitCount(both);
+                        for (int bit = 0; bit <= highestBit[word]; bit++) {
+                            tileBases += (long) Long.bitCount(both & lengthBits[word * LENGTH_BITS + bit]) << bit;
+                        }
+                    }
+                    int pair = SimilarityMatrix.index(genomes, a, b);
+                    sharedNodes[pair] += tileNodes;
+                    sharedBases[pair] += tileBases;
+                }
+            });
+        }
+
+        Console.println("[%s] Compared %d genomes over %d nodes", Thread.currentThread().getName(),
+                genomes, nodeIDs.length);
+        return new SimilarityMatrix(nodes, bases, sharedNodes, sharedBases);
+    }
+}
@@ -0,0 +1,302 @@
+package programminglife.model.analysis;
+
+import programminglife.model.GenomeGraph;
+import programminglife.utility.Console;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Builds a hierarchy of coarser versions of a {@link GenomeGraph}, used to draw overviews of large regions.
+ * Every level merges the linear chains and simple bubbles of the level below into single nodes, which carry
+ * the total sequence length, the number of segments and all genomes of the nodes merged into them.
+ * A merged node gets the lowest ID of the nodes merged into it. Because a node is only ever merged into
+ * a node before it, the IDs on every level are still in topological order.
+ * <p>
+ * The levels are stored in the cache of the graph, and are built until a level would not merge
+ * enough nodes anymore, or until there are only a few nodes left.
+ */
+public class GraphCoarsener {
+    private static final int MAX_LEVELS = 8;
+    private static final int MIN_NODES = 1000;
+    private static final double MAX_REMAINING_FRACTION = 0.9;
+
+    private final GenomeGraph graph;
+    private final int minNodes;
+
+    /**
+     * Create a GraphCoarsener for a graph.
+     *
+     * @param graph the {@link GenomeGraph} to coarsen.
+     */
+    public GraphCoarsener(GenomeGraph graph) {
+        this(graph, MIN_NODES);
+    }
+
+    /**
+     * Create a GraphCoarsener for a graph.
+     *
+     * @param graph    the {@link GenomeGraph} to coarsen.
+     * @param minNodes the number of nodes below which no coarser level is built.
+     */
+    GraphCoarsener(GenomeGraph graph, int minNodes) {
+        this.graph = graph;
+        this.minNodes = minNodes;
+    }
+
+    /**
+     * Build all levels and store them in the cache of the graph.
+     *
+     * @return the number of coarse levels that were built.
+     */
+    public int build() {
+        int[] ids = graph.getAllNodeIDs();
+        int[][] children = new int[ids.length][];
+        int[][] parents = new int[ids.length][];
+        long[] lengths = new long[ids.length];
+        int[] sizes = new int[ids.length];
+
+        for (int i = 0; i < ids.length; i++) {
+            children[i] = toIndices(ids, graph.getChildIDs(ids[i]));
+            parents[i] = toIndices(ids, graph.getParentIDs(ids[i]));
+            lengths[i] = graph.getSequenceLength(ids[i]);
+            sizes[i] = 1;
+        }
+
+        int level = 0;
+        while (level < MAX_LEVELS && ids.length > minNodes) {
+            int[] group = group(children, parents);
+
+            int[] newIndex = new int[ids.length];
+            int count = 0;
+            for (int i = 0; i < ids.length; i++) {
+                if (group[i] == i) {
+                    newIndex[i] = count++;
+                }
+            }
+            if (count > MAX_REMAINING_FRACTION * ids.length) {
+                break;
+            }
+            level++;
+
+            int[] groupOf = new int[ids.length];
+            for (int i = 0; i < ids.length; i++) {
+                groupOf[i] = newIndex[group[i]];
+            }
+
+            int[] newIds = new int[count];
+            int[][] newChildren = new int[count][];
+            int[][] newParents = new int[count][];
+            long[] newLengths = new long[count];
+            int[] newSizes = new int[count];
+            int[][] members = members(groupOf, count);
+            int[] mark = new int[count];
+            Arrays.fill(mark, -1);
+            BitSet genomes = new BitSet();
+
+            for (int g = 0; g < count; g++) {
+                newIds[g] = ids[members[g][0]];
+                newChildren[g] = neighbours(members[g], children, groupOf, g, mark);
+                newParents[g] = neighbours(members[g], parents, groupOf, g, mark);
+
+                genomes.clear();
+                for (int member : members[g]) {
+                    newLengths[g] += lengths[member];
+                    newSizes[g] += sizes[member];
+                    for (int genome : graph.getGenomes(ids[member], level - 1)) {
+                        genomes.set(genome);
+                    }
+                }
+
+                graph.addCoarseNode(level, newIds[g], toIDs(newIds, newChildren[g]), toIDs(newIds, newParents[g]),
+                        genomes.stream().toArray(), newLengths[g], newSizes[g]);
+            }
+            for (int i = 0; i < ids.length; i++) {
+                graph.setCoarseNodeID(level, ids[i], newIds[groupOf[i]]);
+            }
+
+            Console.println("[%s] Coarse level %d has %d nodes", Thread.currentThread().getName(), level, count);
+
+            ids = newIds;
+            children = newChildren;
+            parents = newParents;
+            lengths = newLengths;
+            sizes = newSizes;
+        }
+
+        graph.setNumberOfCoarseLevels(level);
+        return level;
+    }
+
+    /**
+     * Decide which nodes are merged. Nodes are visited in topological order, and every node merges
+     * its only child into itself if that child has no other parents, or the nodes of a simple bubble
+     * if it is the source of one.
+     *
+     * @param children the children of each node, as indices.
+     * @param parents  the parents of each node, as indices.
+     * @return for every node, the index of the node it is merged into (which is itself if it is not merged).
+     */
+    static int[] group(int[][] children, int[][] parents) {
+        int[] group = new int[children.length];
+        Arrays.fill(group, -1);
+
+        for (int v = 0; v < children.length; v++) {
+            if (group[v] == -1) {
+                group[v] = v;
+            }
+
+            if (children[v].length == 1) {
+                int child = children[v][0];
+                if (parents[child].length == 1) {
+                    group[child] = group[v];
+                }
+            } else if (children[v].length > 1) {
+                int sink = bubbleSink(v, children, parents);
+                if (sink >= 0) {
+                    for (int child : children[v]) {
+                        group[child] = group[v];
+                    }
+                    group[sink] = group[v];
+                }
+            }
+        }
+
+        return group;
+    }
+
+    /**
+     * Find the sink of the simple bubble with source v. In a simple bubble, every child of the source
+     * either is the sink, or has the source as only parent and the sink as only child.
+     * The sink has no other parents than the source and those children.
+     *
+     * @param v        the index of the source.
+     * @param children the children of each node, as indices.
+     * @param parents  the parents of each node, as indices.
+     * @return the index of the sink, or -1 if v is not the source of a simple bubble.
+     */
+    private static int bubbleSink(int v, int[][] children, int[][] parents) {
+        int sink = -1;
+        for (int child : children[v]) {
+            if (isPath(child, children, parents)) {
+                if (sink == -1) {
+                    sink = children[child][0];
+                } else if (sink != children[child][0]) {
+                    return -1;
+                }
+            }
+        }
+        if (sink == -1) {
+            return -1;
+        }
+
+        for (int child : children[v]) {
+            if (child != sink && !(isPath(child, children, parents) && children[child][0] == sink)) {
+                return -1;
+            }
+        }
+        for (int parent : parents[sink]) {
+            if (parent != v && !(parents[parent].length == 1 && parents[parent][0] == v)) {
+                return -1;
+            }
+        }
+        return sink;
+    }
+
+    /**
+     * Whether a node has exactly one parent and one child.
+     *
+     * @param node     the index of the node.
+     * @param children the children of each node, as indices.
+     * @param parents  the parents of each node, as indices.
+     * @return true if it has one parent and one child.
+     */
+    private static boolean isPath(int node, int[][] children, int[][] parents) {
+        return parents[node].length == 1 && children[node].length == 1;
+    }
+
+    /**
+     * List the members of every group.
+     *
+     * @param groupOf the group of every node.
+     * @param count   the number of groups.
+     * @return for every group the indices of its members, in ascending order.
+     */
+    private static int[][] members(int[] groupOf, int count) {
+        int[] sizes = new int[count];
+        for (int g : groupOf) {
+            sizes[g]++;
+        }
+        int[][] members = new int[count][];
+        for (int g = 0; g < count; g++) {
+            members[g] = new int[sizes[g]];
+            sizes[g] = 0;
+        }
+        for (int i = 0; i < groupOf.length; i++) {
+            int g = groupOf[i];
+            members[g][sizes[g]++] = i;
+        }
+        return members;
+    }
+
+    /**
+     * Find the neighbouring groups of a group.
+     *
+     * @param members    the members of the group.
+     * @param neighbours the neighbours (children or parents) of each node, as indices.
+     * @param groupOf    the group of every node.
+     * @param group      the group to find the neighbours of.
+     * @param mark       the last group that each group was found as neighbour for, to skip duplicates.
+     * @return the indices of the neighbouring groups.
+     */
+    private static int[] neighbours(int[] members, int[][] neighbours, int[] groupOf, int group, int[] mark) {
+        int[] result = new int[4];
+        int size = 0;
+        for (int member : members) {
+            for (int neighbour : neighbours[member]) {
+                int g = groupOf[neighbour];
+                if (g != group && mark[g] != group) {
+                    mark[g] = group;
+                    if (size == result.length) {
+                        result = Arrays.copyOf(result, size * 2);
+                    }
+                    result[size++] = g;
+                }
+            }
+        }
+        // parents and children are looked up for the same group right after each other, reset the marks.
+        for (int i = 0; i < size; i++) {
+            mark[result[i]] = -1;
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    /**
+     * Convert node IDs to indices.
+     *
+     * @param ids     the sorted IDs of all nodes.
+     * @param nodeIDs the IDs to convert.
+     * @return the indices of the IDs, leaving out unknown IDs.
+     */
+    private static int[] toIndices(int[] ids, int[] nodeIDs) {
+        if (nodeIDs == null) {
+            return new int[0];
+        }
+        return Arrays.stream(nodeIDs).map(id -> Arrays.binarySearch(ids, id)).filter(i -> i >= 0).toArray();
+    }
+
+    /**
+     * Convert indices to node IDs.
+     *
+     * @param ids     the IDs of all nodes.
+     * @param indices the indices to convert.
+     * @return the IDs.
+     */
+    private static int[] toIDs(int[] ids, int[] indices) {
+        int[] result = new int[indices.length];
+        for (int i = 0; i < indices.length; i++) {
+            result[i] = ids[indices[i]];
+        }
+        return result;
+    }
+}
@@ -0,0 +1,150 @@
+package programminglife.model.analysis;
+
+/**
+ * A summary of a whole graph, computed by a {@link StatisticsAnalysis}: the number of nodes, edges, genomes
+ * and bases, the distributions of the degrees and the sequence lengths of the nodes, and the number of bubbles
+ * and SNPs. It is small enough to be read from the cache without reading any of the nodes.
+ */
+public final class GraphStatistics {
+    /**
+     * The degree from which on all nodes are counted together in the degree distributions.
+     */
+    public static final int MAX_DEGREE = 8;
+
+    static final int NODES = 0;
+    static final int EDGES = 1;
+    static final int GENOMES = 2;
+    static final int BASES = 3;
+    static final int MIN_LENGTH = 4;
+    static final int MAX_LENGTH = 5;
+    static final int N50 = 6;
+    static final int BUBBLES = 7;
+    static final int SNPS = 8;
+    static final int SUMMARY_SIZE = 9;
+
+    private final long[] summary;
+    private final long[] inDegrees;
+    private final long[] outDegrees;
+    private final long[] lengths;
+
+    /**
+     * Create a GraphStatistics.
+     *
+     * @param summary    the counts, indexed by the constants of this class.
+     * @param inDegrees  for each number of parents up to {@link #MAX_DEGREE}, the number of nodes.
+     * @param outDegrees for each number of children up to {@link #MAX_DEGREE}, the number of nodes.
+     * @param lengths    the number of nodes with a sequence length of 0, and with a length from 2^(i-1)
+     *                   up to 2^i for every i after that.
+     */
+    GraphStatistics(long[] summary, long[] inDegrees, long[] outDegrees, long[] lengths) {
+        this.summary = summary;
+        this.inDegrees = inDegrees;
+        this.outDegrees = outDegrees;
+        this.lengths = lengths;
+    }
+
+    long[] getSummary() {
+        return summary;
+    }
+
+    public long[] getInDegrees() {
+        return inDegrees;
+    }
+
+    public long[] getOutDegrees() {
+        return outDegrees;
+    }
+
+    public long[] getLengths() {
+        return lengths;
+    }
+
+    public long getNodeCount() {
+        return summary[NODES];
+    }
+
+    public long getEdgeCount() {
+        return summary[EDGES];
+    }
+
+    public long getGenomeCount() {
+        return summary[GENOMES];
+    }
+
+    public long getTotalBases() {
+        return summary[BASES];
+    }
+
+    public long getMinLength() {
+        return summary[MIN_LENGTH];
+    }
+
+    public long getMaxLength() {
+        return summary[MAX_LENGTH];
+    }
+
+    /**
+     * Get the N50 of the sequence lengths: the length for which the nodes of at least that length hold half
+     * of all bases.
+     *
+     * @return the N50.
+     */
+    public long getN50() {
+        return summary[N50];
+    }
+
+    public long getBubbleCount() {
+        return summary[BUBBLES];
+    }
+
+    public long getSNPCount() {
+        return summary[SNPS];
+    }
+
+    /**
+     * Get the bucket of the sequence length distribution a length is counted in.
+     *
+     * @param length the sequence length.
+     * @return the index of the bucket.
+     */
+    static int lengthBucket(int length) {
+        return Integer.SIZE - Integer.numberOfLeadingZeros(length);
+    }
+
+    /**
+     * Write a degree distribution as text.
+     *
+     * @param degrees the degree distribution.
+     * @return the number of nodes for each degree.
+     */
+    private static String toString(long[] degrees) {
+        StringBuilder text = new StringBuilder();
+        for (int degree = 0; degree < degrees.length; degree++) {
+            if (degree > 0) {
+                text.append(", ");
+            }
+            text.append(degree).append(degree == MAX_DEGREE ? "+: " : ": ").append(degrees[degree]);
+        }
+        return text.toString();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        text.append(String.format("Nodes: %d%nEdges: %d%nGenomes: %d%nBases: %d%n",
+                getNodeCount(), getEdgeCount(), getGenomeCount(), getTotalBases()));
+        text.append(String.format("Sequence length: min %d, max %d, N50 %d%n",
+                getMinLength(), getMaxLength(), getN50()));
+        text.append(String.format("Bubbles: %d%nSNPs: %d%n", getBubbleCount(), getSNPCount()));
+        text.append("Parents: ").append(toString(inDegrees)).append(String.format("%n"));
+        text.append("Children: ").append(toString(outDegrees)).append(String.format("%n"));
+        text.append("Sequence lengths:");
+        for (int bucket = 0; bucket < lengths.length; bucket++) {
+            if (lengths[bucket] > 0) {
+                text.append(String.format("%n  %s: %d", bucket == 0 ? "0"
+                        : String.format("%d-%d", 1L << (bucket - 1), (1L << bucket) - 1), lengths[bucket]));
+            }
+        }
+        return text.toString();
+    }
+}
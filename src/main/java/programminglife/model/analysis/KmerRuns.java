@@ -0,0 +1,271 @@
+package programminglife.model.analysis;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * Sorted runs of k-mers with the places they start at, written to temporary files, so that the k-mers of a whole
+ * graph never have to be in memory at once. Each run is sorted by counting its k-mers, and holds every k-mer once
+ * with its sorted places. The runs are merged into one stream sorted by k-mer, which only keeps the current k-mer
+ * of each run in memory.
+ */
+final class KmerRuns implements Closeable {
+    private final int[] starts; // reused for counting the k-mers of each run
+    private final List<Path> files;
+    private final List<Run> merging;
+    private long mergedKmers;
+    private long mergedPlaces;
+
+    /**
+     * Create KmerRuns.
+     *
+     * @param kmers the number of possible k-mers. Each k-mer is at least 0 and less than this.
+     */
+    KmerRuns(int kmers) {
+        this.starts = new int[kmers + 1];
+        this.files = new ArrayList<>();
+        this.merging = new ArrayList<>();
+    }
+
+    /**
+     * Sort k-mers by counting them, and write them as one run. The same k-mer can be found at the same place
+     * along different paths, so duplicates are removed.
+     *
+     * @param found the k-mers to write.
+     * @throws IOException when writing the run fails.
+     */
+    void write(List<Occurrences> found) throws IOException {
+        Arrays.fill(starts, 0);
+        for (Occurrences occurrences : found) {
+            for (int i = 0; i < occurrences.size; i++) {
+                starts[occurrences.kmers[i] + 1]++;
+            }
+        }
+        for (int kmer = 1; kmer < starts.length; kmer++) {
+            starts[kmer] += starts[kmer - 1];
+        }
+
+        long[] sorted = new long[starts[starts.length - 1]];
+        int[] next = Arrays.copyOf(starts, starts.length - 1);
+        for (Occurrences occurrences : found) {
+            for (int i = 0; i < occurrences.size; i++) {
+                sorted[next[occurrences.kmers[i]]++] = occurrences.places[i];
+            }
+        }
+
+        Path file = Files.createTempFile("kmers", ".run");
+        files.add(file);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            for (int kmer = 0; kmer < starts.length - 1; kmer++) {
+                if (starts[kmer + 1] == starts[kmer]) {
+                    continue;
+                }
+                Arrays.sort(sorted, starts[kmer], starts[kmer + 1]);
+                int distinct = 0;
+                for (int i = starts[kmer]; i < starts[kmer + 1]; i++) {
+                    if (i == starts[kmer] || sorted[i] != sorted[i - 1]) {
+                        sorted[starts[kmer] + distinct++] = sorted[i];
+                    }
+                }
+                out.writeInt(kmer);
+                out.writeInt(distinct);
+                for (int i = starts[kmer]; i < starts[kmer] + distinct; i++) {
+                    out.writeLong(sorted[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the number of runs that have been written.
+     *
+     * @return the number of runs.
+     */
+    int size() {
+        return files.size();
+    }
+
+    /**
+     * Merge all runs. A k-mer that is in several runs gets the places of all of them.
+     *
+     * @return the k-mers in ascending order, each with its sorted places. It throws an {@link UncheckedIOException}
+     * when reading a run fails.
+     * @throws IOException when opening a run fails.
+     */
+    Iterator<Map.Entry<Integer, long[]>> merge() throws IOException {
+        PriorityQueue<Run> queue = new PriorityQueue<>(Math.max(1, files.size()),
+                Comparator.comparingInt(run -> run.kmer));
+        for (Path file : files) {
+            Run run = new Run(file);
+            merging.add(run);
+            if (run.advance()) {
+                queue.add(run);
+            }
+        }
+
+        return new Iterator<Map.Entry<Integer, long[]>>() {
+            @Override
+            public boolean hasNext() {
+                return !queue.isEmpty();
+            }
+
+            @Override
+            public Map.Entry<Integer, long[]> next() {
+                if (queue.isEmpty()) {
+                    throw new NoSuchElementException();
+                }
+                int kmer = queue.peek().kmer;
+                long[] places = null;
+                try {
+                    while (!queue.isEmpty() && queue.peek().kmer == kmer) {
+                        Run run = queue.poll();
+                        places = places == null ? run.places : union(places, run.places);
+                        if (run.advance()) {
+                            queue.add(run);
+                        }
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                mergedKmers++;
+                mergedPlaces += places.length;
+                return new AbstractMap.SimpleImmutableEntry<>(kmer, places);
+            }
+        };
+    }
+
+    long getMergedKmers() {
+        return mergedKmers;
+    }
+
+    long getMergedPlaces() {
+        return mergedPlaces;
+    }
+
+    /**
+     * Merge two sorted arrays of places, without duplicates.
+     *
+     * @param a the first places, sorted and without duplicates.
+     * @param b the second places, sorted and without duplicates.
+     * @return the places of both.
+     */
+    static long[] union(long[] a, long[] b) {
+        long[] union = new long[a.length + b.length];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length || j < b.length) {
+            long place = j == b.length || i < a.length && a[i] <= b[j] ? a[i] : b[j];
+            if (i < a.length && a[i] == place) {
+                i++;
+            }
+            if (j < b.length && b[j] == place) {
+                j++;
+            }
+            union[size++] = place;
+        }
+        return size == union.length ? union : Arrays.copyOf(union, size);
+    }
+
+    /**
+     * Close the runs that are being merged, and remove the files of all runs.
+     *
+     * @throws IOException when closing or removing a file fails.
+     */
+    @Override
+    public void close() throws IOException {
+        for (Run run : merging) {
+            run.in.close();
+        }
+        merging.clear();
+        for (Path file : files) {
+            Files.deleteIfExists(file);
+        }
+        files.clear();
+    }
+
+    /**
+     * The k-mers found in a chunk of nodes, with the places they start at.
+     */
+    static final class Occurrences {
+        private int[] kmers = new int[1024];
+        private long[] places = new long[1024];
+        private int size = 0;
+
+        /**
+         * Add a k-mer.
+         *
+         * @param kmer  the encoded k-mer.
+         * @param place the packed place it starts at.
+         */
+        void add(int kmer, long place) {
+            if (size == kmers.length) {
+                kmers = Arrays.copyOf(kmers, size * 2);
+                places = Arrays.copyOf(places, size * 2);
+            }
+            kmers[size] = kmer;
+            places[size] = place;
+            size++;
+        }
+
+        int size() {
+            return size;
+        }
+    }
+
+    /**
+     * A run that is being read, one k-mer at a time.
+     */
+    private static final class Run {
+        private final DataInputStream in;
+        private int kmer;
+        private long[] places;
+
+        /**
+         * Open a run.
+         *
+         * @param file the file of the run.
+         * @throws IOException when opening the file fails.
+         */
+        Run(Path file) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)));
+        }
+
+        /**
+         * Read the next k-mer of the run, and close the run once it has been read completely.
+         *
+         * @return true if there was a next k-mer, false if the run has been read completely.
+         * @throws IOException when reading fails.
+         */
+        boolean advance() throws IOException {
+            try {
+                kmer = in.readInt();
+            } catch (EOFException e) {
+                in.close();
+                return false;
+            }
+            places = new long[in.readInt()];
+            for (int i = 0; i < places.length; i++) {
+                places[i] = in.readLong();
+            }
+            return true;
+        }
+    }
+}
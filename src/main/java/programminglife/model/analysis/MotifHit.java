@@ -0,0 +1,42 @@
+package programminglife.model.analysis;
+
+import programminglife.model.GenomeSet;
+
+/**
+ * A place where a sequence occurs in a graph, found by a {@link MotifSearch}.
+ */
+public final class MotifHit {
+    private final int nodeID;
+    private final int offset;
+    private final GenomeSet genomes;
+
+    /**
+     * Create a MotifHit.
+     *
+     * @param nodeID  the ID of the node the sequence starts in
+     * @param offset  the position in the sequence of the node the sequence starts at, 0 for its first base
+     * @param genomes the genomes along which the whole sequence occurs from there
+     */
+    MotifHit(int nodeID, int offset, GenomeSet genomes) {
+        this.nodeID = nodeID;
+        this.offset = offset;
+        this.genomes = genomes;
+    }
+
+    public int getNodeID() {
+        return nodeID;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public GenomeSet getGenomes() {
+        return genomes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Node %d, offset %d (%d genomes)", nodeID, offset, genomes.size());
+    }
+}
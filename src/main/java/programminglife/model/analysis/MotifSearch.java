@@ -0,0 +1,400 @@
+package programminglife.model.analysis;
+
+import programminglife.model.GenomeGraph;
+import programminglife.model.GenomeSet;
+import programminglife.parser.KmerIndex;
+import programminglife.utility.Console;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Finds where a sequence (a motif) occurs in a {@link GenomeGraph}, also when it runs across the boundaries
+ * of nodes, using the {@link KmerIndex} of the graph.
+ * <p>
+ * The index holds every k-mer of {@value #K} bases, with the node and offset it starts at. The k-mers that lie
+ * within one node are read from its sequence; those that run into the next nodes are found by following
+ * the edges, but only along paths that some genome takes, so k-mers that no genome has are left out.
+ * Both are collected in parallel, over chunks of nodes. Once enough k-mers have been collected, they are sorted
+ * and written to disk as one of the {@link KmerRuns}, which are merged into the index at the end.
+ * <p>
+ * A search looks up the first k-mer of the motif (or, for motifs shorter than k, every k-mer that starts with
+ * it), and checks each place it starts at against the rest of the motif, again along genome paths only.
+ * Motifs shorter than k that lie within the last k - 1 bases of a genome are not found.
+ */
+public class MotifSearch {
+    /**
+     * The number of bases of the k-mers in the index. With two bits per base, counting the k-mers
+     * takes an int for each of the 4^k possible k-mers.
+     */
+    static final int K = 11;
+    private static final int KMER_MASK = (1 << 2 * K) - 1;
+    /**
+     * The number of nodes that are handled together when building the index in parallel.
+     */
+    private static final int CHUNK_SIZE = 4096;
+    /**
+     * The number of k-mers that are collected in memory before they are written to disk as one sorted run.
+     */
+    private static final int RUN_SIZE = 1 << 22;
+
+    private final GenomeGraph graph;
+
+    /**
+     * Create a MotifSearch.
+     *
+     * @param graph the {@link GenomeGraph} to search in.
+     */
+    public MotifSearch(GenomeGraph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Build the {@link KmerIndex} of the graph and store it next to its cache.
+     *
+     * @throws IOException when writing or reading the sorted runs of k-mers fails.
+     */
+    public void buildIndex() throws IOException {
+        new Builder().build();
+    }
+
+    /**
+     * Find where a motif occurs. The index of the graph must have been built.
+     *
+     * @param motif the sequence to look for, of the bases A, C, G and T.
+     * @param limit the largest number of places to return.
+     * @return the places the motif starts at, ordered by node ID and offset.
+     * @throws IllegalArgumentException if the motif is empty or has other characters than bases.
+     * @throws java.util.NoSuchElementException if the index has not been built.
+     */
+    public List<MotifHit> find(String motif, int limit) {
+        String query = motif.trim().toUpperCase(Locale.ROOT);
+        if (!query.matches("[ACGT]+")) {
+            throw new IllegalArgumentException("A sequence can only consist of the bases A, C, G and T.");
+        }
+
+        KmerIndex index = graph.getKmerIndex();
+        List<long[]> seeds;
+        if (query.length() >= K) {
+            seeds = Collections.singletonList(index.get(encode(query, 0, K)));
+        } else {
+            // all k-mers that start with the motif form one range
+            int prefix = encode(query, 0, query.length());
+            int shift = 2 * (K - query.length());
+            seeds = index.getRange(prefix << shift, (prefix + 1) << shift);
+        }
+        long[] places = seeds.stream().flatMapToLong(Arrays::stream).sorted().distinct().toArray();
+
+        List<MotifHit> hits = new ArrayList<>();
+        Map<Integer, String> sequences = new HashMap<>();
+        for (long place : places) {
+            int nodeID = (int) (place >>> 32);
+            int offset = (int) place;
+            GenomeSet genomes = matches(nodeID, offset, query, sequences);
+            if (!genomes.isEmpty()) {
+                hits.add(new MotifHit(nodeID, offset, genomes));
+                if (hits.size() >= limit) {
+                    break;
+                }
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * Check whether a motif occurs from a place in a node on, along the genomes that go through that node.
+     * The nodes after it are visited in order of their ID, which is a topological order, so every node is
+     * compared once for each number of bases of the motif that can be matched before it, with all genomes
+     * that have those bases.
+     *
+     * @param nodeID    the ID of the node.
+     * @param offset    the position in the sequence of the node to compare from.
+     * @param query     the motif.
+     * @param sequences the sequences that have been read already during this search.
+     * @return the genomes along which the motif occurs, which is empty if it does not.
+     */
+    private GenomeSet matches(int nodeID, int offset, String query, Map<Integer, String> sequences) {
+        GenomeSet found = new GenomeSet();
+        // node ID and number of bases matched before it -> the genomes that have those bases
+        TreeMap<Long, GenomeSet> reached = new TreeMap<>();
+        reached.put(pack(nodeID, 0), genomesOf(nodeID));
+        while (!reached.isEmpty()) {
+            Map.Entry<Long, GenomeSet> first = reached.pollFirstEntry();
+            int currentID = (int) (first.getKey() >>> 32);
+            int matched = (int) (long) first.getKey();
+            GenomeSet along = first.getValue();
+
+            String sequence = sequences.computeIfAbsent(currentID, graph::getSequence);
+            int from = currentID == nodeID ? offset : 0;
+            int compared = Math.max(0, Math.min(sequence.length() - from, query.length() - matched));
+            if (!sequence.regionMatches(true, from, query, matched, compared)) {
+                continue;
+            }
+            if (matched + compared == query.length()) {
+                found.addAll(along);
+                continue;
+            }
+            for (int childID : graph.getChildIDs(currentID)) {
+                GenomeSet childGenomes = genomesOf(childID);
+                if (along.intersects(childGenomes)) {
+                    reached.computeIfAbsent(pack(childID, matched + compared), key -> new GenomeSet())
+                            .addAll(along.intersection(childGenomes));
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Get the genomes that go through a node.
+     *
+     * @param nodeID the ID of the node.
+     * @return the genomes, which is empty if they are not known.
+     */
+    private GenomeSet genomesOf(int nodeID) {
+        return graph.getGenomes(nodeID) == null ? new GenomeSet() : graph.getGenomeSet(nodeID, 0);
+    }
+
+    /**
+     * Encode a base in two bits.
+     *
+     * @param base the base.
+     * @return the code of the base, or -1 if it is not A, C, G or T.
+     */
+    private static int encode(char base) {
+        switch (base) {
+            case 'A':
+            case 'a':
+                return 0;
+            case 'C':
+            case 'c':
+                return 1;
+            case 'G':
+            case 'g':
+                return 2;
+            case 'T':
+            case 't':
+                return 3;
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * Encode a sequence of at most k bases in an int, two bits per base.
+     *
+     * @param sequence the sequence to take the bases from.
+     * @param start    the position of the first base.
+     * @param end      the position after the last base.
+     * @return the code, or -1 if any base is not A, C, G or T.
+     */
+    static int encode(CharSequence sequence, int start, int end) {
+        int code = 0;
+        for (int i = start; i < end; i++) {
+            int base = encode(sequence.charAt(i));
+            if (base < 0) {
+                return -1;
+            }
+            code = code << 2 | base;
+        }
+        return code;
+    }
+
+    /**
+     * Pack the place a k-mer starts at in a long.
+     *
+     * @param nodeID the ID of the node.
+     * @param offset the position in the sequence of the node.
+     * @return the packed place.
+     */
+    private static long pack(int nodeID, int offset) {
+        return (long) nodeID << 32 | offset & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Builds the index, keeping the start and end of every node in memory to follow k-mers across edges.
+     */
+    private final class Builder {
+        private final int[] nodeIDs;
+        private final int[] lengths;
+        private final String[] heads; // the first k - 1 bases of each node
+        private final String[] tails; // the last k - 1 bases of each node
+        private final GenomeSet[] genomes;
+        private final int[][] children;
+
+        /**
+         * Create a Builder for all nodes of the graph.
+         */
+        Builder() {
+            this.nodeIDs = graph.getAllNodeIDs();
+            this.lengths = new int[nodeIDs.length];
+            this.heads = new String[nodeIDs.length];
+            this.tails = new String[nodeIDs.length];
+            this.genomes = new GenomeSet[nodeIDs.length];
+            this.children = new int[nodeIDs.length][];
+        }
+
+        /**
+         * Collect all k-mers in sorted runs, and merge those into the index of the graph.
+         *
+         * @throws IOException when writing or reading the runs fails.
+         */
+        void build() throws IOException {
+            int chunks = (nodeIDs.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+            try (KmerRuns runs = new KmerRuns(KMER_MASK + 1)) {
+                // the k-mers within nodes, which also reads the heads of all nodes, before any edge is followed
+                this.collect(chunks, this::readChunk, runs);
+                this.collect(chunks, this::spanChunk, runs);
+
+                graph.getKmerIndex().store(runs.merge());
+                Console.println("[%s] Indexed %d distinct %d-mers at %d places from %d runs",
+                        Thread.currentThread().getName(), runs.getMergedKmers(), K, runs.getMergedPlaces(),
+                        runs.size());
+            }
+        }
+
+        /**
+         * Collect the k-mers of all chunks, a few chunks at a time in parallel, and write them to sorted runs
+         * whenever enough of them have been collected.
+         *
+         * @param chunks  the number of chunks.
+         * @param collect collects the k-mers of a chunk.
+         * @param runs    the runs to write to.
+         * @throws IOException when writing a run fails.
+         */
+        private void collect(int chunks, IntFunction<KmerRuns.Occurrences> collect, KmerRuns runs)
+                throws IOException {
+            int parallel = Runtime.getRuntime().availableProcessors();
+            List<KmerRuns.Occurrences> pending = new ArrayList<>();
+            long pendingSize = 0;
+            for (int batch = 0; batch < chunks; batch += parallel) {
+                List<KmerRuns.Occurrences> found = IntStream.range(batch, Math.min(chunks, batch + parallel))
+                        .parallel().mapToObj(collect).collect(Collectors.toList());
+                pending.addAll(found);
+                pendingSize += found.stream().mapToLong(KmerRuns.Occurrences::size).sum();
+                if (pendingSize >= RUN_SIZE) {
+                    runs.write(pending);
+                    pending.clear();
+                    pendingSize = 0;
+                }
+            }
+            if (pendingSize > 0) {
+                runs.write(pending);
+            }
+        }
+
+        /**
+         * Read the nodes of a chunk, and collect the k-mers within them.
+         *
+         * @param chunk the number of the chunk.
+         * @return the k-mers.
+         */
+        private KmerRuns.Occurrences readChunk(int chunk) {
+            KmerRuns.Occurrences occurrences = new KmerRuns.Occurrences();
+            for (int i = chunk * CHUNK_SIZE; i < Math.min(nodeIDs.length, (chunk + 1) * CHUNK_SIZE); i++) {
+                int nodeID = nodeIDs[i];
+                String sequence = graph.getSequence(nodeID);
+                lengths[i] = sequence.length();
+                heads[i] = sequence.substring(0, Math.min(sequence.length(), K - 1));
+                tails[i] = sequence.substring(Math.max(0, sequence.length() - (K - 1)));
+                genomes[i] = genomesOf(nodeID);
+                children[i] = graph.getChildIDs(nodeID);
+
+                int kmer = 0;
+                int valid = 0;
+                for (int position = 0; position < sequence.length(); position++) {
+                    int base = encode(sequence.charAt(position));
+                    if (base < 0) {
+                        valid = 0;
+                        continue;
+                    }
+                    kmer = (kmer << 2 | base) & KMER_MASK;
+                    valid++;
+                    if (valid >= K) {
+                        occurrences.add(kmer, pack(nodeID, position - K + 1));
+                    }
+                }
+            }
+            return occurrences;
+        }
+
+        /**
+         * Collect the k-mers that start in the nodes of a chunk and run into the nodes after them.
+         *
+         * @param chunk the number of the chunk.
+         * @return the k-mers.
+         */
+        private KmerRuns.Occurrences spanChunk(int chunk) {
+            KmerRuns.Occurrences occurrences = new KmerRuns.Occurrences();
+            for (int i = chunk * CHUNK_SIZE; i < Math.min(nodeIDs.length, (chunk + 1) * CHUNK_SIZE); i++) {
+                if (!tails[i].isEmpty()) {
+                    this.extend(i, i, genomes[i], new StringBuilder(tails[i]), occurrences);
+                }
+            }
+            return occurrences;
+        }
+
+        /**
+         * Follow the edges out of a node along the given genomes, adding the heads of the nodes after it
+         * to the tail of the node the k-mers start in, until there are k - 1 bases after that tail.
+         *
+         * @param start       the index of the node the k-mers start in.
+         * @param current     the index of the node to follow the edges of.
+         * @param along       the genomes that go through all nodes so far.
+         * @param bases       the tail of the start node, followed by the bases of the nodes after it so far.
+         * @param occurrences the k-mers found so far.
+         */
+        private void extend(int start, int current, GenomeSet along, StringBuilder bases,
+                            KmerRuns.Occurrences occurrences) {
+            int wanted = tails[start].length() + K - 1;
+            boolean extended = false;
+            for (int childID : children[current]) {
+                int child = Arrays.binarySearch(nodeIDs, childID);
+                if (child < 0 || !along.intersects(genomes[child])) {
+                    continue;
+                }
+                extended = true;
+                int before = bases.length();
+                int taken = Math.min(heads[child].length(), wanted - before);
+                bases.append(heads[child], 0, taken);
+                if (taken == lengths[child] && bases.length() < wanted) {
+                    this.extend(start, child, along.intersection(genomes[child]), bases, occurrences);
+                } else {
+                    this.addSpanning(start, bases, occurrences);
+                }
+                bases.setLength(before);
+            }
+            if (!extended && bases.length() > tails[start].length()) {
+                this.addSpanning(start, bases, occurrences);
+            }
+        }
+
+        /**
+         * Add the k-mers that start in the tail of a node and end in the bases after it.
+         *
+         * @param start       the index of the node the k-mers start in.
+         * @param bases       the tail of the node, followed by the bases of the nodes after it.
+         * @param occurrences the k-mers found so far.
+         */
+        private void addSpanning(int start, CharSequence bases, KmerRuns.Occurrences occurrences) {
+            int tailLength = tails[start].length();
+            int tailOffset = lengths[start] - tailLength;
+            for (int i = 0; i < tailLength && i + K <= bases.length(); i++) {
+                int kmer = encode(bases, i, i + K);
+                if (kmer >= 0) {
+                    occurrences.add(kmer, pack(nodeIDs[start], tailOffset + i));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package programminglife.model.analysis;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+/**
+ * The number of nodes and bases every pair of genomes of a graph share, computed by a {@link GenomeSimilarity},
+ * and their similarity as the Jaccard index: the number of nodes (or bases) two genomes share, divided by the
+ * number of nodes (or bases) in either. The shared counts are stored for each pair once, in a triangle.
+ */
+public final class SimilarityMatrix {
+    private final int genomes;
+    private final long[] nodes;
+    private final long[] bases;
+    private final long[] sharedNodes;
+    private final long[] sharedBases;
+
+    /**
+     * Create a SimilarityMatrix.
+     *
+     * @param nodes       for each genome the number of nodes it goes through
+     * @param bases       for each genome the number of bases of those nodes
+     * @param sharedNodes for each pair of genomes the number of nodes both go through, see {@link #index(int, int)}
+     * @param sharedBases for each pair of genomes the number of bases of those nodes
+     */
+    SimilarityMatrix(long[] nodes, long[] bases, long[] sharedNodes, long[] sharedBases) {
+        this.genomes = nodes.length;
+        this.nodes = nodes;
+        this.bases = bases;
+        this.sharedNodes = sharedNodes;
+        this.sharedBases = sharedBases;
+    }
+
+    /**
+     * Get the number of pairs of genomes.
+     *
+     * @param genomes the number of genomes.
+     * @return the number of pairs of two different genomes.
+     */
+    static int pairs(int genomes) {
+        return (int) ((long) genomes * (genomes - 1) / 2);
+    }
+
+    /**
+     * Get the position of a pair of genomes in the triangle of shared counts. The pairs of the first genome
+     * come first, then those of the second genome with the genomes after it, and so on.
+     *
+     * @param genomes the number of genomes.
+     * @param a       the ID of a genome.
+     * @param b       the ID of a larger genome.
+     * @return the position of the pair.
+     */
+    static int index(int genomes, int a, int b) {
+        return (int) ((long) a * (2 * genomes - a - 1) / 2 + (b - a - 1));
+    }
+
+    public int getGenomeCount() {
+        return genomes;
+    }
+
+    long[] getNodes() {
+        return nodes;
+    }
+
+    long[] getBases() {
+        return bases;
+    }
+
+    long[] getSharedNodes() {
+        return sharedNodes;
+    }
+
+    long[] getSharedBases() {
+        return sharedBases;
+    }
+
+    /**
+     * Get the number of nodes two genomes both go through.
+     *
+     * @param a the ID of a genome.
+     * @param b the ID of another (or the same) genome.
+     * @return the number of shared nodes.
+     */
+    public long getSharedNodes(int a, int b) {
+        return shared(nodes, sharedNodes, a, b);
+    }
+
+    /**
+     * Get the number of bases of the nodes two genomes both go through.
+     *
+     * @param a the ID of a genome.
+     * @param b the ID of another (or the same) genome.
+     * @return the number of shared bases.
+     */
+    public long getSharedBases(int a, int b) {
+        return shared(bases, sharedBases, a, b);
+    }
+
+    /**
+     * Get the Jaccard index of the nodes of two genomes.
+     *
+     * @param a the ID of a genome.
+     * @param b the ID of another (or the same) genome.
+     * @return the similarity, from 0 to 1, or 0 if neither genome goes through any node.
+     */
+    public double getNodeSimilarity(int a, int b) {
+        return jaccard(nodes, sharedNodes, a, b);
+    }
+
+    /**
+     * Get the Jaccard index of the bases of two genomes.
+     *
+     * @param a the ID of a genome.
+     * @param b the ID of another (or the same) genome.
+     * @return the similarity, from 0 to 1, or 0 if neither genome has any bases.
+     */
+    public double getBaseSimilarity(int a, int b) {
+        return jaccard(bases, sharedBases, a, b);
+    }
+
+    /**
+     * Get a shared count of two genomes.
+     *
+     * @param totals the count of each genome.
+     * @param shared the shared count of each pair of genomes.
+     * @param a      the ID of a genome.
+     * @param b      the ID of another (or the same) genome.
+     * @return the shared count.
+     */
+    private long shared(long[] totals, long[] shared, int a, int b) {
+        if (a == b) {
+            return totals[a];
+        }
+        return shared[index(genomes, Math.min(a, b), Math.max(a, b))];
+    }
+
+    /**
+     * Get the Jaccard index of two genomes.
+     *
+     * @param totals the count of each genome.
+     * @param shared the shared count of each pair of genomes.
+     * @param a      the ID of a genome.
+     * @param b      the ID of another (or the same) genome.
+     * @return the Jaccard index, or 0 if the union is empty.
+     */
+    private double jaccard(long[] totals, long[] shared, int a, int b) {
+        long intersection = shared(totals, shared, a, b);
+        long union = totals[a] + totals[b] - intersection;
+        return union == 0 ? 0 : intersection / (double) union;
+    }
+
+    /**
+     * Order the genomes so that similar genomes are next to each other, by clustering them hierarchically
+     * with average linkage (UPGMA) on 1 minus their similarity. The clusters are found with a chain of nearest
+     * neighbours, which takes time quadratic in the number of genomes.
+     *
+     * @param byBases whether to use the similarity of bases instead of nodes.
+     * @return the genome IDs, in the order of the leaves of the cluster tree.
+     */
+    public int[] clusterOrder(boolean byBases) {
+        if (genomes == 0) {
+            return new int[0];
+        }
+        double[][] distance = new double[genomes][genomes];
+        for (int a = 0; a < genomes; a++) {
+            for (int b = a + 1; b < genomes; b++) {
+                double similarity = byBases ? getBaseSimilarity(a, b) : getNodeSimilarity(a, b);
+                distance[a][b] = 1 - similarity;
+                distance[b][a] = 1 - similarity;
+            }
+        }
+
+        int[] size = new int[genomes];
+        Arrays.fill(size, 1);
+        boolean[] merged = new boolean[genomes];
+        int[] cluster = new int[genomes]; // the tree node of the cluster in each slot
+        for (int a = 0; a < genomes; a++) {
+            cluster[a] = a;
+        }
+        int[][] tree = new int[genomes - 1][]; // the two children of tree node genomes + i
+
+        int[] chain = new int[genomes];
+        int chainSize = 0;
+        for (int merges = 0; merges < genomes - 1; merges++) {
+            while (true) {
+                if (chainSize == 0) {
+                    int first = 0;
+                    while (merged[first]) {
+                        first++;
+                    }
+                    chain[chainSize++] = first;
+                }
+                int a = chain[chainSize - 1];
+                int previous = chainSize > 1 ? chain[chainSize - 2] : -1;
+                int nearest = previous;
+                for (int b = 0; b < genomes; b++) {
+                    if (b != a && !merged[b] && (nearest < 0 || distance[a][b] < distance[a][nearest])) {
+                        nearest = b;
+                    }
+                }
+                if (nearest != previous) {
+                    chain[chainSize++] = nearest;
+                    continue;
+                }
+
+                // a and previous are each other's nearest neighbours, so they are merged into the slot of a
+                chainSize -= 2;
+                for (int k = 0; k < genomes; k++) {
+                    if (!merged[k] && k != a && k != previous) {
+                        double average = (size[a] * distance[a][k] + size[previous] * distance[previous][k])
+                                / (size[a] + size[previous]);
+                        distance[a][k] = average;
+                        distance[k][a] = average;
+                    }
+                }
+                size[a] += size[previous];
+                merged[previous] = true;
+                tree[merges] = new int[] {cluster[previous], cluster[a]};
+                cluster[a] = genomes + merges;
+                break;
+            }
+        }
+
+        int[] order = new int[genomes];
+        int ordered = 0;
+        Deque<Integer> stack = new ArrayDeque<>();
+        stack.push(2 * genomes - 2);
+        while (!stack.isEmpty()) {
+            int node = stack.pop();
+            if (node < genomes) {
+                order[ordered++] = node;
+            } else {
+                stack.push(tree[node - genomes][1]);
+                stack.push(tree[node - genomes][0]);
+            }
+        }
+        return order;
+    }
+}
@@ -0,0 +1,203 @@
+package programminglife.model.analysis;
+
+import programminglife.model.GenomeGraph;
+import programminglife.utility.Console;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Computes the {@link GraphStatistics} of a {@link GenomeGraph}, reading every node once. The nodes are split into
+ * ranges of {@value #CHUNK_SIZE} that are read at the same time, and the tallies of the ranges are added up
+ * afterwards. The statistics are stored in the cache of the graph, so that opening the graph again shows them
+ * without reading any of the nodes. The bubbles must have been detected before.
+ */
+public class StatisticsAnalysis {
+    /**
+     * The number of nodes in a range that is tallied on its own.
+     */
+    static final int CHUNK_SIZE = 4096;
+
+    private static final String SUMMARY_NAME = "summary";
+    private static final String IN_DEGREES_NAME = "inDegrees";
+    private static final String OUT_DEGREES_NAME = "outDegrees";
+    private static final String LENGTHS_NAME = "lengths";
+
+    private final GenomeGraph graph;
+
+    /**
+     * Create a StatisticsAnalysis.
+     *
+     * @param graph the {@link GenomeGraph} to analyse.
+     */
+    public StatisticsAnalysis(GenomeGraph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Whether the statistics have been computed and stored in the cache of the graph.
+     *
+     * @return true if they have been computed.
+     */
+    public boolean isComputed() {
+        long[] summary = graph.getStatistics(SUMMARY_NAME);
+        return summary != null && summary.length == GraphStatistics.SUMMARY_SIZE;
+    }
+
+    /**
+     * Get the statistics from the cache of the graph, or compute and cache them if they have not been computed
+     * before.
+     *
+     * @return the {@link GraphStatistics}.
+     */
+    public GraphStatistics get() {
+        if (this.isComputed()) {
+            return new GraphStatistics(graph.getStatistics(SUMMARY_NAME), graph.getStatistics(IN_DEGREES_NAME),
+                    graph.getStatistics(OUT_DEGREES_NAME), graph.getStatistics(LENGTHS_NAME));
+        }
+        GraphStatistics statistics = this.compute();
+        graph.setStatistics(IN_DEGREES_NAME, statistics.getInDegrees());
+        graph.setStatistics(OUT_DEGREES_NAME, statistics.getOutDegrees());
+        graph.setStatistics(LENGTHS_NAME, statistics.getLengths());
+        // the summary is stored last, as it marks the statistics as computed
+        graph.setStatistics(SUMMARY_NAME, statistics.getSummary());
+        return statistics;
+    }
+
+    /**
+     * Compute the statistics.
+     *
+     * @return the {@link GraphStatistics}.
+     */
+    public GraphStatistics compute() {
+        int[] nodeIDs = graph.getAllNodeIDs();
+        int chunks = (nodeIDs.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+
+        int[] lengths = new int[nodeIDs.length];
+        long[][] chunkCounts = new long[chunks][];
+        long[][] chunkInDegrees = new long[chunks][];
+        long[][] chunkOutDegrees = new long[chunks][];
+        long[][] chunkLengths = new long[chunks][];
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            long[] counts = new long[GraphStatistics.SUMMARY_SIZE];
+            long[] inDegrees = new long[GraphStatistics.MAX_DEGREE + 1];
+            long[] outDegrees = new long[GraphStatistics.MAX_DEGREE + 1];
+            long[] lengthBuckets = new long[Integer.SIZE];
+            int end = Math.min(nodeIDs.length, (chunk + 1) * CHUNK_SIZE);
+            for (int i = chunk * CHUNK_SIZE; i < end; i++) {
+                int nodeID = nodeIDs[i];
+                int[] children = getChildIDs(nodeID);
+                int parents = getParentIDs(nodeID).length;
+
+                lengths[i] = graph.getSequenceLength(nodeID);
+                counts[GraphStatistics.EDGES] += children.length;
+                counts[GraphStatistics.BASES] += lengths[i];
+                if (graph.getBubbleSink(nodeID) != -1) {
+                    counts[GraphStatistics.BUBBLES]++;
+                }
+                if (isSNP(nodeID, children)) {
+                    counts[GraphStatistics.SNPS]++;
+                }
+                inDegrees[Math.min(GraphStatistics.MAX_DEGREE, parents)]++;
+                outDegrees[Math.min(GraphStatistics.MAX_DEGREE, children.length)]++;
+                lengthBuckets[GraphStatistics.lengthBucket(lengths[i])]++;
+            }
+            chunkCounts[chunk] = counts;
+            chunkInDegrees[chunk] = inDegrees;
+            chunkOutDegrees[chunk] = outDegrees;
+            chunkLengths[chunk] = lengthBuckets;
+        });
+
+        long[] summary = new long[GraphStatistics.SUMMARY_SIZE];
+        long[] inDegrees = new long[GraphStatistics.MAX_DEGREE + 1];
+        long[] outDegrees = new long[GraphStatistics.MAX_DEGREE + 1];
+        long[] lengthBuckets = new long[Integer.SIZE];
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            add(summary, chunkCounts[chunk]);
+            add(inDegrees, chunkInDegrees[chunk]);
+            add(outDegrees, chunkOutDegrees[chunk]);
+            add(lengthBuckets, chunkLengths[chunk]);
+        }
+        summary[GraphStatistics.NODES] = nodeIDs.length;
+        summary[GraphStatistics.GENOMES] = graph.getTotalGenomeNumber();
+
+        Arrays.parallelSort(lengths);
+        if (lengths.length > 0) {
+            summary[GraphStatistics.MIN_LENGTH] = lengths[0];
+            summary[GraphStatistics.MAX_LENGTH] = lengths[lengths.length - 1];
+            long bases = 0;
+            for (int i = lengths.length - 1; i >= 0; i--) {
+                bases += lengths[i];
+                if (2 * bases >= summary[GraphStatistics.BASES]) {
+                    summary[GraphStatistics.N50] = lengths[i];
+                    break;
+                }
+            }
+        }
+
+        GraphStatistics statistics = new GraphStatistics(summary, inDegrees, outDegrees, lengthBuckets);
+        Console.println("[%s] Graph statistics: %d nodes, %d edges, %d bp, %d bubbles, %d SNPs",
+                Thread.currentThread().getName(), statistics.getNodeCount(), statistics.getEdgeCount(),
+                statistics.getTotalBases(), statistics.getBubbleCount(), statistics.getSNPCount());
+        return statistics;
+    }
+
+    /**
+     * Whether a SNP starts at a node, the way it would be drawn: the node has two to four children, which
+     * are all one base long, have the node as their only parent and have the same single child.
+     *
+     * @param nodeID   the ID of the node.
+     * @param children the IDs of the children of the node.
+     * @return true if a SNP starts at the node.
+     */
+    private boolean isSNP(int nodeID, int[] children) {
+        if (children.length < 2 || children.length > 4) {
+            return false;
+        }
+        int sink = -1;
+        for (int child : children) {
+            int[] parents = getParentIDs(child);
+            int[] grandChildren = getChildIDs(child);
+            if (graph.getSequenceLength(child) != 1 || parents.length != 1 || parents[0] != nodeID
+                    || grandChildren.length != 1 || sink != -1 && grandChildren[0] != sink) {
+                return false;
+            }
+            sink = grandChildren[0];
+        }
+        return true;
+    }
+
+    /**
+     * Get the children of a node.
+     *
+     * @param nodeID the ID of the node.
+     * @return the IDs of its children, which are empty if it has none.
+     */
+    private int[] getChildIDs(int nodeID) {
+        int[] children = graph.getChildIDs(nodeID);
+        return children == null ? new int[0] : children;
+    }
+
+    /**
+     * Get the parents of a node.
+     *
+     * @param nodeID the ID of the node.
+     * @return the IDs of its parents, which are empty if it has none.
+     */
+    private int[] getParentIDs(int nodeID) {
+        int[] parents = graph.getParentIDs(nodeID);
+        return parents == null ? new int[0] : parents;
+    }
+
+    /**
+     * Add counts to a total.
+     *
+     * @param total  the total to add to.
+     * @param counts the counts to add.
+     */
+    private static void add(long[] total, long[] counts) {
+        for (int i = 0; i < total.length; i++) {
+            total[i] += counts[i];
+        }
+    }
+}
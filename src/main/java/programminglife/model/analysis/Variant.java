@@ -0,0 +1,98 @@
+package programminglife.model.analysis;
+
+import java.util.List;
+
+/**
+ * A variant between the genomes of a graph, at a bubble found by a {@link VariantCaller}.
+ * Its alleles are the sequences the genomes spell between the source and the sink of the bubble,
+ * written the way a VCF file does: the allele of the reference genome first, and preceded by the last base
+ * of the source unless every allele is a single base.
+ */
+public final class Variant {
+    /**
+     * The kind of a variant, relative to the reference genome.
+     */
+    public enum Type {
+        /**
+         * Every allele is a single base.
+         */
+        SNP,
+        /**
+         * Every other allele is the reference allele with bases inserted or deleted in one place.
+         */
+        INDEL,
+        /**
+         * Any other variant, such as a substitution of several bases or a bubble with nested bubbles.
+         */
+        COMPLEX
+    }
+
+    private final int sourceID;
+    private final int sinkID;
+    private final int nodes;
+    private final long position;
+    private final Type type;
+    private final List<String> alleles;
+    private final int[] genotypes;
+
+    /**
+     * Create a Variant.
+     *
+     * @param sourceID  the ID of the node the bubble starts at
+     * @param sinkID    the ID of the node the bubble ends at
+     * @param nodes     the number of nodes between the source and the sink
+     * @param position  the position of the first base of the alleles along the reference genome, 1 for its first base
+     * @param type      the {@link Type} of the variant
+     * @param alleles   the alleles, the reference allele first
+     * @param genotypes for each genome ID the index of its allele, or -1 if the genome does not go through the bubble
+     */
+    Variant(int sourceID, int sinkID, int nodes, long position, Type type, List<String> alleles, int[] genotypes) {
+        this.sourceID = sourceID;
+        this.sinkID = sinkID;
+        this.nodes = nodes;
+        this.position = position;
+        this.type = type;
+        this.alleles = alleles;
+        this.genotypes = genotypes;
+    }
+
+    public int getSourceID() {
+        return sourceID;
+    }
+
+    public int getSinkID() {
+        return sinkID;
+    }
+
+    public int getNodes() {
+        return nodes;
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public List<String> getAlleles() {
+        return alleles;
+    }
+
+    /**
+     * Get the allele of a genome.
+     *
+     * @param genomeID the ID of the genome.
+     * @return the index of its allele, 0 for the reference allele, or -1 if the genome does not go through
+     * the bubble.
+     */
+    public int getGenotype(int genomeID) {
+        return genotypes[genomeID];
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s at %d (nodes %d to %d): %s", type, position, sourceID, sinkID, alleles);
+    }
+}
@@ -0,0 +1,258 @@
+package programminglife.model.analysis;
+
+import programminglife.model.GenomeGraph;
+import programminglife.model.GenomeSet;
+import programminglife.utility.Console;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Finds the variants between the genomes of a whole {@link GenomeGraph}, relative to a reference genome.
+ * <p>
+ * Because node IDs are in topological order, the nodes are visited once in ascending order while counting the edges
+ * from visited nodes to nodes that have not been visited yet. When all of those edges point to the next node,
+ * every path through the graph goes through it, so it closes the bubble (or superbubble, with bubbles nested
+ * inside it) that started at the previous such node. Only the nodes of the current bubble are kept in memory,
+ * up to a limit, and each variant is handed on as soon as its bubble is closed.
+ * <p>
+ * The alleles of a bubble are the sequences the genomes that go through both its source and its sink spell
+ * in between. Bubbles where all those genomes agree, or that the reference genome does not go through,
+ * are left out.
+ */
+public class VariantCaller {
+    private static final int MAX_SITE_NODES = 10000;
+
+    private final GenomeGraph graph;
+    private final int maxSiteNodes;
+
+    private int skipped;
+
+    /**
+     * Create a VariantCaller with the default size limit.
+     *
+     * @param graph the {@link GenomeGraph} to find the variants of.
+     */
+    public VariantCaller(GenomeGraph graph) {
+        this(graph, MAX_SITE_NODES);
+    }
+
+    /**
+     * Create a VariantCaller.
+     *
+     * @param graph        the {@link GenomeGraph} to find the variants of.
+     * @param maxSiteNodes the maximum number of nodes between the source and sink of a bubble. Larger bubbles
+     *                     are skipped, so that memory use does not grow with the size of the graph.
+     */
+    public VariantCaller(GenomeGraph graph, int maxSiteNodes) {
+        this.graph = graph;
+        this.maxSiteNodes = maxSiteNodes;
+    }
+
+    /**
+     * Find all variants, in the order of the nodes.
+     *
+     * @param referenceID the ID of the reference genome.
+     * @param variants    the consumer every variant is handed to, as soon as it is found.
+     * @return the number of variants that were found.
+     */
+    public int call(int referenceID, Consumer<Variant> variants) {
+        int[] nodeIDs = graph.getAllNodeIDs();
+
+        Map<Integer, Integer> pending = new HashMap<>(); // node ID -> number of edges into it from visited nodes
+        int open = 0;
+        Site site = null;
+        long referencePosition = 0;
+        int found = 0;
+        this.skipped = 0;
+
+        for (int nodeID : nodeIDs) {
+            Integer incoming = pending.remove(nodeID);
+            open -= incoming == null ? 0 : incoming;
+            GenomeSet genomes = genomesOf(nodeID);
+            if (genomes.contains(referenceID)) {
+                referencePosition += graph.getSequenceLength(nodeID);
+            }
+
+            if (open == 0) {
+                if (site != null && site.close(nodeID, genomes, referenceID, variants)) {
+                    found++;
+                }
+                site = new Site(nodeID, genomes, genomes.contains(referenceID) ? referencePosition : -1);
+            } else if (site != null) {
+                site.add(nodeID, genomes);
+            }
+
+            int[] children = graph.getChildIDs(nodeID);
+            for (int child : children) {
+                pending.merge(child, 1, Integer::sum);
+            }
+            open += children.length;
+        }
+
+        Console.println("[%s] Found %d variants relative to %s, skipped %d bubbles with more than %d nodes",
+                Thread.currentThread().getName(), found, graph.getGenomeName(referenceID), skipped, maxSiteNodes);
+        return found;
+    }
+
+    /**
+     * Get the genomes that go through a node.
+     *
+     * @param nodeID the ID of the node.
+     * @return the genomes, which is empty if they are not known.
+     */
+    private GenomeSet genomesOf(int nodeID) {
+        return graph.getGenomes(nodeID) == null ? new GenomeSet() : graph.getGenomeSet(nodeID, 0);
+    }
+
+    /**
+     * Classify the alleles of a variant.
+     *
+     * @param sequences the sequences of the alleles, without the base before them, the reference allele first.
+     * @return the {@link Variant.Type}.
+     */
+    static Variant.Type classify(List<String> sequences) {
+        if (sequences.stream().allMatch(sequence -> sequence.length() == 1)) {
+            return Variant.Type.SNP;
+        }
+        String reference = sequences.get(0);
+        for (String alternative : sequences.subList(1, sequences.size())) {
+            int shortest = Math.min(reference.length(), alternative.length());
+            int prefix = 0;
+            while (prefix < shortest && reference.charAt(prefix) == alternative.charAt(prefix)) {
+                prefix++;
+            }
+            int suffix = 0;
+            while (suffix < shortest - prefix && reference.charAt(reference.length() - 1 - suffix)
+                    == alternative.charAt(alternative.length() - 1 - suffix)) {
+                suffix++;
+            }
+            if (reference.length() == alternative.length() || prefix + suffix < shortest) {
+                return Variant.Type.COMPLEX;
+            }
+        }
+        return Variant.Type.INDEL;
+    }
+
+    /**
+     * The nodes between a source and the next node that all paths go through.
+     */
+    private final class Site {
+        private final int sourceID;
+        private final GenomeSet sourceGenomes;
+        private final long referenceEnd;
+        private final List<Integer> nodeIDs = new ArrayList<>();
+        private final List<GenomeSet> nodeGenomes = new ArrayList<>();
+        private boolean overflow = false;
+
+        /**
+         * Create a Site.
+         *
+         * @param sourceID      the ID of the source.
+         * @param sourceGenomes the genomes that go through the source.
+         * @param referenceEnd  the position along the reference genome after the source,
+         *                      or -1 if the reference genome does not go through it.
+         */
+        Site(int sourceID, GenomeSet sourceGenomes, long referenceEnd) {
+            this.sourceID = sourceID;
+            this.sourceGenomes = sourceGenomes;
+            this.referenceEnd = referenceEnd;
+        }
+
+        /**
+         * Add a node between the source and the sink.
+         *
+         * @param nodeID  the ID of the node.
+         * @param genomes the genomes that go through the node.
+         */
+        void add(int nodeID, GenomeSet genomes) {
+            if (nodeIDs.size() >= maxSiteNodes) {
+                overflow = true;
+                nodeIDs.clear();
+                nodeGenomes.clear();
+            }
+            if (!overflow) {
+                nodeIDs.add(nodeID);
+                nodeGenomes.add(genomes);
+            }
+        }
+
+        /**
+         * Close the site at its sink, and hand on its variant if the genomes do not all agree.
+         *
+         * @param sinkID      the ID of the sink.
+         * @param sinkGenomes the genomes that go through the sink.
+         * @param referenceID the ID of the reference genome.
+         * @param variants    the consumer to hand the variant to.
+         * @return true if the site is a variant.
+         */
+        boolean close(int sinkID, GenomeSet sinkGenomes, int referenceID, Consumer<Variant> variants) {
+            if (overflow) {
+                skipped++;
+                return false;
+            }
+            GenomeSet through = sourceGenomes.intersection(sinkGenomes);
+            if (nodeIDs.isEmpty() || referenceEnd < 0 || !through.contains(referenceID)) {
+                return false;
+            }
+
+            // the nodes each genome goes through, in order
+            Map<Integer, List<Integer>> paths = new LinkedHashMap<>();
+            paths.put(referenceID, new ArrayList<>());
+            for (int genome : through) {
+                paths.putIfAbsent(genome, new ArrayList<>());
+            }
+            for (int i = 0; i < nodeIDs.size(); i++) {
+                for (int genome : nodeGenomes.get(i)) {
+                    List<Integer> path = paths.get(genome);
+                    if (path != null) {
+                        path.add(nodeIDs.get(i));
+                    }
+                }
+            }
+
+            Map<List<Integer>, String> spelled = new HashMap<>();
+            Map<String, Integer> alleles = new LinkedHashMap<>();
+            int[] genotypes = new int[graph.getTotalGenomeNumber()];
+            Arrays.fill(genotypes, -1);
+            for (Map.Entry<Integer, List<Integer>> path : paths.entrySet()) {
+                String sequence = spelled.computeIfAbsent(path.getValue(), this::spell);
+                genotypes[path.getKey()] = alleles.computeIfAbsent(sequence, s -> alleles.size());
+            }
+            if (alleles.size() < 2) {
+                return false;
+            }
+
+            List<String> sequences = new ArrayList<>(alleles.keySet());
+            Variant.Type type = classify(sequences);
+            long position = referenceEnd + 1;
+            if (type != Variant.Type.SNP) {
+                String source = graph.getSequence(sourceID);
+                String before = source.isEmpty() ? "N" : source.substring(source.length() - 1);
+                sequences.replaceAll(sequence -> before + sequence);
+                position = referenceEnd;
+            }
+            variants.accept(new Variant(sourceID, sinkID, nodeIDs.size(), position, type, sequences, genotypes));
+            return true;
+        }
+
+        /**
+         * Get the sequence of a path.
+         *
+         * @param path the IDs of the nodes of the path.
+         * @return the sequences of the nodes, one after the other.
+         */
+        private String spell(List<Integer> path) {
+            StringBuilder sequence = new StringBuilder();
+            for (int nodeID : path) {
+                sequence.append(graph.getSequence(nodeID));
+            }
+            return sequence.toString();
+        }
+    }
+}
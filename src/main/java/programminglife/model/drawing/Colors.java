@@ -0,0 +1,117 @@
+package programminglife.model.drawing;
+
+/**
+ * Colors of {@link Drawable Drawables}, encoded as ARGB ints: 8 bits each for opacity, red, green and blue,
+ * from the most to the least significant byte. The layout of a {@link SubGraph} only uses these, so it does not
+ * depend on any UI toolkit and can run headless; a user interface converts them into its own colors when drawing.
+ */
+public final class Colors {
+    public static final int BLACK = 0xFF000000;
+    public static final int WHITE = 0xFFFFFFFF;
+    public static final int LIGHT_STEEL_BLUE = 0xFFB0C4DE;
+    public static final int BLANCHED_ALMOND = 0xFFFFEBCD;
+    public static final int DARK_SLATE_GRAY = 0xFF2F4F4F;
+
+    private static final int CHANNEL_MAX = 0xFF;
+
+    /**
+     * Constructor, which should not be used.
+     */
+    private Colors() {
+    }
+
+    /**
+     * Encode an opaque color from its red, green and blue components.
+     *
+     * @param red   the red component, between 0 and 1.
+     * @param green the green component, between 0 and 1.
+     * @param blue  the blue component, between 0 and 1.
+     * @return the color.
+     */
+    public static int rgb(double red, double green, double blue) {
+        return argb(1.d, red, green, blue);
+    }
+
+    /**
+     * Encode a color from its opacity, red, green and blue components.
+     *
+     * @param opacity the opacity, between 0 (transparent) and 1 (opaque).
+     * @param red     the red component, between 0 and 1.
+     * @param green   the green component, between 0 and 1.
+     * @param blue    the blue component, between 0 and 1.
+     * @return the color.
+     */
+    public static int argb(double opacity, double red, double green, double blue) {
+        return toChannel(opacity) << 24 | toChannel(red) << 16 | toChannel(green) << 8 | toChannel(blue);
+    }
+
+    /**
+     * Encode an opaque color from its hue, saturation and brightness, the same way as JavaFX does.
+     *
+     * @param hue        the hue, in degrees.
+     * @param saturation the saturation, between 0 and 1.
+     * @param brightness the brightness, between 0 and 1.
+     * @return the color.
+     */
+    public static int hsb(double hue, double saturation, double brightness) {
+        if (saturation == 0) {
+            return rgb(brightness, brightness, brightness);
+        }
+        double normalizedHue = ((hue % 360) + 360) % 360 / 360;
+        double h = (normalizedHue - Math.floor(normalizedHue)) * 6.0;
+        double f = h - Math.floor(h);
+        double p = brightness * (1.0 - saturation);
+        double q = brightness * (1.0 - saturation * f);
+        double t = brightness * (1.0 - (saturation * (1.0 - f)));
+        switch ((int) h) {
+            case 0:
+                return rgb(brightness, t, p);
+            case 1:
+                return rgb(q, brightness, p);
+            case 2:
+                return rgb(p, brightness, t);
+            case 3:
+                return rgb(p, q, brightness);
+            case 4:
+                return rgb(t, p, brightness);
+            default:
+                return rgb(brightness, p, q);
+        }
+    }
+
+    /**
+     * Encode a component of a color.
+     *
+     * @param component the component, between 0 and 1.
+     * @return the component as a byte.
+     */
+    private static int toChannel(double component) {
+        return (int) Math.round(Math.max(0.d, Math.min(1.d, component)) * CHANNEL_MAX);
+    }
+
+    public static double getOpacity(int color) {
+        return (color >>> 24) / (double) CHANNEL_MAX;
+    }
+
+    public static double getRed(int color) {
+        return (color >> 16 & CHANNEL_MAX) / (double) CHANNEL_MAX;
+    }
+
+    public static double getGreen(int color) {
+        return (color >> 8 & CHANNEL_MAX) / (double) CHANNEL_MAX;
+    }
+
+    public static double getBlue(int color) {
+        return (color & CHANNEL_MAX) / (double) CHANNEL_MAX;
+    }
+
+    /**
+     * Get the brightness of a color, as in its hue, saturation and brightness.
+     *
+     * @param color the color.
+     * @return the brightness, between 0 and 1.
+     */
+    public static double getBrightness(int color) {
+        return Math.max(getRed(color), Math.max(getGreen(color), getBlue(color)));
+    }
+}
@@ -1,7 +1,5 @@
 package programminglife.model.drawing;
 
-import javafx.scene.paint.Color;
-
 import java.util.Collection;
 
 
@@ -14,9 +12,9 @@ public interface Drawable {
     /**
      * Sets the stroke color of a Drawable.
      *
-     * @param color {@link Color} to set the stroke color to.
+     * @param color the stroke color, encoded as in {@link Colors}.
      */
-    void setStrokeColor(Color color);
+    void setStrokeColor(int color);
 
     /**
      * Sets the stroke width of a Drawable.
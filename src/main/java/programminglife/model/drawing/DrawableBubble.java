@@ -0,0 +1,183 @@
+package programminglife.model.drawing;
+
+import programminglife.model.GenomeSet;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.NoSuchElementException;
+
+/**
+ * A subclass of {@link DrawableNode} representing a collapsed bubble: all segments between a source and a sink,
+ * drawn as one glyph. Unlike a {@link DrawableSNP}, the branches may be of any length (within the limits the
+ * bubbles were detected with), one branch may be a deletion, and bubbles may be nested.
+ */
+public class DrawableBubble extends DrawableNode {
+    private static final double DRAWABLE_BUBBLE_STROKE_WIDTH = 2.5;
+    private static final double BUBBLE_WIDTH = 2 * NODE_HEIGHT;
+
+    private DrawableNode parent;
+    private DrawableNode child;
+    private Collection<Integer> parentIDs;
+    private Collection<Integer> childIDs;
+    private final Collection<DrawableSegment> segments;
+    private final int branches;
+    private final boolean deletion;
+    private final GenomeSet genomes;
+
+    /**
+     * Construct a {@link DrawableBubble}.
+     *
+     * @param parent    the source of the bubble
+     * @param child     the sink of the bubble
+     * @param segments  the Segments between the source and the sink
+     * @param branches  the number of branches of the bubble
+     * @param deletion  whether the source is also connected to the sink directly
+     * @param zoomLevel double of the zoomLevel.
+     */
+    DrawableBubble(DrawableNode parent, DrawableNode child, Collection<DrawableSegment> segments, int branches,
+                   boolean deletion, double zoomLevel) {
+        super(parent.getGraph(), DrawableNode.getUniqueId());
+
+        this.parent = parent;
+        this.child = child;
+        this.parentIDs = Collections.singleton(parent.getIdentifier());
+        this.childIDs = Collections.singleton(child.getIdentifier());
+        this.segments = segments;
+        this.branches = branches;
+        this.deletion = deletion;
+
+        this.genomes = new GenomeSet();
+        segments.forEach(segment -> this.genomes.addAll(segment.getGenomes()));
+        if (deletion) {
+            GenomeSet through = GenomeSet.copyOf(parent.getGenomes());
+            through.retainAll(child.getGenomes());
+            this.genomes.addAll(through);
+        }
+
+        this.parent.getChildren().add(this.getIdentifier());
+        this.child.getParents().add(this.getIdentifier());
+
+        this.setDrawDimensions(zoomLevel);
+    }
+
+    @Override
+    public Collection<Integer> getChildren() {
+        return this.childIDs;
+    }
+
+    @Override
+    public Collection<Integer> getParents() {
+        return this.parentIDs;
+    }
+
+    @Override
+    void replaceParent(DrawableNode oldParent, DrawableNode newParent) {
+        if (this.parent.getIdentifier() == oldParent.getIdentifier()) {
+            this.parent = newParent;
+            this.parentIDs = Collections.singleton(newParent.getIdentifier());
+        } else {
+            throw new NoSuchElementException(
+                    String.format("The node to be replaced (%d) is not the parent of this bubble (%d).",
+                            oldParent.getIdentifier(), this.getIdentifier()));
+        }
+    }
+
+    @Override
+    void replaceChild(DrawableNode oldChild, DrawableNode newChild) {
+        if (this.child.getIdentifier() == oldChild.getIdentifier()) {
+            this.child = newChild;
+            this.childIDs = Collections.singleton(newChild.getIdentifier());
+        } else {
+            throw new NoSuchElementException(
+                    String.format("The node to be replaced (%d) is not the child of this bubble (%d).",
+                            oldChild.getIdentifier(), this.getIdentifier()));
+        }
+    }
+
+    @Override
+    public String details() {
+        return String.format("Branches: %d%nSegments: %d%nDeletion: %b%nGenomes: %s", this.branches,
+                this.segments.size(), this.deletion, this.getGraph().getGenomeNames(this.getGenomes()));
+    }
+
+    @Override
+    public DrawableSNP createSNPIfPossible(SubGraph subGraph) {
+        return null;
+    }
+
+    /**
+     * Color this according to contents.
+     *
+     * @param sg the {@link SubGraph} this {@link DrawableNode} is in
+     */
+    @Override
+    public void colorize(SubGraph sg) {
+        this.setColors(Colors.LIGHT_STEEL_BLUE, Colors.BLACK);
+        this.setStrokeWidth(DRAWABLE_BUBBLE_STROKE_WIDTH * sg.getZoomLevel());
+    }
+
+    @Override
+    public Collection<Integer> getGenomes() {
+        return this.genomes;
+    }
+
+    /**
+     * Set the size of this drawing.
+     */
+    @Override
+    protected void setDrawDimensions(double zoomLevel) {
+        this.setSize(BUBBLE_WIDTH * zoomLevel, NODE_HEIGHT * zoomLevel);
+    }
+
+    @Override
+    public DrawableNode getParentSegment() {
+        return this;
+    }
+
+    @Override
+    public DrawableNode getChildSegment() {
+        return this;
+    }
+
+    @Override
+    public Collection<Integer> getParentGenomes() {
+        return this.getGenomes();
+    }
+
+    @Override
+    public Collection<Integer> getChildGenomes() {
+        return this.getGenomes();
+    }
+
+    public Collection<DrawableSegment> getSegments() {
+        return this.segments;
+    }
+
+    public int getBranches() {
+        return this.branches;
+    }
+
+    public boolean hasDeletion() {
+        return this.deletion;
+    }
+
+    public DrawableNode getChild() {
+        return child;
+    }
+
+    public DrawableNode getParent() {
+        return parent;
+    }
+
+    @Override
+    public String toString() {
+        return "Bubble: "
+                + getIdentifier()
+                + " "
+                + "Branches: "
+                + branches
+                + " "
+                + "Segments: "
+                + segments.size();
+    }
+}
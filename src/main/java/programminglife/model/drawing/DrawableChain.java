@@ -0,0 +1,174 @@
+package programminglife.model.drawing;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A subclass of {@link DrawableNode} representing a chain: a path of segments where every segment but the first
+ * has only the previous one as parent, every segment but the last has only the next one as child, and all
+ * segments are in the same genomes. Such a path has no branches, so it is drawn as one node (in one layer)
+ * with the total length of its segments, instead of as one node per segment.
+ */
+public class DrawableChain extends DrawableNode {
+    private static final double DRAWABLE_CHAIN_STROKE_WIDTH = 3.0;
+
+    private final NodeIDSet parents;
+    private final NodeIDSet children;
+    private final List<DrawableSegment> segments;
+    private final long sequenceLength;
+
+    /**
+     * Construct a {@link DrawableChain}.
+     *
+     * @param segments  the Segments in this chain, in order. There should be at least two.
+     * @param zoomLevel double of the zoomLevel.
+     */
+    DrawableChain(List<DrawableSegment> segments, double zoomLevel) {
+        super(segments.get(0).getGraph(), DrawableNode.getUniqueId());
+
+        assert (segments.size() >= 2);
+
+        this.segments = Collections.unmodifiableList(segments);
+        this.parents = new NodeIDSet(segments.get(0).getParents().stream().mapToInt(Integer::intValue).toArray());
+        this.children = new NodeIDSet(
+                segments.get(segments.size() - 1).getChildren().stream().mapToInt(Integer::intValue).toArray());
+        this.sequenceLength = segments.stream().mapToLong(DrawableSegment::getSequenceLength).sum();
+
+        this.setDrawDimensions(zoomLevel);
+    }
+
+    @Override
+    public Collection<Integer> getChildren() {
+        return this.children;
+    }
+
+    @Override
+    public Collection<Integer> getParents() {
+        return this.parents;
+    }
+
+    @Override
+    void replaceParent(DrawableNode oldParent, DrawableNode newParent) {
+        if (!this.parents.remove(oldParent.getIdentifier())) {
+            throw new NoSuchElementException(
+                    String.format("The node to be replaced (%d) is not a parent of this chain (%d).",
+                            oldParent.getIdentifier(), this.getIdentifier()));
+        }
+        this.parents.add(newParent.getIdentifier());
+    }
+
+    @Override
+    void replaceChild(DrawableNode oldChild, DrawableNode newChild) {
+        if (!this.children.remove(oldChild.getIdentifier())) {
+            throw new NoSuchElementException(
+                    String.format("The node to be replaced (%d) is not a child of this chain (%d).",
+                            oldChild.getIdentifier(), this.getIdentifier()));
+        }
+        this.children.add(newChild.getIdentifier());
+    }
+
+    @Override
+    public String details() {
+        return String.format("Segments: %d%nSequence length: %d%nGenomes: %s", this.segments.size(),
+                this.sequenceLength, this.getGraph().getGenomeNames(this.getGenomes()));
+    }
+
+    @Override
+    public DrawableSNP createSNPIfPossible(SubGraph subGraph) {
+        return null;
+    }
+
+    /**
+     * Color this like a {@link DrawableSegment} in the same genomes.
+     *
+     * @param sg the {@link SubGraph} this {@link DrawableNode} is in
+     */
+    @Override
+    public void colorize(SubGraph sg) {
+        double genomeFraction = this.getGenomes().size() / (double) sg.getNumberOfGenomes();
+        double maxSaturation = 0.8, minSaturation = 0.05;
+        double saturation = minSaturation + genomeFraction * (maxSaturation - minSaturation);
+
+        this.setColors(Colors.hsb(227, saturation, 1.d), Colors.BLACK);
+        this.setStrokeWidth(DRAWABLE_CHAIN_STROKE_WIDTH * sg.getZoomLevel());
+    }
+
+    /**
+     * Get the genomes of this chain, which are the genomes of each of its segments.
+     *
+     * @return the genomes.
+     */
+    @Override
+    public Collection<Integer> getGenomes() {
+        return this.segments.get(0).getGenomes();
+    }
+
+    /**
+     * Set the size of this drawing, which is the size of a segment with the total length of the chain.
+     */
+    @Override
+    protected void setDrawDimensions(double zoomLevel) {
+        this.setSize(DrawableSegment.widthOf(this.sequenceLength) * zoomLevel, NODE_HEIGHT * zoomLevel);
+    }
+
+    @Override
+    public DrawableNode getParentSegment() {
+        return this;
+    }
+
+    @Override
+    public DrawableNode getChildSegment() {
+        return this;
+    }
+
+    @Override
+    public Collection<Integer> getParentGenomes() {
+        return this.getGenomes();
+    }
+
+    @Override
+    public Collection<Integer> getChildGenomes() {
+        return this.getGenomes();
+    }
+
+    /**
+     * Get the sequence of the chain: the sequences of its segments appended, in order.
+     *
+     * @return the sequence.
+     */
+    public String getSequence() {
+        StringBuilder sequence = new StringBuilder((int) Math.min(this.sequenceLength, Integer.MAX_VALUE));
+        this.segments.forEach(segment -> sequence.append(segment.getSequence()));
+        return sequence.toString();
+    }
+
+    public long getSequenceLength() {
+        return this.sequenceLength;
+    }
+
+    public List<DrawableSegment> getSegments() {
+        return this.segments;
+    }
+
+    public DrawableSegment getFirst() {
+        return this.segments.get(0);
+    }
+
+    public DrawableSegment getLast() {
+        return this.segments.get(this.segments.size() - 1);
+    }
+
+    @Override
+    public String toString() {
+        return "Chain: "
+                + getIdentifier()
+                + " "
+                + "Segments: "
+                + segments.size()
+                + " "
+                + "Length: "
+                + sequenceLength;
+    }
+}
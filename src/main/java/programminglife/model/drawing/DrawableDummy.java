@@ -1,10 +1,9 @@
 package programminglife.model.drawing;
 
-import javafx.scene.paint.Color;
 import programminglife.model.GenomeGraph;
 
 import java.util.Collection;
-import java.util.LinkedHashSet;
+import java.util.Collections;
 import java.util.Map;
 import java.util.NoSuchElementException;
 
@@ -14,6 +13,8 @@ import java.util.NoSuchElementException;
 public class DrawableDummy extends DrawableNode {
     private DrawableNode parent;
     private DrawableNode child;
+    private Collection<Integer> parentIDs;
+    private Collection<Integer> childIDs;
 
     private final SubGraph subGraph;
 
@@ -31,28 +32,27 @@ public class DrawableDummy extends DrawableNode {
 
         this.parent = parentNode;
         this.child = childNode;
+        this.parentIDs = Collections.singleton(parentNode.getIdentifier());
+        this.childIDs = Collections.singleton(childNode.getIdentifier());
 
         this.subGraph = subgraph;
     }
 
     @Override
     public Collection<Integer> getChildren() {
-        Collection<Integer> result = new LinkedHashSet<>();
-        result.add(child.getIdentifier());
-        return result;
+        return this.childIDs;
     }
 
     @Override
     public Collection<Integer> getParents() {
-        Collection<Integer> result = new LinkedHashSet<>();
-        result.add(parent.getIdentifier());
-        return result;
+        return this.parentIDs;
     }
 
     @Override
     public void replaceParent(DrawableNode oldParent, DrawableNode newParent) {
         if (this.parent.getIdentifier() == oldParent.getIdentifier()) {
             this.parent = newParent;
+            this.parentIDs = Collections.singleton(newParent.getIdentifier());
         } else {
             throw new NoSuchElementException(
                     String.format("The node to be replaced (%d) is not a parent of this node (%d).",
@@ -64,6 +64,7 @@ public class DrawableDummy extends DrawableNode {
     public void replaceChild(DrawableNode oldChild, DrawableNode newChild) {
         if (this.child.getIdentifier() == oldChild.getIdentifier()) {
             this.child = newChild;
+            this.childIDs = Collections.singleton(newChild.getIdentifier());
 
         } else {
             throw new NoSuchElementException(
@@ -104,7 +105,7 @@ public class DrawableDummy extends DrawableNode {
         double minBrightness = 0.6, maxBrightness = 0.25;
         double brightness = minBrightness + genomeFraction * (maxBrightness - minBrightness);
 
-        Color strokeColor = Color.hsb(0.d, 0.d, brightness);
+        int strokeColor = Colors.hsb(0.d, 0.d, brightness);
 
         this.setStrokeWidth(strokeWidth * sg.getZoomLevel());
         this.setStrokeColor(strokeColor);
@@ -1,10 +1,9 @@
 package programminglife.model.drawing;
 
-import javafx.scene.paint.Color;
+import programminglife.model.GenomeSet;
 import programminglife.model.XYCoordinate;
 
 import java.util.Collection;
-import java.util.LinkedHashSet;
 import java.util.Map;
 
 /**
@@ -12,11 +11,8 @@ import java.util.Map;
  */
 
 public class DrawableEdge implements Drawable {
-    private final XYCoordinate startLocation;
-    private final XYCoordinate endLocation;
-
     private double strokeWidth;
-    private Color strokeColor;
+    private int strokeColor = Colors.BLACK;
 
     private final DrawableNode parent;
     private final DrawableNode child;
@@ -29,11 +25,9 @@ public class DrawableEdge implements Drawable {
      * @param child  The {@link DrawableSegment} child of this edge
      */
     public DrawableEdge(DrawableNode parent, DrawableNode child) {
-        this.startLocation = parent.getRightBorderCenter();
-        this.endLocation = child.getLeftBorderCenter();
         this.parent = parent;
         this.child = child;
-        this.genomes = new LinkedHashSet<>();
+        this.genomes = new GenomeSet();
     }
 
     public DrawableNode getStart() {
@@ -70,7 +64,7 @@ public class DrawableEdge implements Drawable {
         double minBrightness = 0.6, maxBrightness = 0.25;
         double brightness = minBrightness + genomeFraction * (maxBrightness - minBrightness);
 
-        Color strokeColor = Color.hsb(0.d, 0.d, brightness);
+        int strokeColor = Colors.hsb(0.d, 0.d, brightness);
 
         this.setStrokeWidth(strokeWidth * sg.getZoomLevel());
         this.setStrokeColor(strokeColor);
@@ -85,11 +79,11 @@ public class DrawableEdge implements Drawable {
         return this.strokeWidth;
     }
 
-    public void setStrokeColor(Color strokeColor) {
+    public void setStrokeColor(int strokeColor) {
         this.strokeColor = strokeColor;
     }
 
-    public Color getStrokeColor() {
+    public int getStrokeColor() {
         return this.strokeColor;
     }
 
@@ -98,10 +92,10 @@ public class DrawableEdge implements Drawable {
     }
 
     public XYCoordinate getStartLocation() {
-        return this.startLocation;
+        return this.parent.getRightBorderCenter();
     }
 
     public XYCoordinate getEndLocation() {
-        return this.endLocation;
+        return this.child.getLeftBorderCenter();
     }
 }
@@ -1,10 +1,10 @@
 package programminglife.model.drawing;
 
-import javafx.scene.paint.Color;
 import programminglife.model.GenomeGraph;
 import programminglife.model.XYCoordinate;
 
 import java.util.Collection;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * A segment that also implements {@link Drawable}.
@@ -12,18 +12,21 @@ import java.util.Collection;
 public abstract class DrawableNode implements Drawable {
     static final double NODE_HEIGHT = 10;
     static final double NUCLEOTIDE_WIDTH = 10;
-    private static int uniqueId = 0;
+    private static final DrawableNode[] NO_NODES = new DrawableNode[0];
+    private static final AtomicInteger UNIQUE_ID = new AtomicInteger(0);
 
     private final GenomeGraph graph;
     private final int id;
     private Layer layer;
+    private DrawableNode[] parentNodes;
+    private DrawableNode[] childNodes;
 
-    private final XYCoordinate location;
-    private final XYCoordinate dimensions;
+    private LayoutGeometry geometry;
+    private int geometryIndex;
 
     private double strokeWidth;
-    private Color fillColor;
-    private Color strokeColor;
+    private int fillColor = Colors.WHITE;
+    private int strokeColor = Colors.BLACK;
 
     /**
      * Constructor for a DrawableNode.
@@ -37,8 +40,10 @@ public abstract class DrawableNode implements Drawable {
         this.graph = graph;
         this.id = id;
 
-        this.dimensions = new XYCoordinate(0, 0);
-        this.location = new XYCoordinate(0, 0);
+        this.geometry = new LayoutGeometry(1);
+        this.geometryIndex = this.geometry.add(0, 0, 0, 0);
+        this.parentNodes = NO_NODES;
+        this.childNodes = NO_NODES;
     }
 
     @Override
@@ -94,6 +99,34 @@ public abstract class DrawableNode implements Drawable {
      */
     abstract Collection<Integer> getParents();
 
+    /**
+     * Set the parents and children of this node that are in the {@link SubGraph} it is drawn in.
+     * These are only up to date while that SubGraph does not change, see {@link SubGraph#getChildCount}.
+     *
+     * @param parentNodes the parents in the SubGraph
+     * @param childNodes  the children in the SubGraph
+     */
+    final void setNeighbours(DrawableNode[] parentNodes, DrawableNode[] childNodes) {
+        this.parentNodes = parentNodes;
+        this.childNodes = childNodes;
+    }
+
+    final int getParentNodeCount() {
+        return this.parentNodes.length;
+    }
+
+    final DrawableNode getParentNode(int index) {
+        return this.parentNodes[index];
+    }
+
+    final int getChildNodeCount() {
+        return this.childNodes.length;
+    }
+
+    final DrawableNode getChildNode(int index) {
+        return this.childNodes[index];
+    }
+
     /**
      * Replace a parent with another one.
      *
@@ -150,7 +183,55 @@ public abstract class DrawableNode implements Drawable {
      * @param y the y location
      */
     final void setLocation(double x, double y) {
-        this.location.set(x, y);
+        this.geometry.setLocation(this.geometryIndex, x, y);
+    }
+
+    /**
+     * Move the location and size of this node into a {@link LayoutGeometry}, which from then on holds them.
+     *
+     * @param geometry the {@link LayoutGeometry} to move to
+     */
+    final void moveTo(LayoutGeometry geometry) {
+        if (this.geometry != geometry) {
+            this.geometryIndex = geometry.add(this.getX(), this.getY(), this.getWidth(), this.getHeight());
+            this.geometry = geometry;
+        }
+    }
+
+    /**
+     * Get the x location of the node.
+     *
+     * @return the x coordinate of the left border.
+     */
+    public final double getX() {
+        return this.geometry.getX(this.geometryIndex);
+    }
+
+    /**
+     * Get the y location of the node.
+     *
+     * @return the y coordinate of the top border.
+     */
+    public final double getY() {
+        return this.geometry.getY(this.geometryIndex);
+    }
+
+    /**
+     * Get the x coordinate of the center of the node.
+     *
+     * @return the x coordinate of the center.
+     */
+    public final double getCenterX() {
+        return this.getX() + 0.5 * this.getWidth();
+    }
+
+    /**
+     * Get the y coordinate of the center of the node, which is also the y coordinate edges start and end at.
+     *
+     * @return the y coordinate of the center.
+     */
+    public final double getCenterY() {
+        return this.getY() + 0.5 * this.getHeight();
     }
 
     /**
@@ -159,7 +240,7 @@ public abstract class DrawableNode implements Drawable {
      * @return The width of the node.
      */
     public final double getWidth() {
-        return dimensions.getX();
+        return this.geometry.getWidth(this.geometryIndex);
     }
 
     /**
@@ -168,7 +249,7 @@ public abstract class DrawableNode implements Drawable {
      * @return The height of the node.
      */
     public final double getHeight() {
-        return dimensions.getY();
+        return this.geometry.getHeight(this.geometryIndex);
     }
 
     /**
@@ -177,7 +258,7 @@ public abstract class DrawableNode implements Drawable {
      * @return XYCoordinate.
      */
     public final XYCoordinate getLeftBorderCenter() {
-        return new XYCoordinate(location.getX(), location.getY() + 0.5 * getHeight());
+        return new XYCoordinate(getX(), getCenterY());
     }
 
     /**
@@ -186,7 +267,7 @@ public abstract class DrawableNode implements Drawable {
      * @return XYCoordinate.
      */
     public final XYCoordinate getCenter() {
-        return new XYCoordinate(location.getX() + 0.5 * getWidth(), location.getY() + 0.5 * getHeight());
+        return new XYCoordinate(getCenterX(), getCenterY());
     }
 
     /**
@@ -195,11 +276,16 @@ public abstract class DrawableNode implements Drawable {
      * @return XYCoordinate.
      */
     final XYCoordinate getRightBorderCenter() {
-        return new XYCoordinate(location.getX() + getWidth(), location.getY() + 0.5 * getHeight());
+        return new XYCoordinate(getX() + getWidth(), getCenterY());
     }
 
+    /**
+     * Get the location of the node. This is a copy; use {@link #getX()} and {@link #getY()} on hot paths.
+     *
+     * @return XYCoordinate of the top left corner.
+     */
     public final XYCoordinate getLocation() {
-        return location;
+        return new XYCoordinate(getX(), getY());
     }
 
     /**
@@ -215,7 +301,7 @@ public abstract class DrawableNode implements Drawable {
      * @param width double of the width to be set.
      */
     public final void setWidth(double width) {
-        this.dimensions.setX(width);
+        this.geometry.setWidth(this.geometryIndex, width);
     }
 
     /**
@@ -224,7 +310,7 @@ public abstract class DrawableNode implements Drawable {
      * @param height double of the height to be set.
      */
     final void setHeight(double height) {
-        this.dimensions.setY(height);
+        this.geometry.setHeight(this.geometryIndex, height);
     }
 
     /**
@@ -241,7 +327,7 @@ public abstract class DrawableNode implements Drawable {
      */
     public abstract DrawableNode getChildSegment();
 
-    public final void setStrokeColor(Color strokeColor) {
+    public final void setStrokeColor(int strokeColor) {
         this.strokeColor = strokeColor;
     }
 
@@ -252,19 +338,19 @@ public abstract class DrawableNode implements Drawable {
     /**
      * Method to set the fill and stroke color of a {@link DrawableSegment}.
      *
-     * @param fillColor   {@link Color} is the color to fill the segment with.
-     * @param strokeColor {@link Color} is the color of the stroke.
+     * @param fillColor   the color to fill the segment with, encoded as in {@link Colors}.
+     * @param strokeColor the color of the stroke, encoded as in {@link Colors}.
      */
-    final void setColors(Color fillColor, Color strokeColor) {
+    final void setColors(int fillColor, int strokeColor) {
         this.fillColor = fillColor;
         this.strokeColor = strokeColor;
     }
 
-    public final Color getStrokeColor() {
+    public final int getStrokeColor() {
         return this.strokeColor;
     }
 
-    public final Color getFillColor() {
+    public final int getFillColor() {
         return this.fillColor;
     }
 
@@ -283,13 +369,13 @@ public abstract class DrawableNode implements Drawable {
     /**
      * Get a unique ID for a DrawableNode. These IDs are always negative. These IDs are globally unique,
      * which means that every call to this method will return a different number (until you reach underflow,
-     * which is assumed to not happen)
+     * which is assumed to not happen). SubGraphs that are built at the same time on different threads
+     * get their IDs without waiting for each other.
      *
      * @return A negative unique ID.
      */
-    static synchronized int getUniqueId() {
-        uniqueId--;
-        return uniqueId;
+    static int getUniqueId() {
+        return UNIQUE_ID.decrementAndGet();
     }
 
     /**
@@ -1,12 +1,11 @@
 package programminglife.model.drawing;
 
-import javafx.scene.paint.Color;
+import programminglife.model.GenomeSet;
 import programminglife.model.XYCoordinate;
 
 import java.util.Collection;
 import java.util.Collections;
 import java.util.NoSuchElementException;
-import java.util.stream.Collectors;
 
 /**
  * A subclass of {@link DrawableNode} representing Singular Nucleotide Polymorphism.
@@ -17,6 +16,8 @@ public class DrawableSNP extends DrawableNode {
 
     private DrawableNode parent;
     private DrawableNode child;
+    private Collection<Integer> parentIDs;
+    private Collection<Integer> childIDs;
     private final Collection<DrawableSegment> mutations;
 
     /**
@@ -32,6 +33,8 @@ public class DrawableSNP extends DrawableNode {
 
         this.parent = parent;
         this.child = child;
+        this.parentIDs = Collections.singleton(parent.getIdentifier());
+        this.childIDs = Collections.singleton(child.getIdentifier());
         this.mutations = mutations;
 
         this.parent.getChildren().add(this.getIdentifier());
@@ -47,7 +50,7 @@ public class DrawableSNP extends DrawableNode {
      */
     @Override
     public Collection<Integer> getChildren() {
-        return Collections.singleton(this.child.getIdentifier());
+        return this.childIDs;
     }
 
     /**
@@ -57,7 +60,7 @@ public class DrawableSNP extends DrawableNode {
      */
     @Override
     public Collection<Integer> getParents() {
-        return Collections.singleton(this.parent.getIdentifier());
+        return this.parentIDs;
     }
 
     /**
@@ -70,6 +73,7 @@ public class DrawableSNP extends DrawableNode {
     void replaceParent(DrawableNode oldParent, DrawableNode newParent) {
         if (this.parent.getIdentifier() == oldParent.getIdentifier()) {
             this.parent = newParent;
+            this.parentIDs = Collections.singleton(newParent.getIdentifier());
         } else {
             throw new NoSuchElementException(
                     String.format("The node to be replaced (%d) is not the parent of this SNP (%d).",
@@ -87,6 +91,7 @@ public class DrawableSNP extends DrawableNode {
     void replaceChild(DrawableNode oldChild, DrawableNode newChild) {
         if (this.child.getIdentifier() == oldChild.getIdentifier()) {
             this.child = newChild;
+            this.childIDs = Collections.singleton(newChild.getIdentifier());
         } else {
             throw new NoSuchElementException(
                     String.format("The node to be replaced (%d) is not the parent of this SNP (%d).",
@@ -116,16 +121,15 @@ public class DrawableSNP extends DrawableNode {
      */
     @Override
     public void colorize(SubGraph sg) {
-        this.setColors(Color.BLANCHEDALMOND, Color.BLACK);
+        this.setColors(Colors.BLANCHED_ALMOND, Colors.BLACK);
         this.setStrokeWidth(3.5 * sg.getZoomLevel());
     }
 
     @Override
     public Collection<Integer> getGenomes() {
-        return mutations.stream()
-                .map(DrawableNode::getGenomes)
-                .flatMap(Collection::stream)
-                .collect(Collectors.toSet());
+        GenomeSet genomes = new GenomeSet();
+        mutations.forEach(mutation -> genomes.addAll(mutation.getGenomes()));
+        return genomes;
     }
 
     /**
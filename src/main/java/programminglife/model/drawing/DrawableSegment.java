@@ -1,9 +1,9 @@
 package programminglife.model.drawing;
 
-import javafx.scene.paint.Color;
 import programminglife.model.GenomeGraph;
+import programminglife.model.GenomeSet;
+import programminglife.model.NodeData;
 
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.NoSuchElementException;
 import java.util.Set;
@@ -15,9 +15,11 @@ import java.util.stream.Collectors;
 public class DrawableSegment extends DrawableNode {
     private static final double DRAWABLE_SEGMENT_STROKE_WIDTH = 3.0;
 
-    private Set<Integer> parents;
-    private Set<Integer> children;
-    private Set<Integer> genomes;
+    private NodeIDSet parents;
+    private NodeIDSet children;
+    private GenomeSet genomes;
+    private final int genomeCount;
+    private final long sequenceLength;
 
     private double zoomLevel;
 
@@ -30,19 +32,28 @@ public class DrawableSegment extends DrawableNode {
      * @param zoomLevel double of the zoomLevel.
      */
     public DrawableSegment(GenomeGraph graph, int nodeID, double zoomLevel) {
-        super(graph, nodeID);
-
-        assert (nodeID >= 0);
+        this(graph, graph.getNodeData(new int[] {nodeID}, 0)[0], zoomLevel);
+    }
 
-        this.zoomLevel = zoomLevel;
+    /**
+     * Create a DrawableSegment from the {@link NodeData} of a Segment.
+     *
+     * @param graph     the graph this Segment is in
+     * @param data      the data of the Segment, read by {@link GenomeGraph#getNodeData(int[], int)}
+     * @param zoomLevel double of the zoomLevel.
+     */
+    DrawableSegment(GenomeGraph graph, NodeData data, double zoomLevel) {
+        super(graph, data.getID());
 
-        if (nodeID >= 0) {
-            parents = Arrays.stream(graph.getParentIDs(nodeID)).boxed().collect(Collectors.toSet());
-            children = Arrays.stream(graph.getChildIDs(nodeID)).boxed().collect(Collectors.toSet());
-            genomes = (Arrays.stream(graph.getGenomes(nodeID)).boxed().collect(Collectors.toSet()));
-            this.setDrawDimensions(zoomLevel);
-        }
+        assert (data.getID() >= 0);
 
+        this.zoomLevel = zoomLevel;
+        this.parents = new NodeIDSet(data.getParentIDs().clone());
+        this.children = new NodeIDSet(data.getChildIDs().clone());
+        this.genomes = data.getGenomes();
+        this.genomeCount = data.getGenomeCount();
+        this.sequenceLength = data.getSequenceLength();
+        this.setDrawDimensions(zoomLevel);
     }
 
     /**
@@ -106,17 +117,28 @@ public class DrawableSegment extends DrawableNode {
      */
     @Override
     protected void setDrawDimensions(double zoomLevel) {
-        int segmentLength = this.getSequenceLength();
-        double width, height;
+        double width = widthOf(this.getSequenceLength());
+        double height = NODE_HEIGHT;
+
+        this.setSize(width * zoomLevel, height * zoomLevel);
+    }
+
+    /**
+     * The width to draw a sequence of some length with. Short sequences get a width linear in their length,
+     * longer ones a width logarithmic in their length.
+     *
+     * @param segmentLength the length of the sequence.
+     * @return the width (at zoom level 1).
+     */
+    static double widthOf(long segmentLength) {
+        double width;
         double linearUntil = 10;
 
         width  = Math.log(Math.max(segmentLength - linearUntil + 1, 1)) / Math.log(1.15);
         width += Math.min(segmentLength, linearUntil);
         width *= NUCLEOTIDE_WIDTH;
 
-        height = NODE_HEIGHT;
-
-        this.setSize(width * zoomLevel, height * zoomLevel);
+        return width;
     }
 
     @Override
@@ -180,17 +202,13 @@ public class DrawableSegment extends DrawableNode {
         }
     }
 
-    private double getGenomeFraction() {
-        return this.getGraph().getGenomeFraction(this.getIdentifier());
-    }
-
     /**
      * get the length of the sequence of this segment.
      *
      * @return the length of the sequence of this segment
      */
-    private int getSequenceLength() {
-        return this.getGraph().getSequenceLength(this.getIdentifier());
+    long getSequenceLength() {
+        return this.sequenceLength;
     }
 
     /**
@@ -213,9 +231,9 @@ public class DrawableSegment extends DrawableNode {
                 + getIdentifier()
                 + " "
                 + "Location: "
-                + this.getLocation().getX()
+                + this.getX()
                 + ","
-                + this.getLocation().getY();
+                + this.getY();
     }
 
     /**
@@ -223,12 +241,12 @@ public class DrawableSegment extends DrawableNode {
      */
     @Override
     public void colorize(SubGraph sg) {
-        double genomeFraction = this.getGenomeFraction();
+        double genomeFraction = this.genomeCount / (double) sg.getNumberOfGenomes();
         double maxSaturation = 0.8, minSaturation = 0.05;
         double saturation = minSaturation + genomeFraction * (maxSaturation - minSaturation);
 
-        Color fillColor = Color.hsb(227, saturation, 1.d);
-        Color strokeColor = Color.BLACK;
+        int fillColor = Colors.hsb(227, saturation, 1.d);
+        int strokeColor = Colors.BLACK;
         this.setStrokeWidth(DRAWABLE_SEGMENT_STROKE_WIDTH * sg.getZoomLevel());
 
         this.setColors(fillColor, strokeColor);
@@ -0,0 +1,163 @@
+package programminglife.model.drawing;
+
+import programminglife.model.GenomeGraph;
+import programminglife.model.GenomeSet;
+import programminglife.model.NodeData;
+
+import java.util.Collection;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A node on a coarse level of the graph, which summarizes the chains and bubbles that were merged into it.
+ */
+public class DrawableSuperNode extends DrawableNode {
+    private static final double DRAWABLE_SUPER_NODE_STROKE_WIDTH = 3.0;
+
+    private final int level;
+    private final long sequenceLength;
+    private final int segmentCount;
+
+    private NodeIDSet parents;
+    private NodeIDSet children;
+    private GenomeSet genomes;
+
+    /**
+     * Create a DrawableSuperNode.
+     *
+     * @param graph     the graph this node is in
+     * @param data      the data of the node, read by {@link GenomeGraph#getNodeData(int[], int)}
+     * @param level     the coarse level of the node (at least 1)
+     * @param zoomLevel double of the zoomLevel.
+     */
+    DrawableSuperNode(GenomeGraph graph, NodeData data, int level, double zoomLevel) {
+        super(graph, data.getID());
+
+        assert (level > 0);
+
+        this.level = level;
+        this.sequenceLength = data.getSequenceLength();
+        this.segmentCount = data.getSegmentCount();
+        this.parents = new NodeIDSet(data.getParentIDs().clone());
+        this.children = new NodeIDSet(data.getChildIDs().clone());
+        this.genomes = data.getGenomes();
+        this.setDrawDimensions(zoomLevel);
+    }
+
+    @Override
+    public Set<Integer> getChildren() {
+        return children;
+    }
+
+    @Override
+    public Set<Integer> getParents() {
+        return parents;
+    }
+
+    @Override
+    public void replaceChild(DrawableNode oldChild, DrawableNode newChild) {
+        if (!this.children.remove(oldChild.getIdentifier())) {
+            throw new NoSuchElementException("The node to be replaced is not a child of this node.");
+        }
+        this.children.add(newChild.getIdentifier());
+    }
+
+    @Override
+    public void replaceParent(DrawableNode oldParent, DrawableNode newParent) {
+        if (!this.parents.remove(oldParent.getIdentifier())) {
+            throw new NoSuchElementException(
+                    String.format("The node to be replaced (%d) is not a parent of this node (%d).",
+                            oldParent.getIdentifier(), this.getIdentifier()));
+        }
+        this.parents.add(newParent.getIdentifier());
+    }
+
+    @Override
+    public String details() {
+        return String.format("Segments: %d%nSequence length: %d%nGenomes: %s",
+                this.segmentCount, this.sequenceLength, this.getGraph().getGenomeNames(this.getGenomes()));
+    }
+
+    /**
+     * Setter for the dimension of the node. The width grows with the total sequence length,
+     * the same way as the width of a {@link DrawableSegment} does.
+     */
+    @Override
+    protected void setDrawDimensions(double zoomLevel) {
+        this.setSize(DrawableSegment.widthOf(sequenceLength) * zoomLevel, NODE_HEIGHT * zoomLevel);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Bubbles are already merged into super nodes, so this always returns null.
+     */
+    @Override
+    public DrawableSNP createSNPIfPossible(SubGraph subGraph) {
+        return null;
+    }
+
+    /**
+     * Color a {@link DrawableSuperNode} depending on its properties.
+     */
+    @Override
+    public void colorize(SubGraph subGraph) {
+        double genomeFraction = this.genomes.size() / (double) subGraph.getNumberOfGenomes();
+        double maxSaturation = 0.8, minSaturation = 0.05;
+        double saturation = minSaturation + genomeFraction * (maxSaturation - minSaturation);
+
+        int fillColor = Colors.hsb(160, saturation, 1.d);
+        int strokeColor = Colors.DARK_SLATE_GRAY;
+        this.setStrokeWidth(DRAWABLE_SUPER_NODE_STROKE_WIDTH * subGraph.getZoomLevel());
+
+        this.setColors(fillColor, strokeColor);
+    }
+
+    @Override
+    public DrawableNode getParentSegment() {
+        return this;
+    }
+
+    @Override
+    public DrawableNode getChildSegment() {
+        return this;
+    }
+
+    @Override
+    public Collection<Integer> getParentGenomes() {
+        return this.getGenomes();
+    }
+
+    @Override
+    public Collection<Integer> getChildGenomes() {
+        return this.getGenomes();
+    }
+
+    @Override
+    public Collection<Integer> getGenomes() {
+        return genomes;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public long getSequenceLength() {
+        return sequenceLength;
+    }
+
+    public int getSegmentCount() {
+        return segmentCount;
+    }
+
+    @Override
+    public String toString() {
+        return "SuperNode: "
+                + getIdentifier()
+                + " "
+                + "Level: "
+                + level
+                + " "
+                + "Segments: "
+                + segmentCount;
+    }
+}
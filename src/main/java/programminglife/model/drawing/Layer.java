@@ -72,16 +72,16 @@ public class Layer implements Iterable<DrawableNode>, Comparable<Double> {
         Map<DrawableNode, Double> averages = new LinkedHashMap<>();
 
         for (DrawableNode n : nodes) {
-            Collection<DrawableNode> neighbourCollection;
+            int size;
             if (hasParents) {
-                neighbourCollection = subGraph.getParents(n);
+                size = subGraph.getParentCount(n);
             } else {
-                neighbourCollection = subGraph.getChildren(n);
+                size = subGraph.getChildCount(n);
             }
 
-            int size = neighbourCollection.size();
             double sum = 0; // double to avoid integer division when putting the averages in the map.
-            for (DrawableNode p : neighbourCollection) {
+            for (int i = size - 1; i >= 0; i--) {
+                DrawableNode p = hasParents ? subGraph.getParent(n, i) : subGraph.getChild(n, i);
                 int index = neighbour.indexOf(p);
                 if (index >= 0) {
                     sum += index;
@@ -203,6 +203,6 @@ public class Layer implements Iterable<DrawableNode>, Comparable<Double> {
     }
 
     public double getY() {
-        return this.nodes.get(0).getLocation().getY();
+        return this.nodes.get(0).getY();
     }
 }
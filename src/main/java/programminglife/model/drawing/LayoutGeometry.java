@@ -0,0 +1,119 @@
+package programminglife.model.drawing;
+
+import java.util.Arrays;
+
+/**
+ * The locations and sizes of {@link DrawableNode DrawableNodes}, stored as one primitive array per coordinate.
+ * Every node has an index in one LayoutGeometry; a {@link SubGraph} collects the geometry of all its nodes into
+ * its own LayoutGeometry, so that moving or scaling the whole drawing is a loop over a few double[]s instead of
+ * over the nodes, and reading a coordinate does not create any objects.
+ */
+final class LayoutGeometry {
+    private double[] x;
+    private double[] y;
+    private double[] width;
+    private double[] height;
+    private int size;
+
+    /**
+     * Create an empty LayoutGeometry.
+     *
+     * @param capacity the number of nodes it can hold before it has to grow.
+     */
+    LayoutGeometry(int capacity) {
+        this.x = new double[capacity];
+        this.y = new double[capacity];
+        this.width = new double[capacity];
+        this.height = new double[capacity];
+        this.size = 0;
+    }
+
+    /**
+     * Add a node.
+     *
+     * @param x      the x location of the node.
+     * @param y      the y location of the node.
+     * @param width  the width of the node.
+     * @param height the height of the node.
+     * @return the index of the node.
+     */
+    int add(double x, double y, double width, double height) {
+        if (this.size == this.x.length) {
+            int capacity = Math.max(4, this.size * 2);
+            this.x = Arrays.copyOf(this.x, capacity);
+            this.y = Arrays.copyOf(this.y, capacity);
+            this.width = Arrays.copyOf(this.width, capacity);
+            this.height = Arrays.copyOf(this.height, capacity);
+        }
+        this.x[size] = x;
+        this.y[size] = y;
+        this.width[size] = width;
+        this.height[size] = height;
+        return this.size++;
+    }
+
+    /**
+     * Move all nodes.
+     *
+     * @param xDifference the distance to move in the x direction.
+     * @param yDifference the distance to move in the y direction.
+     */
+    void translate(double xDifference, double yDifference) {
+        for (int i = 0; i < this.size; i++) {
+            this.x[i] += xDifference;
+            this.y[i] += yDifference;
+        }
+    }
+
+    /**
+     * Scale the locations and sizes of all nodes.
+     *
+     * @param factor the factor to multiply all coordinates with.
+     */
+    void scale(double factor) {
+        for (int i = 0; i < this.size; i++) {
+            this.x[i] *= factor;
+            this.y[i] *= factor;
+            this.width[i] *= factor;
+            this.height[i] *= factor;
+        }
+    }
+
+    /**
+     * Get the number of nodes.
+     *
+     * @return the number of nodes.
+     */
+    int size() {
+        return this.size;
+    }
+
+    double getX(int index) {
+        return this.x[index];
+    }
+
+    double getY(int index) {
+        return this.y[index];
+    }
+
+    double getWidth(int index) {
+        return this.width[index];
+    }
+
+    double getHeight(int index) {
+        return this.height[index];
+    }
+
+    void setLocation(int index, double x, double y) {
+        this.x[index] = x;
+        this.y[index] = y;
+    }
+
+    void setWidth(int index, double width) {
+        this.width[index] = width;
+    }
+
+    void setHeight(int index, double height) {
+        this.height[index] = height;
+    }
+}
@@ -0,0 +1,128 @@
+package programminglife.model.drawing;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A set of node IDs, stored as a sorted int[]. A node has only a few parents and children, so this takes
+ * a few bytes per ID instead of a boxed Integer and a hash table entry, and lookups are a binary search.
+ * The IDs of dummy nodes are negative, so they come first when iterating.
+ */
+final class NodeIDSet extends AbstractSet<Integer> {
+    private int[] ids;
+    private int size;
+
+    /**
+     * Create a NodeIDSet.
+     *
+     * @param ids the IDs of the nodes. The array is sorted and kept by the set, so it must not be used afterwards.
+     */
+    NodeIDSet(int[] ids) {
+        Arrays.sort(ids);
+        int distinct = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (i == 0 || ids[i] != ids[i - 1]) {
+                ids[distinct++] = ids[i];
+            }
+        }
+        this.ids = ids;
+        this.size = distinct;
+    }
+
+    /**
+     * Find the index of an ID.
+     *
+     * @param id the ID to look up.
+     * @return the index of the ID if it is in this set, or (-(insertion point) - 1) if it is not.
+     */
+    private int indexOf(int id) {
+        return Arrays.binarySearch(this.ids, 0, this.size, id);
+    }
+
+    /**
+     * Remove the ID at an index.
+     *
+     * @param index the index of the ID.
+     */
+    private void removeAt(int index) {
+        System.arraycopy(this.ids, index + 1, this.ids, index, this.size - index - 1);
+        this.size--;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Integer && this.indexOf((Integer) o) >= 0;
+    }
+
+    @Override
+    public boolean add(Integer id) {
+        int index = this.indexOf(id);
+        if (index >= 0) {
+            return false;
+        }
+        index = -index - 1;
+        if (this.size == this.ids.length) {
+            this.ids = Arrays.copyOf(this.ids, Math.max(2, this.size * 2));
+        }
+        System.arraycopy(this.ids, index, this.ids, index + 1, this.size - index);
+        this.ids[index] = id;
+        this.size++;
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (!(o instanceof Integer)) {
+            return false;
+        }
+        int index = this.indexOf((Integer) o);
+        if (index < 0) {
+            return false;
+        }
+        this.removeAt(index);
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        this.size = 0;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public Iterator<Integer> iterator() {
+        return new Iterator<Integer>() {
+            private int next = 0;
+            private boolean removable = false;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public Integer next() {
+                if (next >= size) {
+                    throw new NoSuchElementException("There are no more node IDs in this set.");
+                }
+                removable = true;
+                return ids[next++];
+            }
+
+            @Override
+            public void remove() {
+                if (!removable) {
+                    throw new IllegalStateException("next() has not been called.");
+                }
+                removeAt(--next);
+                removable = false;
+            }
+        };
+    }
+}
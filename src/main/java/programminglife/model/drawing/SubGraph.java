@@ -1,18 +1,28 @@
 package programminglife.model.drawing;
 
-import org.eclipse.collections.impl.factory.Sets;
 import org.jetbrains.annotations.NotNull;
 import programminglife.model.GenomeGraph;
+import programminglife.model.GenomeSet;
+import programminglife.model.NodeData;
 import programminglife.model.XYCoordinate;
 import programminglife.utility.Console;
 
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.BooleanSupplier;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * A part of a {@link programminglife.model.GenomeGraph}. It uses a centerNode and a radius.
  * Roughly, every node reachable within radius steps from centerNode is included in this graph.
  * When updating the centerNode or the radius, it also updates the Nodes within this SubGraph.
+ * <p>
+ * Building a SubGraph only reads from its {@link GenomeGraph}, so several SubGraphs can be built at the same
+ * time, see {@link #prepare(GenomeGraph, int, int, boolean, double, Executor)}. A SubGraph itself is not
+ * thread-safe: once it is built, it must only be used by the thread it was handed to.
  */
 public class SubGraph implements Iterable<DrawableNode> {
     private static final int DEFAULT_DYNAMIC_RADIUS = 50;
@@ -20,6 +30,18 @@ public class SubGraph implements Iterable<DrawableNode> {
     private static final int BORDER_BUFFER = 40;
 
     private static final int MIN_RADIUS_DEFAULT = 50;
+    /**
+     * Steps of the search for nodes with at least this many new nodes are created in parallel.
+     */
+    private static final int PARALLEL_STEP_SIZE = 256;
+    /**
+     * The version of the format of {@link #getLayout()}, which is its first number.
+     */
+    private static final int LAYOUT_VERSION = 1;
+    /**
+     * Used for SubGraphs that are always needed until they are built.
+     */
+    private static final BooleanSupplier NEVER_STALE = () -> false;
     /**
      * The amount of padding between layers (horizontal padding).
      */
@@ -27,7 +49,17 @@ public class SubGraph implements Iterable<DrawableNode> {
 
     private static final double DIFF_LAYER_PADDING = 7;
 
+    /**
+     * Below this zoom level, coarse levels of the graph are drawn instead of the graph itself.
+     */
+    private static final double DETAIL_ZOOM_LEVEL = 0.5;
+    /**
+     * Every time the zoom level gets this factor smaller, the next coarse level is drawn.
+     */
+    private static final double LEVEL_ZOOM_FACTOR = 2;
+
     private double zoomLevel;
+    private int level;
 
     /**
      * The amount of padding between nodes within a Layer (vertical padding).
@@ -36,11 +68,15 @@ public class SubGraph implements Iterable<DrawableNode> {
     private LinkedHashMap<Integer, DrawableNode> nodes;
     private LinkedHashMap<Integer, DrawableNode> rootNodes;
     private LinkedHashMap<Integer, DrawableNode> endNodes;
+    private final Map<Integer, DrawableChain> chains = new HashMap<>(); // segment ID -> the chain it is part of
 
     private ArrayList<Layer> layers;
     private Map<DrawableNode, Map<DrawableNode, Collection<Integer>>> genomes;
     private int numberOfGenomes;
     private boolean replaceSNPs;
+    private boolean neighboursLinked;
+    private LayoutGeometry geometry;
+    private BooleanSupplier stale = NEVER_STALE;
 
     /**
      * Create a SubGraph from a graph, without any nodes initially.
@@ -48,9 +84,11 @@ public class SubGraph implements Iterable<DrawableNode> {
      * @param graph The {@link GenomeGraph} that this SubGraph is based on.
      * @param zoomLevel double of the zoomLevel.
      * @param replaceSNPs boolean for if the SNPs need to be drawn.
+     * @param level the level of the graph to use, 0 for the graph itself.
      */
-    private SubGraph(GenomeGraph graph, double zoomLevel, boolean replaceSNPs) {
-        this(graph, zoomLevel, replaceSNPs, new LinkedHashMap<>(), new LinkedHashMap<>(), new LinkedHashMap<>());
+    private SubGraph(GenomeGraph graph, double zoomLevel, boolean replaceSNPs, int level) {
+        this(graph, zoomLevel, replaceSNPs, level,
+                new LinkedHashMap<>(), new LinkedHashMap<>(), new LinkedHashMap<>());
     }
 
     /**
@@ -59,15 +97,17 @@ public class SubGraph implements Iterable<DrawableNode> {
      * @param graph     The {@link GenomeGraph} that this SubGraph is based on.
      * @param zoomLevel double of the zoomLevel.
      * @param replaceSNPs boolean for if the SNPs need to be drawn.
+     * @param level     the level of the graph to use, 0 for the graph itself.
      * @param nodes     The nodes of this SubGraph.
      * @param rootNodes The rootNodes of this SubGraph.
      * @param endNodes  The endNodes of this SubGraph.
      */
-    private SubGraph(GenomeGraph graph, double zoomLevel, boolean replaceSNPs,
+    private SubGraph(GenomeGraph graph, double zoomLevel, boolean replaceSNPs, int level,
                      LinkedHashMap<Integer, DrawableNode> nodes, LinkedHashMap<Integer, DrawableNode> rootNodes,
                      LinkedHashMap<Integer, DrawableNode> endNodes) {
         this.graph = graph;
         this.zoomLevel = zoomLevel;
+        this.level = level;
         this.nodes = nodes;
         this.rootNodes = rootNodes;
         this.endNodes = endNodes;
@@ -90,14 +130,39 @@ public class SubGraph implements Iterable<DrawableNode> {
      * @param replaceSNPs flag if SNPs should be collapsed
      */
     public SubGraph(DrawableSegment centerNode, int radius, boolean replaceSNPs) {
-        this(centerNode, 1, MIN_RADIUS_DEFAULT, Math.max(radius, MIN_RADIUS_DEFAULT), replaceSNPs);
+        this(centerNode, radius, replaceSNPs, NEVER_STALE);
+    }
 
-        Layer firstLayer = layers.get(0);
-        assert (firstLayer != null);
+    /**
+     * Create a SubGraph using a centerNode and a radius around that centerNode, unless it is no longer needed.
+     * Between the stages of building it (each step of the search for nodes, SNP detection, layering and sorting)
+     * stale is checked, and if it is true, building stops.
+     *
+     * @param centerNode  The centerNode
+     * @param radius      The radius
+     * @param replaceSNPs flag if SNPs should be collapsed
+     * @param stale       true once the SubGraph is no longer needed, for example because a newer one was asked for.
+     * @throws CancellationException if building was stopped because the SubGraph was no longer needed.
+     */
+    public SubGraph(DrawableSegment centerNode, int radius, boolean replaceSNPs, BooleanSupplier stale) {
+        this(centerNode, radius, replaceSNPs, 0, 1, stale);
+    }
 
-        firstLayer.setX(0);
-        firstLayer.setDrawLocations(DEFAULT_NODE_Y, zoomLevel);
-        this.setRightDrawLocations(this.layers, 0);
+    /**
+     * Create a SubGraph using a centerNode and a radius around that centerNode, on a level of the graph.
+     *
+     * @param centerNode  The centerNode, on the given level.
+     * @param radius      The radius
+     * @param replaceSNPs flag if SNPs should be collapsed
+     * @param level       the level of the graph to use, 0 for the graph itself.
+     * @param zoomLevel   double of the amount zoomed in/out
+     * @param stale       true once the SubGraph is no longer needed.
+     */
+    private SubGraph(DrawableNode centerNode, int radius, boolean replaceSNPs, int level, double zoomLevel,
+                     BooleanSupplier stale) {
+        this(centerNode, zoomLevel, MIN_RADIUS_DEFAULT, Math.max(radius, MIN_RADIUS_DEFAULT), replaceSNPs, level,
+                stale);
+        this.setDrawLocations();
     }
 
     /**
@@ -110,32 +175,382 @@ public class SubGraph implements Iterable<DrawableNode> {
      * @param minRadius   The minimum radius.
      * @param radius      The radius
      * @param replaceSNPs flag if SNPs should be collapsed
+     * @param level       the level of the graph to use, 0 for the graph itself.
+     * @param stale       true once the SubGraph is no longer needed.
      */
-    private SubGraph(DrawableSegment centerNode, double zoomLevel, int minRadius, int radius, boolean replaceSNPs) {
+    private SubGraph(DrawableNode centerNode, double zoomLevel, int minRadius, int radius, boolean replaceSNPs,
+                     int level, BooleanSupplier stale) {
         assert (minRadius <= radius);
 
         this.graph = centerNode.getGraph();
         this.zoomLevel = zoomLevel;
+        this.level = level;
         this.layers = null;
         this.genomes = new LinkedHashMap<>();
         this.replaceSNPs = replaceSNPs;
         this.numberOfGenomes = graph.getTotalGenomeNumber();
+        this.stale = stale;
 
+        this.checkStale("the search for nodes");
         findNodes(this, Collections.singleton(centerNode), new LinkedHashMap<>(), radius);
+        this.checkStale("SNP detection");
         this.replaceSNPs();
         this.calculateGenomes();
-        this.layout();
+        this.checkStale("layering");
+        this.createLayers();
+        this.checkStale("sorting");
+        this.sortLayers();
+        this.checkStale("coloring");
         this.colorize();
+
+        // once built, the SubGraph is kept, also when it grows
+        this.stale = NEVER_STALE;
+    }
+
+    /**
+     * Stop building this SubGraph if it is no longer needed.
+     *
+     * @param stage the stage of building that would come next.
+     * @throws CancellationException if the SubGraph is no longer needed.
+     */
+    private void checkStale(String stage) {
+        if (this.stale.getAsBoolean()) {
+            throw new CancellationException(String.format("The SubGraph was no longer needed before %s.", stage));
+        }
+    }
+
+    /**
+     * Create a SubGraph from a layout that was made by {@link #getLayout()}. The nodes are read from the graph
+     * in one batch and the layers are created as they were stored, so the nodes are not searched for, and the
+     * nodes are not sorted into layers and the layers are not sorted again.
+     *
+     * @param graph       The {@link GenomeGraph} that this SubGraph is based on.
+     * @param layout      the layout.
+     * @param replaceSNPs flag if SNPs should be collapsed, the same as when the layout was made.
+     */
+    private SubGraph(GenomeGraph graph, int[] layout, boolean replaceSNPs) {
+        this.graph = graph;
+        this.zoomLevel = 1;
+        this.level = layout[1];
+        this.layers = null;
+        this.genomes = new LinkedHashMap<>();
+        this.replaceSNPs = replaceSNPs;
+        this.numberOfGenomes = graph.getTotalGenomeNumber();
+
+        int index = 2;
+        int[] nodeIDs = Arrays.copyOfRange(layout, index + 1, index + 1 + layout[index]);
+        index += 1 + nodeIDs.length;
+        this.nodes = new LinkedHashMap<>();
+        for (NodeData data : graph.getNodeData(nodeIDs, this.level)) {
+            this.nodes.put(data.getID(), createNode(graph, data, this.level, this.zoomLevel));
+        }
+        this.rootNodes = new LinkedHashMap<>();
+        index = this.readLayoutNodes(layout, index, this.rootNodes);
+        this.endNodes = new LinkedHashMap<>();
+        index = this.readLayoutNodes(layout, index, this.endNodes);
+
+        this.replaceSNPs();
+        this.calculateGenomes();
+        if (!this.createLayers(layout, index)) {
+            Console.println("The stored layout does not match the SubGraph, laying it out again");
+            this.layout();
+        }
+        this.colorize();
+        this.setDrawLocations();
+    }
+
+    /**
+     * Create a SubGraph from a layout that was made by {@link #getLayout()} of a SubGraph of the same graph.
+     *
+     * @param graph       the {@link GenomeGraph} the layout was made for.
+     * @param layout      the layout.
+     * @param replaceSNPs flag if SNPs should be collapsed, the same as when the layout was made.
+     * @return the SubGraph, or null if the layout was stored in a different format.
+     */
+    public static SubGraph fromLayout(GenomeGraph graph, int[] layout, boolean replaceSNPs) {
+        if (layout.length < 2 || layout[0] != LAYOUT_VERSION) {
+            return null;
+        }
+        return new SubGraph(graph, layout, replaceSNPs);
+    }
+
+    /**
+     * Get the layout of this SubGraph, so that it can be stored and the same SubGraph can be made again with
+     * {@link #fromLayout(GenomeGraph, int[], boolean)}. This should be called before nodes are loaded dynamically.
+     * The layout consists of the format version and the level, followed by the IDs of the nodes of the graph in
+     * this SubGraph (including those collapsed into SNPs, bubbles and chains), the IDs of the root nodes, the IDs
+     * of the end nodes and the order of the nodes in each layer, each preceded by their number.
+     *
+     * @return the layout.
+     */
+    public int[] getLayout() {
+        IntStream.Builder layout = IntStream.builder();
+        layout.add(LAYOUT_VERSION).add(this.level);
+
+        int[] nodeIDs = this.nodes.values().stream()
+                .flatMapToInt(node -> node instanceof DrawableDummy ? IntStream.empty()
+                        : node.getIdentifier() >= 0 ? IntStream.of(node.getIdentifier())
+                        : getMembers(node).stream().mapToInt(DrawableNode::getIdentifier))
+                .sorted().toArray();
+        layout.add(nodeIDs.length);
+        Arrays.stream(nodeIDs).forEach(layout::add);
+        layout.add(this.rootNodes.size());
+        this.rootNodes.keySet().forEach(layout::add);
+        layout.add(this.endNodes.size());
+        this.endNodes.keySet().forEach(layout::add);
+
+        layout.add(this.layers.size());
+        for (Layer layer : this.layers) {
+            layout.add(layer.size());
+            for (DrawableNode node : layer) {
+                if (node instanceof DrawableDummy) {
+                    layout.add(~getLayoutID(node.getParentSegment())).add(getLayoutID(node.getChildSegment()));
+                } else {
+                    layout.add(getLayoutID(node));
+                }
+            }
+        }
+        return layout.build().toArray();
+    }
+
+    /**
+     * Read a list of node IDs from a layout and put the nodes with those IDs in a map.
+     *
+     * @param layout the layout.
+     * @param index  the index of the number of IDs in the list.
+     * @param result the map to put the nodes in. IDs of nodes that are not in this SubGraph are skipped.
+     * @return the index after the list.
+     */
+    private int readLayoutNodes(int[] layout, int index, LinkedHashMap<Integer, DrawableNode> result) {
+        int end = index + 1 + layout[index];
+        for (int i = index + 1; i < end; i++) {
+            DrawableNode node = this.nodes.get(layout[i]);
+            if (node != null) {
+                result.put(layout[i], node);
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Create the {@link Layer layers} as stored in a layout, with their nodes in the stored order. The dummy nodes
+     * are created for the edges the layout has them for. Nothing is changed if the layout does not match the
+     * nodes of this SubGraph.
+     *
+     * @param layout the layout.
+     * @param index  the index of the number of layers in the layout.
+     * @return true if the layers were created, false if they do not match the layout.
+     */
+    private boolean createLayers(int[] layout, int index) {
+        Map<Integer, DrawableNode> byLayoutID = new HashMap<>(2 * this.nodes.size());
+        this.nodes.values().forEach(node -> byLayoutID.put(getLayoutID(node), node));
+
+        int layerCount = layout[index++];
+        int placed = 0;
+        for (int i = 0, entry = index; i < layerCount; i++) {
+            int size = layout[entry++];
+            for (int position = 0; position < size; position++) {
+                int id = layout[entry++];
+                if (id < 0) {
+                    if (!byLayoutID.containsKey(~id) || !byLayoutID.containsKey(layout[entry++])) {
+                        return false;
+                    }
+                } else if (byLayoutID.containsKey(id)) {
+                    placed++;
+                } else {
+                    return false;
+                }
+            }
+        }
+        if (placed != this.nodes.size()) {
+            return false;
+        }
+
+        this.layers = new ArrayList<>(layerCount);
+        // parent layout ID -> child layout ID -> the last dummy created so far on the edge between them
+        Map<Integer, Map<Integer, DrawableNode>> edgeEnds = new HashMap<>();
+        for (int i = 0; i < layerCount; i++) {
+            int size = layout[index++];
+            Layer layer = new Layer();
+            double width = 0;
+            for (int position = 0, entry = index; position < size; position++) {
+                int id = layout[entry++];
+                if (id < 0) {
+                    entry++;
+                } else {
+                    width = Math.max(width, byLayoutID.get(id).getWidth());
+                }
+            }
+            for (int position = 0; position < size; position++) {
+                int id = layout[index++];
+                DrawableNode node;
+                if (id < 0) {
+                    int childID = layout[index++];
+                    DrawableNode child = byLayoutID.get(childID);
+                    Map<Integer, DrawableNode> ends = edgeEnds.computeIfAbsent(~id, parentID -> new HashMap<>());
+                    DrawableNode parent = ends.getOrDefault(childID, byLayoutID.get(~id));
+                    node = new DrawableDummy(DrawableNode.getUniqueId(), parent, child, this.getGraph(), this);
+                    parent.replaceChild(child, node);
+                    child.replaceParent(parent, node);
+                    node.setWidth(width);
+                    this.nodes.put(node.getIdentifier(), node);
+                    ends.put(childID, node);
+                } else {
+                    node = byLayoutID.get(id);
+                }
+                node.setLayer(layer);
+                layer.add(node);
+            }
+            this.layers.add(layer);
+        }
+        this.neighboursLinked = false;
+        this.collectGeometry();
+        return true;
+    }
+
+    /**
+     * Get the ID of a node that is the same in every SubGraph it is made in: its own ID for nodes of the graph,
+     * and the lowest ID of the segments in it for SNPs, bubbles and chains.
+     *
+     * @param node the node, which is not a {@link DrawableDummy}.
+     * @return the ID.
+     */
+    private static int getLayoutID(DrawableNode node) {
+        if (node.getIdentifier() >= 0) {
+            return node.getIdentifier();
+        }
+        return getMembers(node).stream().mapToInt(DrawableNode::getIdentifier).min()
+                .orElseThrow(() -> new NoSuchElementException(
+                        String.format("Node %d has no ID that is the same in every SubGraph.", node.getIdentifier())));
+    }
+
+    /**
+     * Get the segments that are collapsed into a node.
+     *
+     * @param node the node.
+     * @return the segments in a {@link DrawableSNP}, {@link DrawableBubble} or {@link DrawableChain},
+     *         or nothing for other nodes.
+     */
+    private static Collection<DrawableSegment> getMembers(DrawableNode node) {
+        if (node instanceof DrawableSNP) {
+            return ((DrawableSNP) node).getMutations();
+        } else if (node instanceof DrawableBubble) {
+            return ((DrawableBubble) node).getSegments();
+        } else if (node instanceof DrawableChain) {
+            return ((DrawableChain) node).getSegments();
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * Create a SubGraph around a node, with the level of detail that fits a zoom level. When zoomed out far,
+     * a coarse level of the graph is used, in which chains and bubbles are merged into single nodes.
+     *
+     * @param graph       the {@link GenomeGraph} to create the SubGraph from.
+     * @param nodeID      the ID of the center node in the graph itself.
+     * @param radius      The radius
+     * @param replaceSNPs flag if SNPs should be collapsed
+     * @param zoomLevel   double of the amount zoomed in/out
+     * @return the SubGraph.
+     */
+    public static SubGraph atZoomLevel(GenomeGraph graph, int nodeID, int radius, boolean replaceSNPs,
+                                       double zoomLevel) {
+        int level = levelForZoom(zoomLevel, graph.getNumberOfCoarseLevels());
+        DrawableNode centerNode = createNode(graph, graph.getCoarseNodeID(nodeID, level), level, zoomLevel);
+        return new SubGraph(centerNode, radius, replaceSNPs, level, zoomLevel, NEVER_STALE);
+    }
+
+    /**
+     * Get the level of the graph to draw at a zoom level.
+     *
+     * @param zoomLevel the zoom level.
+     * @param levels    the number of coarse levels of the graph.
+     * @return the level, 0 for the graph itself.
+     */
+    public static int levelForZoom(double zoomLevel, int levels) {
+        if (zoomLevel >= DETAIL_ZOOM_LEVEL) {
+            return 0;
+        }
+        int level = 1 + (int) Math.floor(Math.log(DETAIL_ZOOM_LEVEL / zoomLevel) / Math.log(LEVEL_ZOOM_FACTOR));
+        return Math.min(level, levels);
+    }
+
+    /**
+     * Get a zoom level at which a level of the graph is drawn, halfway between the zoom levels at which
+     * the levels next to it are drawn.
+     *
+     * @param level the level, 0 for the graph itself.
+     * @return a zoom level for which {@link #levelForZoom(double, int)} returns level.
+     */
+    public static double zoomForLevel(int level) {
+        if (level == 0) {
+            return DETAIL_ZOOM_LEVEL;
+        }
+        return DETAIL_ZOOM_LEVEL / Math.pow(LEVEL_ZOOM_FACTOR, level - 0.5);
+    }
+
+    /**
+     * Build a SubGraph with {@link #atZoomLevel} on a worker thread. The SubGraph is completely built before
+     * the future completes, and after that it belongs to whichever thread takes it from the future.
+     *
+     * @param graph       the {@link GenomeGraph} to create the SubGraph from.
+     * @param nodeID      the ID of the center node in the graph itself.
+     * @param radius      The radius
+     * @param replaceSNPs flag if SNPs should be collapsed
+     * @param zoomLevel   double of the amount zoomed in/out
+     * @param executor    the {@link Executor} to build the SubGraph on.
+     * @return a {@link CompletableFuture} that completes with the SubGraph.
+     */
+    public static CompletableFuture<SubGraph> prepare(GenomeGraph graph, int nodeID, int radius,
+                                                      boolean replaceSNPs, double zoomLevel, Executor executor) {
+        return CompletableFuture.supplyAsync(
+                () -> atZoomLevel(graph, nodeID, radius, replaceSNPs, zoomLevel), executor);
+    }
+
+    /**
+     * Create a drawable node for a node on a level of the graph.
+     *
+     * @param graph     the {@link GenomeGraph} the node is in.
+     * @param nodeID    the ID of the node on its level.
+     * @param level     the level, 0 for the graph itself.
+     * @param zoomLevel double of the zoomLevel.
+     * @return a {@link DrawableSegment} for level 0, a {@link DrawableSuperNode} otherwise.
+     */
+    private static DrawableNode createNode(GenomeGraph graph, int nodeID, int level, double zoomLevel) {
+        return createNode(graph, graph.getNodeData(new int[] {nodeID}, level)[0], level, zoomLevel);
     }
 
     /**
-     * Detect SNPs and replace them.
+     * Create a drawable node from the {@link NodeData} of a node on a level of the graph.
+     *
+     * @param graph     the {@link GenomeGraph} the node is in.
+     * @param data      the data of the node.
+     * @param level     the level, 0 for the graph itself.
+     * @param zoomLevel double of the zoomLevel.
+     * @return a {@link DrawableSegment} on level 0, a {@link DrawableSuperNode} on coarse levels.
+     */
+    private static DrawableNode createNode(GenomeGraph graph, NodeData data, int level, double zoomLevel) {
+        if (level == 0) {
+            return new DrawableSegment(graph, data, zoomLevel);
+        }
+        return new DrawableSuperNode(graph, data, level, zoomLevel);
+    }
+
+    /**
+     * Detect SNPs and replace them. If the bubbles of the graph have been detected, other bubbles are
+     * collapsed as well, and only nodes that start a bubble are checked. Afterwards, chains of segments
+     * are compacted, see {@link #compactChains()}.
      */
     private void replaceSNPs() {
         if (this.replaceSNPs) {
-            Map<Integer, DrawableNode> nodesCopy = new LinkedHashMap<>(this.nodes);
+            boolean bubbles = this.level == 0 && this.graph.isBubblesDetected();
+            Map<Integer, DrawableNode> nodesCopy = new TreeMap<>(this.nodes);
             for (Map.Entry<Integer, DrawableNode> entry : nodesCopy.entrySet()) {
                 DrawableNode parent = entry.getValue();
+                if (!this.nodes.containsKey(entry.getKey())
+                        || bubbles && this.graph.getBubbleSink(entry.getKey()) < 0) {
+                    continue;
+                }
                 DrawableSNP snp = parent.createSNPIfPossible(this);
                 if (snp != null) {
                     snp.getMutations().stream().map(DrawableNode::getIdentifier).forEach(id -> {
@@ -144,14 +559,128 @@ public class SubGraph implements Iterable<DrawableNode> {
                         snp.getChild().getParents().remove(id);
                     });
                     this.nodes.put(snp.getIdentifier(), snp);
+                } else if (bubbles) {
+                    DrawableBubble bubble = this.createBubbleIfPossible(parent);
+                    if (bubble != null) {
+                        this.nodes.put(bubble.getIdentifier(), bubble);
+                    }
                 }
             }
+            this.compactChains();
+            this.neighboursLinked = false;
         }
     }
 
+    /**
+     * Replace every chain of at least two segments by a {@link DrawableChain}. A chain is a path of segments in
+     * the same genomes, where each segment is the only child of the previous one and the only parent of the next.
+     * This is only done on the graph itself; on coarse levels, chains are already merged into super nodes.
+     * Segments with neighbours outside this SubGraph stay as they are, so that loading more nodes still
+     * finds them.
+     */
+    private void compactChains() {
+        if (this.level != 0) {
+            return;
+        }
+        Set<Integer> chained = new HashSet<>();
+        List<DrawableNode> ordered = new ArrayList<>(new TreeMap<>(this.nodes).values());
+        for (DrawableNode node : ordered) {
+            if (chained.contains(node.getIdentifier()) || !this.isChainable(node)) {
+                continue;
+            }
+            DrawableSegment first = (DrawableSegment) node;
+            List<DrawableSegment> segments = new ArrayList<>();
+            segments.add(first);
+            DrawableSegment last = first;
+            while (last.getChildren().size() == 1) {
+                DrawableNode next = this.nodes.get(last.getChildren().iterator().next());
+                if (next == null || !this.isChainable(next) || next.getParents().size() != 1
+                        || !next.getGenomes().equals(first.getGenomes())) {
+                    break;
+                }
+                last = (DrawableSegment) next;
+                segments.add(last);
+            }
+            if (segments.size() < 2) {
+                continue;
+            }
+
+            DrawableChain chain = new DrawableChain(segments, this.zoomLevel);
+            segments.forEach(segment -> {
+                chained.add(segment.getIdentifier());
+                this.chains.put(segment.getIdentifier(), chain);
+                this.nodes.remove(segment.getIdentifier());
+            });
+            first.getParents().forEach(id -> this.nodes.get(id).replaceChild(first, chain));
+            final DrawableSegment tail = last;
+            tail.getChildren().forEach(id -> this.nodes.get(id).replaceParent(tail, chain));
+            this.nodes.put(chain.getIdentifier(), chain);
+        }
+    }
+
+    /**
+     * Check whether a node can be part of a {@link DrawableChain}: it is a segment, it is not on the border of
+     * this SubGraph and all its neighbours are in this SubGraph.
+     *
+     * @param node the node to check.
+     * @return whether the node can be put in a chain.
+     */
+    private boolean isChainable(DrawableNode node) {
+        return node instanceof DrawableSegment
+                && !this.rootNodes.containsKey(node.getIdentifier())
+                && !this.endNodes.containsKey(node.getIdentifier())
+                && this.nodes.keySet().containsAll(node.getParents())
+                && this.nodes.keySet().containsAll(node.getChildren());
+    }
+
+    /**
+     * Collapse the bubble that starts at a node, if the whole bubble is in this SubGraph.
+     * The segments of the bubble are removed from this SubGraph.
+     *
+     * @param parent the source of the bubble.
+     * @return the {@link DrawableBubble} that replaces the segments, or null if no bubble could be collapsed.
+     */
+    private DrawableBubble createBubbleIfPossible(DrawableNode parent) {
+        DrawableNode child = this.nodes.get(this.graph.getBubbleSink(parent.getIdentifier()));
+        if (child == null) {
+            return null;
+        }
+
+        LinkedHashMap<Integer, DrawableSegment> segments = new LinkedHashMap<>();
+        Deque<Integer> toVisit = new ArrayDeque<>(parent.getChildren());
+        while (!toVisit.isEmpty()) {
+            int id = toVisit.pop();
+            if (id == child.getIdentifier() || segments.containsKey(id)) {
+                continue;
+            }
+            DrawableNode node = this.nodes.get(id);
+            if (!(node instanceof DrawableSegment) || this.endNodes.containsKey(id)) {
+                return null; // the bubble is not completely in this SubGraph
+            }
+            segments.put(id, (DrawableSegment) node);
+            toVisit.addAll(node.getChildren());
+        }
+
+        int branches = parent.getChildren().size();
+        boolean deletion = parent.getChildren().contains(child.getIdentifier());
+        DrawableBubble bubble = new DrawableBubble(parent, child, segments.values(), branches, deletion, zoomLevel);
+
+        segments.keySet().forEach(id -> {
+            this.nodes.remove(id);
+            parent.getChildren().remove(id);
+            child.getParents().remove(id);
+        });
+        if (deletion) {
+            parent.getChildren().remove(child.getIdentifier());
+            child.getParents().remove(parent.getIdentifier());
+        }
+        return bubble;
+    }
+
     /**
      * Find nodes within radius steps from centerNode.
      * This resets the {@link #nodes}, {@link #rootNodes} and {@link #endNodes}
+     * The search goes one step at a time, and all nodes found in a step are read from the graph in one batch.
      *
      * @param subGraph      The SubGraph to find these nodes for.
      * @param startNodes    The Nodes to start searching from.
@@ -163,7 +692,9 @@ public class SubGraph implements Iterable<DrawableNode> {
         subGraph.nodes = new LinkedHashMap<>();
         subGraph.rootNodes = new LinkedHashMap<>();
         subGraph.endNodes = new LinkedHashMap<>();
+        subGraph.neighboursLinked = false;
         LinkedHashMap<Integer, DrawableNode> foundNodes = new LinkedHashMap<>();
+        LinkedHashMap<Integer, FoundNode.FoundFrom> nextStep = new LinkedHashMap<>();
 
         Queue<FoundNode> queue = new LinkedList<>();
         startNodes.forEach(node -> queue.add(new FoundNode(node, null)));
@@ -180,6 +711,8 @@ public class SubGraph implements Iterable<DrawableNode> {
                 } else if (radius < 0) {
                     break;
                 }
+                subGraph.checkStale("the next step of the search for nodes");
+                createFoundNodes(subGraph, nextStep, foundNodes, queue);
                 queue.add(null);
                 continue;
             }
@@ -218,22 +751,51 @@ public class SubGraph implements Iterable<DrawableNode> {
 
                 children.forEach(node -> {
                     if (node >= 0 && !foundNodes.containsKey(node)) {
-                        DrawableSegment child = new DrawableSegment(subGraph.graph, node, subGraph.zoomLevel);
-                        foundNodes.put(node, child);
-                        queue.add(new FoundNode(child, FoundNode.FoundFrom.PARENT));
+                        nextStep.putIfAbsent(node, FoundNode.FoundFrom.PARENT);
                     }
                 });
                 parents.forEach(node -> {
                     if (node >= 0 && !foundNodes.containsKey(node)) {
-                        DrawableSegment parent = new DrawableSegment(subGraph.graph, node, subGraph.zoomLevel);
-                        foundNodes.put(node, parent);
-                        queue.add(new FoundNode(parent, FoundNode.FoundFrom.CHILD));
+                        nextStep.putIfAbsent(node, FoundNode.FoundFrom.CHILD);
                     }
                 });
             }
         }
     }
 
+    /**
+     * Create the nodes that were found in a step of {@link #findNodes}, reading them from the graph in one batch,
+     * and queue them for the next step in the order they were found in. The nodes of large steps are read and
+     * created in parallel, but always queued in the same order, so the result does not depend on the timing.
+     *
+     * @param subGraph   The SubGraph to find these nodes for.
+     * @param nextStep   The IDs of the nodes that were found, with where they were found from. This is emptied.
+     * @param foundNodes The nodes that were created so far.
+     * @param queue      The queue of the search.
+     */
+    private static void createFoundNodes(SubGraph subGraph, LinkedHashMap<Integer, FoundNode.FoundFrom> nextStep,
+                                         LinkedHashMap<Integer, DrawableNode> foundNodes, Queue<FoundNode> queue) {
+        if (nextStep.isEmpty()) {
+            return;
+        }
+        int[] ids = nextStep.keySet().stream().mapToInt(Integer::intValue).toArray();
+        NodeData[] data = subGraph.graph.getNodeData(ids, subGraph.level);
+        DrawableNode[] created = new DrawableNode[data.length];
+        IntStream indices = IntStream.range(0, data.length);
+        if (data.length >= PARALLEL_STEP_SIZE) {
+            indices = indices.parallel();
+        }
+        indices.forEach(i -> created[i] = createNode(subGraph.graph, data[i], subGraph.level, subGraph.zoomLevel));
+
+        int i = 0;
+        for (FoundNode.FoundFrom foundFrom : nextStep.values()) {
+            DrawableNode node = created[i++];
+            foundNodes.put(node.getIdentifier(), node);
+            queue.add(new FoundNode(node, foundFrom));
+        }
+        nextStep.clear();
+    }
+
     /**
      * Checks whether a dynamic load is necessary. This includes both loading new nodes.
      * into the datastructure as well as removing nodes from the datastructure.
@@ -288,22 +850,19 @@ public class SubGraph implements Iterable<DrawableNode> {
         int centerIndex = getLayerIndex(layers, centerCanvasX);
         Layer centerLayer = layers.get(centerIndex);
         for (DrawableNode node : centerLayer) {
-            if (node instanceof DrawableSegment
-                    && ((DrawableSegment) node).getSequence().length() > 1) {
+            if (isCenterCandidate(node, 1)) {
                 return node.getIdentifier();
             }
         }
         if (centerIndex >= layers.size() - 1) {
             for (DrawableNode node : layers.get(centerIndex - 1)) {
-                if (node instanceof DrawableSegment
-                        && ((DrawableSegment) node).getSequence().length() > 1) {
+                if (isCenterCandidate(node, 1)) {
                     return node.getIdentifier();
                 }
             }
         } else {
             for (DrawableNode node : layers.get(centerIndex + 1)) {
-                if (node instanceof DrawableSegment
-                        && ((DrawableSegment) node).getSequence().length() > 2) {
+                if (isCenterCandidate(node, 2)) {
                     return node.getIdentifier();
                 }
             }
@@ -311,6 +870,18 @@ public class SubGraph implements Iterable<DrawableNode> {
         return oldCenterNode;
     }
 
+    /**
+     * Whether a node can be the centerNode. The ID of such a node is also the ID of a node in the graph itself.
+     *
+     * @param node      the {@link DrawableNode} to check.
+     * @param minLength the length the sequence of a {@link DrawableSegment} must exceed.
+     * @return true if it can be the centerNode.
+     */
+    private static boolean isCenterCandidate(DrawableNode node, int minLength) {
+        return node instanceof DrawableSuperNode
+                || node instanceof DrawableSegment && ((DrawableSegment) node).getSequence().length() > minLength;
+    }
+
     /**
      * Removes layers from the right of the graph.
      *
@@ -321,6 +892,8 @@ public class SubGraph implements Iterable<DrawableNode> {
             layer.forEach(node -> this.nodes.remove(node.getIdentifier()));
         }
         this.layers = new ArrayList<>(this.layers.subList(0, this.layers.size() - numberOfLayers));
+        this.neighboursLinked = false;
+        this.collectGeometry();
         this.endNodes = new LinkedHashMap<>();
         this.layers.get(this.layers.size() - 1).
                 forEach(node -> endNodes.put(node.getIdentifier(), node));
@@ -336,6 +909,8 @@ public class SubGraph implements Iterable<DrawableNode> {
             layer.forEach(node -> this.nodes.remove(node.getIdentifier()));
         }
         this.layers = new ArrayList<>(this.layers.subList(numberOfLayers, this.layers.size()));
+        this.neighboursLinked = false;
+        this.collectGeometry();
         this.rootNodes = new LinkedHashMap<>();
         this.layers.get(0).
                 forEach(node -> rootNodes.put(node.getIdentifier(), node));
@@ -357,10 +932,10 @@ public class SubGraph implements Iterable<DrawableNode> {
             //Divide by 2 because only half of the edge is outside the node
             //the other half falls on the inside but gets drawn over.
             double edgeThickness = drawableNode.getStrokeWidth() / 2;
-            if (x >= drawableNode.getLocation().getX() - edgeThickness
-                    && y >= drawableNode.getLocation().getY() - edgeThickness
-                    && x <= drawableNode.getLocation().getX() + drawableNode.getWidth() + edgeThickness
-                    && y <= drawableNode.getLocation().getY() + drawableNode.getHeight() + edgeThickness) {
+            if (x >= drawableNode.getX() - edgeThickness
+                    && y >= drawableNode.getY() - edgeThickness
+                    && x <= drawableNode.getX() + drawableNode.getWidth() + edgeThickness
+                    && y <= drawableNode.getY() + drawableNode.getHeight() + edgeThickness) {
                     return drawableNode;
             }
         }
@@ -395,7 +970,9 @@ public class SubGraph implements Iterable<DrawableNode> {
         //click falls in between two layers.
         if (leftLayer.getX() + leftLayer.getWidth() < x) {
             for (DrawableNode left : leftLayer.getNodes()) {
-                for (DrawableNode right : this.getChildren(left)) {
+                int childCount = this.getChildCount(left);
+                for (int i = 0; i < childCount; i++) {
+                    DrawableNode right = this.getChild(left, i);
                     if (calculateEdge(left, right, x, y)) {
 
                         return new DrawableEdge(left, right);
@@ -407,7 +984,9 @@ public class SubGraph implements Iterable<DrawableNode> {
 
         } else if (leftLayer.getX() + leftLayer.getWidth() > x) { //Edge within a layer.
             for (DrawableNode left : leftLayer.getNodes()) {
-                for (DrawableNode right : this.getChildren(left)) {
+                int childCount = this.getChildCount(left);
+                for (int i = 0; i < childCount; i++) {
+                    DrawableNode right = this.getChild(left, i);
                     if (calculateEdgeInLayer(left, right, x, y)) {
                         return new DrawableEdge(left, right);
                     }
@@ -428,11 +1007,11 @@ public class SubGraph implements Iterable<DrawableNode> {
      * @return true if clicked on edge, false if not
      */
     private boolean calculateEdgeInLayer(DrawableNode left, DrawableNode right, double x, double y) {
-        double start = left.getRightBorderCenter().getX();
+        double start = left.getX() + left.getWidth();
         Layer layer = left.getParentSegment().getLayer();
         double end = layer.getX() + layer.getWidth();
 
-        double edgeY = left.getRightBorderCenter().getY(); // Since it is a horizontal line it stays on 1 Y
+        double edgeY = left.getCenterY(); // Since it is a horizontal line it stays on 1 Y
 
         double genomeFraction = getGenomesEdge(left.getParentSegment(),
                 right.getChildSegment()).size() / (double) this.getNumberOfGenomes();
@@ -455,21 +1034,17 @@ public class SubGraph implements Iterable<DrawableNode> {
      */
     private boolean calculateEdge(DrawableNode left, DrawableNode right, double x, double y) {
         //calculate edge start
-        double leftLayerEnd = left.getLayer().getX() + left.getLayer().getWidth();
-        XYCoordinate start = left.getRightBorderCenter();
-        start.setX(leftLayerEnd); //make the start the layer end since this is where the edge starts to move.
-        XYCoordinate end = right.getLeftBorderCenter();
+        //make the start the layer end since this is where the edge starts to move.
+        double startX = left.getLayer().getX() + left.getLayer().getWidth();
+        double startY = left.getCenterY();
 
         //calculate differences.
-        double differenceX = end.getX() - start.getX();
-        double differenceY = end.getY() - start.getY(); //Negative if line is going up, positive if line is going down.
+        double differenceX = right.getX() - startX;
+        double differenceY = right.getCenterY() - startY; //Negative if line is going up, positive if going down.
 
         //calculate a out of the ax+b formula;
         double deltaY = differenceY / differenceX;
 
-        double startX = start.getX();
-        double startY = start.getY();
-
         double edgeY = startY + (deltaY * (x - startX));
 
         double genomeFraction = getGenomesEdge(left.getParentSegment(),
@@ -628,12 +1203,31 @@ public class SubGraph implements Iterable<DrawableNode> {
      */
     private void layout() {
         createLayers();
+        sortLayers();
+    }
 
+    /**
+     * Sort the nodes in all {@link Layer layers} to reduce the number of crossing edges, starting from the
+     * layer with the fewest nodes.
+     */
+    private void sortLayers() {
         int minimumLayerIndex = findMinimumNodesLayerIndex(this.layers);
         sortLayersLeftFrom(minimumLayerIndex);
         sortLayersRightFrom(minimumLayerIndex);
     }
 
+    /**
+     * Set the locations of all {@link Layer layers}, starting with the first one at x = 0.
+     */
+    private void setDrawLocations() {
+        Layer firstLayer = layers.get(0);
+        assert (firstLayer != null);
+
+        firstLayer.setX(0);
+        firstLayer.setDrawLocations(DEFAULT_NODE_Y, zoomLevel);
+        this.setRightDrawLocations(this.layers, 0);
+    }
+
     /**
      * Assign nodes to {@link Layer layers} and create dummyNodes for edges that span multiple layers.
      */
@@ -641,6 +1235,24 @@ public class SubGraph implements Iterable<DrawableNode> {
         this.layers = findLayers();
 
         createDummyNodes(layers);
+        collectGeometry();
+    }
+
+    /**
+     * Collect the locations and sizes of all nodes in the {@link Layer layers} into one {@link LayoutGeometry},
+     * leaving out those of nodes that are no longer in this SubGraph.
+     */
+    private void collectGeometry() {
+        int size = 0;
+        for (Layer layer : this.layers) {
+            size += layer.size();
+        }
+        this.geometry = new LayoutGeometry(size);
+        for (Layer layer : this.layers) {
+            for (DrawableNode node : layer) {
+                node.moveTo(this.geometry);
+            }
+        }
     }
 
     /**
@@ -728,6 +1340,7 @@ public class SubGraph implements Iterable<DrawableNode> {
             }
             current = next;
         }
+        this.neighboursLinked = false;
     }
 
     /**
@@ -749,8 +1362,9 @@ public class SubGraph implements Iterable<DrawableNode> {
 
         for (DrawableNode node : sorted) {
             int maxParentLevel = -1;
-            for (DrawableNode parent : this.getParents(node)) {
-                Integer parentLevel = nodeLevel.get(parent);
+            int parentCount = this.getParentCount(node);
+            for (int i = 0; i < parentCount; i++) {
+                Integer parentLevel = nodeLevel.get(this.getParent(node, i));
                 if (maxParentLevel < parentLevel) {
                     maxParentLevel = parentLevel;
                 }
@@ -799,6 +1413,90 @@ public class SubGraph implements Iterable<DrawableNode> {
         return children;
     }
 
+    /**
+     * Get the number of parents of a node in this SubGraph. Together with {@link #getParent(DrawableNode, int)},
+     * this iterates over the parents without allocating anything:
+     * <pre>
+     * int count = subGraph.getParentCount(node);
+     * for (int i = 0; i &lt; count; i++) {
+     *     DrawableNode parent = subGraph.getParent(node, i);
+     * }
+     * </pre>
+     * Unlike {@link #getParents(DrawableNode)}, this must not be used while changing this SubGraph.
+     *
+     * @param node The {@link DrawableNode} to get the number of parents of
+     * @return the number of parents in this SubGraph
+     */
+    public int getParentCount(DrawableNode node) {
+        this.linkNeighbours();
+        return node.getParentNodeCount();
+    }
+
+    /**
+     * Get a parent of a node in this SubGraph.
+     *
+     * @param node  The {@link DrawableNode} to get a parent of
+     * @param index the index of the parent, below {@link #getParentCount(DrawableNode)}
+     * @return the parent
+     */
+    public DrawableNode getParent(DrawableNode node, int index) {
+        return node.getParentNode(index);
+    }
+
+    /**
+     * Get the number of children of a node in this SubGraph, see {@link #getParentCount(DrawableNode)}.
+     *
+     * @param node The {@link DrawableNode} to get the number of children of
+     * @return the number of children in this SubGraph
+     */
+    public int getChildCount(DrawableNode node) {
+        this.linkNeighbours();
+        return node.getChildNodeCount();
+    }
+
+    /**
+     * Get a child of a node in this SubGraph.
+     *
+     * @param node  The {@link DrawableNode} to get a child of
+     * @param index the index of the child, below {@link #getChildCount(DrawableNode)}
+     * @return the child
+     */
+    public DrawableNode getChild(DrawableNode node, int index) {
+        return node.getChildNode(index);
+    }
+
+    /**
+     * Give every node direct references to its parents and children in this SubGraph,
+     * if that has not been done since the last time this SubGraph changed.
+     */
+    private void linkNeighbours() {
+        if (this.neighboursLinked) {
+            return;
+        }
+        for (DrawableNode node : this.nodes.values()) {
+            node.setNeighbours(this.findNodes(node.getParents()), this.findNodes(node.getChildren()));
+        }
+        this.neighboursLinked = true;
+    }
+
+    /**
+     * Find the nodes in this SubGraph with some IDs.
+     *
+     * @param ids the IDs to look up
+     * @return the nodes that are in this SubGraph, in the order of the IDs
+     */
+    private DrawableNode[] findNodes(Collection<Integer> ids) {
+        DrawableNode[] found = new DrawableNode[ids.size()];
+        int count = 0;
+        for (Integer id : ids) {
+            DrawableNode node = this.nodes.get(id);
+            if (node != null) {
+                found[count++] = node;
+            }
+        }
+        return count == found.length ? found : Arrays.copyOf(found, count);
+    }
+
     /**
      * Find the Layer with the least number of nodes.
      *
@@ -902,9 +1600,10 @@ public class SubGraph implements Iterable<DrawableNode> {
      */
     private void topoSortFromNode(ArrayList<DrawableNode> result,
                                   LinkedHashSet<DrawableNode> found, DrawableNode node) {
-        for (int parentID : node.getParents()) {
-            DrawableNode drawableParent = this.nodes.get(parentID);
-            if (drawableParent != null && found.add(drawableParent)) {
+        int parentCount = this.getParentCount(node);
+        for (int i = 0; i < parentCount; i++) {
+            DrawableNode drawableParent = this.getParent(node, i);
+            if (found.add(drawableParent)) {
                 topoSortFromNode(result, found, drawableParent);
             }
         }
@@ -921,23 +1620,24 @@ public class SubGraph implements Iterable<DrawableNode> {
         Map<DrawableNode, Collection<Integer>> outgoingGenomes = new LinkedHashMap<>();
 
         // Create set of parent genomes
-        Set<Integer> parentGenomes = new LinkedHashSet<>(parent.getParentGenomes());
+        GenomeSet parentGenomes = GenomeSet.copyOf(parent.getParentGenomes());
         // Topo sort (= natural order) children
-        Collection<DrawableNode> children = this.getChildren(parent);
+        DrawableNode[] children = new DrawableNode[this.getChildCount(parent)];
+        for (int i = 0; i < children.length; i++) {
+            children[i] = this.getChild(parent, i).getChildSegment();
+        }
+        Arrays.sort(children, Comparator.comparingInt(DrawableNode::getIdentifier));
         // For every child (in order); do
-        children.stream()
-                .map(DrawableNode::getChildSegment)
-                .sorted(Comparator.comparingInt(DrawableNode::getIdentifier))
-                .forEach(child -> {
-                    Set<Integer> childGenomes = new LinkedHashSet<>(child.getGenomes());
-                    // Find mutual genomes between parent and child
-                    Set<Integer> mutualGenomes = Sets.intersect(parentGenomes, childGenomes);
-                    // Add mutual genomes to edge
-                    outgoingGenomes.put(child, mutualGenomes);
-
-                    // Subtract mutual genomes from parent set
-                    parentGenomes.removeAll(mutualGenomes);
-                });
+        for (DrawableNode child : children) {
+            GenomeSet childGenomes = GenomeSet.copyOf(child.getGenomes());
+            // Find mutual genomes between parent and child
+            GenomeSet mutualGenomes = parentGenomes.intersection(childGenomes);
+            // Add mutual genomes to edge
+            outgoingGenomes.put(child, mutualGenomes);
+
+            // Subtract mutual genomes from parent set
+            parentGenomes.removeAll(mutualGenomes);
+        }
 
         return outgoingGenomes;
     }
@@ -969,7 +1669,7 @@ public class SubGraph implements Iterable<DrawableNode> {
         }
 
         Console.println("Increasing graph with radius %d", radius);
-        SubGraph subGraph = new SubGraph(graph, zoomLevel, replaceSNPs);
+        SubGraph subGraph = new SubGraph(graph, zoomLevel, replaceSNPs, level);
 
         this.rootNodes.forEach((id, node) -> this.endNodes.remove(id));
         findNodes(subGraph, rootNodes.values(), this.nodes, radius);
@@ -993,7 +1693,7 @@ public class SubGraph implements Iterable<DrawableNode> {
         }
 
         Console.println("Increasing graph with radius %d", radius);
-        SubGraph subGraph = new SubGraph(graph, zoomLevel, replaceSNPs);
+        SubGraph subGraph = new SubGraph(graph, zoomLevel, replaceSNPs, level);
 
         this.endNodes.forEach((id, node) -> System.out.print(id + " "));
         System.out.println();
@@ -1015,6 +1715,7 @@ public class SubGraph implements Iterable<DrawableNode> {
      */
     private void mergeRightSubGraphIntoThisSubGraph(SubGraph rightSubGraph) {
         this.nodes.putAll(rightSubGraph.nodes);
+        this.neighboursLinked = false;
         this.endNodes = rightSubGraph.endNodes;
         rightSubGraph.rootNodes.forEach((id, node) -> {
             boolean addToEndNodes = false;
@@ -1039,6 +1740,7 @@ public class SubGraph implements Iterable<DrawableNode> {
 
         int oldLastIndex = this.layers.size() - 1;
         this.layers.addAll(rightSubGraph.layers);
+        this.collectGeometry();
 
 
         // TODO: find DummyNodes between subgraphs. Just use findDummyNodes on full graph?
@@ -1059,6 +1761,7 @@ public class SubGraph implements Iterable<DrawableNode> {
      */
     private void mergeLeftSubGraphIntoThisSubGraph(SubGraph leftSubGraph) {
         this.nodes.putAll(leftSubGraph.nodes);
+        this.neighboursLinked = false;
         this.rootNodes = leftSubGraph.rootNodes;
         leftSubGraph.endNodes.forEach((id, node) -> {
             boolean addToRootNodes = false;
@@ -1083,6 +1786,7 @@ public class SubGraph implements Iterable<DrawableNode> {
 
         int oldFirstIndex = leftSubGraph.layers.size();
         this.layers.addAll(0, leftSubGraph.layers);
+        this.collectGeometry();
 
 
         // TODO: find DummyNodes between subgraphs. Just use findDummyNodes on full graph?
@@ -1100,6 +1804,22 @@ public class SubGraph implements Iterable<DrawableNode> {
         return this.nodes;
     }
 
+    /**
+     * Get the node that draws a node of the graph: the node itself, or the {@link DrawableChain} it is part of.
+     *
+     * @param nodeID the ID of the node.
+     * @return the {@link DrawableNode} that draws it, or null if it is not drawn in this SubGraph.
+     */
+    public DrawableNode getDrawingOf(int nodeID) {
+        DrawableNode node = this.nodes.get(nodeID);
+        if (node != null) {
+            return node;
+        }
+        DrawableChain chain = this.chains.get(nodeID);
+        // the chain may have been removed with the layer it was in
+        return chain != null && this.nodes.get(chain.getIdentifier()) == chain ? chain : null;
+    }
+
     private GenomeGraph getGraph() {
         return graph;
     }
@@ -1113,12 +1833,8 @@ public class SubGraph implements Iterable<DrawableNode> {
     public void translate(double xDifference, double yDifference) {
         for (Layer layer : this.layers) {
             layer.setX(layer.getX() + xDifference);
-            for (DrawableNode node : layer) {
-                double oldX = node.getLocation().getX();
-                double oldY = node.getLocation().getY();
-                node.setLocation(oldX + xDifference, oldY + yDifference);
-            }
         }
+        this.geometry.translate(xDifference, yDifference);
     }
 
     /**
@@ -1131,14 +1847,10 @@ public class SubGraph implements Iterable<DrawableNode> {
         for (Layer layer : this.layers) {
             layer.setX(layer.getX() / scale);
             for (DrawableNode node : layer) {
-                double oldXLocation = node.getLocation().getX();
-                double oldYLocation = node.getLocation().getY();
-                node.setHeight(node.getHeight() / scale);
-                node.setWidth(node.getWidth() / scale);
                 node.setStrokeWidth(node.getStrokeWidth() / scale);
-                node.setLocation(oldXLocation / scale, oldYLocation / scale);
             }
         }
+        this.geometry.scale(1 / scale);
     }
 
     /**
@@ -1162,5 +1874,9 @@ public class SubGraph implements Iterable<DrawableNode> {
     public double getZoomLevel() {
         return zoomLevel;
     }
+
+    public int getLevel() {
+        return level;
+    }
 }
 
@@ -6,6 +6,7 @@ import org.mapdb.Atomic;
 import org.mapdb.DB;
 import org.mapdb.DBMaker;
 import org.mapdb.Serializer;
+import org.mapdb.serializer.GroupSerializer;
 import programminglife.gui.Alerts;
 import programminglife.utility.Console;
 
@@ -15,6 +16,9 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
 
 /**
  * A class for managing persistent data. It can open one cache, which contains the information for one gfa file.
@@ -22,6 +26,8 @@ import java.util.*;
 public final class Cache {
     private static final String CACHE_FOLDER = "caches";
     private static final String CACHE_EXTENSION = ".db.desoxyribonucleinezuur";
+    private static final String LAYOUT_EXTENSION = ".layouts";
+    private static final String KMER_EXTENSION = ".kmers";
 
     private static final String SEQUENCE_MAP_NAME = "sequenceMap";
     private static final String SEQUENCE_LENGTH_MAP_NAME = "sequenceLengthMap";
@@ -32,6 +38,22 @@ public final class Cache {
     private static final String CHILDREN_ADJACENCY_MAP_NAME = "childrenNamesMap";
     private static final String PARENTS_ADJACENCY_MAP_NAME = "parentsNamesMap";
     private static final String NUMBER_OF_NODES_INT_NAME = "numberOfNodes";
+    private static final String COARSE_LEVEL_MAP_PREFIX = "coarseLevel";
+    private static final String COARSE_LEVELS_INT_NAME = "coarseLevels";
+    private static final String COARSENED_BOOLEAN_NAME = "coarsened";
+    private static final String BUBBLE_SINK_MAP_NAME = "bubbleSinkMap";
+    private static final String BUBBLES_DETECTED_BOOLEAN_NAME = "bubblesDetected";
+    private static final String GENOME_PATH_MAP_NAME = "genomePathMap";
+    private static final String GENOME_CHECKPOINT_MAP_NAME = "genomeCheckpointMap";
+    private static final String COORDINATES_INDEXED_BOOLEAN_NAME = "coordinatesIndexed";
+    private static final String SIMILARITY_MAP_NAME = "similarityMap";
+    private static final String COVERAGE_MAP_NAME = "coverageMap";
+    private static final String STATISTICS_MAP_NAME = "statisticsMap";
+    private static final String GENOME_COUNT_MAP_NAME = "genomeCountMap";
+    private static final String GENOME_COUNTS_INDEXED_BOOLEAN_NAME = "genomeCountsIndexed";
+    private static final String DISTANCE_NODE_MAP_NAME = "distanceNodeMap";
+    private static final String DISTANCE_SITE_MAP_NAME = "distanceSiteMap";
+    private static final String DISTANCES_INDEXED_BOOLEAN_NAME = "distancesIndexed";
 
     private final String dbFileName;
     private DB db;
@@ -44,8 +66,27 @@ public final class Cache {
     private Map<String, Integer> genomeNamesIdMap; // genome name -> genome id
     private Map<Integer, int[]> childrenAdjacencyMap;
     private Map<Integer, int[]> parentsAdjacencyMap;
+    private Map<Integer, Integer> bubbleSinkMap; // bubble source id -> bubble sink id
+    private Map<Integer, byte[]> genomePathMap; // genome id -> encoded ids of the nodes along the genome
+    private Map<Integer, long[]> genomeCheckpointMap; // genome id -> sampled base positions along the genome
+    private Map<String, long[]> similarityMap; // name of a count -> the count for every genome or pair of genomes
+    private Map<String, long[]> coverageMap; // name of a histogram -> the count for every number of genomes
+    private Map<String, long[]> statisticsMap; // name of a statistic -> its counts
+    private NavigableMap<Long, int[]> genomeCountMap; // packed genome count and first node id -> run of node ids
+    private Map<Integer, long[]> distanceNodeMap; // node id -> per level of nesting: chain, site, distances in site
+    private Map<Integer, long[]> distanceSiteMap; // site -> distances from the start of its chain, and its component
 
     private Atomic.Integer numberOfNodes;
+    private Atomic.Integer coarseLevels;
+    private Atomic.Boolean coarsened;
+    private Map<String, Map<Integer, ?>> coarseMaps;
+    private Atomic.Boolean bubblesDetected;
+    private Atomic.Boolean coordinatesIndexed;
+    private Atomic.Boolean genomeCountsIndexed;
+    private Atomic.Boolean distancesIndexed;
+
+    private LayoutCache layoutCache;
+    private KmerIndex kmerIndex;
 
     private LinkedList<Integer> currentParentChildren;
     private int currentParentID;
@@ -89,8 +130,28 @@ public final class Cache {
         this.genomeNamesIdMap = getMap(db, GENOME_NAMES_ID_MAP_NAME, Serializer.STRING_ASCII, Serializer.INTEGER);
         this.childrenAdjacencyMap = getMap(db, CHILDREN_ADJACENCY_MAP_NAME, Serializer.INTEGER, Serializer.INT_ARRAY);
         this.parentsAdjacencyMap = getMap(db, PARENTS_ADJACENCY_MAP_NAME, Serializer.INTEGER, Serializer.INT_ARRAY);
+        this.bubbleSinkMap = getMap(db, BUBBLE_SINK_MAP_NAME, Serializer.INTEGER, Serializer.INTEGER);
+        this.genomePathMap = getMap(db, GENOME_PATH_MAP_NAME, Serializer.INTEGER, Serializer.BYTE_ARRAY);
+        this.genomeCheckpointMap = getMap(db, GENOME_CHECKPOINT_MAP_NAME, Serializer.INTEGER, Serializer.LONG_ARRAY);
+        this.similarityMap = getMap(db, SIMILARITY_MAP_NAME, Serializer.STRING_ASCII, Serializer.LONG_ARRAY);
+        this.coverageMap = getMap(db, COVERAGE_MAP_NAME, Serializer.STRING_ASCII, Serializer.LONG_ARRAY);
+        this.statisticsMap = getMap(db, STATISTICS_MAP_NAME, Serializer.STRING_ASCII, Serializer.LONG_ARRAY);
 
         this.numberOfNodes = db.atomicInteger(NUMBER_OF_NODES_INT_NAME).createOrOpen();
+        this.coarseLevels = db.atomicInteger(COARSE_LEVELS_INT_NAME).createOrOpen();
+        this.coarsened = db.atomicBoolean(COARSENED_BOOLEAN_NAME).createOrOpen();
+        this.coarseMaps = new HashMap<>();
+        this.bubblesDetected = db.atomicBoolean(BUBBLES_DETECTED_BOOLEAN_NAME).createOrOpen();
+        this.coordinatesIndexed = db.atomicBoolean(COORDINATES_INDEXED_BOOLEAN_NAME).createOrOpen();
+        this.genomeCountsIndexed = db.atomicBoolean(GENOME_COUNTS_INDEXED_BOOLEAN_NAME).createOrOpen();
+        if (this.genomeCountsIndexed.get()) {
+            this.genomeCountMap = db.treeMap(GENOME_COUNT_MAP_NAME, Serializer.LONG, Serializer.INT_ARRAY).open();
+        }
+        this.distancesIndexed = db.atomicBoolean(DISTANCES_INDEXED_BOOLEAN_NAME).createOrOpen();
+        if (this.distancesIndexed.get()) {
+            this.distanceNodeMap = db.treeMap(DISTANCE_NODE_MAP_NAME, Serializer.INTEGER, Serializer.LONG_ARRAY).open();
+            this.distanceSiteMap = db.treeMap(DISTANCE_SITE_MAP_NAME, Serializer.INTEGER, Serializer.LONG_ARRAY).open();
+        }
 
         this.currentParentID = -1;
         this.currentParentChildren = new LinkedList<>();
@@ -122,6 +183,30 @@ public final class Cache {
         return computedPath.toString();
     }
 
+    /**
+     * Converts the name of a cache file to the name of the file its {@link LayoutCache} is stored in.
+     *
+     * @param dbFileName the name of the cache file, as returned by {@link #toDBFile(String)}.
+     * @return the name of the layout cache file.
+     */
+    @NotNull
+    static String toLayoutFile(String dbFileName) {
+        return dbFileName.substring(0, dbFileName.length() - CACHE_EXTENSION.length())
+                + LAYOUT_EXTENSION + CACHE_EXTENSION;
+    }
+
+    /**
+     * Converts the name of a cache file to the name of the file its {@link KmerIndex} is stored in.
+     *
+     * @param dbFileName the name of the cache file, as returned by {@link #toDBFile(String)}.
+     * @return the name of the k-mer index file.
+     */
+    @NotNull
+    static String toKmerFile(String dbFileName) {
+        return dbFileName.substring(0, dbFileName.length() - CACHE_EXTENSION.length())
+                + KMER_EXTENSION + CACHE_EXTENSION;
+    }
+
     /**
      * Check whether a cache exists for file named name.
      *
@@ -183,6 +268,335 @@ public final class Cache {
         return this.numberOfNodes.get();
     }
 
+    /**
+     * Get the IDs of all nodes, in ascending (and thus topological) order.
+     *
+     * @return an int[] with the IDs of all nodes.
+     */
+    public int[] getNodeIDs() {
+        return this.getChildrenAdjacencyMap().keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+    }
+
+    /**
+     * Whether the coarsening hierarchy has been computed for this cache.
+     *
+     * @return true if it has been computed (even if it has no levels), false otherwise.
+     */
+    public boolean isCoarsened() {
+        return this.coarsened.get();
+    }
+
+    /**
+     * Get the number of coarse levels. Level 0 is the graph itself and is not counted.
+     *
+     * @return the number of coarse levels.
+     */
+    public int getNumberOfCoarseLevels() {
+        return this.coarseLevels.get();
+    }
+
+    /**
+     * Set the number of coarse levels, and mark the coarsening hierarchy as computed.
+     *
+     * @param levels the number of coarse levels.
+     */
+    public void setNumberOfCoarseLevels(int levels) {
+        this.coarseLevels.set(levels);
+        this.coarsened.set(true);
+    }
+
+    /**
+     * Get the map from a node on the level below to the node it is merged into on a coarse level.
+     *
+     * @param level the coarse level (at least 1).
+     * @return the map from node ID to the ID of the node it is merged into.
+     */
+    public Map<Integer, Integer> getCoarseNodeMap(int level) {
+        return getCoarseMap(level, "Nodes", Serializer.INTEGER);
+    }
+
+    /**
+     * Get the children adjacency map of a coarse level.
+     *
+     * @param level the coarse level (at least 1).
+     * @return the map from node ID to the IDs of its children.
+     */
+    public Map<Integer, int[]> getCoarseChildrenMap(int level) {
+        return getCoarseMap(level, "Children", Serializer.INT_ARRAY);
+    }
+
+    /**
+     * Get the parents adjacency map of a coarse level.
+     *
+     * @param level the coarse level (at least 1).
+     * @return the map from node ID to the IDs of its parents.
+     */
+    public Map<Integer, int[]> getCoarseParentsMap(int level) {
+        return getCoarseMap(level, "Parents", Serializer.INT_ARRAY);
+    }
+
+    /**
+     * Get the genomes map of a coarse level.
+     *
+     * @param level the coarse level (at least 1).
+     * @return the map from node ID to the IDs of all genomes through it.
+     */
+    public Map<Integer, int[]> getCoarseGenomesMap(int level) {
+        return getCoarseMap(level, "Genomes", Serializer.INT_ARRAY);
+    }
+
+    /**
+     * Get the sequence length map of a coarse level.
+     *
+     * @param level the coarse level (at least 1).
+     * @return the map from node ID to the total sequence length of all segments merged into it.
+     */
+    public Map<Integer, Long> getCoarseLengthMap(int level) {
+        return getCoarseMap(level, "Length", Serializer.LONG);
+    }
+
+    /**
+     * Get the segment count map of a coarse level.
+     *
+     * @param level the coarse level (at least 1).
+     * @return the map from node ID to the number of segments merged into it.
+     */
+    public Map<Integer, Integer> getCoarseSizeMap(int level) {
+        return getCoarseMap(level, "Size", Serializer.INTEGER);
+    }
+
+    public Map<Integer, Integer> getBubbleSinkMap() {
+        return this.bubbleSinkMap;
+    }
+
+    /**
+     * Whether the bubbles of the graph have been detected for this cache.
+     *
+     * @return true if they have been detected (even if there are none), false otherwise.
+     */
+    public boolean isBubblesDetected() {
+        return this.bubblesDetected.get();
+    }
+
+    /**
+     * Mark the bubbles of the graph as detected.
+     */
+    public void setBubblesDetected() {
+        this.bubblesDetected.set(true);
+    }
+
+    public Map<Integer, byte[]> getGenomePathMap() {
+        return this.genomePathMap;
+    }
+
+    public Map<Integer, long[]> getGenomeCheckpointMap() {
+        return this.genomeCheckpointMap;
+    }
+
+    public Map<String, long[]> getSimilarityMap() {
+        return this.similarityMap;
+    }
+
+    public Map<String, long[]> getCoverageMap() {
+        return this.coverageMap;
+    }
+
+    public Map<String, long[]> getStatisticsMap() {
+        return this.statisticsMap;
+    }
+
+    /**
+     * Whether the base positions along the genomes of the graph have been indexed for this cache.
+     *
+     * @return true if they have been indexed, false otherwise.
+     */
+    public boolean isCoordinatesIndexed() {
+        return this.coordinatesIndexed.get();
+    }
+
+    /**
+     * Mark the base positions along the genomes of the graph as indexed.
+     */
+    public void setCoordinatesIndexed() {
+        this.coordinatesIndexed.set(true);
+    }
+
+    /**
+     * Whether the nodes of the graph have been indexed by their number of genomes for this cache.
+     *
+     * @return true if they have been indexed, false otherwise.
+     */
+    public synchronized boolean isGenomeCountsIndexed() {
+        return this.genomeCountsIndexed.get();
+    }
+
+    /**
+     * Store the index from the number of genomes of a node to its ID at once, as sorted runs of node IDs.
+     * This can only be done once.
+     *
+     * @param keys the keys of the runs, in ascending order.
+     * @param runs for each key the run of node IDs.
+     * @throws IllegalStateException if the nodes have already been indexed.
+     */
+    public synchronized void storeGenomeCounts(long[] keys, int[][] runs) {
+        if (this.genomeCountsIndexed.get()) {
+            throw new IllegalStateException("The genome counts have already been indexed.");
+        }
+        this.genomeCountMap = storeSorted(db, GENOME_COUNT_MAP_NAME, Serializer.LONG, Serializer.INT_ARRAY, put -> {
+            for (int i = 0; i < keys.length; i++) {
+                put.accept(keys[i], runs[i]);
+            }
+        });
+        this.genomeCountsIndexed.set(true);
+    }
+
+    /**
+     * Get the index from the number of genomes of a node to its ID.
+     *
+     * @return the sorted runs of node IDs, by genome count and first node ID.
+     * @throws NoSuchElementException if the nodes have not been indexed.
+     */
+    public synchronized NavigableMap<Long, int[]> getGenomeCountMap() {
+        if (this.genomeCountMap == null) {
+            throw new NoSuchElementException("The nodes have not been indexed by their number of genomes.");
+        }
+        return this.genomeCountMap;
+    }
+
+    /**
+     * Whether the distances between the nodes of the graph have been indexed for this cache.
+     *
+     * @return true if they have been indexed, false otherwise.
+     */
+    public synchronized boolean isDistancesIndexed() {
+        return this.distancesIndexed.get();
+    }
+
+    /**
+     * Store the distance index of the graph at once. The entries are written one at a time, in ascending order,
+     * so they do not all have to be in memory. This can only be done once.
+     *
+     * @param nodeIDs     the IDs of all nodes, in ascending order.
+     * @param nodeEntries for each index in nodeIDs, the entry of that node.
+     * @param sites       the number of sites.
+     * @param siteEntries for each site, its entry.
+     * @throws IllegalStateException if the distances have already been indexed.
+     */
+    public synchronized void storeDistances(int[] nodeIDs, IntFunction<long[]> nodeEntries,
+                                            int sites, IntFunction<long[]> siteEntries) {
+        if (this.distancesIndexed.get()) {
+            throw new IllegalStateException("The distances have already been indexed.");
+        }
+        this.distanceNodeMap = storeSorted(db, DISTANCE_NODE_MAP_NAME, Serializer.INTEGER, Serializer.LONG_ARRAY,
+                put -> {
+                    for (int i = 0; i < nodeIDs.length; i++) {
+                        put.accept(nodeIDs[i], nodeEntries.apply(i));
+                    }
+                });
+        this.distanceSiteMap = storeSorted(db, DISTANCE_SITE_MAP_NAME, Serializer.INTEGER, Serializer.LONG_ARRAY,
+                put -> {
+                    for (int site = 0; site < sites; site++) {
+                        put.accept(site, siteEntries.apply(site));
+                    }
+                });
+        this.distancesIndexed.set(true);
+    }
+
+    /**
+     * Store a sorted map at once. The map is bulk loaded, which writes the BTree bottom-up instead of one insert at
+     * a time, unless a map with the same name was left behind by an indexing that was interrupted. That map is
+     * cleared and filled again one entry at a time.
+     *
+     * @param db      the database to store the map in.
+     * @param name    the name of the map.
+     * @param keys    the {@link Serializer} of the keys.
+     * @param values  the {@link Serializer} of the values.
+     * @param entries hands every entry to the consumer it is given, in ascending order of the keys.
+     * @param <K>     the type of the keys.
+     * @param <V>     the type of the values.
+     * @return the map.
+     */
+    static <K, V> NavigableMap<K, V> storeSorted(DB db, String name, GroupSerializer<K> keys,
+                                                 GroupSerializer<V> values, Consumer<BiConsumer<K, V>> entries) {
+        if (db.exists(name)) {
+            NavigableMap<K, V> map = db.treeMap(name, keys, values).open();
+            map.clear();
+            entries.accept(map::put);
+            return map;
+        }
+        DB.TreeMapSink<K, V> sink = db.treeMap(name, keys, values).createFromSink();
+        entries.accept(sink::put);
+        return sink.create();
+    }
+
+    /**
+     * Get the distance index entry of a node.
+     *
+     * @param nodeID the ID of the node.
+     * @return the entry, or null if the node is not in the graph.
+     * @throws NoSuchElementException if the distances have not been indexed.
+     */
+    public synchronized long[] getDistanceNodeEntry(int nodeID) {
+        if (this.distanceNodeMap == null) {
+            throw new NoSuchElementException("The distances have not been indexed.");
+        }
+        return this.distanceNodeMap.get(nodeID);
+    }
+
+    /**
+     * Get the distance index entry of a site.
+     *
+     * @param site the index of the site.
+     * @return the entry, or null if there is no such site.
+     * @throws NoSuchElementException if the distances have not been indexed.
+     */
+    public synchronized long[] getDistanceSiteEntry(int site) {
+        if (this.distanceSiteMap == null) {
+            throw new NoSuchElementException("The distances have not been indexed.");
+        }
+        return this.distanceSiteMap.get(site);
+    }
+
+    /**
+     * Get (and remember) a map of a coarse level.
+     *
+     * @param level           the coarse level.
+     * @param kind            the kind of map.
+     * @param valueSerializer The serializer for the values.
+     * @param <V>             The type of the values.
+     * @return the map.
+     */
+    @SuppressWarnings("unchecked")
+    private synchronized <V> Map<Integer, V> getCoarseMap(int level, String kind, Serializer<V> valueSerializer) {
+        String name = COARSE_LEVEL_MAP_PREFIX + level + kind;
+        return (Map<Integer, V>) this.coarseMaps.computeIfAbsent(name,
+                mapName -> getMap(db, mapName, Serializer.INTEGER, valueSerializer));
+    }
+
+    /**
+     * Get the {@link LayoutCache} of the graph. It is opened the first time it is needed.
+     *
+     * @return the LayoutCache.
+     */
+    public synchronized LayoutCache getLayoutCache() {
+        if (this.layoutCache == null) {
+            this.layoutCache = new LayoutCache(toLayoutFile(this.dbFileName), LayoutCache.DEFAULT_BUDGET);
+        }
+        return this.layoutCache;
+    }
+
+    /**
+     * Get the {@link KmerIndex} of the graph. It is opened the first time it is needed.
+     *
+     * @return the KmerIndex.
+     */
+    public synchronized KmerIndex getKmerIndex() {
+        if (this.kmerIndex == null) {
+            this.kmerIndex = new KmerIndex(toKmerFile(this.dbFileName));
+        }
+        return this.kmerIndex;
+    }
+
     /**
      * Get a disk-backed hashMap named name. If it doesn't exist, it is created using the provided serializers.
      *
@@ -212,6 +626,12 @@ public final class Cache {
      * Close the database.
      */
     public void close() {
+        if (this.layoutCache != null) {
+            this.layoutCache.close();
+        }
+        if (this.kmerIndex != null) {
+            this.kmerIndex.close();
+        }
         if (!this.db.isClosed()) {
             Console.println("[%s] Closing MapDB...", Thread.currentThread().getName());
             this.db.close();
@@ -330,6 +750,8 @@ public final class Cache {
         Console.println("[%s] Removing database %s", Thread.currentThread().getName(), this.dbFileName);
         close();
         Files.deleteIfExists(Paths.get(this.dbFileName));
+        Files.deleteIfExists(Paths.get(toLayoutFile(this.dbFileName)));
+        Files.deleteIfExists(Paths.get(toKmerFile(this.dbFileName)));
     }
 
     /**
@@ -340,6 +762,8 @@ public final class Cache {
      * @throws IOException when strange things happen
      */
     public static boolean removeDB(String name) throws IOException {
+        Files.deleteIfExists(Paths.get(toLayoutFile(toDBFile(name))));
+        Files.deleteIfExists(Paths.get(toKmerFile(toDBFile(name))));
         return Files.deleteIfExists(Paths.get(toDBFile(name)));
     }
 
@@ -0,0 +1,178 @@
+package programminglife.parser;
+
+import programminglife.model.GenomeGraph;
+import programminglife.model.analysis.CoordinateIndex;
+import programminglife.utility.Console;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.PrimitiveIterator;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Writes the sequences of genomes of a {@link GenomeGraph} to FASTA files, straight from its cache.
+ * A genome is walked along its path in the {@link CoordinateIndex} and written one node at a time, so only
+ * the sequence of one node is in memory at once, however long the genome is. Several genomes can be written
+ * at the same time, each to its own file.
+ */
+public class FastaExporter {
+    /**
+     * The number of bases on a line of a FASTA file.
+     */
+    static final int LINE_WIDTH = 70;
+    static final String EXTENSION = ".fasta";
+
+    private final GenomeGraph graph;
+    private final CoordinateIndex index;
+
+    /**
+     * Create a FastaExporter. The coordinates of the graph must have been indexed.
+     *
+     * @param graph the {@link GenomeGraph} to export genomes of.
+     */
+    public FastaExporter(GenomeGraph graph) {
+        this.graph = graph;
+        this.index = new CoordinateIndex(graph);
+    }
+
+    /**
+     * Write the sequence of a genome in FASTA format.
+     *
+     * @param genomeID the ID of the genome.
+     * @param out      the {@link Writer} to write to.
+     * @throws IOException when writing fails.
+     * @throws java.util.NoSuchElementException if the genome has not been indexed.
+     */
+    public void write(int genomeID, Writer out) throws IOException {
+        out.write('>');
+        out.write(graph.getGenomeName(genomeID));
+        out.write('\n');
+
+        int column = 0;
+        PrimitiveIterator.OfInt path = index.walk(genomeID);
+        while (path.hasNext()) {
+            String sequence = graph.getSequence(path.nextInt());
+            int written = 0;
+            while (written < sequence.length()) {
+                int count = Math.min(LINE_WIDTH - column, sequence.length() - written);
+                out.write(sequence, written, count);
+                written += count;
+                column += count;
+                if (column == LINE_WIDTH) {
+                    out.write('\n');
+                    column = 0;
+                }
+            }
+        }
+        if (column > 0) {
+            out.write('\n');
+        }
+    }
+
+    /**
+     * Write the sequence of a genome to a FASTA file.
+     *
+     * @param genomeID the ID of the genome.
+     * @param file     the file to write to. It is replaced if it exists.
+     * @throws IOException when writing fails.
+     */
+    public void export(int genomeID, File file) throws IOException {
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(file), StandardCharsets.US_ASCII))) {
+            this.write(genomeID, out);
+        }
+    }
+
+    /**
+     * Write the sequences of genomes to FASTA files in a directory, several at the same time.
+     * Each genome is written to a file named after it. When two genomes would get the same file name,
+     * the ID of the genome is added to the name of the later one.
+     *
+     * @param genomeIDs the IDs of the genomes.
+     * @param directory the directory to write to.
+     * @param threads   the number of genomes to write at the same time.
+     * @return the files that were written, in the order of the genomes.
+     * @throws IOException when writing any of the files fails.
+     */
+    public List<File> exportAll(int[] genomeIDs, File directory, int threads) throws IOException {
+        AtomicInteger threadNumber = new AtomicInteger(0);
+        ExecutorService workers = Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            Thread thread = new Thread(r, "fasta-exporter-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        List<File> files = new ArrayList<>(genomeIDs.length);
+        List<CompletableFuture<Void>> writes = new ArrayList<>(genomeIDs.length);
+        Set<String> fileNames = new HashSet<>();
+        for (int genomeID : genomeIDs) {
+            File file = new File(directory, toFileName(graph.getGenomeName(genomeID), genomeID, fileNames));
+            files.add(file);
+            writes.add(CompletableFuture.runAsync(() -> {
+                try {
+                    this.export(genomeID, file);
+                    Console.println("[%s] Exported %s", Thread.currentThread().getName(), file.getName());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, workers));
+        }
+
+        try {
+            CompletableFuture.allOf(writes.toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw e;
+        } finally {
+            workers.shutdown();
+        }
+        return files;
+    }
+
+    /**
+     * Get the name of the file to write a genome to.
+     *
+     * @param genomeName the name of the genome.
+     * @return the name of the file, with every character that may not be allowed in file names replaced.
+     */
+    static String toFileName(String genomeName) {
+        String fileName = genomeName.replaceAll("[^A-Za-z0-9._-]", "_");
+        return fileName.endsWith(EXTENSION) ? fileName : fileName + EXTENSION;
+    }
+
+    /**
+     * Get the name of the file to write a genome to, which differs from the names of the other files.
+     * File names are compared ignoring case, because not every file system tells them apart.
+     *
+     * @param genomeName the name of the genome.
+     * @param genomeID   the ID of the genome, which is added to the name if it is already taken.
+     * @param fileNames  the names that are already taken, in lower case. The new name is added to them.
+     * @return the name of the file.
+     */
+    static String toFileName(String genomeName, int genomeID, Set<String> fileNames) {
+        String fileName = toFileName(genomeName);
+        String base = fileName.substring(0, fileName.length() - EXTENSION.length());
+        for (int attempt = 0; !fileNames.add(fileName.toLowerCase(Locale.ROOT)); attempt++) {
+            String suffix = attempt == 0 ? "_" + genomeID : "_" + genomeID + "_" + attempt;
+            fileName = base + suffix + EXTENSION;
+        }
+        return fileName;
+    }
+}
@@ -4,6 +4,14 @@ import com.diffplug.common.base.Errors;
 import javafx.application.Platform;
 import programminglife.gui.Alerts;
 import programminglife.model.GenomeGraph;
+import programminglife.model.analysis.BubbleDetector;
+import programminglife.model.analysis.CoordinateIndex;
+import programminglife.model.analysis.CoverageAnalysis;
+import programminglife.model.analysis.DistanceIndex;
+import programminglife.model.analysis.GenomeCountIndex;
+import programminglife.model.analysis.GraphCoarsener;
+import programminglife.model.analysis.MotifSearch;
+import programminglife.model.analysis.StatisticsAnalysis;
 import programminglife.model.exception.ParseException;
 import programminglife.utility.Console;
 
@@ -51,6 +59,42 @@ public class GraphParser extends Observable implements Runnable {
             } else {
                 Console.println("[%s] Loaded %s from cache", Thread.currentThread().getName(), this.name);
             }
+            if (!this.graph.isBubblesDetected()) {
+                Console.println("[%s] Detecting bubbles of %s", Thread.currentThread().getName(), this.name);
+                new BubbleDetector(this.graph).detect();
+            }
+            StatisticsAnalysis statistics = new StatisticsAnalysis(this.graph);
+            if (!statistics.isComputed()) {
+                Console.println("[%s] Computing the statistics of %s", Thread.currentThread().getName(), this.name);
+                statistics.get();
+            }
+            if (!this.graph.isCoordinatesIndexed()) {
+                Console.println("[%s] Indexing genome coordinates of %s", Thread.currentThread().getName(), this.name);
+                new CoordinateIndex(this.graph).build();
+            }
+            CoverageAnalysis coverage = new CoverageAnalysis(this.graph);
+            if (!coverage.isComputed()) {
+                Console.println("[%s] Counting the genome coverage of %s", Thread.currentThread().getName(), this.name);
+                coverage.get();
+            }
+            GenomeCountIndex genomeCounts = new GenomeCountIndex(this.graph);
+            if (!genomeCounts.isBuilt()) {
+                Console.println("[%s] Indexing the genome counts of %s", Thread.currentThread().getName(), this.name);
+                genomeCounts.build();
+            }
+            DistanceIndex distances = new DistanceIndex(this.graph);
+            if (!distances.isBuilt()) {
+                Console.println("[%s] Indexing the distances of %s", Thread.currentThread().getName(), this.name);
+                distances.build();
+            }
+            if (!this.graph.isCoarsened()) {
+                Console.println("[%s] Building coarse levels of %s", Thread.currentThread().getName(), this.name);
+                new GraphCoarsener(this.graph).build();
+            }
+            if (!this.graph.getKmerIndex().isBuilt()) {
+                Console.println("[%s] Indexing the sequences of %s", Thread.currentThread().getName(), this.name);
+                new MotifSearch(this.graph).buildIndex();
+            }
 
             int secondsElapsed = (int) ((System.nanoTime() - startTime) / 1000000000.d);
             Console.println("[%s] Parsing took %d seconds", Thread.currentThread().getName(), secondsElapsed);
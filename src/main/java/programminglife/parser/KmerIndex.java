@@ -0,0 +1,141 @@
+package programminglife.parser;
+
+import org.mapdb.Atomic;
+import org.mapdb.DB;
+import org.mapdb.DBMaker;
+import org.mapdb.Serializer;
+import programminglife.utility.Console;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+
+/**
+ * A persistent index from k-mers (short sequences of a fixed length k) to the places in a graph they start at,
+ * to find where a sequence occurs without reading every segment. The k-mers are encoded as ints, two bits per
+ * base, and each place is a node ID and an offset in its sequence, packed into a long.
+ * The index is stored in its own file next to the {@link Cache} of the graph, sorted by k-mer, so that all
+ * k-mers that start with the same bases can be looked up as one range.
+ */
+public final class KmerIndex {
+    private static final String KMER_MAP_NAME = "kmerMap";
+    private static final String BUILT_BOOLEAN_NAME = "kmersBuilt";
+
+    private final String dbFileName;
+    private final DB db;
+
+    private final Atomic.Boolean built;
+    private NavigableMap<Integer, long[]> kmerMap; // k-mer -> packed places it starts at, null until built
+
+    /**
+     * Create the KmerIndex and open its database.
+     *
+     * @param dbFileName the name of the file to store the index in.
+     */
+    KmerIndex(String dbFileName) {
+        this.dbFileName = dbFileName;
+        Console.println("[%s] Setting up k-mer index (%s)...", Thread.currentThread().getName(), dbFileName);
+
+        this.db = DBMaker.fileDB(new File(dbFileName))
+                .fileMmapEnable()
+                .fileMmapPreclearDisable()
+                .cleanerHackEnable()
+                .closeOnJvmShutdown()
+                .checksumHeaderBypass()
+                .make();
+        this.built = db.atomicBoolean(BUILT_BOOLEAN_NAME).createOrOpen();
+        if (this.built.get()) {
+            this.kmerMap = db.treeMap(KMER_MAP_NAME, Serializer.INTEGER, Serializer.LONG_ARRAY).open();
+        }
+    }
+
+    /**
+     * Whether the index has been built.
+     *
+     * @return true if it has been built.
+     */
+    public synchronized boolean isBuilt() {
+        return this.built.get();
+    }
+
+    /**
+     * Store the whole index at once. The entries are written one at a time, so they do not all have to be in
+     * memory. This can only be done once.
+     *
+     * @param entries the k-mers in ascending order, each with the packed places it starts at.
+     * @throws IllegalStateException if the index has already been built.
+     */
+    public synchronized void store(Iterator<Map.Entry<Integer, long[]>> entries) {
+        if (this.built.get()) {
+            throw new IllegalStateException("The k-mer index has already been built.");
+        }
+        this.kmerMap = Cache.storeSorted(db, KMER_MAP_NAME, Serializer.INTEGER, Serializer.LONG_ARRAY,
+                put -> entries.forEachRemaining(entry -> put.accept(entry.getKey(), entry.getValue())));
+        this.built.set(true);
+        this.db.commit();
+    }
+
+    /**
+     * Get the places a k-mer starts at.
+     *
+     * @param kmer the encoded k-mer.
+     * @return the packed places, or an empty array if the k-mer does not occur.
+     * @throws NoSuchElementException if the index has not been built.
+     */
+    public synchronized long[] get(int kmer) {
+        long[] places = this.getMap().get(kmer);
+        return places == null ? new long[0] : places;
+    }
+
+    /**
+     * Get the places of all k-mers in a range, such as all k-mers that start with the same bases.
+     *
+     * @param from the first encoded k-mer of the range.
+     * @param to   the encoded k-mer after the range.
+     * @return for each k-mer in the range that occurs, its packed places.
+     * @throws NoSuchElementException if the index has not been built.
+     */
+    public synchronized List<long[]> getRange(int from, int to) {
+        return new ArrayList<>(this.getMap().subMap(from, true, to, false).values());
+    }
+
+    /**
+     * Get the map of the index.
+     *
+     * @return the map.
+     * @throws NoSuchElementException if the index has not been built.
+     */
+    private NavigableMap<Integer, long[]> getMap() {
+        if (this.kmerMap == null) {
+            throw new NoSuchElementException("The k-mer index has not been built.");
+        }
+        return this.kmerMap;
+    }
+
+    /**
+     * Close the database.
+     */
+    public void close() {
+        if (!this.db.isClosed()) {
+            Console.println("[%s] Closing k-mer index...", Thread.currentThread().getName());
+            this.db.close();
+        }
+    }
+
+    /**
+     * Close and remove the database. This cannot be undone.
+     *
+     * @throws IOException when something strange happens during deletion
+     */
+    void removeDB() throws IOException {
+        close();
+        Files.deleteIfExists(Paths.get(this.dbFileName));
+    }
+}
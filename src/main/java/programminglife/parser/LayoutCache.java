@@ -0,0 +1,185 @@
+package programminglife.parser;
+
+import org.mapdb.Atomic;
+import org.mapdb.DB;
+import org.mapdb.DBMaker;
+import org.mapdb.Serializer;
+import programminglife.utility.Console;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A persistent cache of the layouts of parts of a graph that have been drawn, so that drawing the same part
+ * again (for example when loading a bookmark) does not have to search for its nodes and sort its layers again.
+ * The layouts are stored in their own file next to the {@link Cache} of the graph. When they take up more than
+ * a budget of disk space, the least recently used layouts are removed.
+ */
+public final class LayoutCache {
+    /**
+     * The default disk budget for the layouts of one graph, in bytes.
+     */
+    static final long DEFAULT_BUDGET = 32L * 1024 * 1024;
+
+    private static final String LAYOUT_MAP_NAME = "layoutMap";
+    private static final String LAST_USED_MAP_NAME = "layoutLastUsedMap";
+    private static final String CLOCK_LONG_NAME = "layoutClock";
+    private static final String SIZE_LONG_NAME = "layoutSize";
+
+    private final String dbFileName;
+    private final long budget;
+    private final DB db;
+
+    private final Map<String, int[]> layoutMap; // region key -> layout
+    private final Map<String, Long> lastUsedMap; // region key -> clock value at the last get or put
+    private final Atomic.Long clock;
+    private final Atomic.Long size;
+
+    /**
+     * Create the LayoutCache and open its database.
+     *
+     * @param dbFileName the name of the file to store the layouts in.
+     * @param budget     the number of bytes the layouts may take up.
+     */
+    LayoutCache(String dbFileName, long budget) {
+        this.dbFileName = dbFileName;
+        this.budget = budget;
+        Console.println("[%s] Setting up layout cache (%s)...", Thread.currentThread().getName(), dbFileName);
+
+        this.db = DBMaker.fileDB(new File(dbFileName))
+                .fileMmapEnable()
+                .fileMmapPreclearDisable()
+                .cleanerHackEnable()
+                .closeOnJvmShutdown()
+                .checksumHeaderBypass()
+                .make();
+        this.layoutMap = db.hashMap(LAYOUT_MAP_NAME, Serializer.STRING_ASCII, Serializer.INT_ARRAY).createOrOpen();
+        this.lastUsedMap = db.hashMap(LAST_USED_MAP_NAME, Serializer.STRING_ASCII, Serializer.LONG).createOrOpen();
+        this.clock = db.atomicLong(CLOCK_LONG_NAME).createOrOpen();
+        this.size = db.atomicLong(SIZE_LONG_NAME).createOrOpen();
+    }
+
+    /**
+     * Get the key of a drawn region.
+     *
+     * @param center      the ID of the center node.
+     * @param radius      the radius around the center node.
+     * @param replaceSNPs whether SNPs (and bubbles and chains) are collapsed.
+     * @return the key.
+     */
+    private static String key(int center, int radius, boolean replaceSNPs) {
+        return center + ":" + radius + ":" + replaceSNPs;
+    }
+
+    /**
+     * Get the layout of a region, and mark it as used.
+     *
+     * @param center      the ID of the center node.
+     * @param radius      the radius around the center node.
+     * @param replaceSNPs whether SNPs (and bubbles and chains) are collapsed.
+     * @return the layout, or null if the region is not in this cache.
+     */
+    public synchronized int[] get(int center, int radius, boolean replaceSNPs) {
+        String key = key(center, radius, replaceSNPs);
+        int[] layout = this.layoutMap.get(key);
+        if (layout != null) {
+            this.lastUsedMap.put(key, this.clock.incrementAndGet());
+        }
+        return layout;
+    }
+
+    /**
+     * Store the layout of a region. If the layouts then take up more than the budget,
+     * the least recently used ones are removed.
+     *
+     * @param center      the ID of the center node.
+     * @param radius      the radius around the center node.
+     * @param replaceSNPs whether SNPs (and bubbles and chains) are collapsed.
+     * @param layout      the layout.
+     */
+    public synchronized void put(int center, int radius, boolean replaceSNPs, int[] layout) {
+        String key = key(center, radius, replaceSNPs);
+        this.remove(key);
+        if (bytes(layout) > this.budget) {
+            return;
+        }
+        this.layoutMap.put(key, layout);
+        this.lastUsedMap.put(key, this.clock.incrementAndGet());
+        this.size.addAndGet(bytes(layout));
+        this.evict();
+    }
+
+    /**
+     * Remove the least recently used layouts until the layouts fit in the budget.
+     */
+    private void evict() {
+        if (this.size.get() <= this.budget) {
+            return;
+        }
+        List<Map.Entry<String, Long>> byLastUse = new ArrayList<>(this.lastUsedMap.entrySet());
+        byLastUse.sort(Map.Entry.comparingByValue());
+        for (Map.Entry<String, Long> entry : byLastUse) {
+            if (this.size.get() <= this.budget) {
+                break;
+            }
+            this.remove(entry.getKey());
+        }
+    }
+
+    /**
+     * Remove a layout.
+     *
+     * @param key the key of the region of the layout.
+     */
+    private void remove(String key) {
+        int[] layout = this.layoutMap.remove(key);
+        this.lastUsedMap.remove(key);
+        if (layout != null) {
+            this.size.addAndGet(-bytes(layout));
+        }
+    }
+
+    /**
+     * Get the number of bytes a layout takes up.
+     *
+     * @param layout the layout.
+     * @return the number of bytes.
+     */
+    private static long bytes(int[] layout) {
+        return (long) Integer.BYTES * layout.length;
+    }
+
+    /**
+     * Get the number of bytes all layouts in this cache take up.
+     *
+     * @return the number of bytes.
+     */
+    public synchronized long getSize() {
+        return this.size.get();
+    }
+
+    /**
+     * Close the database.
+     */
+    public void close() {
+        if (!this.db.isClosed()) {
+            Console.println("[%s] Closing layout cache...", Thread.currentThread().getName());
+            this.db.close();
+        }
+    }
+
+    /**
+     * Close and remove the database. This cannot be undone.
+     *
+     * @throws IOException when something strange happens during deletion
+     */
+    void removeDB() throws IOException {
+        close();
+        Files.deleteIfExists(Paths.get(this.dbFileName));
+    }
+}
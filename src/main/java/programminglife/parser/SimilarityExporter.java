@@ -0,0 +1,79 @@
+package programminglife.parser;
+
+import programminglife.model.GenomeGraph;
+import programminglife.model.analysis.SimilarityMatrix;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.stream.IntStream;
+
+/**
+ * Writes a {@link SimilarityMatrix} of the genomes of a {@link GenomeGraph} to a tab separated file,
+ * with a row and a column for every genome, named in the header and the first column.
+ */
+public class SimilarityExporter {
+    private final GenomeGraph graph;
+    private final SimilarityMatrix matrix;
+
+    /**
+     * Create a SimilarityExporter.
+     *
+     * @param graph  the {@link GenomeGraph} the genomes are in.
+     * @param matrix the {@link SimilarityMatrix} of its genomes.
+     */
+    public SimilarityExporter(GenomeGraph graph, SimilarityMatrix matrix) {
+        this.graph = graph;
+        this.matrix = matrix;
+    }
+
+    /**
+     * Write the similarities.
+     *
+     * @param byBases   whether to write the similarity of bases instead of nodes.
+     * @param clustered whether to order the genomes by {@link SimilarityMatrix#clusterOrder(boolean)}
+     *                  instead of by ID.
+     * @param out       the {@link Writer} to write to.
+     * @throws IOException when writing fails.
+     */
+    public void write(boolean byBases, boolean clustered, Writer out) throws IOException {
+        int[] order = clustered ? matrix.clusterOrder(byBases)
+                : IntStream.range(0, matrix.getGenomeCount()).toArray();
+
+        out.write("genome");
+        for (int genome : order) {
+            out.write('\t');
+            out.write(graph.getGenomeName(genome));
+        }
+        out.write('\n');
+        for (int a : order) {
+            out.write(graph.getGenomeName(a));
+            for (int b : order) {
+                double similarity = byBases ? matrix.getBaseSimilarity(a, b) : matrix.getNodeSimilarity(a, b);
+                out.write('\t');
+                out.write(String.format(Locale.ROOT, "%.4f", similarity));
+            }
+            out.write('\n');
+        }
+    }
+
+    /**
+     * Write the similarities to a file.
+     *
+     * @param byBases   whether to write the similarity of bases instead of nodes.
+     * @param clustered whether to order the genomes by similarity instead of by ID.
+     * @param file      the file to write to. It is replaced if it exists.
+     * @throws IOException when writing fails.
+     */
+    public void export(boolean byBases, boolean clustered, File file) throws IOException {
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(file), StandardCharsets.UTF_8))) {
+            this.write(byBases, clustered, out);
+        }
+    }
+}
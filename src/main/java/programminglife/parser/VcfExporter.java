@@ -0,0 +1,134 @@
+package programminglife.parser;
+
+import programminglife.model.GenomeGraph;
+import programminglife.model.analysis.CoordinateIndex;
+import programminglife.model.analysis.Variant;
+import programminglife.model.analysis.VariantCaller;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Writes the variants between the genomes of a {@link GenomeGraph} to a VCF file, relative to a reference genome.
+ * The variants are found by a {@link VariantCaller} and written one at a time, as soon as they are found,
+ * with the allele of every genome as a haploid genotype.
+ */
+public class VcfExporter {
+    private final GenomeGraph graph;
+
+    /**
+     * Create a VcfExporter.
+     *
+     * @param graph the {@link GenomeGraph} to export the variants of.
+     */
+    public VcfExporter(GenomeGraph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Write the variants in VCF format.
+     *
+     * @param referenceID the ID of the reference genome.
+     * @param out         the {@link Writer} to write to.
+     * @return the number of variants that were written.
+     * @throws IOException when writing fails.
+     */
+    public int write(int referenceID, Writer out) throws IOException {
+        String chromosome = toColumn(graph.getGenomeName(referenceID));
+        int genomes = graph.getTotalGenomeNumber();
+
+        out.write("##fileformat=VCFv4.2\n");
+        out.write("##source=ProgrammingLife\n");
+        if (graph.isCoordinatesIndexed()) {
+            out.write(String.format("##contig=<ID=%s,length=%d>\n", chromosome,
+                    new CoordinateIndex(graph).getGenomeLength(referenceID)));
+        }
+        out.write("##INFO=<ID=TYPE,Number=1,Type=String,"
+                + "Description=\"The type of the variant: snp, indel or complex\">\n");
+        out.write("##INFO=<ID=NODES,Number=1,Type=Integer,Description=\"The number of nodes in the bubble\">\n");
+        out.write("##FORMAT=<ID=GT,Number=1,Type=String,Description=\"Genotype\">\n");
+        out.write("#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\tFORMAT");
+        for (int genome = 0; genome < genomes; genome++) {
+            out.write('\t');
+            out.write(toColumn(graph.getGenomeName(genome)));
+        }
+        out.write('\n');
+
+        try {
+            return new VariantCaller(graph).call(referenceID, variant -> {
+                try {
+                    writeVariant(chromosome, variant, genomes, out);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Write one variant.
+     *
+     * @param chromosome the name of the reference genome.
+     * @param variant    the {@link Variant}.
+     * @param genomes    the number of genomes.
+     * @param out        the {@link Writer} to write to.
+     * @throws IOException when writing fails.
+     */
+    private static void writeVariant(String chromosome, Variant variant, int genomes, Writer out)
+            throws IOException {
+        out.write(chromosome);
+        out.write('\t');
+        out.write(Long.toString(variant.getPosition()));
+        out.write('\t');
+        out.write(variant.getSourceID() + "_" + variant.getSinkID());
+        out.write('\t');
+        out.write(variant.getAlleles().get(0));
+        out.write('\t');
+        out.write(String.join(",", variant.getAlleles().subList(1, variant.getAlleles().size())));
+        out.write("\t.\tPASS\tTYPE=");
+        out.write(variant.getType().name().toLowerCase(Locale.ROOT));
+        out.write(";NODES=");
+        out.write(Integer.toString(variant.getNodes()));
+        out.write("\tGT");
+        for (int genome = 0; genome < genomes; genome++) {
+            int genotype = variant.getGenotype(genome);
+            out.write('\t');
+            out.write(genotype < 0 ? "." : Integer.toString(genotype));
+        }
+        out.write('\n');
+    }
+
+    /**
+     * Write the variants to a VCF file.
+     *
+     * @param referenceID the ID of the reference genome.
+     * @param file        the file to write to. It is replaced if it exists.
+     * @return the number of variants that were written.
+     * @throws IOException when writing fails.
+     */
+    public int export(int referenceID, File file) throws IOException {
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(file), StandardCharsets.US_ASCII))) {
+            return this.write(referenceID, out);
+        }
+    }
+
+    /**
+     * Get a name the way it can be written in a column of a VCF file.
+     *
+     * @param name the name.
+     * @return the name, with all whitespace replaced.
+     */
+    static String toColumn(String name) {
+        return name.replaceAll("\\s", "_");
+    }
+}
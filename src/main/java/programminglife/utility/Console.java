@@ -29,13 +29,23 @@ public final class Console {
     }
 
     /**
-     * Prints the arguments given in the console.
+     * Prints the arguments given in the console. Without a console (for example when laying out
+     * a graph in a batch job, without JavaFX), they are printed to standard output instead.
      *
      * @param f    String to be printed.
      * @param args Given with the string.
      */
     public static void print(String f, Object... args) {
-        Platform.runLater(() -> out.printf(f, args));
+        if (out == null) {
+            System.out.printf(f, args);
+            return;
+        }
+        try {
+            Platform.runLater(() -> out.printf(f, args));
+        } catch (IllegalStateException e) {
+            // the JavaFX toolkit is not running
+            out.printf(f, args);
+        }
     }
 
     public static void setOut(PrintStream ps) {
@@ -0,0 +1,176 @@
+package programminglife.gui;
+
+import javafx.scene.paint.Color;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the {@link DrawBuffer}.
+ */
+public class DrawBufferTest {
+    private static final int RED = 0xFFFF0000;
+    private static final int BLUE = 0xFF0000FF;
+    private static final int BLACK = 0xFF000000;
+    private static final int TRANSPARENT = 0;
+
+    private DrawBuffer buffer;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        InitFXThread.setupClass();
+    }
+
+    @Before
+    public void setUp() {
+        buffer = new DrawBuffer();
+    }
+
+    @Test
+    public void emptyTest() {
+        assertTrue(buffer.isEmpty());
+        buffer.setLineWidth(2);
+        assertFalse(buffer.isEmpty());
+    }
+
+    @Test
+    public void rasterizeFillTest() {
+        buffer.setFill(Color.RED);
+        buffer.fillRect(10, 10, 20, 20);
+
+        BufferedImage image = buffer.rasterize(0, 0, 50, 50);
+
+        assertEquals(RED, image.getRGB(20, 20));
+        assertEquals(TRANSPARENT, image.getRGB(40, 40));
+    }
+
+    @Test
+    public void rasterizeOffsetTest() {
+        buffer.setFill(Color.RED);
+        buffer.fillRect(110, 210, 20, 20);
+
+        BufferedImage image = buffer.rasterize(100, 200, 50, 50);
+
+        assertEquals(RED, image.getRGB(20, 20));
+        assertEquals(TRANSPARENT, image.getRGB(5, 5));
+    }
+
+    @Test
+    public void nullFillIgnoredTest() {
+        buffer.setFill(Color.RED);
+        buffer.setFill(null);
+        buffer.fillRect(0, 0, 10, 10);
+
+        assertEquals(RED, buffer.rasterize(0, 0, 10, 10).getRGB(5, 5));
+    }
+
+    @Test
+    public void restoreTest() {
+        buffer.setFill(Color.RED);
+        buffer.save();
+        buffer.setFill(Color.BLUE);
+        buffer.translate(100, 100);
+        buffer.restore();
+        buffer.fillRect(0, 0, 10, 10);
+
+        assertEquals(RED, buffer.rasterize(0, 0, 10, 10).getRGB(5, 5));
+    }
+
+    @Test
+    public void transformedNotCulledTest() {
+        buffer.setFill(Color.RED);
+        buffer.save();
+        buffer.translate(100, 100);
+        buffer.fillRect(0, 0, 10, 10);
+        buffer.restore();
+
+        assertEquals(RED, buffer.rasterize(100, 100, 10, 10).getRGB(5, 5));
+    }
+
+    @Test
+    public void batchedFewerCommandsTest() {
+        for (int i = 0; i < 10; i++) {
+            buffer.setStroke(i % 2 == 0 ? Color.RED : Color.BLUE);
+            buffer.setLineWidth(2);
+            buffer.strokeLine(0, i * 5, 50, i * 5);
+        }
+
+        DrawBuffer batched = buffer.batched();
+
+        assertEquals(30, buffer.size());
+        assertEquals(6, batched.size());
+    }
+
+    @Test
+    public void batchedSameResultTest() {
+        buffer.setFill(Color.RED);
+        buffer.fillRect(0, 0, 10, 10);
+        buffer.setFill(Color.BLUE);
+        buffer.fillRect(20, 0, 10, 10);
+        buffer.setFill(Color.RED);
+        buffer.fillRect(40, 0, 10, 10);
+
+        BufferedImage expected = buffer.rasterize(0, 0, 50, 10);
+        BufferedImage actual = buffer.batched().rasterize(0, 0, 50, 10);
+
+        for (int x = 0; x < 50; x++) {
+            assertEquals(expected.getRGB(x, 5), actual.getRGB(x, 5));
+        }
+    }
+
+    @Test
+    public void batchedBarrierTest() {
+        buffer.setFill(Color.RED);
+        buffer.fillRect(0, 0, 10, 10);
+        buffer.barrier();
+        buffer.setFill(Color.BLUE);
+        buffer.fillRect(0, 0, 10, 10);
+        buffer.barrier();
+        buffer.setFill(Color.RED);
+        buffer.fillRect(20, 0, 10, 10);
+
+        BufferedImage image = buffer.batched().rasterize(0, 0, 30, 10);
+
+        assertEquals(BLUE, image.getRGB(5, 5));
+        assertEquals(RED, image.getRGB(25, 5));
+    }
+
+    @Test
+    public void batchedBubbleSeparatorTest() {
+        // a bubble glyph as recorded by the GraphController, with its separator in a later phase
+        buffer.setStroke(Color.BLACK);
+        buffer.setFill(Color.RED);
+        buffer.setLineWidth(2);
+        buffer.strokeRoundRect(0, 0, 100, 20, 20, 20);
+        buffer.fillRoundRect(0, 0, 100, 20, 20, 20);
+        buffer.barrier();
+        buffer.strokeLine(10, 10, 90, 10);
+
+        BufferedImage image = buffer.batched().rasterize(0, 0, 100, 20);
+
+        assertEquals(BLACK, image.getRGB(50, 10));
+        assertEquals(RED, image.getRGB(50, 5));
+    }
+
+    @Test
+    public void batchedTransformedTest() {
+        buffer.setFill(Color.RED);
+        buffer.save();
+        buffer.translate(100, 100);
+        buffer.fillRect(0, 0, 10, 10);
+        buffer.restore();
+        buffer.setFill(Color.BLUE);
+        buffer.fillRect(0, 0, 10, 10);
+
+        DrawBuffer batched = buffer.batched();
+
+        assertEquals(RED, batched.rasterize(100, 100, 10, 10).getRGB(5, 5));
+        assertEquals(BLUE, batched.rasterize(0, 0, 10, 10).getRGB(5, 5));
+    }
+}
@@ -0,0 +1,42 @@
+package programminglife.gui;
+
+import programminglife.model.GenomeGraph;
+
+/**
+ * This class builds the nodes of the graphs that the tests make use of.
+ */
+public final class TestGraphs {
+
+    /**
+     * Constructor.
+     */
+    private TestGraphs() {
+
+    }
+
+    /**
+     * Add a node.
+     *
+     * @param graph    the {@link GenomeGraph} to add the node to.
+     * @param id       the ID of the node.
+     * @param sequence the sequence of the node.
+     * @param genomes  the genomes that go through the node.
+     */
+    public static void addNode(GenomeGraph graph, int id, String sequence, int... genomes) {
+        graph.replaceNode(id);
+        graph.setSequence(id, sequence);
+        graph.setGenomes(id, genomes);
+    }
+
+    /**
+     * Add a node of which only the length of the sequence matters.
+     *
+     * @param graph   the {@link GenomeGraph} to add the node to.
+     * @param id      the ID of the node.
+     * @param length  the sequence length of the node.
+     * @param genomes the genomes that go through the node.
+     */
+    public static void addNode(GenomeGraph graph, int id, int length, int... genomes) {
+        addNode(graph, id, new String(new char[length]).replace('\0', 'A'), genomes);
+    }
+}
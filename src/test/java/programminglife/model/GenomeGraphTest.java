@@ -252,6 +252,90 @@ public class GenomeGraphTest {
         assertEquals(expected, actual);
     }
 
+    @Test
+    public void getGenomeSetSharedTest() {
+        graph.replaceNode(4);
+        graph.replaceNode(5);
+        graph.setGenomes(3, new int[] {1, 7});
+        graph.setGenomes(4, new int[] {7, 1});
+        graph.setGenomes(5, new int[] {1});
+
+        GenomeSet genomes = graph.getGenomeSet(3, 0);
+        assertSame(genomes, graph.getGenomeSet(4, 0));
+        assertNotSame(genomes, graph.getGenomeSet(5, 0));
+        assertTrue(genomes.isReadOnly());
+        assertEquals(GenomeSet.of(1, 7), genomes);
+    }
 
+    @Test(expected = UnsupportedOperationException.class)
+    public void getGenomeSetReadOnlyTest() {
+        graph.setGenomes(3, new int[] {1, 7});
+        graph.getGenomeSet(3, 0).add(2);
+    }
 
+    @Test
+    public void getNodeDataTest() {
+        graph.setSequence(5, "AC");
+        graph.replaceNode(5);
+        graph.addEdge(3, 5);
+        graph.cacheLastEdges();
+        graph.setGenomes(3, new int[] {0, 2});
+        graph.setGenomes(5, new int[] {2});
+
+        NodeData[] data = graph.getNodeData(new int[] {5, 3, 5}, 0);
+
+        assertEquals(3, data.length);
+        assertEquals(5, data[0].getID());
+        assertSame(data[0], data[2]);
+        assertArrayEquals(new int[] {3}, data[0].getParentIDs());
+        assertArrayEquals(new int[] {5}, data[1].getChildIDs());
+        assertEquals(GenomeSet.of(0, 2), data[1].getGenomes());
+        assertEquals(2, data[1].getGenomeCount());
+        assertEquals(4, data[1].getSequenceLength());
+        assertEquals(1, data[1].getSegmentCount());
+    }
+
+    @Test
+    public void getNodeDataRangeTest() {
+        graph.setSequence(5, "AC");
+        graph.replaceNode(5);
+        graph.setGenomes(3, new int[] {0});
+        graph.setGenomes(5, new int[] {0});
+
+        NodeData[] data = graph.getNodeData(0, 5, 0);
+
+        assertEquals(1, data.length);
+        assertEquals(3, data[0].getID());
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void getNodeDataMissingTest() {
+        graph.getNodeData(new int[] {3, 121}, 0);
+    }
+
+    @Test
+    public void getNodeDataParallelTest() {
+        int size = 1000;
+        int[] ids = new int[size];
+        for (int i = 0; i < size; i++) {
+            int id = 10 + i;
+            graph.setSequence(id, i % 2 == 0 ? "A" : "ACGT");
+            graph.replaceNode(id);
+            graph.setGenomes(id, new int[] {i % 3});
+            ids[i] = 10 + (i * 7) % size;
+        }
+        for (int i = 0; i + 1 < size; i++) {
+            graph.addEdge(10 + i, 11 + i);
+        }
+        graph.cacheLastEdges();
+
+        NodeData[] data = graph.getNodeData(ids, 0);
+
+        for (int i = 0; i < size; i++) {
+            assertEquals(ids[i], data[i].getID());
+            assertEquals(graph.getSequenceLength(ids[i]), data[i].getSequenceLength());
+            assertArrayEquals(graph.getParentIDs(ids[i]), data[i].getParentIDs());
+            assertEquals(GenomeSet.of(graph.getGenomes(ids[i])), data[i].getGenomes());
+        }
+    }
 }
@@ -0,0 +1,98 @@
+package programminglife.model;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import programminglife.gui.InitFXThread;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the {@link GenomeSet} model.
+ */
+public class GenomeSetTest {
+    private GenomeSet set1;
+    private GenomeSet set2;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        InitFXThread.setupClass();
+    }
+
+    @Before
+    public void setUp() {
+        this.set1 = GenomeSet.of(0, 3, 70, 130);
+        this.set2 = GenomeSet.of(3, 4, 130);
+    }
+
+    @Test
+    public void containsTest() {
+        assertTrue(set1.contains(70));
+        assertFalse(set1.contains(4));
+        assertFalse(set1.contains(-1));
+        assertFalse(set1.contains("70"));
+        assertEquals(4, set1.size());
+    }
+
+    @Test
+    public void intersectionTest() {
+        GenomeSet intersection = set1.intersection(set2);
+
+        assertArrayEquals(new int[] {3, 130}, intersection.toIntArray());
+        assertEquals(4, set1.size());
+        assertTrue(set1.intersects(set2));
+    }
+
+    @Test
+    public void removeAllTest() {
+        assertTrue(set1.removeAll(set2));
+        assertArrayEquals(new int[] {0, 70}, set1.toIntArray());
+        assertFalse(set1.removeAll(set2));
+    }
+
+    @Test
+    public void retainAllOtherCollectionTest() {
+        assertTrue(set1.retainAll(Arrays.asList(0, 70, 1000)));
+        assertArrayEquals(new int[] {0, 70}, set1.toIntArray());
+    }
+
+    @Test
+    public void addAllTest() {
+        assertTrue(set1.addAll(set2));
+        assertArrayEquals(new int[] {0, 3, 4, 70, 130}, set1.toIntArray());
+        assertTrue(set1.containsAll(set2));
+    }
+
+    @Test
+    public void copyOfTest() {
+        GenomeSet copy = GenomeSet.copyOf(set1);
+        copy.add(5);
+
+        assertFalse(set1.contains(5));
+        assertEquals(GenomeSet.copyOf(Arrays.asList(0, 3, 70, 130)), set1);
+    }
+
+    @Test
+    public void equalsOtherSetTest() {
+        assertEquals(new HashSet<>(Arrays.asList(3, 4, 130)), set2);
+        assertEquals(set2, new HashSet<>(Arrays.asList(3, 4, 130)));
+        assertEquals(new HashSet<>(Arrays.asList(3, 4, 130)).hashCode(), set2.hashCode());
+    }
+
+    @Test
+    public void iteratorRemoveTest() {
+        Iterator<Integer> iterator = set2.iterator();
+        assertEquals(3, (int) iterator.next());
+        iterator.remove();
+        assertEquals(4, (int) iterator.next());
+
+        assertArrayEquals(new int[] {4, 130}, set2.toIntArray());
+    }
+}
@@ -0,0 +1,146 @@
+package programminglife.model.analysis;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import programminglife.gui.InitFXThread;
+import programminglife.model.GenomeGraph;
+import programminglife.model.drawing.DrawableBubble;
+import programminglife.model.drawing.DrawableNode;
+import programminglife.model.drawing.DrawableSNP;
+import programminglife.model.drawing.DrawableSegment;
+import programminglife.model.drawing.SubGraph;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Class for the BubbleDetectorTest.
+ */
+public class BubbleDetectorTest {
+    private GenomeGraph g;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        InitFXThread.setupClass();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        g = new GenomeGraph("bubble test graph");
+        g.addGenome("GENOME");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        g.removeCache();
+    }
+
+    /**
+     * Add nodes with IDs 0 to sequences.length - 1.
+     *
+     * @param sequences the sequences of the nodes.
+     */
+    private void addNodes(String... sequences) {
+        for (int i = 0; i < sequences.length; i++) {
+            g.replaceNode(i);
+            g.setSequence(i, sequences[i]);
+            g.setGenomes(i, new int[]{0});
+        }
+    }
+
+    /**
+     * Add edges, which must be sorted by parent.
+     *
+     * @param edges the parent and child of each edge.
+     */
+    private void addEdges(int[]... edges) {
+        for (int[] edge : edges) {
+            g.addEdge(edge[0], edge[1]);
+        }
+        g.cacheLastEdges();
+    }
+
+    /**
+     * Get the nodes of a SubGraph around node 0 with collapsed bubbles.
+     *
+     * @return the nodes of the SubGraph.
+     */
+    private List<DrawableNode> collapsedNodes() {
+        SubGraph sg = new SubGraph(new DrawableSegment(g, 0, 1), 5, true);
+        return sg.getNodes().values().stream().collect(Collectors.toList());
+    }
+
+    @Test
+    public void indelTest() throws Exception {
+        addNodes("ATCG", "AGT", "GCTA");
+        addEdges(new int[] {0, 1}, new int[] {0, 2}, new int[] {1, 2});
+
+        assertEquals(1, new BubbleDetector(g).detect());
+        assertTrue(g.isBubblesDetected());
+        assertEquals(2, g.getBubbleSink(0));
+        assertEquals(-1, g.getBubbleSink(1));
+
+        List<DrawableNode> nodes = collapsedNodes();
+        assertEquals(3, nodes.size());
+        DrawableBubble bubble = (DrawableBubble) nodes.stream()
+                .filter(DrawableBubble.class::isInstance).findFirst().get();
+        assertEquals(2, bubble.getBranches());
+        assertEquals(1, bubble.getSegments().size());
+        assertTrue(bubble.hasDeletion());
+    }
+
+    @Test
+    public void nestedTest() throws Exception {
+        addNodes("ATCG", "A", "CC", "GGG", "T", "AAAA", "GCTA");
+        addEdges(new int[] {0, 1}, new int[] {0, 5}, new int[] {1, 2}, new int[] {1, 3},
+                new int[] {2, 4}, new int[] {3, 4}, new int[] {4, 6}, new int[] {5, 6});
+
+        assertEquals(2, new BubbleDetector(g).detect());
+        assertEquals(6, g.getBubbleSink(0));
+        assertEquals(4, g.getBubbleSink(1));
+
+        List<DrawableNode> nodes = collapsedNodes();
+        assertEquals(3, nodes.size());
+        DrawableBubble bubble = (DrawableBubble) nodes.stream()
+                .filter(DrawableBubble.class::isInstance).findFirst().get();
+        assertEquals(5, bubble.getSegments().size());
+        assertFalse(bubble.hasDeletion());
+    }
+
+    @Test
+    public void snpStaysSNPTest() throws Exception {
+        addNodes("ATCG", "A", "C", "GCTA");
+        addEdges(new int[] {0, 1}, new int[] {0, 2}, new int[] {1, 3}, new int[] {2, 3});
+
+        assertEquals(1, new BubbleDetector(g).detect());
+
+        List<DrawableNode> nodes = collapsedNodes();
+        assertEquals(3, nodes.size());
+        assertTrue(nodes.stream().anyMatch(DrawableSNP.class::isInstance));
+    }
+
+    @Test
+    public void branchTooLongTest() throws Exception {
+        addNodes("ATCG", "AGTAGT", "C", "GCTA");
+        addEdges(new int[] {0, 1}, new int[] {0, 2}, new int[] {1, 3}, new int[] {2, 3});
+
+        assertEquals(0, new BubbleDetector(g, 4, 5, 10).detect());
+        assertEquals(-1, g.getBubbleSink(0));
+        assertEquals(4, collapsedNodes().size());
+    }
+
+    @Test
+    public void notABubbleTest() throws Exception {
+        // 0 -> {1, 2}, 1 -> {2, 3}, 2 -> 3: node 2 has two parents, but 1 does not end in it.
+        addNodes("ATCG", "A", "C", "GCTA");
+        addEdges(new int[] {0, 1}, new int[] {0, 2}, new int[] {1, 2}, new int[] {1, 3}, new int[] {2, 3});
+
+        assertEquals(0, new BubbleDetector(g).detect());
+    }
+}
@@ -0,0 +1,127 @@
+package programminglife.model.analysis;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import programminglife.gui.InitFXThread;
+import programminglife.gui.TestGraphs;
+import programminglife.model.GenomeGraph;
+
+import java.util.NoSuchElementException;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the {@link CoordinateIndex}.
+ */
+public class CoordinateIndexTest {
+    private static final int NODES = 5 * CoordinateIndex.CHECKPOINT_INTERVAL + 7;
+
+    private GenomeGraph g;
+    private CoordinateIndex index;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        InitFXThread.setupClass();
+    }
+
+    /**
+     * Create a graph where genome 0 goes through all nodes, genome 1 through the even nodes and
+     * genome 2 through none. The IDs increase by 3 (and by 200 halfway), and the lengths are 0 to 4.
+     */
+    @Before
+    public void setUp() throws Exception {
+        g = new GenomeGraph("coordinate test graph");
+        g.addGenome("ALL");
+        g.addGenome("EVEN");
+        g.addGenome("NONE");
+        for (int i = 0; i < NODES; i++) {
+            int id = id(i);
+            TestGraphs.addNode(g, id, length(i), i % 2 == 0 ? new int[] {0, 1} : new int[] {0});
+        }
+        index = new CoordinateIndex(g);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        g.removeCache();
+    }
+
+    private static int id(int i) {
+        return 3 * i + (i > NODES / 2 ? 200 : 0);
+    }
+
+    private static int length(int i) {
+        return i % 5;
+    }
+
+    /**
+     * Check every position of a genome against walking along the nodes.
+     *
+     * @param genome the ID of the genome.
+     * @param step   the step between the nodes of the genome.
+     */
+    private void checkAllPositions(int genome, int step) {
+        long position = 0;
+        for (int i = 0; i < NODES; i += step) {
+            for (int offset = 0; offset < length(i); offset++) {
+                GenomePosition found = index.locate(genome, position + offset);
+                assertEquals(genome, found.getGenomeID());
+                assertEquals(id(i), found.getNodeID());
+                assertEquals(offset, found.getOffset());
+            }
+            position += length(i);
+        }
+        assertEquals(position, index.getGenomeLength(genome));
+    }
+
+    @Test
+    public void locateTest() {
+        assertFalse(g.isCoordinatesIndexed());
+        index.build();
+        assertTrue(g.isCoordinatesIndexed());
+
+        checkAllPositions(0, 1);
+        checkAllPositions(1, 2);
+        assertEquals(0, index.getGenomeLength(2));
+    }
+
+    @Test
+    public void nodeIDsTest() {
+        index.build();
+        assertArrayEquals(IntStream.range(0, NODES).map(CoordinateIndexTest::id).toArray(), index.getNodeIDs(0));
+        assertArrayEquals(IntStream.range(0, NODES).filter(i -> i % 2 == 0).map(CoordinateIndexTest::id).toArray(),
+                index.getNodeIDs(1));
+        assertEquals(0, index.getNodeIDs(2).length);
+    }
+
+    @Test
+    public void compactTest() {
+        index.build();
+        // the IDs mostly differ by 3, which takes one byte, and only every so many nodes are sampled
+        assertTrue(g.getGenomePath(0).length < NODES + 2);
+        assertEquals(3 * (NODES / CoordinateIndex.CHECKPOINT_INTERVAL + 2), g.getGenomeCheckpoints(0).length);
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void pastEndTest() {
+        index.build();
+        index.locate(0, index.getGenomeLength(0));
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void negativeTest() {
+        index.build();
+        index.locate(1, -1);
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void notIndexedTest() {
+        index.locate(0, 0);
+    }
+}
@@ -0,0 +1,101 @@
+package programminglife.model.analysis;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import programminglife.gui.InitFXThread;
+import programminglife.gui.TestGraphs;
+import programminglife.model.GenomeGraph;
+
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the {@link CoverageAnalysis} and the {@link CoverageHistogram}.
+ */
+public class CoverageAnalysisTest {
+    private static final int GENOMES = 20;
+    private static final int NODES = CoverageAnalysis.CHUNK_SIZE + 100;
+
+    private GenomeGraph g;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        InitFXThread.setupClass();
+    }
+
+    /**
+     * Create a graph where node i goes through i % 21 genomes and is i % 13 bases long.
+     */
+    @Before
+    public void setUp() throws Exception {
+        g = new GenomeGraph("coverage test graph");
+        for (int genome = 0; genome < GENOMES; genome++) {
+            g.addGenome("GENOME" + genome);
+        }
+        for (int i = 0; i < NODES; i++) {
+            TestGraphs.addNode(g, i, i % 13, IntStream.range(0, i % (GENOMES + 1)).toArray());
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        g.removeCache();
+    }
+
+    @Test
+    public void computeTest() {
+        CoverageHistogram histogram = new CoverageAnalysis(g).compute();
+        long[] nodes = new long[GENOMES + 1];
+        long[] bases = new long[GENOMES + 1];
+        for (int i = 0; i < NODES; i++) {
+            nodes[i % (GENOMES + 1)]++;
+            bases[i % (GENOMES + 1)] += i % 13;
+        }
+
+        assertEquals(GENOMES, histogram.getGenomeCount());
+        assertArrayEquals(nodes, histogram.getNodes());
+        assertArrayEquals(bases, histogram.getBases());
+        assertEquals(nodes[3] + nodes[4] + nodes[5], histogram.getNodes(3, 5));
+        assertEquals(NODES, histogram.getNodes(0, Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void partitionTest() {
+        CoverageHistogram histogram = new CoverageAnalysis(g).compute();
+        // the core is in at least 19 of 20 genomes, the cloud in at most 2
+        assertEquals(19, histogram.getMin(CoverageHistogram.Partition.CORE));
+        assertEquals(2, histogram.getMax(CoverageHistogram.Partition.CLOUD));
+        assertEquals(CoverageHistogram.Partition.SHELL, histogram.partitionOf(3));
+        assertEquals(CoverageHistogram.Partition.SHELL, histogram.partitionOf(18));
+        assertEquals(CoverageHistogram.Partition.CORE, histogram.partitionOf(19));
+        assertEquals(CoverageHistogram.Partition.CLOUD, histogram.partitionOf(0));
+        assertEquals(histogram.getBases(0, GENOMES), histogram.getBases(CoverageHistogram.Partition.CORE)
+                + histogram.getBases(CoverageHistogram.Partition.SHELL)
+                + histogram.getBases(CoverageHistogram.Partition.CLOUD));
+    }
+
+    @Test
+    public void fewGenomesTest() {
+        CoverageHistogram histogram = new CoverageHistogram(new long[] {1, 2, 3}, new long[] {10, 20, 30});
+        assertEquals(3, histogram.getNodes(CoverageHistogram.Partition.CORE));
+        assertEquals(20, histogram.getBases(CoverageHistogram.Partition.SHELL));
+        assertEquals(10, histogram.getBases(CoverageHistogram.Partition.CLOUD));
+    }
+
+    @Test
+    public void cacheTest() {
+        CoverageAnalysis analysis = new CoverageAnalysis(g);
+        assertFalse(analysis.isComputed());
+        CoverageHistogram computed = analysis.get();
+        assertTrue(analysis.isComputed());
+        assertNotNull(g.getCoverageHistogram("bases"));
+        assertArrayEquals(computed.getBases(), new CoverageAnalysis(g).get().getBases());
+    }
+}
@@ -0,0 +1,199 @@
+package programminglife.model.analysis;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import programminglife.gui.InitFXThread;
+import programminglife.gui.TestGraphs;
+import programminglife.model.GenomeGraph;
+import programminglife.parser.GraphParser;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the {@link DistanceIndex}.
+ */
+public class DistanceIndexTest {
+    private static String TEST_PATH;
+
+    private GenomeGraph g;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        InitFXThread.setupClass();
+        TEST_PATH = new File(DistanceIndexTest.class.getResource("/test.gfa").toURI()).getAbsolutePath();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        g = new GenomeGraph("distance test graph");
+        g.addGenome("GENOME0");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        g.removeCache();
+    }
+
+    /**
+     * Add nodes with edges, in ascending order of their ID.
+     *
+     * @param lengths the sequence length of each node, indexed by node ID.
+     * @param edges   the children of each node, indexed by node ID.
+     */
+    private void addNodes(int[] lengths, int[][] edges) {
+        for (int id = 0; id < lengths.length; id++) {
+            TestGraphs.addNode(g, id, lengths[id], 0);
+        }
+        for (int id = 0; id < edges.length; id++) {
+            for (int child : edges[id]) {
+                g.addEdge(id, child);
+            }
+        }
+        g.cacheLastEdges();
+    }
+
+    @Test
+    public void testGfaTest() throws Exception {
+        g.removeCache();
+        GraphParser graphParser = new GraphParser(new File(TEST_PATH));
+        graphParser.parse();
+        g = graphParser.getGraph();
+        DistanceIndex index = new DistanceIndex(g);
+        index.build();
+
+        // nodes 2, 3 or 4, 5, 6 or 7: 3 + 1 + 532 + 1 bases
+        assertArrayEquals(new long[] {537, 537}, index.getDistance(1, 8));
+        assertArrayEquals(new long[] {537, 537}, index.getDistance(8, 1));
+        assertArrayEquals(new long[] {532, 532}, index.getDistance(3, 7));
+        assertArrayEquals(new long[] {1, 1}, index.getDistance(2, 5));
+        assertArrayEquals(new long[] {0, 0}, index.getDistance(5, 5));
+        // the two alleles of a SNP
+        assertNull(index.getDistance(3, 4));
+    }
+
+    @Test
+    public void bubbleTest() {
+        // 0 -> (1 | 2 | nothing) -> 3 -> (4 | 5) -> 6, and 7 -> 8 apart from the rest
+        addNodes(new int[] {10, 5, 20, 1, 2, 7, 3, 4, 4},
+                new int[][] {{1, 2, 3}, {3}, {3}, {4, 5}, {6}, {6}, {}, {8}, {}});
+        DistanceIndex index = new DistanceIndex(g);
+        assertFalse(index.isBuilt());
+        index.build();
+        assertTrue(index.isBuilt());
+
+        assertArrayEquals(new long[] {3, 28}, index.getDistance(0, 6));
+        assertArrayEquals(new long[] {0, 20}, index.getDistance(0, 3));
+        assertArrayEquals(new long[] {1, 1}, index.getDistance(1, 5));
+        assertArrayEquals(new long[] {0, 0}, index.getDistance(0, 2));
+        assertNull(index.getDistance(1, 2));
+        assertNull(index.getDistance(0, 8));
+        assertArrayEquals(new long[] {0, 0}, index.getDistance(7, 8));
+
+        // read back from the cache
+        assertArrayEquals(new long[] {3, 28}, new DistanceIndex(g).getDistance(6, 0));
+    }
+
+    /**
+     * Check the distances between all nodes against those found by walking the graph.
+     *
+     * @param lengths the sequence length of each node, indexed by node ID.
+     * @param edges   the children of each node, indexed by node ID.
+     */
+    private void assertDistances(int[] lengths, int[][] edges) {
+        int nodes = lengths.length;
+        DistanceIndex index = new DistanceIndex(g);
+        for (int from = 0; from < nodes; from++) {
+            // the fewest and most bases from the end of from to the start of each later node
+            long[] min = new long[nodes];
+            long[] max = new long[nodes];
+            Arrays.fill(min, Long.MAX_VALUE);
+            Arrays.fill(max, -1);
+            min[from] = 0;
+            max[from] = 0;
+            for (int node = from; node < nodes; node++) {
+                if (max[node] == -1) {
+                    continue;
+                }
+                int length = node == from ? 0 : lengths[node];
+                for (int child : edges[node]) {
+                    min[child] = Math.min(min[child], min[node] + length);
+                    max[child] = Math.max(max[child], max[node] + length);
+                }
+            }
+            for (int to = from; to < nodes; to++) {
+                long[] expected = max[to] == -1 ? null : new long[] {min[to], max[to]};
+                assertArrayEquals(String.format("from %d to %d", from, to), expected, index.getDistance(from, to));
+            }
+        }
+    }
+
+    @Test
+    public void randomGraphTest() {
+        int nodes = 150;
+        Random random = new Random(42);
+        int[] lengths = new int[nodes];
+        int[][] edges = new int[nodes][];
+        for (int id = 0; id < nodes; id++) {
+            lengths[id] = 1 + random.nextInt(20);
+            int node = id;
+            edges[id] = random.ints(1 + random.nextInt(3), 1, 5)
+                    .map(step -> node + step).filter(child -> child < nodes).distinct().sorted().toArray();
+        }
+        addNodes(lengths, edges);
+        new DistanceIndex(g).build();
+        assertDistances(lengths, edges);
+    }
+
+    @Test
+    public void nestedSitesTest() {
+        // a deletion from the first to the last node over a chain of bubbles that each hold a nested bubble
+        int nodes = 120;
+        Random random = new Random(7);
+        int[] lengths = new int[nodes];
+        int[][] edges = new int[nodes][];
+        for (int id = 0; id < nodes; id++) {
+            lengths[id] = 1 + random.nextInt(30);
+            if (id % 6 == 0) {
+                edges[id] = new int[] {id + 1, id + 4};
+            } else if (id % 6 == 1) {
+                edges[id] = new int[] {id + 1, id + 2};
+            } else if (id % 6 == 2 || id % 6 == 3) {
+                edges[id] = new int[] {id - id % 6 + 4};
+            } else {
+                edges[id] = new int[] {id + 1};
+            }
+        }
+        edges[0] = new int[] {1, 4, nodes - 1};
+        edges[nodes - 1] = new int[0];
+        edges[nodes - 2] = new int[] {nodes - 1};
+        edges[nodes - 3] = new int[] {nodes - 2};
+        edges[nodes - 4] = new int[] {nodes - 2};
+        addNodes(lengths, edges);
+        new DistanceIndex(g).build();
+        assertDistances(lengths, edges);
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void unknownNodeTest() {
+        addNodes(new int[] {1, 1}, new int[][] {{1}, {}});
+        DistanceIndex index = new DistanceIndex(g);
+        index.build();
+        index.getDistance(0, 5);
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void notBuiltTest() {
+        addNodes(new int[] {1, 1}, new int[][] {{1}, {}});
+        new DistanceIndex(g).getDistance(0, 1);
+    }
+}
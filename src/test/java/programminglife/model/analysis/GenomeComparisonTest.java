@@ -0,0 +1,146 @@
+package programminglife.model.analysis;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import programminglife.gui.InitFXThread;
+import programminglife.gui.TestGraphs;
+import programminglife.model.GenomeGraph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests for the {@link GenomeComparison} and the {@link GenomeDifference}.
+ */
+public class GenomeComparisonTest {
+    private static final int NODES = GenomeComparison.CHUNK_WORDS * Long.SIZE * 3 + 100;
+    private static final int CHUNK_NODES = GenomeComparison.CHUNK_WORDS * Long.SIZE;
+
+    private GenomeGraph g;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        InitFXThread.setupClass();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        g = new GenomeGraph("comparison test graph");
+        for (int genome = 0; genome < 3; genome++) {
+            g.addGenome("GENOME" + genome);
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        g.removeCache();
+    }
+
+    private static boolean inA(int node) {
+        // a run of nodes unique to genome 0 across the first border between chunks
+        return node % 7 != 3 || node > CHUNK_NODES - 20 && node < CHUNK_NODES + 20;
+    }
+
+    private static boolean inB(int node) {
+        return node % 5 != 1 && (node <= CHUNK_NODES - 20 || node >= CHUNK_NODES + 20);
+    }
+
+    private static int length(int node) {
+        return node % 11 + 1;
+    }
+
+    /**
+     * Add more nodes than fit in three chunks, where genome 0 and genome 1 differ in many places,
+     * and genome 2 goes through the nodes that neither of them goes through.
+     */
+    private void addManyNodes() {
+        for (int node = 0; node < NODES; node++) {
+            int n = node;
+            int[] genomes = IntStream.range(0, 2).filter(genome -> genome == 0 ? inA(n) : inB(n)).toArray();
+            TestGraphs.addNode(g, node, length(node), genomes.length == 0 ? new int[] {2} : genomes);
+        }
+        new CoordinateIndex(g).build();
+    }
+
+    @Test
+    public void compareTest() {
+        addManyNodes();
+        GenomeDifference difference = new GenomeComparison(g).compare(0, 1);
+
+        long[] nodes = new long[3];
+        long[] bases = new long[3];
+        List<int[]> regions = new ArrayList<>();
+        int[] region = null;
+        for (int node = 0; node < NODES; node++) {
+            if (inA(node) && inB(node)) {
+                nodes[2]++;
+                bases[2] += length(node);
+                region = null;
+            } else if (inA(node) || inB(node)) {
+                nodes[inA(node) ? 0 : 1]++;
+                bases[inA(node) ? 0 : 1] += length(node);
+                if (region == null) {
+                    region = new int[] {node, node};
+                    regions.add(region);
+                }
+                region[1] = node;
+            }
+        }
+
+        assertEquals(nodes[0], difference.getNodes(GenomeDifference.Membership.ONLY_A));
+        assertEquals(nodes[1], difference.getNodes(GenomeDifference.Membership.ONLY_B));
+        assertEquals(nodes[2], difference.getNodes(GenomeDifference.Membership.SHARED));
+        assertEquals(bases[0], difference.getBases(GenomeDifference.Membership.ONLY_A));
+        assertEquals(bases[1], difference.getBases(GenomeDifference.Membership.ONLY_B));
+        assertEquals(bases[2], difference.getBases(GenomeDifference.Membership.SHARED));
+
+        assertEquals(regions.size(), difference.getRegions().size());
+        for (int i = 0; i < regions.size(); i++) {
+            assertEquals(regions.get(i)[0], difference.getRegions().get(i).getFirstNodeID());
+            assertEquals(regions.get(i)[1], difference.getRegions().get(i).getLastNodeID());
+        }
+    }
+
+    @Test
+    public void regionTest() {
+        TestGraphs.addNode(g, 1, 10, 0, 1);
+        TestGraphs.addNode(g, 2, 1, 0);
+        TestGraphs.addNode(g, 3, 2, 1);
+        TestGraphs.addNode(g, 4, 5, 2);
+        TestGraphs.addNode(g, 5, 3, 1);
+        TestGraphs.addNode(g, 6, 10, 0, 1);
+        TestGraphs.addNode(g, 7, 4, 0);
+        TestGraphs.addNode(g, 8, 10, 0, 1);
+        new CoordinateIndex(g).build();
+        GenomeDifference difference = new GenomeComparison(g).compare(0, 1);
+
+        // node 4 is in neither genome, so it does not split the first region
+        assertEquals(2, difference.getRegions().size());
+        DifferenceRegion first = difference.getRegions().get(0);
+        assertEquals(2, first.getFirstNodeID());
+        assertEquals(5, first.getLastNodeID());
+        assertEquals(1, first.getNodesA());
+        assertEquals(2, first.getNodesB());
+        assertEquals(1, first.getBasesA());
+        assertEquals(5, first.getBasesB());
+
+        assertEquals(7, difference.regionAfter(2).getFirstNodeID());
+        assertEquals(2, difference.regionAfter(0).getFirstNodeID());
+        assertNull(difference.regionAfter(7));
+        assertEquals(2, difference.regionBefore(7).getFirstNodeID());
+        assertNull(difference.regionBefore(2));
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void notIndexedTest() {
+        TestGraphs.addNode(g, 1, 10, 0, 1);
+        new GenomeComparison(g).compare(0, 1);
+    }
+}
@@ -0,0 +1,132 @@
+package programminglife.model.analysis;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import programminglife.gui.InitFXThread;
+import programminglife.gui.TestGraphs;
+import programminglife.model.GenomeGraph;
+
+import java.util.NoSuchElementException;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the {@link GenomeCountIndex}.
+ */
+public class GenomeCountIndexTest {
+    private static final int GENOMES = 5;
+    private static final int NODES = GenomeCountIndex.RUN_SIZE * 10;
+
+    private GenomeGraph g;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        InitFXThread.setupClass();
+    }
+
+    /**
+     * Create a graph where node 2i + 1 goes through {@link #genomeCount(int)} genomes, so that every genome count
+     * has several runs and the node IDs have gaps.
+     */
+    @Before
+    public void setUp() throws Exception {
+        g = new GenomeGraph("genome count test graph");
+        for (int genome = 0; genome < GENOMES; genome++) {
+            g.addGenome("GENOME" + genome);
+        }
+        for (int i = 0; i < NODES; i++) {
+            int id = 2 * i + 1;
+            TestGraphs.addNode(g, id, "A", IntStream.range(0, genomeCount(id)).toArray());
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        g.removeCache();
+    }
+
+    private static int genomeCount(int nodeID) {
+        return nodeID * 7 % 11 % (GENOMES + 1);
+    }
+
+    /**
+     * Find the nodes in a range by looking at every node.
+     *
+     * @param min  the smallest number of genomes.
+     * @param max  the largest number of genomes.
+     * @param from the smallest node ID.
+     * @param to   the largest node ID.
+     * @return the IDs of the nodes, in ascending order.
+     */
+    private static int[] scan(int min, int max, int from, int to) {
+        return IntStream.range(0, NODES).map(i -> 2 * i + 1)
+                .filter(id -> id >= from && id <= to && genomeCount(id) >= min && genomeCount(id) <= max)
+                .toArray();
+    }
+
+    @Test
+    public void getNodesTest() {
+        GenomeCountIndex index = new GenomeCountIndex(g);
+        assertFalse(index.isBuilt());
+        index.build();
+        assertTrue(index.isBuilt());
+
+        assertArrayEquals(scan(0, GENOMES, 0, Integer.MAX_VALUE), index.getNodes(0, Integer.MAX_VALUE));
+        assertArrayEquals(scan(2, 3, 0, Integer.MAX_VALUE), index.getNodes(2, 3));
+        assertArrayEquals(scan(GENOMES, GENOMES, 0, Integer.MAX_VALUE), index.getNodes(GENOMES, GENOMES));
+        assertArrayEquals(scan(1, 4, 1000, 3000), index.getNodes(1, 4, 1000, 3000));
+        assertArrayEquals(scan(0, 2, 1001, 1001), index.getNodes(0, 2, 1001, 1001));
+        assertEquals(0, index.getNodes(4, 2).length);
+    }
+
+    @Test
+    public void nextPreviousTest() {
+        GenomeCountIndex index = new GenomeCountIndex(g);
+        index.build();
+
+        int[] nodes = scan(1, 2, 0, Integer.MAX_VALUE);
+        int nodeID = -1;
+        for (int expected : nodes) {
+            nodeID = index.next(1, 2, nodeID);
+            assertEquals(expected, nodeID);
+        }
+        assertEquals(-1, index.next(1, 2, nodeID));
+
+        nodeID = Integer.MAX_VALUE;
+        for (int i = nodes.length - 1; i >= 0; i--) {
+            nodeID = index.previous(1, 2, nodeID);
+            assertEquals(nodes[i], nodeID);
+        }
+        assertEquals(-1, index.previous(1, 2, nodeID));
+
+        // from a node ID that is not in the graph
+        assertEquals(scan(4, 4, 1000, Integer.MAX_VALUE)[0], index.next(4, 4, 999));
+        int[] before = scan(4, 4, 0, 999);
+        assertEquals(before[before.length - 1], index.previous(4, 4, 1000));
+    }
+
+    @Test
+    public void cacheTest() {
+        new GenomeCountIndex(g).build();
+        GenomeCountIndex index = new GenomeCountIndex(g);
+        assertTrue(index.isBuilt());
+        assertArrayEquals(scan(3, 3, 0, Integer.MAX_VALUE), index.getNodes(3, 3));
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void notBuiltTest() {
+        new GenomeCountIndex(g).getNodes(0, 1);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void buildTwiceTest() {
+        new GenomeCountIndex(g).build();
+        new GenomeCountIndex(g).build();
+    }
+}
@@ -0,0 +1,126 @@
+package programminglife.model.analysis;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import programminglife.gui.InitFXThread;
+import programminglife.gui.TestGraphs;
+import programminglife.model.GenomeGraph;
+
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests for the {@link GenomeSimilarity} and the {@link SimilarityMatrix}.
+ */
+public class GenomeSimilarityTest {
+    private static final int GENOMES = 4;
+    private static final int NODES = GenomeSimilarity.TILE_NODES + 100;
+
+    private GenomeGraph g;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        InitFXThread.setupClass();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        g = new GenomeGraph("similarity test graph");
+        for (int genome = 0; genome < GENOMES; genome++) {
+            g.addGenome("GENOME" + genome);
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        g.removeCache();
+    }
+
+    /**
+     * Add more nodes than fit in one tile, with lengths up to 300, through different sets of genomes.
+     */
+    private void addManyNodes() {
+        for (int i = 0; i < NODES; i++) {
+            int node = i;
+            TestGraphs.addNode(g, node, node * 7 % 301,
+                    IntStream.range(0, GENOMES).filter(genome -> inGenome(node, genome)).toArray());
+        }
+    }
+
+    private static boolean inGenome(int node, int genome) {
+        return node * (genome + 3) % 5 < 3;
+    }
+
+    @Test
+    public void computeTest() {
+        addManyNodes();
+        SimilarityMatrix matrix = new GenomeSimilarity(g).compute();
+
+        for (int a = 0; a < GENOMES; a++) {
+            for (int b = 0; b < GENOMES; b++) {
+                long sharedNodes = 0;
+                long sharedBases = 0;
+                for (int node = 0; node < NODES; node++) {
+                    if (inGenome(node, a) && inGenome(node, b)) {
+                        sharedNodes++;
+                        sharedBases += node * 7 % 301;
+                    }
+                }
+                assertEquals(sharedNodes, matrix.getSharedNodes(a, b));
+                assertEquals(sharedBases, matrix.getSharedBases(a, b));
+            }
+        }
+    }
+
+    @Test
+    public void jaccardTest() {
+        TestGraphs.addNode(g, 0, 10, 0, 1);
+        TestGraphs.addNode(g, 1, 30, 0);
+        TestGraphs.addNode(g, 2, 60, 1);
+        SimilarityMatrix matrix = new GenomeSimilarity(g).compute();
+
+        assertEquals(1.0 / 3, matrix.getNodeSimilarity(0, 1), 1e-9);
+        assertEquals(10.0 / 100, matrix.getBaseSimilarity(1, 0), 1e-9);
+        assertEquals(1.0, matrix.getNodeSimilarity(0, 0), 1e-9);
+        // genomes 2 and 3 do not go through any node
+        assertEquals(0.0, matrix.getBaseSimilarity(2, 3), 1e-9);
+    }
+
+    @Test
+    public void cacheTest() {
+        TestGraphs.addNode(g, 0, 10, 0, 1);
+        assertNull(g.getSimilarityCounts("sharedBases"));
+        SimilarityMatrix computed = new GenomeSimilarity(g).get();
+        assertNotNull(g.getSimilarityCounts("sharedBases"));
+
+        SimilarityMatrix cached = new GenomeSimilarity(g).get();
+        assertEquals(computed.getSharedBases(0, 1), cached.getSharedBases(0, 1));
+        assertEquals(10, cached.getSharedBases(1, 0));
+    }
+
+    @Test
+    public void clusterOrderTest() {
+        // genomes 0 and 2 share nodes 0 to 5, genomes 1 and 3 share nodes 5 to 9
+        for (int node = 0; node < 10; node++) {
+            int n = node;
+            TestGraphs.addNode(g, node, 1, IntStream.range(0, GENOMES)
+                    .filter(genome -> genome % 2 == 0
+                            ? n <= 5 || genome == 0 && n == 6
+                            : n >= 5 || genome == 3 && n == 4)
+                    .toArray());
+        }
+        int[] order = new GenomeSimilarity(g).compute().clusterOrder(false);
+
+        int[] position = new int[GENOMES];
+        for (int i = 0; i < order.length; i++) {
+            position[order[i]] = i;
+        }
+        assertEquals(1, Math.abs(position[0] - position[2]));
+        assertEquals(1, Math.abs(position[1] - position[3]));
+    }
+}
@@ -0,0 +1,114 @@
+package programminglife.model.analysis;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import programminglife.gui.InitFXThread;
+import programminglife.model.GenomeGraph;
+import programminglife.model.drawing.DrawableNode;
+import programminglife.model.drawing.DrawableSuperNode;
+import programminglife.model.drawing.SubGraph;
+import programminglife.parser.GraphParser;
+
+import java.io.File;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GraphCoarsenerTest {
+    private GenomeGraph graph;
+
+    private static String TEST_PATH;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        InitFXThread.setupClass();
+        TEST_PATH = new File(GraphCoarsenerTest.class.getResource("/test.gfa").toURI()).getAbsolutePath();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        GraphParser graphParser = new GraphParser(new File(TEST_PATH));
+        graphParser.parse();
+        graph = graphParser.getGraph();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        graph.removeCache();
+    }
+
+    @Test
+    public void buildTest() {
+        assertEquals(1, new GraphCoarsener(graph, 1).build());
+        assertTrue(graph.isCoarsened());
+        assertEquals(1, graph.getNumberOfCoarseLevels());
+
+        long length = 0;
+        for (int id = 1; id <= 8; id++) {
+            assertEquals(1, graph.getCoarseNodeID(id, 1));
+            length += graph.getSequenceLength(id);
+        }
+        assertEquals(8, graph.getSegmentCount(1, 1));
+        assertEquals(length, graph.getSequenceLength(1, 1));
+        assertArrayEquals(new int[] {0, 1}, graph.getGenomes(1, 1));
+        assertEquals(0, graph.getChildIDs(1, 1).length);
+        assertEquals(0, graph.getParentIDs(1, 1).length);
+    }
+
+    @Test
+    public void tooFewNodesTest() {
+        assertEquals(0, new GraphCoarsener(graph).build());
+        assertTrue(graph.isCoarsened());
+        assertEquals(4, graph.getCoarseNodeID(4, 0));
+    }
+
+    @Test
+    public void groupChainAndBubbleTest() {
+        // 0 -> 1 -> {2, 3} -> 4 -> 5, 5 -> 6 and 4 -> 6
+        int[][] children = {{1}, {2, 3}, {4}, {4}, {5, 6}, {6}, {}};
+        int[][] parents = {{}, {0}, {1}, {1}, {2, 3}, {4}, {4, 5}};
+
+        int[] group = GraphCoarsener.group(children, parents);
+
+        int[] expected = {0, 0, 0, 0, 0, 0, 0};
+        assertArrayEquals(Arrays.toString(group), expected, group);
+    }
+
+    @Test
+    public void groupComplexBubbleTest() {
+        // 0 -> {1, 2}, 1 -> {2, 3}, 2 -> 3: no chain and no simple bubble.
+        int[][] children = {{1, 2}, {2, 3}, {3}, {}};
+        int[][] parents = {{}, {0}, {0, 1}, {1, 2}};
+
+        int[] group = GraphCoarsener.group(children, parents);
+
+        assertArrayEquals(new int[] {0, 1, 2, 3}, group);
+    }
+
+    @Test
+    public void levelForZoomTest() {
+        assertEquals(0, SubGraph.levelForZoom(1, 3));
+        assertEquals(0, SubGraph.levelForZoom(0.5, 3));
+        assertEquals(1, SubGraph.levelForZoom(0.4, 3));
+        assertEquals(2, SubGraph.levelForZoom(0.2, 3));
+        assertEquals(3, SubGraph.levelForZoom(0.02, 3));
+        assertEquals(0, SubGraph.levelForZoom(0.02, 0));
+    }
+
+    @Test
+    public void atZoomLevelTest() {
+        new GraphCoarsener(graph, 1).build();
+
+        SubGraph subGraph = SubGraph.atZoomLevel(graph, 4, 5, false, 0.1);
+
+        assertEquals(1, subGraph.getLevel());
+        assertEquals(1, subGraph.getNodes().size());
+        DrawableNode node = subGraph.getNodes().get(1);
+        assertTrue(node instanceof DrawableSuperNode);
+        assertEquals(8, ((DrawableSuperNode) node).getSegmentCount());
+    }
+}
@@ -0,0 +1,72 @@
+package programminglife.model.analysis;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Tests for the {@link KmerRuns}.
+ */
+public class KmerRunsTest {
+
+    /**
+     * Make occurrences.
+     *
+     * @param kmersAndPlaces pairs of a k-mer and a place.
+     * @return the occurrences.
+     */
+    private static KmerRuns.Occurrences occurrences(long... kmersAndPlaces) {
+        KmerRuns.Occurrences occurrences = new KmerRuns.Occurrences();
+        for (int i = 0; i < kmersAndPlaces.length; i += 2) {
+            occurrences.add((int) kmersAndPlaces[i], kmersAndPlaces[i + 1]);
+        }
+        return occurrences;
+    }
+
+    @Test
+    public void mergeTest() throws Exception {
+        try (KmerRuns runs = new KmerRuns(16)) {
+            runs.write(Arrays.asList(occurrences(5, 30, 2, 7, 5, 10), occurrences(5, 30, 15, 1)));
+            runs.write(Arrays.asList(occurrences(5, 20, 0, 4), occurrences(2, 7)));
+            runs.write(new ArrayList<>());
+            assertEquals(3, runs.size());
+
+            List<Map.Entry<Integer, long[]>> merged = new ArrayList<>();
+            runs.merge().forEachRemaining(merged::add);
+
+            assertEquals(4, merged.size());
+            assertEquals(0, (int) merged.get(0).getKey());
+            assertArrayEquals(new long[] {4}, merged.get(0).getValue());
+            assertEquals(2, (int) merged.get(1).getKey());
+            assertArrayEquals(new long[] {7}, merged.get(1).getValue());
+            assertEquals(5, (int) merged.get(2).getKey());
+            assertArrayEquals(new long[] {10, 20, 30}, merged.get(2).getValue());
+            assertEquals(15, (int) merged.get(3).getKey());
+            assertArrayEquals(new long[] {1}, merged.get(3).getValue());
+            assertEquals(4, runs.getMergedKmers());
+            assertEquals(6, runs.getMergedPlaces());
+        }
+    }
+
+    @Test
+    public void emptyTest() throws Exception {
+        try (KmerRuns runs = new KmerRuns(16)) {
+            Iterator<Map.Entry<Integer, long[]>> merged = runs.merge();
+            assertFalse(merged.hasNext());
+        }
+    }
+
+    @Test
+    public void unionTest() {
+        assertArrayEquals(new long[] {1, 2, 3, 5, 8}, KmerRuns.union(new long[] {1, 3, 5}, new long[] {2, 3, 8}));
+        assertArrayEquals(new long[] {4}, KmerRuns.union(new long[0], new long[] {4}));
+    }
+}
@@ -0,0 +1,167 @@
+package programminglife.model.analysis;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import programminglife.gui.InitFXThread;
+import programminglife.model.GenomeGraph;
+import programminglife.model.GenomeSet;
+import programminglife.parser.GraphParser;
+
+import java.io.File;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the {@link MotifSearch}.
+ */
+public class MotifSearchTest {
+    private static String TEST_PATH;
+
+    private GenomeGraph graph;
+    private MotifSearch search;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        InitFXThread.setupClass();
+        TEST_PATH = new File(MotifSearchTest.class.getResource("/test.gfa").toURI()).getAbsolutePath();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        GraphParser graphParser = new GraphParser(new File(TEST_PATH));
+        graphParser.parse();
+        graph = graphParser.getGraph();
+        new CoordinateIndex(graph).build();
+        search = new MotifSearch(graph);
+        search.buildIndex();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        graph.removeCache();
+    }
+
+    /**
+     * Get the sequence of a genome.
+     *
+     * @param genomeID the ID of the genome.
+     * @return the sequences of its nodes, one after the other.
+     */
+    private String sequence(int genomeID) {
+        StringBuilder sequence = new StringBuilder();
+        for (int nodeID : new CoordinateIndex(graph).getNodeIDs(genomeID)) {
+            sequence.append(graph.getSequence(nodeID));
+        }
+        return sequence.toString();
+    }
+
+    /**
+     * Find the hit at a place.
+     *
+     * @param hits   the hits.
+     * @param nodeID the ID of the node.
+     * @param offset the offset in the node.
+     * @return the hit, or null if there is none.
+     */
+    private static MotifHit hitAt(List<MotifHit> hits, int nodeID, long offset) {
+        return hits.stream()
+                .filter(hit -> hit.getNodeID() == nodeID && hit.getOffset() == offset)
+                .findFirst().orElse(null);
+    }
+
+    @Test
+    public void builtTest() {
+        assertTrue(graph.getKmerIndex().isBuilt());
+    }
+
+    @Test
+    public void acrossNodesTest() {
+        String node1 = graph.getSequence(1);
+        // the end of node 1, node 2 and node 3 (GENOME1 only), and the start of node 5
+        String motif = node1.substring(node1.length() - 5) + "AAAT" + graph.getSequence(5).substring(0, 5);
+
+        List<MotifHit> hits = search.find(motif, Integer.MAX_VALUE);
+        assertEquals(1, hits.size());
+        assertEquals(1, hits.get(0).getNodeID());
+        assertEquals(node1.length() - 5, hits.get(0).getOffset());
+        assertEquals(GenomeSet.of(graph.getGenomeID("GENOME1")), hits.get(0).getGenomes());
+    }
+
+    @Test
+    public void shortMotifTest() {
+        List<MotifHit> hits = search.find("aaac", Integer.MAX_VALUE);
+        MotifHit hit = hitAt(hits, 2, 0);
+        assertEquals(GenomeSet.of(graph.getGenomeID("GENOME2")), hit.getGenomes());
+    }
+
+    /**
+     * Every window of every genome is found at the place it starts at, for that genome.
+     */
+    @Test
+    public void allWindowsTest() {
+        for (int genomeID = 0; genomeID < graph.getTotalGenomeNumber(); genomeID++) {
+            String sequence = sequence(genomeID);
+            CoordinateIndex index = new CoordinateIndex(graph);
+            for (int length : new int[] {MotifSearch.K, MotifSearch.K + 7}) {
+                for (int start = 0; start + length <= sequence.length(); start++) {
+                    List<MotifHit> hits = search.find(sequence.substring(start, start + length), Integer.MAX_VALUE);
+                    GenomePosition position = index.locate(genomeID, start);
+                    MotifHit hit = hitAt(hits, position.getNodeID(), position.getOffset());
+                    assertTrue(hit != null && hit.getGenomes().contains(genomeID));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void manyNodesTest() throws Exception {
+        // a motif over a long chain of nodes of one base each
+        int nodes = 20000;
+        GenomeGraph chain = new GenomeGraph("motif chain test graph");
+        try {
+            chain.addGenome("GENOME0");
+            StringBuilder motif = new StringBuilder();
+            Random random = new Random(11);
+            for (int id = 0; id < nodes; id++) {
+                String base = String.valueOf("ACGT".charAt(random.nextInt(4)));
+                motif.append(base);
+                chain.replaceNode(id);
+                chain.setSequence(id, base);
+                chain.setGenomes(id, new int[] {0});
+                if (id > 0) {
+                    chain.addEdge(id - 1, id);
+                }
+            }
+            chain.cacheLastEdges();
+            MotifSearch chainSearch = new MotifSearch(chain);
+            chainSearch.buildIndex();
+
+            MotifHit hit = hitAt(chainSearch.find(motif.toString(), Integer.MAX_VALUE), 0, 0);
+            assertEquals(GenomeSet.of(0), hit.getGenomes());
+        } finally {
+            chain.removeCache();
+        }
+    }
+
+    @Test
+    public void limitTest() {
+        assertEquals(1, search.find("TTGACG", 1).size());
+        assertTrue(search.find("TTGACG", Integer.MAX_VALUE).size() > 1);
+    }
+
+    @Test
+    public void notFoundTest() {
+        assertFalse(search.find("GGGGGGGGGGGGGGG", Integer.MAX_VALUE).iterator().hasNext());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidMotifTest() {
+        search.find("ACGN", Integer.MAX_VALUE);
+    }
+}
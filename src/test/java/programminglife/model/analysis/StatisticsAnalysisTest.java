@@ -0,0 +1,90 @@
+package programminglife.model.analysis;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import programminglife.gui.InitFXThread;
+import programminglife.model.GenomeGraph;
+import programminglife.parser.GraphParser;
+
+import java.io.File;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the {@link StatisticsAnalysis} and the {@link GraphStatistics}.
+ */
+public class StatisticsAnalysisTest {
+    private static String TEST_PATH;
+
+    private GenomeGraph graph;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        InitFXThread.setupClass();
+        TEST_PATH = new File(StatisticsAnalysisTest.class.getResource("/test.gfa").toURI()).getAbsolutePath();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        GraphParser graphParser = new GraphParser(new File(TEST_PATH));
+        graphParser.parse();
+        graph = graphParser.getGraph();
+        new BubbleDetector(graph).detect();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        graph.removeCache();
+    }
+
+    @Test
+    public void computeTest() {
+        GraphStatistics statistics = new StatisticsAnalysis(graph).compute();
+
+        assertEquals(8, statistics.getNodeCount());
+        assertEquals(9, statistics.getEdgeCount());
+        assertEquals(2, statistics.getGenomeCount());
+        assertEquals(998, statistics.getTotalBases());
+        assertEquals(1, statistics.getMinLength());
+        assertEquals(532, statistics.getMaxLength());
+        assertEquals(532, statistics.getN50());
+        // the bubbles from node 2 to 5 and from node 5 to 8 are both SNPs
+        assertEquals(2, statistics.getBubbleCount());
+        assertEquals(2, statistics.getSNPCount());
+
+        assertArrayEquals(new long[] {1, 5, 2, 0, 0, 0, 0, 0, 0}, statistics.getInDegrees());
+        assertArrayEquals(new long[] {1, 5, 2, 0, 0, 0, 0, 0, 0}, statistics.getOutDegrees());
+        long[] lengths = statistics.getLengths();
+        assertEquals(4, lengths[GraphStatistics.lengthBucket(1)]);
+        assertEquals(2, lengths[GraphStatistics.lengthBucket(3)]);
+        assertEquals(1, lengths[GraphStatistics.lengthBucket(456)]);
+        assertEquals(1, lengths[GraphStatistics.lengthBucket(532)]);
+    }
+
+    @Test
+    public void lengthBucketTest() {
+        assertEquals(0, GraphStatistics.lengthBucket(0));
+        assertEquals(1, GraphStatistics.lengthBucket(1));
+        assertEquals(2, GraphStatistics.lengthBucket(2));
+        assertEquals(2, GraphStatistics.lengthBucket(3));
+        assertEquals(3, GraphStatistics.lengthBucket(4));
+        assertEquals(Integer.SIZE - 1, GraphStatistics.lengthBucket(Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void cacheTest() {
+        StatisticsAnalysis analysis = new StatisticsAnalysis(graph);
+        assertFalse(analysis.isComputed());
+        GraphStatistics computed = analysis.get();
+        assertTrue(analysis.isComputed());
+
+        GraphStatistics cached = new StatisticsAnalysis(graph).get();
+        assertEquals(computed.toString(), cached.toString());
+        assertTrue(cached.toString().contains("SNPs: 2"));
+    }
+}
@@ -0,0 +1,131 @@
+package programminglife.model.analysis;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import programminglife.gui.InitFXThread;
+import programminglife.gui.TestGraphs;
+import programminglife.model.GenomeGraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests for the {@link VariantCaller}.
+ */
+public class VariantCallerTest {
+    private GenomeGraph g;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        InitFXThread.setupClass();
+    }
+
+    /**
+     * Create a graph with a SNP that genome 2 does not go through, a deletion in genome 1,
+     * and a superbubble with a nested SNP between genomes 0 and 1, which genome 2 goes around.
+     */
+    @Before
+    public void setUp() throws Exception {
+        g = new GenomeGraph("variant test graph");
+        g.addGenome("REF");
+        g.addGenome("ALT");
+        g.addGenome("ALT2");
+        TestGraphs.addNode(g, 0, "ACGT", 0, 1);
+        TestGraphs.addNode(g, 1, "A", 0);
+        TestGraphs.addNode(g, 2, "C", 1);
+        TestGraphs.addNode(g, 3, "GG", 0, 1, 2);
+        TestGraphs.addNode(g, 4, "TTT", 0, 2);
+        TestGraphs.addNode(g, 5, "C", 0, 1, 2);
+        TestGraphs.addNode(g, 6, "A", 0, 1);
+        TestGraphs.addNode(g, 7, "C", 0);
+        TestGraphs.addNode(g, 8, "G", 1);
+        TestGraphs.addNode(g, 9, "A", 0, 1);
+        TestGraphs.addNode(g, 10, "TT", 2);
+        TestGraphs.addNode(g, 11, "C", 0, 1, 2);
+        int[][] edges = {{0, 1}, {0, 2}, {1, 3}, {2, 3}, {3, 4}, {3, 5}, {4, 5}, {5, 6}, {5, 10},
+                {6, 7}, {6, 8}, {7, 9}, {8, 9}, {9, 11}, {10, 11}};
+        for (int[] edge : edges) {
+            g.addEdge(edge[0], edge[1]);
+        }
+        g.cacheLastEdges();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        g.removeCache();
+    }
+
+    /**
+     * Find the variants.
+     *
+     * @param caller      the {@link VariantCaller}.
+     * @param referenceID the ID of the reference genome.
+     * @return the variants, in order.
+     */
+    private static List<Variant> call(VariantCaller caller, int referenceID) {
+        List<Variant> variants = new ArrayList<>();
+        int found = caller.call(referenceID, variants::add);
+        assertEquals(found, variants.size());
+        return variants;
+    }
+
+    @Test
+    public void callTest() {
+        List<Variant> variants = call(new VariantCaller(g), 0);
+        assertEquals(3, variants.size());
+
+        Variant snp = variants.get(0);
+        assertEquals(Variant.Type.SNP, snp.getType());
+        assertEquals(5, snp.getPosition());
+        assertEquals(Arrays.asList("A", "C"), snp.getAlleles());
+        assertEquals(0, snp.getGenotype(0));
+        assertEquals(1, snp.getGenotype(1));
+        assertEquals(-1, snp.getGenotype(2));
+
+        Variant deletion = variants.get(1);
+        assertEquals(Variant.Type.INDEL, deletion.getType());
+        assertEquals(7, deletion.getPosition());
+        assertEquals(Arrays.asList("GTTT", "G"), deletion.getAlleles());
+        assertEquals(0, deletion.getGenotype(2));
+
+        Variant superbubble = variants.get(2);
+        assertEquals(Variant.Type.COMPLEX, superbubble.getType());
+        assertEquals(5, superbubble.getSourceID());
+        assertEquals(11, superbubble.getSinkID());
+        assertEquals(5, superbubble.getNodes());
+        assertEquals(11, superbubble.getPosition());
+        assertEquals(Arrays.asList("CACA", "CAGA", "CTT"), superbubble.getAlleles());
+        assertEquals(2, superbubble.getGenotype(2));
+    }
+
+    @Test
+    public void otherReferenceTest() {
+        List<Variant> variants = call(new VariantCaller(g), 2);
+        // the reference does not go through the SNP
+        assertEquals(2, variants.size());
+        assertEquals(2, variants.get(0).getPosition());
+        assertEquals(Arrays.asList("GTTT", "G"), variants.get(0).getAlleles());
+        assertEquals(Arrays.asList("CTT", "CACA", "CAGA"), variants.get(1).getAlleles());
+    }
+
+    @Test
+    public void maxSiteNodesTest() {
+        List<Variant> variants = call(new VariantCaller(g, 4), 0);
+        assertEquals(2, variants.size());
+        assertEquals(3, variants.get(1).getSourceID());
+    }
+
+    @Test
+    public void classifyTest() {
+        assertEquals(Variant.Type.SNP, VariantCaller.classify(Arrays.asList("A", "C", "G")));
+        assertEquals(Variant.Type.INDEL, VariantCaller.classify(Arrays.asList("A", "AT")));
+        assertEquals(Variant.Type.INDEL, VariantCaller.classify(Arrays.asList("ACGT", "AGT", "")));
+        assertEquals(Variant.Type.COMPLEX, VariantCaller.classify(Arrays.asList("AC", "GT")));
+        assertEquals(Variant.Type.COMPLEX, VariantCaller.classify(Arrays.asList("ACGT", "AT", "GGGGG")));
+    }
+}
@@ -0,0 +1,60 @@
+package programminglife.model.drawing;
+
+import javafx.scene.paint.Color;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import programminglife.gui.FxColors;
+import programminglife.gui.InitFXThread;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests for {@link Colors} and their conversion to JavaFX by {@link FxColors}.
+ */
+public class ColorsTest {
+    private static final double BYTE = 1.d / 255;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        InitFXThread.setupClass();
+    }
+
+    @Test
+    public void hsbTest() {
+        for (int hue = -60; hue <= 420; hue += 15) {
+            for (double saturation = 0; saturation <= 1; saturation += 0.25) {
+                for (double brightness = 0; brightness <= 1; brightness += 0.25) {
+                    Color expected = Color.hsb(hue, saturation, brightness);
+                    int color = Colors.hsb(hue, saturation, brightness);
+                    assertEquals(expected.getRed(), Colors.getRed(color), BYTE);
+                    assertEquals(expected.getGreen(), Colors.getGreen(color), BYTE);
+                    assertEquals(expected.getBlue(), Colors.getBlue(color), BYTE);
+                    assertEquals(1.d, Colors.getOpacity(color), 0);
+                    assertEquals(expected.getBrightness(), Colors.getBrightness(color), BYTE);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void namedColorsTest() {
+        assertEquals(FxColors.fromFx(Color.BLACK), Colors.BLACK);
+        assertEquals(FxColors.fromFx(Color.WHITE), Colors.WHITE);
+        assertEquals(FxColors.fromFx(Color.LIGHTSTEELBLUE), Colors.LIGHT_STEEL_BLUE);
+        assertEquals(FxColors.fromFx(Color.BLANCHEDALMOND), Colors.BLANCHED_ALMOND);
+        assertEquals(FxColors.fromFx(Color.DARKSLATEGRAY), Colors.DARK_SLATE_GRAY);
+    }
+
+    @Test
+    public void fxRoundTripTest() {
+        int color = Colors.argb(0.5, 0.2, 0.4, 0.6);
+        Color fx = FxColors.toFx(color);
+        assertEquals(0.5, fx.getOpacity(), BYTE);
+        assertEquals(0.2, fx.getRed(), BYTE);
+        assertEquals(0.4, fx.getGreen(), BYTE);
+        assertEquals(0.6, fx.getBlue(), BYTE);
+        assertEquals(color, FxColors.fromFx(fx));
+        assertSame(fx, FxColors.toFx(color));
+    }
+}
@@ -61,7 +61,8 @@ public class DrawableEdgeTest {
         edge.colorize(subGraph);
 
         assertEquals(3.2, edge.getStrokeWidth(), 0.001);
-        assertEquals(0.4600000, edge.getStrokeColor().getBrightness(), 0.001);
+        // the brightness is stored in a byte
+        assertEquals(0.4600000, Colors.getBrightness(edge.getStrokeColor()), 1.d / 255);
     }
 
 }
@@ -72,6 +72,22 @@ public class DrawableNodeTest {
         assertEquals(new XYCoordinate(4,3), node.getCenter());
     }
 
+    @Test
+    public void moveToTest() {
+        node.setLocation(2, 2);
+        node.setSize(4, 2);
+
+        LayoutGeometry geometry = new LayoutGeometry(0);
+        node.moveTo(geometry);
+        geometry.translate(1, -1);
+
+        assertEquals(1, geometry.size());
+        assertEquals(3, node.getX(), 0.0);
+        assertEquals(1, node.getY(), 0.0);
+        assertEquals(4, node.getWidth(), 0.0);
+        assertEquals(2, node.getCenterY(), 0.0);
+    }
+
 
 
 
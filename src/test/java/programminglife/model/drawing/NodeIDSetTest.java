@@ -0,0 +1,74 @@
+package programminglife.model.drawing;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import programminglife.gui.InitFXThread;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the {@link NodeIDSet}.
+ */
+public class NodeIDSetTest {
+    private NodeIDSet set;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        InitFXThread.setupClass();
+    }
+
+    @Before
+    public void setUp() {
+        set = new NodeIDSet(new int[] {12, 3, 12, -4});
+    }
+
+    @Test
+    public void constructorTest() {
+        assertEquals(3, set.size());
+        assertEquals(Arrays.asList(-4, 3, 12), new ArrayList<>(set));
+    }
+
+    @Test
+    public void addRemoveTest() {
+        assertTrue(set.add(5));
+        assertFalse(set.add(5));
+        assertTrue(set.add(-10));
+        assertTrue(set.add(100));
+        assertEquals(Arrays.asList(-10, -4, 3, 5, 12, 100), new ArrayList<>(set));
+
+        assertTrue(set.remove(3));
+        assertFalse(set.remove(3));
+        assertFalse(set.remove("5"));
+        assertTrue(set.contains(5));
+        assertFalse(set.contains(3));
+        assertEquals(5, set.size());
+    }
+
+    @Test
+    public void addToEmptyTest() {
+        NodeIDSet empty = new NodeIDSet(new int[0]);
+        assertTrue(empty.add(1));
+        assertTrue(empty.add(0));
+        assertEquals(Arrays.asList(0, 1), new ArrayList<>(empty));
+    }
+
+    @Test
+    public void iteratorRemoveTest() {
+        Iterator<Integer> iterator = set.iterator();
+        assertEquals(-4, (int) iterator.next());
+        assertEquals(3, (int) iterator.next());
+        iterator.remove();
+        assertEquals(12, (int) iterator.next());
+        assertFalse(iterator.hasNext());
+
+        assertEquals(new HashSet<>(Arrays.asList(-4, 12)), set);
+    }
+}
@@ -10,8 +10,16 @@ import programminglife.parser.GraphParser;
 
 import java.io.File;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 public class SubGraphTest {
@@ -69,4 +77,170 @@ public class SubGraphTest {
             found.add(n);
         }
     }
+
+    @Test
+    public void neighbourCursorTest() throws Exception {
+        SubGraph sg = new SubGraph(centerNode, 5, false);
+
+        for (DrawableNode node : sg.getNodes().values()) {
+            List<DrawableNode> children = new ArrayList<>();
+            for (int i = 0; i < sg.getChildCount(node); i++) {
+                children.add(sg.getChild(node, i));
+            }
+            List<DrawableNode> parents = new ArrayList<>();
+            for (int i = 0; i < sg.getParentCount(node); i++) {
+                parents.add(sg.getParent(node, i));
+            }
+
+            assertEquals(new ArrayList<>(sg.getChildren(node)), children);
+            assertEquals(new ArrayList<>(sg.getParents(node)), parents);
+        }
+    }
+
+    @Test
+    public void translateZoomTest() throws Exception {
+        SubGraph sg = new SubGraph(centerNode, 5, false);
+        Map<DrawableNode, double[]> before = new HashMap<>();
+        for (DrawableNode node : sg.getNodes().values()) {
+            before.put(node, new double[] {node.getX(), node.getY(), node.getWidth()});
+        }
+
+        sg.translate(10, -5);
+        sg.zoom(2);
+
+        before.forEach((node, location) -> {
+            assertEquals((location[0] + 10) / 2, node.getX(), 1e-9);
+            assertEquals((location[1] - 5) / 2, node.getY(), 1e-9);
+            assertEquals(location[2] / 2, node.getWidth(), 1e-9);
+        });
+    }
+
+    @Test
+    public void prepareInParallelTest() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<CompletableFuture<SubGraph>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(SubGraph.prepare(graph, 4, 5, true, 1, executor));
+            }
+            Set<Integer> expected = new SubGraph(centerNode, 5, true).getNodes().keySet().stream()
+                    .filter(id -> id >= 0).collect(Collectors.toSet());
+
+            Set<Integer> dummyIDs = new HashSet<>();
+            int dummies = 0;
+            for (CompletableFuture<SubGraph> future : futures) {
+                Set<Integer> ids = future.get().getNodes().keySet();
+                assertEquals(expected, ids.stream().filter(id -> id >= 0).collect(Collectors.toSet()));
+                for (int id : ids) {
+                    if (id < 0) {
+                        dummyIDs.add(id);
+                        dummies++;
+                    }
+                }
+            }
+            assertEquals(dummies, dummyIDs.size());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void compactChainsTest() throws Exception {
+        GenomeGraph chains = new GenomeGraph("compactChainsTest");
+        try {
+            chains.addGenome("A");
+            chains.addGenome("B");
+            for (int i = 0; i < 20; i++) {
+                chains.replaceNode(i);
+                chains.setSequence(i, i == 10 ? "C" : i == 11 ? "G" : "AC");
+                chains.setGenomes(i, i == 10 ? new int[] {0} : i == 11 ? new int[] {1} : new int[] {0, 1});
+            }
+            for (int i = 0; i < 19; i++) {
+                if (i != 10) {
+                    chains.addEdge(i, i + 1);
+                }
+            }
+            chains.addEdge(9, 11);
+            chains.addEdge(10, 12);
+            chains.cacheLastEdges();
+
+            assertEquals(20, new SubGraph(new DrawableSegment(chains, 5, 1), 5, false).getNodes().size());
+
+            SubGraph sg = new SubGraph(new DrawableSegment(chains, 5, 1), 5, true);
+            List<DrawableChain> found = sg.getNodes().values().stream()
+                    .filter(DrawableChain.class::isInstance).map(DrawableChain.class::cast)
+                    .collect(Collectors.toList());
+            assertEquals(3, sg.getNodes().size());
+            assertEquals(2, found.size());
+
+            DrawableChain left = found.get(0).getFirst().getIdentifier() == 0 ? found.get(0) : found.get(1);
+            DrawableChain right = left == found.get(0) ? found.get(1) : found.get(0);
+            assertEquals(10, left.getSegments().size());
+            assertEquals(20, left.getSequenceLength());
+            assertEquals(String.join("", Collections.nCopies(10, "AC")), left.getSequence());
+            assertEquals(12, right.getFirst().getIdentifier());
+            assertEquals(19, right.getLast().getIdentifier());
+
+            DrawableNode snp = sg.getChildren(left).iterator().next();
+            assertTrue(snp instanceof DrawableSNP);
+            assertEquals(Collections.singletonList(right), new ArrayList<>(sg.getChildren(snp)));
+            assertEquals(left, sg.getDrawingOf(5));
+        } finally {
+            chains.removeCache();
+        }
+    }
+
+    @Test
+    public void layoutRoundTripTest() throws Exception {
+        for (boolean replaceSNPs : new boolean[] {false, true}) {
+            SubGraph sg = new SubGraph(centerNode, 5, replaceSNPs);
+            int[] layout = sg.getLayout();
+
+            SubGraph restored = SubGraph.fromLayout(graph, layout, replaceSNPs);
+
+            assertArrayEquals(layout, restored.getLayout());
+            sg.getNodes().forEach((id, node) -> {
+                if (id >= 0) {
+                    assertEquals(node.getX(), restored.getNodes().get(id).getX(), 1e-9);
+                    assertEquals(node.getY(), restored.getNodes().get(id).getY(), 1e-9);
+                }
+            });
+        }
+    }
+
+    @Test
+    public void fromLayoutOtherVersionTest() throws Exception {
+        int[] layout = new SubGraph(centerNode, 5, false).getLayout();
+        layout[0]++;
+        assertNull(SubGraph.fromLayout(graph, layout, false));
+    }
+
+    @Test(expected = CancellationException.class)
+    public void staleBeforeSearchTest() throws Exception {
+        new SubGraph(centerNode, 5, false, () -> true);
+    }
+
+    @Test
+    public void staleDuringBuildTest() throws Exception {
+        int stages = 0;
+        SubGraph sg = null;
+        while (sg == null) {
+            AtomicInteger checks = new AtomicInteger(stages);
+            try {
+                sg = new SubGraph(centerNode, 5, false, () -> checks.getAndDecrement() <= 0);
+            } catch (CancellationException e) {
+                stages++;
+            }
+        }
+        // the search for nodes, its steps, SNP detection, layering, sorting and coloring are all checked
+        assertTrue(stages > 5);
+        assertEquals(new SubGraph(centerNode, 5, false).getNodes().keySet(), sg.getNodes().keySet());
+    }
+
+    @Test
+    public void zoomForLevelTest() {
+        for (int level = 0; level < 5; level++) {
+            assertEquals(level, SubGraph.levelForZoom(SubGraph.zoomForLevel(level), 5));
+        }
+    }
 }
@@ -0,0 +1,126 @@
+package programminglife.parser;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import programminglife.gui.InitFXThread;
+import programminglife.model.GenomeGraph;
+import programminglife.model.analysis.CoordinateIndex;
+
+import java.io.File;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FastaExporterTest {
+    private static String TEST_PATH;
+
+    private GenomeGraph graph;
+    private FastaExporter exporter;
+    private Path directory;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        InitFXThread.setupClass();
+        TEST_PATH = new File(FastaExporterTest.class.getResource("/test.gfa").toURI()).getAbsolutePath();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        GraphParser graphParser = new GraphParser(new File(TEST_PATH));
+        graphParser.parse();
+        graph = graphParser.getGraph();
+        new CoordinateIndex(graph).build();
+        exporter = new FastaExporter(graph);
+        directory = Files.createTempDirectory("fastaExporterTest");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        graph.removeCache();
+        for (File file : directory.toFile().listFiles()) {
+            Files.delete(file.toPath());
+        }
+        Files.delete(directory);
+    }
+
+    /**
+     * Get the expected FASTA of a genome.
+     *
+     * @param name  the name of the genome.
+     * @param nodes the nodes along the genome.
+     * @return the FASTA.
+     */
+    private String fasta(String name, int... nodes) {
+        StringBuilder sequence = new StringBuilder();
+        for (int node : nodes) {
+            sequence.append(graph.getSequence(node));
+        }
+        StringBuilder fasta = new StringBuilder(">").append(name).append('\n');
+        for (int start = 0; start < sequence.length(); start += FastaExporter.LINE_WIDTH) {
+            fasta.append(sequence, start, Math.min(sequence.length(), start + FastaExporter.LINE_WIDTH)).append('\n');
+        }
+        return fasta.toString();
+    }
+
+    @Test
+    public void writeTest() throws Exception {
+        StringWriter out = new StringWriter();
+        exporter.write(graph.getGenomeID("GENOME1"), out);
+        assertEquals(fasta("GENOME1", 1, 2, 3, 5, 6, 8), out.toString());
+
+        out = new StringWriter();
+        exporter.write(graph.getGenomeID("GENOME2"), out);
+        assertEquals(fasta("GENOME2", 1, 2, 4, 5, 7, 8), out.toString());
+    }
+
+    @Test
+    public void exportAllTest() throws Exception {
+        int[] genomeIDs = IntStream.range(0, graph.getTotalGenomeNumber()).toArray();
+        List<File> files = exporter.exportAll(genomeIDs, directory.toFile(), 2);
+
+        assertEquals(2, files.size());
+        assertEquals("GENOME1.fasta", files.get(0).getName());
+        assertTrue(files.get(1).exists());
+        assertEquals(fasta("GENOME2", 1, 2, 4, 5, 7, 8),
+                new String(Files.readAllBytes(files.get(1).toPath()), StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    public void exportAllSameNameTest() throws Exception {
+        int genomeID = graph.getGenomeID("GENOME1");
+        List<File> files = exporter.exportAll(new int[] {genomeID, genomeID}, directory.toFile(), 2);
+
+        assertEquals("GENOME1.fasta", files.get(0).getName());
+        assertEquals("GENOME1_" + genomeID + ".fasta", files.get(1).getName());
+        for (File file : files) {
+            assertEquals(fasta("GENOME1", 1, 2, 3, 5, 6, 8),
+                    new String(Files.readAllBytes(file.toPath()), StandardCharsets.US_ASCII));
+        }
+    }
+
+    @Test
+    public void uniqueFileNameTest() {
+        Set<String> fileNames = new HashSet<>();
+        assertEquals("a_b.fasta", FastaExporter.toFileName("a/b", 0, fileNames));
+        assertEquals("a_b_1.fasta", FastaExporter.toFileName("a_b", 1, fileNames));
+        assertEquals("A_B_2.fasta", FastaExporter.toFileName("A B", 2, fileNames));
+        // the name with the ID added is taken as well
+        assertEquals("a_b_1_1.fasta", FastaExporter.toFileName("a b", 1, fileNames));
+    }
+
+    @Test
+    public void toFileNameTest() {
+        assertEquals("a_b_c.fasta", FastaExporter.toFileName("a b/c"));
+        assertEquals("TKK-01-0015.fasta", FastaExporter.toFileName("TKK-01-0015.fasta"));
+    }
+}
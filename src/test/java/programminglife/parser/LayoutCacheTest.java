@@ -0,0 +1,88 @@
+package programminglife.parser;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import programminglife.gui.InitFXThread;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class LayoutCacheTest {
+    private static final String TEST_FILE = Cache.toLayoutFile(Cache.toDBFile("layoutCacheTest"));
+
+    private LayoutCache layoutCache;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        InitFXThread.setupClass();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        Files.createDirectories(Paths.get(TEST_FILE).getParent());
+        // room for two layouts of 10 ints
+        layoutCache = new LayoutCache(TEST_FILE, 2 * 10 * Integer.BYTES);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        layoutCache.removeDB();
+    }
+
+    @Test
+    public void putGetTest() {
+        int[] layout = {1, 2, 3};
+        layoutCache.put(4, 50, true, layout);
+
+        assertArrayEquals(layout, layoutCache.get(4, 50, true));
+        assertNull(layoutCache.get(4, 50, false));
+        assertNull(layoutCache.get(4, 51, true));
+        assertNull(layoutCache.get(5, 50, true));
+    }
+
+    @Test
+    public void replaceTest() {
+        layoutCache.put(4, 50, true, new int[10]);
+        layoutCache.put(4, 50, true, new int[] {7});
+
+        assertArrayEquals(new int[] {7}, layoutCache.get(4, 50, true));
+        assertEquals(Integer.BYTES, layoutCache.getSize());
+    }
+
+    @Test
+    public void evictLeastRecentlyUsedTest() {
+        layoutCache.put(1, 50, true, new int[10]);
+        layoutCache.put(2, 50, true, new int[10]);
+        layoutCache.get(1, 50, true);
+        layoutCache.put(3, 50, true, new int[10]);
+
+        assertNotNull(layoutCache.get(1, 50, true));
+        assertNull(layoutCache.get(2, 50, true));
+        assertNotNull(layoutCache.get(3, 50, true));
+        assertEquals(2 * 10 * Integer.BYTES, layoutCache.getSize());
+    }
+
+    @Test
+    public void tooLargeTest() {
+        layoutCache.put(1, 50, true, new int[100]);
+
+        assertNull(layoutCache.get(1, 50, true));
+        assertEquals(0, layoutCache.getSize());
+    }
+
+    @Test
+    public void persistentTest() {
+        layoutCache.put(1, 50, false, new int[] {1, 2});
+        layoutCache.close();
+        layoutCache = new LayoutCache(TEST_FILE, 2 * 10 * Integer.BYTES);
+
+        assertArrayEquals(new int[] {1, 2}, layoutCache.get(1, 50, false));
+    }
+}
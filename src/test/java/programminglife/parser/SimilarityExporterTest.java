@@ -0,0 +1,51 @@
+package programminglife.parser;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import programminglife.gui.InitFXThread;
+import programminglife.model.GenomeGraph;
+import programminglife.model.analysis.GenomeSimilarity;
+
+import java.io.File;
+import java.io.StringWriter;
+
+import static org.junit.Assert.assertEquals;
+
+public class SimilarityExporterTest {
+    private static String TEST_PATH;
+
+    private GenomeGraph graph;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        InitFXThread.setupClass();
+        TEST_PATH = new File(SimilarityExporterTest.class.getResource("/test.gfa").toURI()).getAbsolutePath();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        GraphParser graphParser = new GraphParser(new File(TEST_PATH));
+        graphParser.parse();
+        graph = graphParser.getGraph();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        graph.removeCache();
+    }
+
+    @Test
+    public void writeTest() throws Exception {
+        StringWriter out = new StringWriter();
+        new SimilarityExporter(graph, new GenomeSimilarity(graph).get()).write(false, false, out);
+
+        // both genomes go through 6 nodes, 4 of which they share
+        String name0 = graph.getGenomeName(0);
+        String name1 = graph.getGenomeName(1);
+        assertEquals("genome\t" + name0 + "\t" + name1 + "\n"
+                + name0 + "\t1.0000\t0.5000\n"
+                + name1 + "\t0.5000\t1.0000\n", out.toString());
+    }
+}
@@ -0,0 +1,68 @@
+package programminglife.parser;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import programminglife.gui.InitFXThread;
+import programminglife.model.GenomeGraph;
+import programminglife.model.analysis.CoordinateIndex;
+
+import java.io.File;
+import java.io.StringWriter;
+
+import static org.junit.Assert.assertEquals;
+
+public class VcfExporterTest {
+    private static String TEST_PATH;
+
+    private GenomeGraph graph;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        InitFXThread.setupClass();
+        TEST_PATH = new File(VcfExporterTest.class.getResource("/test.gfa").toURI()).getAbsolutePath();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        GraphParser graphParser = new GraphParser(new File(TEST_PATH));
+        graphParser.parse();
+        graph = graphParser.getGraph();
+        new CoordinateIndex(graph).build();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        graph.removeCache();
+    }
+
+    @Test
+    public void writeTest() throws Exception {
+        int reference = graph.getGenomeID("GENOME1");
+        long snp1 = graph.getSequenceLength(1) + graph.getSequenceLength(2) + 1;
+        long snp2 = snp1 + graph.getSequenceLength(5) + 1;
+        String[] genotypes = new String[2];
+        genotypes[reference] = "0";
+        genotypes[1 - reference] = "1";
+
+        StringWriter out = new StringWriter();
+        assertEquals(2, new VcfExporter(graph).write(reference, out));
+        String[] lines = out.toString().split("\n");
+
+        assertEquals("##fileformat=VCFv4.2", lines[0]);
+        assertEquals("##contig=<ID=GENOME1,length=" + (snp2 + graph.getSequenceLength(8)) + ">", lines[2]);
+        assertEquals("#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\tFORMAT\t"
+                + graph.getGenomeName(0) + "\t" + graph.getGenomeName(1), lines[6]);
+        assertEquals("GENOME1\t" + snp1 + "\t2_5\tT\tC\t.\tPASS\tTYPE=snp;NODES=2\tGT\t"
+                + genotypes[0] + "\t" + genotypes[1], lines[7]);
+        assertEquals("GENOME1\t" + snp2 + "\t5_8\tC\tG\t.\tPASS\tTYPE=snp;NODES=2\tGT\t"
+                + genotypes[0] + "\t" + genotypes[1], lines[8]);
+        assertEquals(9, lines.length);
+    }
+
+    @Test
+    public void toColumnTest() {
+        assertEquals("a_b_c", VcfExporter.toColumn("a b\tc"));
+    }
+}